@@ -0,0 +1,431 @@
+package GESTION_DE_PARKING;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Almacén compacto de tickets históricos organizado por columnas de tipos primitivos.
+ * <p>
+ * En lugar de un objeto {@link Ticket} por fila (con campos encapsulados, dos {@link LocalDateTime} y una
+ * {@link String}), cada atributo se guarda en su propio array: ID y plaza como {@code int}, fechas de entrada y
+ * salida como segundos desde la época ({@code long}), precio en céntimos ({@code long}) y matrícula como código
+ * de un diccionario de matrículas, de forma que cada matrícula distinta se guarda una sola vez. Cada ticket
+ * ocupa así unos 36 bytes, y los recorridos para estadísticas leen arrays contiguos.
+ * </p>
+ * <p>
+ * Para los llamadores existentes, el almacén se presenta como una lista de {@link Ticket}: {@link #get(int)}
+ * devuelve una vista ligera que lee (y escribe) directamente en las columnas. Las fechas se guardan con
+ * precisión de segundos, la misma que la columna {@code TIMESTAMP} de la base de datos.
+ * </p>
+ * <p>
+ * Los tickets deben añadirse en orden creciente de ID, que es el orden en que los devuelve {@link TicketDAO}.
+ * El almacén no está sincronizado: si se comparte entre hilos, el llamador debe sincronizar los accesos.
+ * </p>
+ *
+ * @version 1.0
+ * @see Ticket
+ * @see TicketDAO
+ */
+public class AlmacenTickets extends AbstractList<Ticket> {
+
+    /**
+     * Valor que indica que un ticket no tiene fecha de salida. Coincide con {@link Ticket#SIN_PRECIO}, que indica
+     * que no tiene precio.
+     */
+    private static final long SIN_VALOR = Ticket.SIN_PRECIO;
+
+    /**
+     * Capacidad inicial por defecto de las columnas.
+     */
+    private static final int CAPACIDAD_POR_DEFECTO = 1024;
+
+    /**
+     * Columna de IDs de ticket, en orden creciente.
+     */
+    private int[] ids;
+
+    /**
+     * Columna de números de plaza.
+     */
+    private int[] plazas;
+
+    /**
+     * Columna de códigos de matrícula en {@code matriculas}.
+     */
+    private int[] codigosMatricula;
+
+    /**
+     * Columna de fechas de entrada, en segundos desde la época.
+     */
+    private long[] entradas;
+
+    /**
+     * Columna de fechas de salida, en segundos desde la época, o {@link #SIN_VALOR}.
+     */
+    private long[] salidas;
+
+    /**
+     * Columna de precios en céntimos, o {@link #SIN_VALOR}.
+     */
+    private long[] preciosCentimos;
+
+    /**
+     * Número de tickets del almacén.
+     */
+    private int tamano;
+
+    /**
+     * Diccionario de matrículas: el código de una matrícula es su posición en la lista.
+     */
+    private final List<String> matriculas = new ArrayList<>();
+
+    /**
+     * Código de cada matrícula del diccionario.
+     */
+    private final Map<String, Integer> codigos = new HashMap<>();
+
+    /**
+     * Constructor de un almacén vacío con la capacidad por defecto.
+     */
+    public AlmacenTickets() {
+        this(CAPACIDAD_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor de un almacén vacío.
+     *
+     * @param capacidad El número de tickets que se reservan inicialmente.
+     * @throws IllegalArgumentException Si la capacidad es negativa.
+     */
+    public AlmacenTickets(int capacidad) {
+        if (capacidad < 0) {
+            throw new IllegalArgumentException("La capacidad del almacén de tickets no puede ser negativa.");
+        }
+        ids = new int[capacidad];
+        plazas = new int[capacidad];
+        codigosMatricula = new int[capacidad];
+        entradas = new long[capacidad];
+        salidas = new long[capacidad];
+        preciosCentimos = new long[capacidad];
+    }
+
+    /**
+     * Añade un ticket al final del almacén.
+     *
+     * @param ticket El ticket. Su ID debe ser mayor que el del último ticket añadido.
+     * @return {@code true}, como indica {@link List#add(Object)}.
+     * @throws IllegalArgumentException Si el ID del ticket no es mayor que el del último ticket añadido.
+     */
+    @Override
+    public boolean add(Ticket ticket) {
+        if (tamano > 0 && ticket.getID() <= ids[tamano - 1]) {
+            throw new IllegalArgumentException("Los tickets deben añadirse en orden creciente de ID: "
+                    + ticket.getID() + " no es mayor que " + ids[tamano - 1]);
+        }
+        if (tamano == ids.length) {
+            amplia();
+        }
+        ids[tamano] = ticket.getID();
+        plazas[tamano] = ticket.getNUM_PLAZA();
+        codigosMatricula[tamano] = codifica(ticket.getMATRICULA());
+        entradas[tamano] = aSegundos(ticket.getFECHA_ENTRADA());
+        salidas[tamano] = ticket.getFechaSalida() == null ? SIN_VALOR : aSegundos(ticket.getFechaSalida());
+        preciosCentimos[tamano] = ticket.getPrecioCentimos();
+        tamano++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Obtiene una vista del ticket que ocupa una posición del almacén.
+     * <p>
+     * La vista no copia los datos: sus getters leen las columnas y sus setters las modifican.
+     * </p>
+     *
+     * @param posicion La posición del ticket.
+     * @return La vista del ticket.
+     * @throws IndexOutOfBoundsException Si la posición no existe.
+     */
+    @Override
+    public Ticket get(int posicion) {
+        compruebaPosicion(posicion);
+        return new VistaTicket(posicion);
+    }
+
+    /**
+     * Obtiene el número de tickets del almacén.
+     *
+     * @return El número de tickets.
+     */
+    @Override
+    public int size() {
+        return tamano;
+    }
+
+    /**
+     * Busca la posición de un ticket por su ID.
+     *
+     * @param id El ID del ticket.
+     * @return La posición del ticket, o un valor negativo si no está en el almacén.
+     */
+    public int posicionDe(int id) {
+        return Arrays.binarySearch(ids, 0, tamano, id);
+    }
+
+    /**
+     * Registra la salida de un ticket del almacén.
+     *
+     * @param id El ID del ticket.
+     * @param fechaSalida La fecha de salida.
+     * @param precioTotal El precio total, en céntimos.
+     * @throws IllegalArgumentException Si el ticket no está en el almacén.
+     */
+    public void cierra(int id, LocalDateTime fechaSalida, long precioTotal) {
+        int posicion = posicionDe(id);
+        if (posicion < 0) {
+            throw new IllegalArgumentException("El Ticket con ID " + id + " no está en el almacén.");
+        }
+        salidas[posicion] = aSegundos(fechaSalida);
+        preciosCentimos[posicion] = precioTotal;
+        modCount++;
+    }
+
+    /**
+     * Obtiene el ID del ticket de una posición.
+     *
+     * @param posicion La posición del ticket.
+     * @return El ID.
+     */
+    public int getId(int posicion) {
+        compruebaPosicion(posicion);
+        return ids[posicion];
+    }
+
+    /**
+     * Obtiene el número de plaza del ticket de una posición.
+     *
+     * @param posicion La posición del ticket.
+     * @return El número de plaza.
+     */
+    public int getPlaza(int posicion) {
+        compruebaPosicion(posicion);
+        return plazas[posicion];
+    }
+
+    /**
+     * Obtiene el código de matrícula del ticket de una posición.
+     *
+     * @param posicion La posición del ticket.
+     * @return El código de la matrícula en el diccionario del almacén.
+     * @see #getMatricula(int)
+     */
+    public int getCodigoMatricula(int posicion) {
+        compruebaPosicion(posicion);
+        return codigosMatricula[posicion];
+    }
+
+    /**
+     * Obtiene la matrícula que corresponde a un código del diccionario.
+     *
+     * @param codigo El código de la matrícula.
+     * @return La matrícula.
+     * @throws IndexOutOfBoundsException Si el código no existe.
+     */
+    public String getMatricula(int codigo) {
+        return matriculas.get(codigo);
+    }
+
+    /**
+     * Obtiene el número de matrículas distintas del almacén.
+     *
+     * @return El número de matrículas.
+     */
+    public int getNumeroMatriculas() {
+        return matriculas.size();
+    }
+
+    /**
+     * Obtiene la fecha de entrada del ticket de una posición.
+     *
+     * @param posicion La posición del ticket.
+     * @return Los segundos desde la época de la fecha de entrada.
+     */
+    public long getEntradaSegundos(int posicion) {
+        compruebaPosicion(posicion);
+        return entradas[posicion];
+    }
+
+    /**
+     * Obtiene la fecha de salida del ticket de una posición.
+     *
+     * @param posicion La posición del ticket.
+     * @return Los segundos desde la época de la fecha de salida, o {@link Long#MIN_VALUE} si el ticket está abierto.
+     */
+    public long getSalidaSegundos(int posicion) {
+        compruebaPosicion(posicion);
+        return salidas[posicion];
+    }
+
+    /**
+     * Obtiene el precio del ticket de una posición.
+     *
+     * @param posicion La posición del ticket.
+     * @return El precio en céntimos, o {@link Ticket#SIN_PRECIO} si el ticket no tiene precio.
+     */
+    public long getPrecioCentimos(int posicion) {
+        compruebaPosicion(posicion);
+        return preciosCentimos[posicion];
+    }
+
+    /**
+     * Establece el precio del ticket de una posición.
+     *
+     * @param posicion La posición del ticket.
+     * @param centimos El precio en céntimos.
+     */
+    public void setPrecioCentimos(int posicion, long centimos) {
+        compruebaPosicion(posicion);
+        preciosCentimos[posicion] = centimos;
+    }
+
+    /**
+     * Verifica si el ticket de una posición está abierto (sin fecha de salida).
+     *
+     * @param posicion La posición del ticket.
+     * @return {@code true} si el ticket no tiene fecha de salida.
+     */
+    public boolean isAbierto(int posicion) {
+        compruebaPosicion(posicion);
+        return salidas[posicion] == SIN_VALOR;
+    }
+
+    /**
+     * Convierte una fecha a segundos desde la época. Las fechas del parking no tienen zona horaria,
+     * por lo que se interpretan en UTC solo a efectos de codificación.
+     *
+     * @param fecha La fecha.
+     * @return Los segundos desde la época.
+     */
+    public static long aSegundos(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Convierte segundos desde la época a fecha. Es la operación inversa de {@link #aSegundos(LocalDateTime)}.
+     *
+     * @param segundos Los segundos desde la época.
+     * @return La fecha.
+     */
+    public static LocalDateTime aFecha(long segundos) {
+        return LocalDateTime.ofEpochSecond(segundos, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Obtiene el código de una matrícula, añadiéndola al diccionario si no estaba.
+     *
+     * @param matricula La matrícula.
+     * @return El código de la matrícula.
+     */
+    private int codifica(String matricula) {
+        Integer codigo = codigos.get(matricula);
+        if (codigo == null) {
+            codigo = matriculas.size();
+            matriculas.add(matricula);
+            codigos.put(matricula, codigo);
+        }
+        return codigo;
+    }
+
+    /**
+     * Duplica la capacidad de todas las columnas.
+     */
+    private void amplia() {
+        int capacidad = Math.max(CAPACIDAD_POR_DEFECTO, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacidad);
+        plazas = Arrays.copyOf(plazas, capacidad);
+        codigosMatricula = Arrays.copyOf(codigosMatricula, capacidad);
+        entradas = Arrays.copyOf(entradas, capacidad);
+        salidas = Arrays.copyOf(salidas, capacidad);
+        preciosCentimos = Arrays.copyOf(preciosCentimos, capacidad);
+    }
+
+    /**
+     * Comprueba que una posición corresponde a un ticket del almacén.
+     *
+     * @param posicion La posición.
+     * @throws IndexOutOfBoundsException Si la posición no existe.
+     */
+    private void compruebaPosicion(int posicion) {
+        if (posicion < 0 || posicion >= tamano) {
+            throw new IndexOutOfBoundsException("No existe el ticket en la posición " + posicion + " del almacén.");
+        }
+    }
+
+    /**
+     * Vista de un ticket del almacén. Solo guarda su posición: los datos se leen y escriben en las columnas.
+     */
+    private final class VistaTicket extends Ticket {
+
+        /**
+         * Posición del ticket en el almacén.
+         */
+        private final int POSICION;
+
+        private VistaTicket(int posicion) {
+            super(null, null, null, null, null, SIN_VALOR);
+            POSICION = posicion;
+        }
+
+        @Override
+        public Integer getID() {
+            return ids[POSICION];
+        }
+
+        @Override
+        public String getMATRICULA() {
+            return matriculas.get(codigosMatricula[POSICION]);
+        }
+
+        @Override
+        public Integer getNUM_PLAZA() {
+            return plazas[POSICION];
+        }
+
+        @Override
+        public LocalDateTime getFECHA_ENTRADA() {
+            return aFecha(entradas[POSICION]);
+        }
+
+        @Override
+        public LocalDateTime getFechaSalida() {
+            return salidas[POSICION] == SIN_VALOR ? null : aFecha(salidas[POSICION]);
+        }
+
+        @Override
+        public long getPrecioCentimos() {
+            return preciosCentimos[POSICION];
+        }
+
+        @Override
+        public void setFechaSalida(LocalDateTime fechaSalida) {
+            if (fechaSalida == null) {
+                throw new NullPointerException("La fecha de salida no puede ser nula.");
+            }
+            if (!validaFecha(fechaSalida)) {
+                throw new RuntimeException("La fecha de salida no puede ser anterior a la fecha de entrada.");
+            }
+            salidas[POSICION] = aSegundos(fechaSalida);
+        }
+
+        @Override
+        public void setPrecioCentimos(long precioTotal) {
+            preciosCentimos[POSICION] = precioTotal;
+        }
+    }
+}
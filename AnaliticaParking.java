@@ -0,0 +1,402 @@
+package GESTION_DE_PARKING;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Motor de estadísticas de recaudación y ocupación sobre el histórico completo de tickets.
+ * <p>
+ * Trabaja sobre un {@link AlmacenTickets} (cargado, por ejemplo, con {@link TicketDAO#cargaAlmacenTickets()}).
+ * Para calcular un informe, el almacén se divide en particiones contiguas que se recorren en paralelo en el
+ * {@link ForkJoinPool} común; cada partición acumula un resumen por día en arrays de tipos primitivos y al final
+ * los resúmenes se combinan. Con el almacén en memoria, un recorrido de decenas de millones de tickets tarda
+ * unos segundos.
+ * </p>
+ * <p>
+ * Los resúmenes de los días ya cerrados (anteriores a hoy) se guardan en caché: un informe que solo abarca días
+ * cerrados ya calculados no vuelve a recorrer el almacén. Los ingresos, las salidas y la duración de las estancias
+ * se imputan al día de salida; las entradas y la rotación de plazas, al día de entrada; la ocupación se mide
+ * minuto a minuto en todos los días que dura cada estancia (hasta el momento actual para los tickets abiertos).
+ * </p>
+ * <p>
+ * El almacén no debe modificarse mientras se calcula un informe. Si se recalculan sus precios o se añaden tickets
+ * de días pasados, debe llamarse a {@link #invalidaCache()}.
+ * </p>
+ *
+ * @version 1.0
+ * @see InformeParking
+ * @see AlmacenTickets
+ */
+public class AnaliticaParking {
+
+    /**
+     * Segundos de un día.
+     */
+    private static final int SEGUNDOS_DIA = 86_400;
+
+    /**
+     * Número de particiones en que se divide el almacén por cada hilo del {@link ForkJoinPool} común.
+     */
+    private static final int PARTICIONES_POR_HILO = 4;
+
+    /**
+     * Almacén de tickets sobre el que se calculan las estadísticas.
+     */
+    private final AlmacenTickets ALMACEN;
+
+    /**
+     * Función que devuelve el vehículo de una matrícula, o {@code null} si no se conoce.
+     */
+    private final Function<String, Vehiculo> BUSCA_VEHICULO;
+
+    /**
+     * Resúmenes de los días cerrados ya calculados.
+     */
+    private final Map<LocalDate, ResumenDia> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Último día cerrado cubierto por un recorrido completo. Los días cerrados hasta esta fecha que no están en
+     * la caché no tuvieron actividad.
+     */
+    private volatile LocalDate cubiertoHasta;
+
+    /**
+     * Constructor del motor de estadísticas.
+     *
+     * @param almacen El almacén de tickets.
+     * @param buscaVehiculo Función que devuelve el vehículo de una matrícula, o {@code null} si no se conoce.
+     *                      Se usa para desglosar los ingresos por tipo de vehículo y país.
+     */
+    public AnaliticaParking(AlmacenTickets almacen, Function<String, Vehiculo> buscaVehiculo) {
+        ALMACEN = almacen;
+        BUSCA_VEHICULO = buscaVehiculo;
+    }
+
+    /**
+     * Calcula el informe de un intervalo de días.
+     *
+     * @param desde El primer día del intervalo (incluido).
+     * @param hasta El último día del intervalo (incluido).
+     * @return El informe del intervalo.
+     * @throws IllegalArgumentException Si alguna fecha es {@code null} o {@code hasta} es anterior a {@code desde}.
+     */
+    public InformeParking calcula(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("El intervalo de fechas no es válido: " + desde + " - " + hasta);
+        }
+        LocalDate cubierto = cubiertoHasta;
+        Map<LocalDate, ResumenDia> resumenes = cubierto != null && !hasta.isAfter(cubierto) ? cache : recorre();
+
+        List<ResumenDia> dias = new ArrayList<>();
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            ResumenDia resumen = resumenes.get(dia);
+            if (resumen != null) {
+                dias.add(resumen);
+            }
+        }
+        return new InformeParking(desde, hasta, dias);
+    }
+
+    /**
+     * Descarta los resúmenes guardados en caché, para que el siguiente informe vuelva a recorrer el almacén.
+     */
+    public void invalidaCache() {
+        cubiertoHasta = null;
+        cache.clear();
+    }
+
+    /**
+     * Recorre en paralelo todo el almacén y calcula el resumen de cada día con actividad. Los resúmenes
+     * de los días cerrados se guardan en la caché.
+     *
+     * @return Los resúmenes de todos los días con actividad.
+     */
+    private synchronized Map<LocalDate, ResumenDia> recorre() {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDate hoy = ahora.toLocalDate();
+        int n = ALMACEN.size();
+        if (n == 0) {
+            cubiertoHasta = hoy.minusDays(1);
+            return cache;
+        }
+
+        // El tipo y el país de cada matrícula se buscan una sola vez
+        int matriculas = ALMACEN.getNumeroMatriculas();
+        int[] tipoPorMatricula = new int[matriculas];
+        int[] paisPorMatricula = new int[matriculas];
+        for (int codigo = 0; codigo < matriculas; codigo++) {
+            Vehiculo vehiculo = BUSCA_VEHICULO.apply(ALMACEN.getMatricula(codigo));
+            tipoPorMatricula[codigo] = vehiculo == null ? -1 : vehiculo.getTIPO().ordinal();
+            paisPorMatricula[codigo] = vehiculo == null || vehiculo.getPAIS() == null ? -1 : vehiculo.getPAIS().ordinal();
+        }
+
+        long segundosAhora = AlmacenTickets.aSegundos(ahora);
+        long primerDia = Math.floorDiv(IntStream.range(0, n).parallel()
+                .mapToLong(ALMACEN::getEntradaSegundos).min().getAsLong(), SEGUNDOS_DIA);
+        long ultimaSalida = IntStream.range(0, n).parallel()
+                .mapToLong(ALMACEN::getSalidaSegundos).max().getAsLong();
+        long ultimoDia = Math.floorDiv(Math.max(ultimaSalida, segundosAhora), SEGUNDOS_DIA);
+        int dias = (int) (ultimoDia - primerDia + 1);
+
+        int particiones = ForkJoinPool.getCommonPoolParallelism() * PARTICIONES_POR_HILO;
+        ResumenDia[] combinados = IntStream.range(0, particiones).parallel()
+                .mapToObj(p -> acumula((int) ((long) n * p / particiones), (int) ((long) n * (p + 1) / particiones),
+                        primerDia, dias, segundosAhora, tipoPorMatricula, paisPorMatricula))
+                .reduce(AnaliticaParking::combina)
+                .orElseGet(() -> new ResumenDia[dias]);
+
+        Map<LocalDate, ResumenDia> resumenes = new ConcurrentHashMap<>(cache);
+        for (int d = 0; d < dias; d++) {
+            if (combinados[d] != null) {
+                LocalDate dia = LocalDate.ofEpochDay(primerDia + d);
+                combinados[d].finaliza(dia);
+                resumenes.put(dia, combinados[d]);
+                if (dia.isBefore(hoy)) {
+                    cache.put(dia, combinados[d]);
+                }
+            }
+        }
+        cubiertoHasta = hoy.minusDays(1);
+        return resumenes;
+    }
+
+    /**
+     * Acumula los tickets de una partición del almacén en resúmenes por día.
+     *
+     * @param inicio La primera posición de la partición (incluida).
+     * @param fin La última posición de la partición (excluida).
+     * @param primerDia El primer día del almacén, en días desde la época.
+     * @param dias El número de días entre el primero y el último del almacén.
+     * @param segundosAhora El momento actual, en segundos desde la época.
+     * @param tipoPorMatricula El ordinal del tipo de vehículo de cada código de matrícula, o -1.
+     * @param paisPorMatricula El ordinal del país de cada código de matrícula, o -1.
+     * @return Los resúmenes por día de la partición ({@code null} en los días sin actividad).
+     */
+    private ResumenDia[] acumula(int inicio, int fin, long primerDia, int dias, long segundosAhora,
+                                 int[] tipoPorMatricula, int[] paisPorMatricula) {
+        ResumenDia[] resumenes = new ResumenDia[dias];
+        for (int i = inicio; i < fin; i++) {
+            boolean abierto = ALMACEN.isAbierto(i);
+            long entrada = ALMACEN.getEntradaSegundos(i);
+            long salida = abierto ? segundosAhora : ALMACEN.getSalidaSegundos(i);
+            if (salida < entrada) {
+                continue;
+            }
+            int diaEntrada = (int) (Math.floorDiv(entrada, SEGUNDOS_DIA) - primerDia);
+            int diaSalida = (int) (Math.floorDiv(salida, SEGUNDOS_DIA) - primerDia);
+
+            ResumenDia alEntrar = resumen(resumenes, diaEntrada);
+            alEntrar.entradas++;
+            alEntrar.sumaPlaza(ALMACEN.getPlaza(i));
+
+            // La ocupación se registra como variaciones por minuto en cada día de la estancia
+            alEntrar.variacionOcupacion[minutoDelDia(entrada)]++;
+            for (int d = diaEntrada + 1; d <= diaSalida; d++) {
+                resumen(resumenes, d).variacionOcupacion[0]++;
+            }
+            if (abierto) {
+                continue;
+            }
+            ResumenDia alSalir = resumen(resumenes, diaSalida);
+            alSalir.variacionOcupacion[minutoDelDia(salida)]--;
+            alSalir.salidas++;
+            alSalir.segundosEstancia += salida - entrada;
+
+            long precio = ALMACEN.getPrecioCentimos(i);
+            if (precio != Ticket.SIN_PRECIO) {
+                int codigo = ALMACEN.getCodigoMatricula(i);
+                alSalir.ingresos += precio;
+                alSalir.ingresosPorHora[Math.floorMod(salida, SEGUNDOS_DIA) / 3600] += precio;
+                if (tipoPorMatricula[codigo] >= 0) {
+                    alSalir.ingresosPorTipo[tipoPorMatricula[codigo]] += precio;
+                }
+                if (paisPorMatricula[codigo] >= 0) {
+                    alSalir.ingresosPorPais[paisPorMatricula[codigo]] += precio;
+                }
+            }
+        }
+        return resumenes;
+    }
+
+    /**
+     * Combina los resúmenes por día de dos particiones.
+     *
+     * @param a Los resúmenes de la primera partición, que se modifican.
+     * @param b Los resúmenes de la segunda partición.
+     * @return Los resúmenes combinados.
+     */
+    private static ResumenDia[] combina(ResumenDia[] a, ResumenDia[] b) {
+        for (int d = 0; d < a.length; d++) {
+            if (a[d] == null) {
+                a[d] = b[d];
+            } else if (b[d] != null) {
+                a[d].combina(b[d]);
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Obtiene el resumen de un día, creándolo si no existe.
+     *
+     * @param resumenes Los resúmenes por día.
+     * @param dia La posición del día.
+     * @return El resumen del día.
+     */
+    private static ResumenDia resumen(ResumenDia[] resumenes, int dia) {
+        if (resumenes[dia] == null) {
+            resumenes[dia] = new ResumenDia();
+        }
+        return resumenes[dia];
+    }
+
+    /**
+     * Obtiene el minuto del día de un momento.
+     *
+     * @param segundos El momento, en segundos desde la época.
+     * @return El minuto del día (entre 0 y 1439).
+     */
+    private static int minutoDelDia(long segundos) {
+        return Math.floorMod(segundos, SEGUNDOS_DIA) / 60;
+    }
+
+    /**
+     * Resumen de la actividad de un día. Mientras se calcula es mutable; una vez finalizado no se modifica.
+     */
+    static final class ResumenDia {
+
+        /**
+         * Día del resumen. Se asigna al finalizarlo.
+         */
+        LocalDate dia;
+
+        /**
+         * Número de tickets que entran el día.
+         */
+        long entradas;
+
+        /**
+         * Número de tickets que salen el día.
+         */
+        long salidas;
+
+        /**
+         * Suma de la duración de las estancias que terminan el día, en segundos.
+         */
+        long segundosEstancia;
+
+        /**
+         * Ingresos del día, en céntimos.
+         */
+        long ingresos;
+
+        /**
+         * Ingresos de cada hora del día, en céntimos.
+         */
+        final long[] ingresosPorHora = new long[24];
+
+        /**
+         * Ingresos por ordinal de {@link TipoVehiculo}, en céntimos.
+         */
+        final long[] ingresosPorTipo = new long[TipoVehiculo.values().length];
+
+        /**
+         * Ingresos por ordinal de {@link Paises}, en céntimos.
+         */
+        final long[] ingresosPorPais = new long[Paises.values().length];
+
+        /**
+         * Número de tickets que entran el día en cada plaza, por número de plaza.
+         */
+        int[] ticketsPorPlaza = new int[0];
+
+        /**
+         * Variación de la ocupación en cada minuto del día. Se descarta al finalizar el resumen.
+         */
+        int[] variacionOcupacion = new int[MotorTarifas.MINUTOS_DIA + 1];
+
+        /**
+         * Número máximo de vehículos aparcados a la vez durante el día.
+         */
+        int ocupacionMaxima;
+
+        /**
+         * Minuto del día en que se alcanza la ocupación máxima.
+         */
+        int minutoOcupacionMaxima;
+
+        /**
+         * Cuenta un ticket que entra en una plaza.
+         *
+         * @param plaza El número de la plaza.
+         */
+        void sumaPlaza(int plaza) {
+            if (plaza >= ticketsPorPlaza.length) {
+                ticketsPorPlaza = Arrays.copyOf(ticketsPorPlaza, Math.max(plaza + 1, ticketsPorPlaza.length * 2));
+            }
+            ticketsPorPlaza[plaza]++;
+        }
+
+        /**
+         * Suma a este resumen otro resumen del mismo día.
+         *
+         * @param otro El otro resumen.
+         */
+        void combina(ResumenDia otro) {
+            entradas += otro.entradas;
+            salidas += otro.salidas;
+            segundosEstancia += otro.segundosEstancia;
+            ingresos += otro.ingresos;
+            suma(ingresosPorHora, otro.ingresosPorHora);
+            suma(ingresosPorTipo, otro.ingresosPorTipo);
+            suma(ingresosPorPais, otro.ingresosPorPais);
+            if (otro.ticketsPorPlaza.length > ticketsPorPlaza.length) {
+                ticketsPorPlaza = Arrays.copyOf(ticketsPorPlaza, otro.ticketsPorPlaza.length);
+            }
+            for (int i = 0; i < otro.ticketsPorPlaza.length; i++) {
+                ticketsPorPlaza[i] += otro.ticketsPorPlaza[i];
+            }
+            for (int i = 0; i < variacionOcupacion.length; i++) {
+                variacionOcupacion[i] += otro.variacionOcupacion[i];
+            }
+        }
+
+        /**
+         * Termina el resumen: calcula la ocupación máxima a partir de las variaciones por minuto y las descarta.
+         *
+         * @param dia El día del resumen.
+         */
+        void finaliza(LocalDate dia) {
+            this.dia = dia;
+            int ocupacion = 0;
+            for (int minuto = 0; minuto < MotorTarifas.MINUTOS_DIA; minuto++) {
+                ocupacion += variacionOcupacion[minuto];
+                if (ocupacion > ocupacionMaxima) {
+                    ocupacionMaxima = ocupacion;
+                    minutoOcupacionMaxima = minuto;
+                }
+            }
+            variacionOcupacion = null;
+        }
+
+        /**
+         * Suma elemento a elemento un array a otro del mismo tamaño.
+         *
+         * @param destino El array al que se suma.
+         * @param origen El array que se suma.
+         */
+        private static void suma(long[] destino, long[] origen) {
+            for (int i = 0; i < destino.length; i++) {
+                destino[i] += origen[i];
+            }
+        }
+    }
+}
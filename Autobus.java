@@ -9,9 +9,9 @@ package GESTION_DE_PARKING;
 public class Autobus extends Vehiculo {
 
     /**
-     * Plus del precio extra que se aplicará al Precio(€)/Minuto del Vehículo.
+     * Plus del precio extra que se aplicará al precio por minuto del Vehículo, en céntimos.
      */
-    private final double PLUSDIMENSION = 0.15;
+    private final long PLUSDIMENSION = 15;
 
     /**
      * Constructor de Autobús que inicializa con el tipo de vehículo y aplica el plus de dimensión.
@@ -37,11 +37,11 @@ public class Autobus extends Vehiculo {
      * Constructor de Autobús que inicializa con la matrícula, tipo de vehículo y precio.
      *
      * @param matricula Matrícula del Autobús.
-     * @param precio Precio por minuto del Autobús.
+     * @param precio Precio por minuto del Autobús, en céntimos.
      * @throws Exception Si la matrícula no es válida para el país especificado.
      */
     //Este constructor es más para cuando recuperemos el vehículo de la base de datos
-    public Autobus(String matricula, double precio, boolean activo) throws Exception {
+    public Autobus(String matricula, long precio, boolean activo) throws Exception {
         super(matricula.toUpperCase(), TipoVehiculo.Autobus, precio, activo);
     }
 
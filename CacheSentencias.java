@@ -0,0 +1,274 @@
+package GESTION_DE_PARKING;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché de sentencias preparadas de una conexión física del {@link PoolConexiones}.
+ * <p>
+ * Guarda las sentencias preparadas indexadas por su SQL, de forma que cuando un DAO vuelve a preparar la misma
+ * sentencia sobre la misma conexión se reutiliza la que ya estaba preparada (y, con MySQL, la sentencia preparada
+ * en el servidor) en lugar de analizarla de nuevo. La sentencia que se entrega es un envoltorio: al cerrarla
+ * no se cierra la sentencia real, sino que se limpian sus parámetros y queda disponible para la siguiente operación.
+ * </p>
+ * <p>
+ * La caché tiene una capacidad limitada; cuando se llena, se cierra la sentencia usada hace más tiempo.
+ * Una conexión física solo la utiliza el hilo que la tiene prestada, por lo que la caché no necesita sincronización.
+ * </p>
+ *
+ * @version 1.0
+ * @see PoolConexiones
+ */
+public class CacheSentencias {
+
+    /**
+     * Número máximo de sentencias que se guardan por conexión.
+     */
+    private final int CAPACIDAD;
+
+    /**
+     * Conexión física sobre la que se preparan las sentencias.
+     */
+    private final Connection CONEXION;
+
+    /**
+     * Sentencias preparadas, ordenadas de la usada hace más tiempo a la más reciente.
+     */
+    private final LinkedHashMap<String, SentenciaCacheada> sentencias;
+
+    /**
+     * Contador de sentencias reutilizadas desde la caché (compartido por todas las conexiones del pool).
+     */
+    private final LongAdder aciertos;
+
+    /**
+     * Contador de sentencias que han tenido que prepararse de nuevo (compartido por todas las conexiones del pool).
+     */
+    private final LongAdder fallos;
+
+    /**
+     * Constructor que crea una caché vacía para una conexión física.
+     *
+     * @param conexion La conexión física sobre la que se preparan las sentencias.
+     * @param capacidad El número máximo de sentencias que se guardan.
+     * @param aciertos Contador de sentencias reutilizadas.
+     * @param fallos Contador de sentencias preparadas de nuevo.
+     */
+    public CacheSentencias(Connection conexion, int capacidad, LongAdder aciertos, LongAdder fallos) {
+        CONEXION = conexion;
+        CAPACIDAD = capacidad;
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        sentencias = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Obtiene una sentencia preparada para el SQL indicado, reutilizándola si ya estaba en la caché.
+     * <p>
+     * Si la sentencia con ese SQL ya está en uso (por ejemplo, se prepara dos veces sin cerrar la primera),
+     * se prepara una sentencia independiente que se cierra normalmente.
+     * </p>
+     *
+     * @param sql La sentencia SQL.
+     * @param clavesGeneradas {@link Statement#RETURN_GENERATED_KEYS} o {@link Statement#NO_GENERATED_KEYS}.
+     * @param logica La conexión que ve el DAO, devuelta por {@link PreparedStatement#getConnection()}.
+     * @return La sentencia preparada.
+     * @throws SQLException Si no se puede preparar la sentencia.
+     */
+    public PreparedStatement prepara(String sql, int clavesGeneradas, Connection logica) throws SQLException {
+        String clave = clavesGeneradas == Statement.RETURN_GENERATED_KEYS ? sql + "\u0000K" : sql;
+
+        SentenciaCacheada cacheada = sentencias.get(clave);
+        if (cacheada != null && !cacheada.enUso && cacheada.sentencia.isClosed()) {
+            // La sentencia se cerró al fallar su limpieza: se vuelve a preparar
+            sentencias.remove(clave);
+            cacheada = null;
+        }
+        if (cacheada != null && cacheada.enUso) {
+            fallos.increment();
+            return CONEXION.prepareStatement(sql, clavesGeneradas);
+        }
+
+        if (cacheada != null) {
+            aciertos.increment();
+        } else {
+            fallos.increment();
+            cacheada = new SentenciaCacheada(CONEXION.prepareStatement(sql, clavesGeneradas));
+            sentencias.put(clave, cacheada);
+            expulsaSobrantes();
+        }
+        cacheada.enUso = true;
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new SentenciaPrestada(cacheada, logica));
+    }
+
+    /**
+     * Cierra todas las sentencias de la caché. Se invoca al cerrar la conexión física.
+     */
+    public void cierra() {
+        for (SentenciaCacheada cacheada : sentencias.values()) {
+            cierraSentencia(cacheada.sentencia);
+        }
+        sentencias.clear();
+    }
+
+    /**
+     * Obtiene el número de sentencias guardadas en la caché.
+     *
+     * @return El número de sentencias.
+     */
+    public int size() {
+        return sentencias.size();
+    }
+
+    /**
+     * Cierra las sentencias usadas hace más tiempo mientras la caché supere su capacidad.
+     * Las sentencias en uso se marcan para cerrarse cuando el DAO las libere.
+     */
+    private void expulsaSobrantes() {
+        Iterator<Map.Entry<String, SentenciaCacheada>> it = sentencias.entrySet().iterator();
+        while (sentencias.size() > CAPACIDAD && it.hasNext()) {
+            SentenciaCacheada expulsada = it.next().getValue();
+            it.remove();
+            if (expulsada.enUso)
+                expulsada.expulsada = true;
+            else
+                cierraSentencia(expulsada.sentencia);
+        }
+    }
+
+    /**
+     * Cierra una sentencia real ignorando los errores.
+     *
+     * @param sentencia La sentencia a cerrar.
+     */
+    private static void cierraSentencia(PreparedStatement sentencia) {
+        try {
+            sentencia.close();
+        } catch (SQLException e) {
+            System.out.println("Error al cerrar una sentencia de la caché: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sentencia real guardada en la caché junto con su estado.
+     */
+    private static final class SentenciaCacheada {
+
+        /**
+         * Sentencia preparada real.
+         */
+        private final PreparedStatement sentencia;
+
+        /**
+         * Indica si un DAO tiene la sentencia abierta en este momento.
+         */
+        private boolean enUso;
+
+        /**
+         * Indica si la sentencia se ha expulsado de la caché mientras estaba en uso.
+         */
+        private boolean expulsada;
+
+        private SentenciaCacheada(PreparedStatement sentencia) {
+            this.sentencia = sentencia;
+        }
+    }
+
+    /**
+     * Manejador del envoltorio de una sentencia cacheada. Delega todas las llamadas en la sentencia real,
+     * salvo {@code close()}, que la devuelve a la caché.
+     */
+    private static final class SentenciaPrestada implements InvocationHandler {
+
+        /**
+         * Sentencia cacheada que se ha prestado.
+         */
+        private final SentenciaCacheada cacheada;
+
+        /**
+         * Conexión que ve el DAO.
+         */
+        private final Connection logica;
+
+        /**
+         * Indica si el DAO ya ha cerrado la sentencia.
+         */
+        private boolean cerrada;
+
+        private SentenciaPrestada(SentenciaCacheada cacheada, Connection logica) {
+            this.cacheada = cacheada;
+            this.logica = logica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "close" -> {
+                    if (!cerrada) {
+                        cerrada = true;
+                        libera();
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return cerrada;
+                }
+                case "getConnection" -> {
+                    return logica;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Sentencia cacheada " + cacheada.sentencia;
+                }
+            }
+            if (cerrada) {
+                throw new SQLException("La sentencia ya está cerrada.");
+            }
+            try {
+                return metodo.invoke(cacheada.sentencia, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Deja la sentencia real lista para reutilizarse, o la cierra si se expulsó de la caché mientras estaba en uso.
+         *
+         * @throws SQLException Si no se puede limpiar la sentencia.
+         */
+        private void libera() throws SQLException {
+            cacheada.enUso = false;
+            if (cacheada.expulsada) {
+                cacheada.sentencia.close();
+                return;
+            }
+            try {
+                cacheada.sentencia.clearParameters();
+                cacheada.sentencia.clearBatch();
+            } catch (SQLException e) {
+                // Si no se puede limpiar, se cierra para que no vuelva a prestarse
+                cacheada.expulsada = true;
+                cacheada.sentencia.close();
+                throw e;
+            }
+        }
+    }
+}
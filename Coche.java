@@ -30,11 +30,11 @@ public class Coche extends Vehiculo {
      * Constructor para crear un objeto Coche con la matrícula y precio de estacionamiento especificados.
      *
      * @param matricula La matrícula del coche.
-     * @param precio    El precio de estacionamiento por minuto del coche.
+     * @param precio    El precio de estacionamiento por minuto del coche, en céntimos.
      * @throws Exception Si ocurre un error durante la creación del objeto Coche.
      */
     //Este constructor es más para cuando recuperemos el vehículo de la base de datos
-    public Coche(String matricula, double precio, boolean activo) throws Exception {
+    public Coche(String matricula, long precio, boolean activo) throws Exception {
         super(matricula.toUpperCase(), TipoVehiculo.Coche, precio, activo);
     }
 
@@ -0,0 +1,114 @@
+package GESTION_DE_PARKING;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterador que recorre el resultado de una consulta por páginas mediante paginación por clave (keyset).
+ * <p>
+ * Cada página se obtiene a partir del último elemento de la página anterior (por ejemplo, con
+ * {@code WHERE id > ? ORDER BY id LIMIT ?}), de forma que el coste de leer una página no depende de cuántas
+ * se hayan leído antes, como ocurre con {@code OFFSET}. Solo se mantiene en memoria la página actual, por lo que
+ * pueden recorrerse tablas de decenas de millones de filas con memoria acotada. Cada página se lee con su propia
+ * conexión, que se devuelve al terminar la consulta: un recorrido que se abandona a medias no retiene recursos.
+ * </p>
+ *
+ * @param <T> El tipo de los elementos.
+ * @version 1.0
+ * @see TicketDAO
+ * @see VehiculoDAO
+ */
+public class CursorPaginado<T> implements Iterator<T> {
+
+    /**
+     * Función que obtiene la página siguiente al elemento indicado ({@code null} para la primera página).
+     */
+    private final Function<T, List<T>> SIGUIENTE_PAGINA;
+
+    /**
+     * Número de elementos que se solicitan en cada página.
+     */
+    private final int TAMANO_PAGINA;
+
+    /**
+     * Página actual.
+     */
+    private List<T> pagina;
+
+    /**
+     * Posición del siguiente elemento dentro de la página actual.
+     */
+    private int posicion;
+
+    /**
+     * Indica si ya se ha leído la última página.
+     */
+    private boolean terminado;
+
+    /**
+     * Constructor del cursor.
+     *
+     * @param siguientePagina Función que, dado el último elemento leído ({@code null} al principio),
+     *                        devuelve como mucho {@code tamanoPagina} elementos siguientes.
+     * @param tamanoPagina El número de elementos que se solicitan en cada página.
+     */
+    public CursorPaginado(Function<T, List<T>> siguientePagina, int tamanoPagina) {
+        SIGUIENTE_PAGINA = siguientePagina;
+        TAMANO_PAGINA = tamanoPagina;
+    }
+
+    /**
+     * Crea un {@link Stream} secuencial y ordenado que recorre las páginas bajo demanda.
+     *
+     * @param siguientePagina Función que obtiene la página siguiente al último elemento leído.
+     * @param tamanoPagina El número de elementos que se solicitan en cada página.
+     * @param <T> El tipo de los elementos.
+     * @return El stream de elementos.
+     */
+    public static <T> Stream<T> stream(Function<T, List<T>> siguientePagina, int tamanoPagina) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                new CursorPaginado<>(siguientePagina, tamanoPagina),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Indica si quedan elementos, leyendo la página siguiente si la actual se ha agotado.
+     *
+     * @return {@code true} si quedan elementos.
+     */
+    @Override
+    public boolean hasNext() {
+        if (pagina != null && posicion < pagina.size()) {
+            return true;
+        }
+        if (terminado) {
+            return false;
+        }
+        T ultimo = pagina == null || pagina.isEmpty() ? null : pagina.get(pagina.size() - 1);
+        pagina = SIGUIENTE_PAGINA.apply(ultimo);
+        posicion = 0;
+        // Una página incompleta es la última: no hace falta otra consulta para saberlo
+        terminado = pagina.size() < TAMANO_PAGINA;
+        return !pagina.isEmpty();
+    }
+
+    /**
+     * Obtiene el siguiente elemento.
+     *
+     * @return El siguiente elemento.
+     * @throws NoSuchElementException Si no quedan elementos.
+     */
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No quedan más elementos en el cursor.");
+        }
+        return pagina.get(posicion++);
+    }
+}
@@ -0,0 +1,686 @@
+package GESTION_DE_PARKING;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Diario local de eventos del parking, de solo añadir, con recuperación tras una caída.
+ * <p>
+ * Cada cambio de estado de {@link Parking} (registro, entrada y salida de un vehículo, aparcamiento y
+ * desaparcamiento) se añade como un registro binario compacto a un fichero de diario mediante un
+ * {@link FileChannel}. Los registros llevan un número de secuencia y una suma de comprobación CRC32, de forma que
+ * un último registro incompleto se detecta y se descarta. El diario se sincroniza con el disco ({@code fsync}) por
+ * lotes, cada cierto intervalo, en lugar de en cada operación.
+ * </p>
+ * <p>
+ * Junto al diario se guarda una instantánea del estado: el número de plazas, los vehículos registrados y los
+ * tickets abiertos. Al abrir el diario se carga la instantánea y se le aplican los eventos posteriores; el estado
+ * resultante se guarda como nueva instantánea y el diario empieza vacío. Así el parking arranca sin leer las tablas
+ * completas de la base de datos, y puede hacerlo aunque la base de datos no esté disponible.
+ * </p>
+ * <p>
+ * Si un evento no puede escribirse, la instantánea se elimina: en el siguiente arranque el parking vuelve a cargar
+ * su estado desde la base de datos.
+ * </p>
+ *
+ * @version 1.0
+ * @see Parking#Parking(javax.sql.DataSource, int, int, EscrituraDiferida, DiarioEventos)
+ */
+public class DiarioEventos implements AutoCloseable {
+
+    /**
+     * Identificador del formato de la instantánea.
+     */
+    private static final int FORMATO_INSTANTANEA = 0x50524B32;
+
+    /**
+     * Tipo de evento del registro de un vehículo nuevo.
+     */
+    private static final byte EVENTO_REGISTRO = 1;
+
+    /**
+     * Tipo de evento de la entrada de un vehículo en el parking.
+     */
+    private static final byte EVENTO_ENTRADA = 2;
+
+    /**
+     * Tipo de evento de la salida de un vehículo del parking.
+     */
+    private static final byte EVENTO_SALIDA = 3;
+
+    /**
+     * Tipo de evento del aparcamiento de un vehículo en una plaza.
+     */
+    private static final byte EVENTO_APARCAMIENTO = 4;
+
+    /**
+     * Tipo de evento del desaparcamiento de un vehículo de una plaza.
+     */
+    private static final byte EVENTO_DESAPARCAMIENTO = 5;
+
+    /**
+     * Tamaño máximo de un registro del diario, en bytes.
+     */
+    private static final int TAMANO_MAXIMO_REGISTRO = 256;
+
+    /**
+     * Fichero del diario de eventos.
+     */
+    private final Path DIARIO;
+
+    /**
+     * Fichero de la instantánea del estado.
+     */
+    private final Path INSTANTANEA;
+
+    /**
+     * Bytes del evento que se está codificando.
+     */
+    private final ByteArrayOutputStream bytesEvento = new ByteArrayOutputStream(TAMANO_MAXIMO_REGISTRO);
+
+    /**
+     * Flujo con el que se codifican los datos de cada evento en {@link #bytesEvento}.
+     */
+    private final DataOutputStream evento = new DataOutputStream(bytesEvento);
+
+    /**
+     * Búfer en el que se compone cada registro, con su cabecera y su suma de comprobación, antes de escribirlo.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(TAMANO_MAXIMO_REGISTRO);
+
+    /**
+     * Suma de comprobación reutilizada en cada registro.
+     */
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Hilo que sincroniza el diario con el disco.
+     */
+    private final Thread sincronizador;
+
+    /**
+     * Intervalo entre dos sincronizaciones con el disco, en milisegundos.
+     */
+    private final long INTERVALO_MILIS;
+
+    /**
+     * Estado recuperado al abrir el diario, o {@code null} si no había instantánea.
+     */
+    private final Estado estado;
+
+    /**
+     * Canal del diario.
+     */
+    private FileChannel canal;
+
+    /**
+     * Número de secuencia del último evento escrito.
+     */
+    private long secuencia;
+
+    /**
+     * Indica si hay eventos escritos que todavía no se han sincronizado con el disco.
+     */
+    private boolean pendienteSincronizar;
+
+    /**
+     * Indica si ha fallado la escritura de algún evento; a partir de entonces no se escriben más.
+     */
+    private boolean fallido;
+
+    /**
+     * Indica si el diario se ha cerrado.
+     */
+    private volatile boolean cerrado;
+
+    /**
+     * Abre el diario de eventos de un directorio, recuperando el estado de la instantánea y los eventos posteriores.
+     *
+     * @param directorio El directorio del diario y la instantánea. Se crea si no existe.
+     * @param intervalo El tiempo entre dos sincronizaciones del diario con el disco.
+     * @param unidad La unidad del intervalo.
+     * @throws IllegalArgumentException Si el intervalo no es positivo.
+     * @throws IllegalStateException Si no se puede leer o escribir en el directorio.
+     */
+    public DiarioEventos(Path directorio, long intervalo, TimeUnit unidad) {
+        if (intervalo <= 0) {
+            throw new IllegalArgumentException("El intervalo de sincronización del diario debe ser mayor que 0.");
+        }
+        DIARIO = directorio.resolve("eventos.diario");
+        INSTANTANEA = directorio.resolve("estado.instantanea");
+        INTERVALO_MILIS = Math.max(1, unidad.toMillis(intervalo));
+
+        try {
+            Files.createDirectories(directorio);
+            estado = leeInstantanea();
+            if (estado != null) {
+                int aplicados = aplicaEventos(estado);
+                // Se compacta: el estado recuperado pasa a ser la instantánea y el diario empieza vacío
+                guardaInstantanea(estado);
+                System.out.println("Estado del parking recuperado del diario local (" + aplicados + " eventos).");
+            }
+            canal = FileChannel.open(DIARIO, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se puede abrir el diario de eventos en " + directorio, e);
+        }
+
+        sincronizador = new Thread(this::ejecutaSincronizador, "diario-eventos");
+        sincronizador.setDaemon(true);
+        sincronizador.start();
+    }
+
+    /**
+     * Obtiene el estado recuperado al abrir el diario.
+     *
+     * @return El estado, o {@code null} si no había instantánea y el estado debe cargarse de la base de datos.
+     */
+    public Estado getEstado() {
+        return estado;
+    }
+
+    /**
+     * Guarda el estado inicial del parking como instantánea, cuando no se ha recuperado del diario.
+     * Los eventos escritos hasta ahora se descartan, ya que forman parte del estado.
+     *
+     * @param numeroPlazas El número de plazas del parking.
+     * @param vehiculos Los vehículos registrados.
+     * @param ticketsAbiertos Los tickets abiertos.
+     * @param ultimoIdTicket El mayor ID de ticket asignado.
+     * @param totalTickets El número total de tickets del histórico.
+     * @throws IllegalStateException Si no se puede escribir la instantánea.
+     */
+    public synchronized void inicializa(int numeroPlazas, Collection<Vehiculo> vehiculos,
+                                        Collection<Ticket> ticketsAbiertos, int ultimoIdTicket, int totalTickets) {
+        Estado inicial = new Estado(numeroPlazas);
+        for (Vehiculo vehiculo : vehiculos) {
+            inicial.vehiculos.put(vehiculo.getMATRICULA(), vehiculo);
+        }
+        for (Ticket ticket : ticketsAbiertos) {
+            inicial.ticketsAbiertos.put(ticket.getNUM_PLAZA(), ticket);
+        }
+        inicial.ultimoIdTicket = ultimoIdTicket;
+        inicial.totalTickets = totalTickets;
+        try {
+            canal.truncate(0);
+            canal.position(0);
+            inicial.secuencia = secuencia;
+            guardaInstantanea(inicial);
+            fallido = false;
+        } catch (IOException e) {
+            throw new IllegalStateException("No se puede guardar la instantánea del parking", e);
+        }
+    }
+
+    /**
+     * Añade al diario el registro de un vehículo nuevo.
+     *
+     * @param vehiculo El vehículo registrado.
+     */
+    public synchronized void registraVehiculo(Vehiculo vehiculo) {
+        try {
+            iniciaEvento(EVENTO_REGISTRO);
+            FormatoDiario.escribeVehiculo(evento, vehiculo);
+            escribe();
+        } catch (IOException e) {
+            marcaFallido(e);
+        }
+    }
+
+    /**
+     * Añade al diario la entrada de un vehículo registrado en el parking.
+     *
+     * @param matricula La matrícula del vehículo.
+     */
+    public synchronized void registraEntrada(String matricula) {
+        try {
+            iniciaEvento(EVENTO_ENTRADA);
+            FormatoDiario.escribeTexto(evento, matricula);
+            escribe();
+        } catch (IOException e) {
+            marcaFallido(e);
+        }
+    }
+
+    /**
+     * Añade al diario la salida de un vehículo del parking.
+     *
+     * @param matricula La matrícula del vehículo.
+     */
+    public synchronized void registraSalida(String matricula) {
+        try {
+            iniciaEvento(EVENTO_SALIDA);
+            FormatoDiario.escribeTexto(evento, matricula);
+            escribe();
+        } catch (IOException e) {
+            marcaFallido(e);
+        }
+    }
+
+    /**
+     * Añade al diario el aparcamiento de un vehículo, con su ticket abierto.
+     *
+     * @param ticket El ticket abierto.
+     */
+    public synchronized void registraAparcamiento(Ticket ticket) {
+        try {
+            iniciaEvento(EVENTO_APARCAMIENTO);
+            evento.writeInt(ticket.getID());
+            FormatoDiario.escribeTexto(evento, ticket.getMATRICULA());
+            evento.writeInt(ticket.getNUM_PLAZA());
+            FormatoDiario.escribeFecha(evento, ticket.getFECHA_ENTRADA());
+            escribe();
+        } catch (IOException e) {
+            marcaFallido(e);
+        }
+    }
+
+    /**
+     * Añade al diario el desaparcamiento de un vehículo, con su ticket cerrado.
+     *
+     * @param ticket El ticket cerrado, con su fecha de salida y su precio.
+     */
+    public synchronized void registraDesaparcamiento(Ticket ticket) {
+        try {
+            iniciaEvento(EVENTO_DESAPARCAMIENTO);
+            evento.writeInt(ticket.getID());
+            evento.writeInt(ticket.getNUM_PLAZA());
+            FormatoDiario.escribeFecha(evento, ticket.getFechaSalida());
+            evento.writeLong(ticket.getPrecioCentimos());
+            escribe();
+        } catch (IOException e) {
+            marcaFallido(e);
+        }
+    }
+
+    /**
+     * Sincroniza con el disco los eventos escritos hasta ahora.
+     */
+    public synchronized void sincroniza() {
+        if (!pendienteSincronizar || fallido) {
+            return;
+        }
+        try {
+            canal.force(false);
+            pendienteSincronizar = false;
+        } catch (IOException e) {
+            marcaFallido(e);
+        }
+    }
+
+    /**
+     * Sincroniza los eventos pendientes con el disco y cierra el diario.
+     */
+    @Override
+    public void close() {
+        cerrado = true;
+        sincronizador.interrupt();
+        synchronized (this) {
+            sincroniza();
+            try {
+                canal.close();
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Bucle del hilo que sincroniza el diario con el disco cada intervalo.
+     */
+    private void ejecutaSincronizador() {
+        while (!cerrado) {
+            try {
+                Thread.sleep(INTERVALO_MILIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            sincroniza();
+        }
+    }
+
+    /**
+     * Empieza a codificar un evento nuevo, descartando el anterior.
+     *
+     * @param tipo El tipo de evento.
+     * @throws IOException Si falla la escritura.
+     */
+    private void iniciaEvento(byte tipo) throws IOException {
+        bytesEvento.reset();
+        evento.writeByte(tipo);
+    }
+
+    /**
+     * Completa el evento codificado con su cabecera y su suma de comprobación, y lo escribe en el diario.
+     * Formato: longitud (int), secuencia (long), tipo y datos, CRC32 de la secuencia, el tipo y los datos (int).
+     *
+     * @throws IOException Si el evento no cabe en un registro o no se puede escribir en el diario.
+     */
+    private void escribe() throws IOException {
+        if (fallido || cerrado) {
+            return;
+        }
+        byte[] datos = bytesEvento.toByteArray();
+        if (Integer.BYTES + Long.BYTES + datos.length + Integer.BYTES > TAMANO_MAXIMO_REGISTRO) {
+            throw new IOException("El evento ocupa más que el tamaño máximo de un registro del diario.");
+        }
+
+        long siguiente = secuencia + 1;
+        buffer.clear();
+        buffer.putInt(Long.BYTES + datos.length + Integer.BYTES);
+        buffer.putLong(siguiente);
+        buffer.put(datos);
+        crc.reset();
+        crc.update(buffer.array(), Integer.BYTES, Long.BYTES + datos.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        secuencia = siguiente;
+        pendienteSincronizar = true;
+    }
+
+    /**
+     * Deja de escribir eventos y elimina la instantánea, para que el siguiente arranque cargue el estado de la
+     * base de datos en lugar de un diario incompleto.
+     *
+     * @param e El error de escritura.
+     */
+    private void marcaFallido(IOException e) {
+        fallido = true;
+        System.out.println("Error al escribir en el diario de eventos " + DIARIO + ": " + e.getMessage());
+        try {
+            Files.deleteIfExists(INSTANTANEA);
+        } catch (IOException ex) {
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Lee la instantánea del estado.
+     *
+     * @return El estado de la instantánea, o {@code null} si no existe o está dañada.
+     * @throws IOException Si la instantánea no se puede leer.
+     */
+    private Estado leeInstantanea() throws IOException {
+        if (!Files.exists(INSTANTANEA)) {
+            return null;
+        }
+        byte[] contenido = Files.readAllBytes(INSTANTANEA);
+        if (contenido.length >= 2 * Integer.BYTES) {
+            crc.reset();
+            crc.update(contenido, 0, contenido.length - Integer.BYTES);
+        }
+        ByteBuffer cabecera = ByteBuffer.wrap(contenido);
+        if (contenido.length < 2 * Integer.BYTES || cabecera.getInt(0) != FORMATO_INSTANTANEA
+                || cabecera.getInt(contenido.length - Integer.BYTES) != (int) crc.getValue()) {
+            System.out.println("La instantánea " + INSTANTANEA + " está dañada: el estado se cargará de la base de datos.");
+            return null;
+        }
+
+        DataInputStream lector = new DataInputStream(new ByteArrayInputStream(contenido, Integer.BYTES,
+                contenido.length - 2 * Integer.BYTES));
+        Estado leido = new Estado(lector.readInt());
+        leido.secuencia = lector.readLong();
+        leido.ultimoIdTicket = lector.readInt();
+        leido.totalTickets = lector.readInt();
+        int vehiculos = lector.readInt();
+        for (int i = 0; i < vehiculos; i++) {
+            Vehiculo vehiculo = FormatoDiario.leeVehiculo(lector);
+            leido.vehiculos.put(vehiculo.getMATRICULA(), vehiculo);
+        }
+        int tickets = lector.readInt();
+        for (int i = 0; i < tickets; i++) {
+            int id = lector.readInt();
+            String matricula = FormatoDiario.leeTexto(lector);
+            int plaza = lector.readInt();
+            leido.ticketsAbiertos.put(plaza, new Ticket(id, matricula, plaza, FormatoDiario.leeFecha(lector), null,
+                    Ticket.SIN_PRECIO));
+        }
+        secuencia = leido.secuencia;
+        return leido;
+    }
+
+    /**
+     * Guarda un estado como instantánea. Se escribe en un fichero temporal que sustituye al anterior de forma
+     * atómica, de modo que una caída durante la escritura conserva la instantánea anterior.
+     *
+     * @param guardado El estado a guardar.
+     * @throws IOException Si no se puede escribir la instantánea.
+     */
+    private void guardaInstantanea(Estado guardado) throws IOException {
+        Path temporal = INSTANTANEA.resolveSibling(INSTANTANEA.getFileName() + ".tmp");
+        CRC32 suma = new CRC32();
+        try (OutputStream fichero = Files.newOutputStream(temporal);
+             DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fichero, suma)))) {
+            salida.writeInt(FORMATO_INSTANTANEA);
+            salida.writeInt(guardado.NUMERO_PLAZAS);
+            salida.writeLong(guardado.secuencia);
+            salida.writeInt(guardado.ultimoIdTicket);
+            salida.writeInt(guardado.totalTickets);
+            salida.writeInt(guardado.vehiculos.size());
+            for (Vehiculo vehiculo : guardado.vehiculos.values()) {
+                FormatoDiario.escribeVehiculo(salida, vehiculo);
+            }
+            salida.writeInt(guardado.ticketsAbiertos.size());
+            for (Ticket ticket : guardado.ticketsAbiertos.values()) {
+                salida.writeInt(ticket.getID());
+                FormatoDiario.escribeTexto(salida, ticket.getMATRICULA());
+                salida.writeInt(ticket.getNUM_PLAZA());
+                FormatoDiario.escribeFecha(salida, ticket.getFECHA_ENTRADA());
+            }
+            salida.flush();
+            salida.writeInt((int) suma.getValue());
+        }
+        try (FileChannel sincronizado = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+            sincronizado.force(true);
+        }
+        Files.move(temporal, INSTANTANEA, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Aplica a un estado los eventos del diario posteriores a su instantánea. Se detiene en el primer registro
+     * incompleto o dañado.
+     *
+     * @param recuperado El estado de la instantánea, que se modifica.
+     * @return El número de eventos aplicados.
+     * @throws IOException Si no se puede leer el diario.
+     */
+    private int aplicaEventos(Estado recuperado) throws IOException {
+        if (!Files.exists(DIARIO)) {
+            return 0;
+        }
+        int aplicados = 0;
+        try (InputStream fichero = Files.newInputStream(DIARIO);
+             DataInputStream entrada = new DataInputStream(new BufferedInputStream(fichero))) {
+            byte[] registro = new byte[TAMANO_MAXIMO_REGISTRO];
+            while (true) {
+                int longitud;
+                try {
+                    longitud = entrada.readInt();
+                    if (longitud <= Long.BYTES + Integer.BYTES || longitud > TAMANO_MAXIMO_REGISTRO) {
+                        break;
+                    }
+                    entrada.readFully(registro, 0, longitud);
+                } catch (EOFException e) {
+                    break;
+                }
+                int tamanoDatos = longitud - Integer.BYTES;
+                crc.reset();
+                crc.update(registro, 0, tamanoDatos);
+                if (ByteBuffer.wrap(registro).getInt(tamanoDatos) != (int) crc.getValue()) {
+                    break;
+                }
+                DataInputStream lector = new DataInputStream(new ByteArrayInputStream(registro, 0, tamanoDatos));
+                long numero = lector.readLong();
+                if (numero <= recuperado.secuencia) {
+                    continue;
+                }
+                aplicaEvento(recuperado, lector);
+                recuperado.secuencia = numero;
+                aplicados++;
+            }
+        }
+        secuencia = recuperado.secuencia;
+        return aplicados;
+    }
+
+    /**
+     * Aplica un evento a un estado.
+     *
+     * @param recuperado El estado, que se modifica.
+     * @param lector El registro del evento, situado en su tipo.
+     * @throws IOException Si el registro está incompleto o el tipo de evento no es válido.
+     */
+    private static void aplicaEvento(Estado recuperado, DataInput lector) throws IOException {
+        byte tipo = lector.readByte();
+        switch (tipo) {
+            case EVENTO_REGISTRO -> {
+                Vehiculo vehiculo = FormatoDiario.leeVehiculo(lector);
+                recuperado.vehiculos.put(vehiculo.getMATRICULA(), vehiculo);
+            }
+            case EVENTO_ENTRADA, EVENTO_SALIDA -> {
+                Vehiculo vehiculo = recuperado.vehiculos.get(FormatoDiario.leeTexto(lector));
+                if (vehiculo != null) {
+                    vehiculo.setActivo(tipo == EVENTO_ENTRADA);
+                }
+            }
+            case EVENTO_APARCAMIENTO -> {
+                int id = lector.readInt();
+                String matricula = FormatoDiario.leeTexto(lector);
+                int plaza = lector.readInt();
+                recuperado.ticketsAbiertos.put(plaza, new Ticket(id, matricula, plaza, FormatoDiario.leeFecha(lector),
+                        null, Ticket.SIN_PRECIO));
+                recuperado.ultimoIdTicket = Math.max(recuperado.ultimoIdTicket, id);
+                recuperado.totalTickets++;
+            }
+            case EVENTO_DESAPARCAMIENTO -> {
+                int id = lector.readInt();
+                int plaza = lector.readInt();
+                Ticket abierto = recuperado.ticketsAbiertos.get(plaza);
+                if (abierto != null && abierto.getID() == id) {
+                    recuperado.ticketsAbiertos.remove(plaza);
+                }
+            }
+            default -> throw new IOException("Tipo de evento desconocido en el diario: " + tipo);
+        }
+    }
+
+    /**
+     * Estado del parking recuperado de la instantánea y del diario de eventos.
+     */
+    public static final class Estado {
+
+        /**
+         * Número de plazas del parking.
+         */
+        private final int NUMERO_PLAZAS;
+
+        /**
+         * Vehículos registrados, por matrícula.
+         */
+        private final Map<String, Vehiculo> vehiculos = new LinkedHashMap<>();
+
+        /**
+         * Tickets abiertos, por número de plaza.
+         */
+        private final Map<Integer, Ticket> ticketsAbiertos = new TreeMap<>();
+
+        /**
+         * Número de secuencia del último evento incluido en el estado.
+         */
+        private long secuencia;
+
+        /**
+         * Mayor ID de ticket asignado.
+         */
+        private int ultimoIdTicket;
+
+        /**
+         * Número total de tickets del histórico.
+         */
+        private int totalTickets;
+
+        /**
+         * Crea un estado vacío.
+         *
+         * @param numeroPlazas El número de plazas del parking.
+         */
+        private Estado(int numeroPlazas) {
+            NUMERO_PLAZAS = numeroPlazas;
+        }
+
+        /**
+         * Obtiene el número de plazas del parking.
+         *
+         * @return El número de plazas.
+         */
+        public int getNumeroPlazas() {
+            return NUMERO_PLAZAS;
+        }
+
+        /**
+         * Obtiene los vehículos registrados.
+         *
+         * @return Una lista con los vehículos registrados, en orden de registro.
+         */
+        public List<Vehiculo> getVehiculos() {
+            return new ArrayList<>(vehiculos.values());
+        }
+
+        /**
+         * Obtiene los tickets abiertos, ordenados por ID.
+         *
+         * @return Una lista no modificable con los tickets sin fecha de salida.
+         */
+        public List<Ticket> getTicketsAbiertos() {
+            List<Ticket> abiertos = new ArrayList<>(ticketsAbiertos.values());
+            abiertos.sort((a, b) -> Integer.compare(a.getID(), b.getID()));
+            return Collections.unmodifiableList(abiertos);
+        }
+
+        /**
+         * Obtiene el mayor ID de ticket asignado.
+         *
+         * @return El último ID de ticket.
+         */
+        public int getUltimoIdTicket() {
+            return ultimoIdTicket;
+        }
+
+        /**
+         * Obtiene el número total de tickets del histórico.
+         *
+         * @return El número de tickets.
+         */
+        public int getTotalTickets() {
+            return totalTickets;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package GESTION_DE_PARKING;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Utilidades para manejar importes de dinero como números enteros de céntimos.
+ * <p>
+ * Todos los importes del parking (precios por minuto, precios de tickets y recaudaciones) se representan como
+ * {@code long} de céntimos de euro, de forma que las sumas y multiplicaciones son exactas y no hay que encapsular
+ * ni redondear valores en coma flotante. Solo se convierte a decimal en los bordes: al leer y escribir en la base
+ * de datos ({@link BigDecimal} con dos decimales) y al mostrar importes al usuario.
+ * </p>
+ * <p>
+ * Cuando un importe decimal tiene más de dos decimales se redondea al céntimo más cercano, y los medios céntimos
+ * se redondean alejándose de cero ({@link RoundingMode#HALF_UP}).
+ * </p>
+ *
+ * @version 1.0
+ */
+public final class Dinero {
+
+    /**
+     * Regla de redondeo al convertir importes decimales a céntimos.
+     */
+    public static final RoundingMode REDONDEO = RoundingMode.HALF_UP;
+
+    /**
+     * Número de decimales de un importe en euros.
+     */
+    private static final int DECIMALES = 2;
+
+    private Dinero() {
+    }
+
+    /**
+     * Convierte un importe decimal en euros a céntimos, redondeando con {@link #REDONDEO}.
+     *
+     * @param euros El importe en euros.
+     * @return El importe en céntimos.
+     * @throws ArithmeticException Si el importe no cabe en un {@code long} de céntimos.
+     */
+    public static long aCentimos(BigDecimal euros) {
+        return euros.setScale(DECIMALES, REDONDEO).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Convierte un importe en euros expresado en coma flotante a céntimos, redondeando con {@link #REDONDEO}.
+     * Se usa solo para valores introducidos por el usuario o escritos como literales.
+     *
+     * @param euros El importe en euros.
+     * @return El importe en céntimos.
+     * @throws ArithmeticException Si el importe no cabe en un {@code long} de céntimos.
+     */
+    public static long aCentimos(double euros) {
+        return aCentimos(BigDecimal.valueOf(euros));
+    }
+
+    /**
+     * Convierte un importe en céntimos a un decimal en euros con dos decimales, por ejemplo para guardarlo
+     * en una columna {@code DECIMAL} de la base de datos.
+     *
+     * @param centimos El importe en céntimos.
+     * @return El importe en euros.
+     */
+    public static BigDecimal aEuros(long centimos) {
+        return BigDecimal.valueOf(centimos, DECIMALES);
+    }
+
+    /**
+     * Da formato a un importe en céntimos con dos decimales y el separador decimal de la configuración regional,
+     * sin pasar por coma flotante (por ejemplo, {@code 1234} se muestra como {@code 12,34}).
+     *
+     * @param centimos El importe en céntimos.
+     * @return El importe formateado, sin símbolo de moneda.
+     */
+    public static String formatea(long centimos) {
+        char separador = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+        long absoluto = Math.abs(centimos);
+        long resto = absoluto % 100;
+        return (centimos < 0 ? "-" : "") + absoluto / 100 + separador + (resto < 10 ? "0" : "") + resto;
+    }
+}
@@ -0,0 +1,578 @@
+package GESTION_DE_PARKING;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cola de escritura diferida (<i>write-behind</i>) de los cambios de plazas, vehículos y tickets del parking.
+ * <p>
+ * En este modo el estado en memoria de {@link Parking} es el que manda: cada operación de puerta registra aquí
+ * el nuevo estado de las filas que modifica y vuelve sin esperar a la base de datos. Cada cambio se añade antes
+ * a un diario local, de forma que los cambios que todavía no han llegado a la base de datos no se pierden si el
+ * programa termina; el diario se sincroniza con el disco ({@code fsync}) en cada ciclo del escritor.
+ * </p>
+ * <p>
+ * Un hilo escritor vuelca los cambios pendientes cada intervalo: agrupa los cambios sobre la misma fila, de los
+ * que solo se guarda el último, y los escribe mediante lotes JDBC en una única transacción. Si la base de datos no
+ * está disponible, el lote se reintenta en el ciclo siguiente mientras el parking sigue funcionando. El número de
+ * cambios pendientes está limitado: cuando la cola está llena, las operaciones esperan a que el escritor la vacíe.
+ * </p>
+ * <p>
+ * Todas las escrituras son idempotentes (insertan la fila o la actualizan si ya existe), por lo que volver a
+ * aplicar cambios que ya habían llegado a la base de datos no altera el resultado. Al crear la cola se aplican
+ * los cambios que quedaran en el diario de una ejecución anterior.
+ * </p>
+ *
+ * @version 1.0
+ * @see Parking#Parking(DataSource, int, int, EscrituraDiferida)
+ */
+public class EscrituraDiferida implements AutoCloseable {
+
+    /**
+     * Tipo de registro del diario para un vehículo.
+     */
+    private static final byte REGISTRO_VEHICULO = 1;
+
+    /**
+     * Tipo de registro del diario para una plaza.
+     */
+    private static final byte REGISTRO_PLAZA = 2;
+
+    /**
+     * Tipo de registro del diario para un ticket.
+     */
+    private static final byte REGISTRO_TICKET = 3;
+
+    /**
+     * Segundos que una operación espera, como máximo, a que haya sitio en la cola.
+     */
+    private static final long ESPERA_MAXIMA_SEGUNDOS = 30;
+
+    /**
+     * Origen de datos en el que se vuelcan los cambios.
+     */
+    private final DataSource ORIGEN_DATOS;
+
+    /**
+     * DAO con el que se guardan los vehículos de cada lote.
+     */
+    private final VehiculoDAO vehiculoDAO;
+
+    /**
+     * DAO con el que se actualizan las plazas de cada lote.
+     */
+    private final PlazaDAO plazaDAO;
+
+    /**
+     * DAO con el que se guardan los tickets de cada lote.
+     */
+    private final TicketDAO ticketDAO;
+
+    /**
+     * Fichero del diario en el que se añaden los cambios nuevos.
+     */
+    private final Path DIARIO;
+
+    /**
+     * Fichero con los cambios del lote que se está volcando. Solo existe mientras el lote no se ha confirmado.
+     */
+    private final Path DIARIO_LOTE;
+
+    /**
+     * Intervalo entre dos volcados, en milisegundos.
+     */
+    private final long INTERVALO_MILIS;
+
+    /**
+     * Número máximo de cambios pendientes.
+     */
+    private final int CAPACIDAD;
+
+    /**
+     * Permisos libres de la cola: cada cambio pendiente ocupa un permiso hasta que se confirma en la base de datos.
+     */
+    private final Semaphore permisos;
+
+    /**
+     * Cerrojo que garantiza un único volcado a la vez.
+     */
+    private final Object bloqueoVolcado = new Object();
+
+    /**
+     * Hilo escritor.
+     */
+    private final Thread escritor;
+
+    /**
+     * Canal del diario. Se protege con el monitor de la propia cola, igual que {@link #pendientes}.
+     */
+    private FileChannel canal;
+
+    /**
+     * Cambios registrados que todavía no forman parte de un lote, en orden de registro.
+     */
+    private List<Object> pendientes = new ArrayList<>();
+
+    /**
+     * Lote que se está volcando o que falló en el último intento, o {@code null} si no hay ninguno.
+     * Solo se accede con {@link #bloqueoVolcado}.
+     */
+    private List<Object> lote;
+
+    /**
+     * Indica si la cola se ha cerrado.
+     */
+    private volatile boolean cerrada;
+
+    /**
+     * Crea la cola de escritura diferida y arranca su hilo escritor.
+     * <p>
+     * Antes de arrancar, los cambios que quedaran en el diario de una ejecución anterior se vuelcan en la base de
+     * datos, de modo que al cargar el parking desde la base de datos se obtiene el último estado. Si la base de
+     * datos no está disponible, esos cambios quedan pendientes en la cola.
+     * </p>
+     *
+     * @param origenDatos El origen de datos en el que se vuelcan los cambios.
+     * @param diario El fichero del diario local. Se crea si no existe.
+     * @param intervalo El tiempo entre dos volcados.
+     * @param unidad La unidad del intervalo.
+     * @param capacidad El número máximo de cambios pendientes.
+     * @throws IllegalArgumentException Si el intervalo o la capacidad no son positivos.
+     * @throws IllegalStateException Si no se puede leer o crear el diario.
+     */
+    public EscrituraDiferida(DataSource origenDatos, Path diario, long intervalo, TimeUnit unidad, int capacidad) {
+        if (intervalo <= 0) {
+            throw new IllegalArgumentException("El intervalo de volcado debe ser mayor que 0.");
+        }
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad de la cola de escritura debe ser mayor que 0.");
+        }
+        ORIGEN_DATOS = origenDatos;
+        vehiculoDAO = new VehiculoDAO(origenDatos);
+        plazaDAO = new PlazaDAO(origenDatos);
+        ticketDAO = new TicketDAO(origenDatos);
+        DIARIO = diario;
+        DIARIO_LOTE = diario.resolveSibling(diario.getFileName() + ".lote");
+        INTERVALO_MILIS = Math.max(1, unidad.toMillis(intervalo));
+        CAPACIDAD = capacidad;
+
+        // Se recuperan los cambios de una ejecución anterior: primero el lote que no llegó a confirmarse
+        // y después los cambios posteriores
+        List<Object> recuperados = new ArrayList<>();
+        leeDiario(DIARIO_LOTE, recuperados);
+        leeDiario(DIARIO, recuperados);
+        boolean volcados = recuperados.isEmpty();
+        if (!volcados) {
+            try {
+                escribe(recuperados);
+                volcados = true;
+                System.out.println("Se han recuperado " + recuperados.size() + " cambios pendientes del diario.");
+            } catch (IllegalStateException e) {
+                // Sin base de datos, los cambios recuperados quedan pendientes y se vuelcan en el primer ciclo posible
+                System.out.println("Quedan " + recuperados.size() + " cambios pendientes del diario: " + e.getMessage());
+            }
+        }
+        try {
+            if (!volcados) {
+                reescribeDiario(recuperados);
+            }
+            Files.deleteIfExists(DIARIO_LOTE);
+            canal = FileChannel.open(DIARIO, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    volcados ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se puede preparar el diario de escritura " + DIARIO, e);
+        }
+        if (!volcados) {
+            pendientes.addAll(recuperados);
+        }
+        permisos = new Semaphore(capacidad - pendientes.size());
+
+        escritor = new Thread(this::ejecutaEscritor, "escritura-diferida");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    /**
+     * Registra los cambios de una operación. Los cambios se copian, se añaden al diario y se volcarán en la
+     * base de datos en un mismo lote.
+     * <p>
+     * Si la cola no tiene sitio para todos los cambios, espera a que el escritor la vacíe durante
+     * {@value #ESPERA_MAXIMA_SEGUNDOS} segundos como máximo.
+     * </p>
+     *
+     * @param cambios El nuevo estado de las plazas, vehículos y tickets modificados por la operación.
+     * @throws IllegalStateException Si la cola está cerrada o llena, o no se puede escribir en el diario.
+     * @throws IllegalArgumentException Si algún cambio no es una plaza, un vehículo o un ticket.
+     */
+    public void registra(Object... cambios) {
+        if (cambios.length > CAPACIDAD) {
+            throw new IllegalArgumentException("La operación tiene más cambios que la capacidad de la cola de escritura.");
+        }
+        List<Object> copias = new ArrayList<>(cambios.length);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream salida = new DataOutputStream(bytes)) {
+            for (Object cambio : cambios) {
+                Object copia = copia(cambio);
+                copias.add(copia);
+                escribeRegistro(salida, copia);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error al codificar los cambios para el diario", e);
+        }
+
+        // Contrapresión: cada cambio pendiente ocupa un permiso hasta que se confirma en la base de datos
+        try {
+            if (!permisos.tryAcquire(cambios.length, ESPERA_MAXIMA_SEGUNDOS, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("La cola de escritura está llena: la base de datos no admite los cambios.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido mientras se esperaba sitio en la cola de escritura", e);
+        }
+
+        synchronized (this) {
+            try {
+                if (cerrada) {
+                    throw new IllegalStateException("La cola de escritura está cerrada.");
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+                while (buffer.hasRemaining()) {
+                    canal.write(buffer);
+                }
+            } catch (IOException | RuntimeException e) {
+                permisos.release(cambios.length);
+                if (e instanceof RuntimeException) {
+                    throw (RuntimeException) e;
+                }
+                throw new IllegalStateException("Error al escribir en el diario " + DIARIO, e);
+            }
+            pendientes.addAll(copias);
+        }
+    }
+
+    /**
+     * Vuelca en la base de datos, sin esperar al siguiente ciclo del escritor, todos los cambios registrados hasta ahora.
+     *
+     * @throws IllegalStateException Si falla la base de datos o el diario; los cambios siguen pendientes.
+     */
+    public void vacia() {
+        synchronized (bloqueoVolcado) {
+            if (lote != null) {
+                vuelcaLote();
+            }
+            if (preparaLote()) {
+                vuelcaLote();
+            }
+        }
+    }
+
+    /**
+     * Obtiene el número máximo de cambios pendientes que admite la cola, que es también el máximo de cambios de
+     * una sola llamada a {@link #registra(Object...)}.
+     *
+     * @return La capacidad de la cola.
+     */
+    public int getCapacidad() {
+        return CAPACIDAD;
+    }
+
+    /**
+     * Obtiene el número de cambios registrados que todavía no se han confirmado en la base de datos.
+     *
+     * @return El número de cambios pendientes.
+     */
+    public int getPendientes() {
+        return CAPACIDAD - permisos.availablePermits();
+    }
+
+    /**
+     * Detiene el escritor e intenta volcar los cambios pendientes. Los que no se puedan volcar quedan en el
+     * diario y se aplicarán al crear la siguiente cola sobre el mismo fichero.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (cerrada) {
+                return;
+            }
+            cerrada = true;
+        }
+        escritor.interrupt();
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            vacia();
+        } catch (RuntimeException e) {
+            System.out.println("Quedan cambios pendientes en el diario " + DIARIO + ": " + e.getMessage());
+        }
+        synchronized (this) {
+            try {
+                canal.force(false);
+                canal.close();
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Bucle del hilo escritor: en cada ciclo sincroniza el diario con el disco y vuelca los cambios pendientes.
+     */
+    private void ejecutaEscritor() {
+        while (!cerrada) {
+            try {
+                Thread.sleep(INTERVALO_MILIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                synchronized (this) {
+                    if (!cerrada) {
+                        canal.force(false);
+                    }
+                }
+                vacia();
+            } catch (IOException | RuntimeException e) {
+                // El lote se conserva y se reintenta en el ciclo siguiente
+                System.out.println("Error en la escritura diferida: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Convierte los cambios pendientes en el lote a volcar y empieza un diario nuevo para los cambios siguientes.
+     * Debe llamarse con {@link #bloqueoVolcado} y sin lote pendiente.
+     *
+     * @return {@code true} si hay un lote que volcar.
+     */
+    private boolean preparaLote() {
+        synchronized (this) {
+            if (pendientes.isEmpty()) {
+                return false;
+            }
+            try {
+                // El diario actual pasa a ser el del lote; solo se borra cuando el lote se confirma
+                canal.force(false);
+                canal.close();
+                Files.move(DIARIO, DIARIO_LOTE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                canal = FileChannel.open(DIARIO, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+            } catch (IOException e) {
+                throw new IllegalStateException("Error al rotar el diario " + DIARIO, e);
+            }
+            lote = pendientes;
+            pendientes = new ArrayList<>();
+            return true;
+        }
+    }
+
+    /**
+     * Vuelca el lote en la base de datos y, si se confirma, libera su sitio en la cola.
+     * Debe llamarse con {@link #bloqueoVolcado}.
+     */
+    private void vuelcaLote() {
+        escribe(lote);
+        try {
+            Files.deleteIfExists(DIARIO_LOTE);
+        } catch (IOException e) {
+            // El lote ya está en la base de datos: volver a aplicarlo en el próximo arranque no cambia nada
+            System.out.println(e.getMessage());
+        }
+        permisos.release(lote.size());
+        lote = null;
+    }
+
+    /**
+     * Escribe un conjunto de cambios en la base de datos en una única transacción, conservando solo el último
+     * cambio de cada fila.
+     * <p>
+     * Se escriben primero los vehículos, después las plazas y por último los tickets, para que las filas a las
+     * que hacen referencia las claves ajenas existan siempre.
+     * </p>
+     *
+     * @param cambios Los cambios, en orden de registro.
+     * @throws IllegalStateException Si falla la base de datos; la transacción se deshace.
+     */
+    private void escribe(List<Object> cambios) {
+        Map<String, Vehiculo> vehiculos = new LinkedHashMap<>();
+        Map<Integer, Plaza> plazas = new LinkedHashMap<>();
+        Map<Integer, Ticket> tickets = new LinkedHashMap<>();
+        for (Object cambio : cambios) {
+            if (cambio instanceof Vehiculo vehiculo) {
+                vehiculos.put(vehiculo.getMATRICULA(), vehiculo);
+            } else if (cambio instanceof Plaza plaza) {
+                plazas.put(plaza.getNUMERODEPLAZA(), plaza);
+            } else {
+                Ticket ticket = (Ticket) cambio;
+                tickets.put(ticket.getID(), ticket);
+            }
+        }
+
+        try (Connection conexion = ORIGEN_DATOS.getConnection()) {
+            conexion.setAutoCommit(false);
+            try {
+                vehiculoDAO.guardaVehiculos(conexion, vehiculos.values());
+                plazaDAO.actualizaPlazas(conexion, plazas.values());
+                ticketDAO.guardaTickets(conexion, tickets.values());
+                conexion.commit();
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    conexion.rollback();
+                } catch (SQLException ex) {
+                    e.addSuppressed(ex);
+                }
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error al volcar " + cambios.size() + " cambios en la base de datos", e);
+        }
+    }
+
+    /**
+     * Copia el estado actual de una plaza, un vehículo o un ticket, para que los cambios posteriores en memoria
+     * no alteren lo registrado.
+     *
+     * @param cambio La plaza, el vehículo o el ticket.
+     * @return La copia.
+     * @throws IllegalArgumentException Si el objeto no es una plaza, un vehículo o un ticket.
+     */
+    private static Object copia(Object cambio) {
+        if (cambio instanceof Vehiculo vehiculo) {
+            return FormatoDiario.creaVehiculo(vehiculo.getMATRICULA(), vehiculo.getTIPO(),
+                    vehiculo.getCentimosPorMinuto(), vehiculo.isActivo());
+        } else if (cambio instanceof Plaza plaza) {
+            return new Plaza(plaza.getNUMERODEPLAZA(), plaza.isDisponible(), plaza.getMatriculaVehiculo());
+        } else if (cambio instanceof Ticket ticket) {
+            return new Ticket(ticket.getID(), ticket.getMATRICULA(), ticket.getNUM_PLAZA(), ticket.getFECHA_ENTRADA(),
+                    ticket.getFechaSalida(), ticket.getPrecioCentimos());
+        }
+        throw new IllegalArgumentException("Cambio no admitido en la cola de escritura: " + cambio);
+    }
+
+    /**
+     * Escribe un cambio en formato binario.
+     *
+     * @param salida El flujo de salida.
+     * @param cambio La copia de la plaza, el vehículo o el ticket.
+     * @throws IOException Si falla la escritura.
+     */
+    private static void escribeRegistro(DataOutputStream salida, Object cambio) throws IOException {
+        if (cambio instanceof Vehiculo vehiculo) {
+            salida.writeByte(REGISTRO_VEHICULO);
+            FormatoDiario.escribeVehiculo(salida, vehiculo);
+        } else if (cambio instanceof Plaza plaza) {
+            salida.writeByte(REGISTRO_PLAZA);
+            salida.writeInt(plaza.getNUMERODEPLAZA());
+            salida.writeBoolean(plaza.isDisponible());
+            FormatoDiario.escribeTexto(salida, plaza.getMatriculaVehiculo());
+        } else {
+            Ticket ticket = (Ticket) cambio;
+            salida.writeByte(REGISTRO_TICKET);
+            salida.writeInt(ticket.getID());
+            salida.writeUTF(ticket.getMATRICULA());
+            salida.writeInt(ticket.getNUM_PLAZA());
+            FormatoDiario.escribeFecha(salida, ticket.getFECHA_ENTRADA());
+            FormatoDiario.escribeFecha(salida, ticket.getFechaSalida());
+            salida.writeLong(ticket.getPrecioCentimos());
+        }
+    }
+
+    /**
+     * Lee un cambio escrito con {@link #escribeRegistro(DataOutputStream, Object)}.
+     *
+     * @param entrada El flujo de entrada.
+     * @return La plaza, el vehículo o el ticket.
+     * @throws IOException Si falla la lectura, el registro está incompleto o su tipo no es válido.
+     */
+    private static Object leeRegistro(DataInputStream entrada) throws IOException {
+        byte tipo = entrada.readByte();
+        switch (tipo) {
+            case REGISTRO_VEHICULO:
+                return FormatoDiario.leeVehiculo(entrada);
+            case REGISTRO_PLAZA:
+                int numero = entrada.readInt();
+                boolean disponible = entrada.readBoolean();
+                return new Plaza(numero, disponible, FormatoDiario.leeTexto(entrada));
+            case REGISTRO_TICKET:
+                int id = entrada.readInt();
+                String matriculaTicket = entrada.readUTF();
+                int plaza = entrada.readInt();
+                LocalDateTime fechaEntrada = FormatoDiario.leeFecha(entrada);
+                LocalDateTime fechaSalida = FormatoDiario.leeFecha(entrada);
+                return new Ticket(id, matriculaTicket, plaza, fechaEntrada, fechaSalida, entrada.readLong());
+            default:
+                throw new IOException("Tipo de registro desconocido en el diario: " + tipo);
+        }
+    }
+
+    /**
+     * Sustituye el diario por uno que contiene solo los cambios indicados. Se escribe en un fichero temporal que
+     * sustituye al diario de forma atómica.
+     *
+     * @param cambios Los cambios, en orden de registro.
+     * @throws IOException Si no se puede escribir el diario.
+     */
+    private void reescribeDiario(List<Object> cambios) throws IOException {
+        Path temporal = DIARIO.resolveSibling(DIARIO.getFileName() + ".tmp");
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+            for (Object cambio : cambios) {
+                escribeRegistro(salida, cambio);
+            }
+        }
+        try (FileChannel sincronizado = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+            sincronizado.force(true);
+        }
+        Files.move(temporal, DIARIO, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Lee todos los cambios completos de un fichero de diario. Un último registro incompleto, que puede quedar si
+     * el programa terminó mientras se escribía, se descarta.
+     *
+     * @param fichero El fichero del diario.
+     * @param cambios La lista a la que se añaden los cambios leídos.
+     * @throws IllegalStateException Si el fichero no se puede leer o está dañado.
+     */
+    private static void leeDiario(Path fichero, List<Object> cambios) {
+        if (!Files.exists(fichero)) {
+            return;
+        }
+        try (InputStream flujo = Files.newInputStream(fichero);
+             DataInputStream entrada = new DataInputStream(new BufferedInputStream(flujo))) {
+            while (true) {
+                try {
+                    cambios.add(leeRegistro(entrada));
+                } catch (EOFException e) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error al leer el diario " + fichero, e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package GESTION_DE_PARKING;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.LocalDateTime;
+
+/**
+ * Esta clase proporciona métodos para guardar y leer en la base de datos las estadísticas agregadas por hora
+ * del parking (tabla {@code estadistica_hora}).
+ * Cada operación toma prestada una conexión JDBC del origen de datos y la devuelve al terminar.
+ *
+ * @version 1.0
+ * @see EstadisticasParking
+ */
+public class EstadisticaDAO {
+
+    /**
+     * Origen de datos del que se obtienen las conexiones a la base de datos.
+     */
+    private final DataSource ORIGEN_DATOS;
+
+    /**
+     * Constructor de la clase EstadisticaDAO que inicializa el origen de datos de la base de datos.
+     *
+     * @param origenDatos El origen de datos JDBC (normalmente un {@link PoolConexiones}).
+     */
+    public EstadisticaDAO(DataSource origenDatos) {
+        ORIGEN_DATOS = origenDatos;
+    }
+
+    /**
+     * Suma unos incrementos a las estadísticas de una hora.
+     * <p>
+     * Si la hora todavía no tiene fila en la tabla, se crea con los incrementos indicados; si ya la tiene, los
+     * incrementos se suman a los valores guardados. Así, cada persistencia solo envía lo ocurrido desde la anterior.
+     * </p>
+     *
+     * @param hora El inicio de la hora.
+     * @param entradas El número de entradas que se suman.
+     * @param salidas El número de salidas que se suman.
+     * @param ingresos Los ingresos que se suman, en céntimos.
+     * @param segundosEstancia La duración de las estancias que se suma, en segundos.
+     * @throws IllegalStateException Si ocurre un error al ejecutar la sentencia SQL.
+     */
+    public void acumulaHora(LocalDateTime hora, long entradas, long salidas, long ingresos, long segundosEstancia) {
+        String sentencia = "INSERT INTO estadistica_hora (hora, entradas, salidas, ingresos, segundosEstancia) " +
+                "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE entradas = entradas + VALUES(entradas), " +
+                "salidas = salidas + VALUES(salidas), ingresos = ingresos + VALUES(ingresos), " +
+                "segundosEstancia = segundosEstancia + VALUES(segundosEstancia)";
+
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miPrep = conexion.prepareStatement(sentencia)) {
+            miPrep.setTimestamp(1, Timestamp.valueOf(hora));
+            miPrep.setLong(2, entradas);
+            miPrep.setLong(3, salidas);
+            miPrep.setBigDecimal(4, Dinero.aEuros(ingresos));
+            miPrep.setLong(5, segundosEstancia);
+
+            miPrep.executeUpdate();
+
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Error al guardar las estadísticas de la hora " + hora, ex);
+        }
+    }
+
+    /**
+     * Lee las estadísticas guardadas de las horas que empiezan a partir de un momento, en orden cronológico.
+     *
+     * @param desde El momento a partir del cual se leen las horas (incluido).
+     * @param receptor El receptor al que se entrega cada hora leída.
+     * @throws IllegalStateException Si ocurre un error al ejecutar la consulta SQL.
+     */
+    public void leeHoras(LocalDateTime desde, ReceptorHora receptor) {
+        String consulta = "SELECT hora, entradas, salidas, ingresos, segundosEstancia FROM estadistica_hora " +
+                "WHERE hora >= ? ORDER BY hora";
+
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miPrep = conexion.prepareStatement(consulta)) {
+            miPrep.setTimestamp(1, Timestamp.valueOf(desde));
+
+            try (ResultSet miRes = miPrep.executeQuery()) {
+                while (miRes.next()) {
+                    receptor.recibe(miRes.getTimestamp(1).toLocalDateTime(), miRes.getLong(2), miRes.getLong(3),
+                            Dinero.aCentimos(miRes.getBigDecimal(4)), miRes.getLong(5));
+                }
+            }
+
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Error al leer las estadísticas desde " + desde, ex);
+        }
+    }
+
+    /**
+     * Receptor de las horas leídas con {@link #leeHoras(LocalDateTime, ReceptorHora)}.
+     */
+    @FunctionalInterface
+    public interface ReceptorHora {
+
+        /**
+         * Recibe las estadísticas guardadas de una hora.
+         *
+         * @param hora El inicio de la hora.
+         * @param entradas El número de entradas.
+         * @param salidas El número de salidas.
+         * @param ingresos Los ingresos, en céntimos.
+         * @param segundosEstancia La duración de las estancias, en segundos.
+         */
+        void recibe(LocalDateTime hora, long entradas, long salidas, long ingresos, long segundosEstancia);
+    }
+}
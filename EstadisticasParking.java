@@ -0,0 +1,454 @@
+package GESTION_DE_PARKING;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estadísticas del parking que se actualizan de forma incremental en cada operación de puerta.
+ * <p>
+ * {@link Parking} registra aquí cada aparcamiento y cada salida de plaza, de modo que los indicadores (entradas,
+ * salidas, ingresos por hora, ocupación actual por tipo de vehículo e histograma de duración de las estancias) se
+ * leen en tiempo constante, sin recorrer el histórico de tickets. Los contadores son {@link LongAdder}, que
+ * reparten las actualizaciones concurrentes entre varias celdas para que los terminales no compitan por el mismo
+ * contador.
+ * </p>
+ * <p>
+ * Los contadores por hora pueden guardarse periódicamente en la tabla {@code estadistica_hora} con
+ * {@link #iniciaPersistencia(EstadisticaDAO, long, TimeUnit)}. Cada persistencia suma a la tabla solo lo ocurrido
+ * desde la anterior, por lo que varias ejecuciones del programa acumulan sobre las mismas filas. Al iniciarse la
+ * persistencia se cargan de la tabla las horas de hoy, de modo que los indicadores del día (como
+ * {@link #getIngresosHoy()}) incluyen lo ocurrido en ejecuciones anteriores.
+ * </p>
+ *
+ * @version 1.0
+ * @see Parking
+ * @see EstadisticaDAO
+ */
+public class EstadisticasParking {
+
+    /**
+     * Límites superiores (excluidos), en minutos, de los intervalos del histograma de duración de las estancias.
+     * El último intervalo del histograma recoge las estancias de 24 horas o más.
+     */
+    private static final long[] LIMITES_HISTOGRAMA = {15, 30, 60, 120, 240, 480, 1440};
+
+    /**
+     * Horas que se conservan en memoria después de persistirlas.
+     */
+    private static final int HORAS_EN_MEMORIA = 48;
+
+    /**
+     * Número de entradas (vehículos aparcados) desde el inicio del programa.
+     */
+    private final LongAdder entradas = new LongAdder();
+
+    /**
+     * Número de salidas (vehículos desaparcados) desde el inicio del programa.
+     */
+    private final LongAdder salidas = new LongAdder();
+
+    /**
+     * Ingresos desde el inicio del programa, en céntimos.
+     */
+    private final LongAdder ingresos = new LongAdder();
+
+    /**
+     * Vehículos aparcados en este momento, por ordinal de {@link TipoVehiculo}.
+     */
+    private final LongAdder[] ocupacionPorTipo = creaContadores(TipoVehiculo.values().length);
+
+    /**
+     * Número de estancias de cada intervalo de duración.
+     */
+    private final LongAdder[] histogramaEstancias = creaContadores(LIMITES_HISTOGRAMA.length + 1);
+
+    /**
+     * Contadores de las horas recientes, por número de hora desde la época.
+     */
+    private final Map<Long, Hora> horas = new ConcurrentHashMap<>();
+
+    /**
+     * Planificador de la persistencia periódica, o {@code null} si no está iniciada.
+     */
+    private ScheduledExecutorService planificador;
+
+    /**
+     * DAO con el que se persisten las estadísticas, o {@code null} si la persistencia no está iniciada.
+     */
+    private EstadisticaDAO estadisticaDAO;
+
+    /**
+     * Indica si ya se han cargado de la base de datos las horas de hoy.
+     */
+    private boolean horasCargadas;
+
+    /**
+     * Registra un vehículo que ya estaba aparcado al iniciar el parking. Solo afecta a la ocupación actual.
+     *
+     * @param tipo El tipo del vehículo, o {@code null} si no se conoce.
+     */
+    public void registraOcupacion(TipoVehiculo tipo) {
+        if (tipo != null) {
+            ocupacionPorTipo[tipo.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Registra que un vehículo ha aparcado.
+     *
+     * @param tipo El tipo del vehículo, o {@code null} si no se conoce.
+     * @param momento El momento de la entrada.
+     */
+    public void registraEntrada(TipoVehiculo tipo, LocalDateTime momento) {
+        registraOcupacion(tipo);
+        entradas.increment();
+        hora(momento).entradas.increment();
+    }
+
+    /**
+     * Registra que un vehículo ha dejado su plaza.
+     *
+     * @param tipo El tipo del vehículo, o {@code null} si no se conoce.
+     * @param entrada El momento de la entrada.
+     * @param salida El momento de la salida.
+     * @param precio El precio cobrado, en céntimos.
+     */
+    public void registraSalida(TipoVehiculo tipo, LocalDateTime entrada, LocalDateTime salida, long precio) {
+        if (tipo != null) {
+            ocupacionPorTipo[tipo.ordinal()].decrement();
+        }
+        long segundos = Math.max(0, entrada.until(salida, ChronoUnit.SECONDS));
+        salidas.increment();
+        ingresos.add(precio);
+        histogramaEstancias[intervaloHistograma(segundos / 60)].increment();
+
+        Hora hora = hora(salida);
+        hora.salidas.increment();
+        hora.ingresos.add(precio);
+        hora.segundosEstancia.add(segundos);
+    }
+
+    /**
+     * Obtiene el número de entradas desde el inicio del programa.
+     *
+     * @return El número de entradas.
+     */
+    public long getEntradas() {
+        return entradas.sum();
+    }
+
+    /**
+     * Obtiene el número de salidas desde el inicio del programa.
+     *
+     * @return El número de salidas.
+     */
+    public long getSalidas() {
+        return salidas.sum();
+    }
+
+    /**
+     * Obtiene los ingresos desde el inicio del programa.
+     *
+     * @return Los ingresos, en céntimos.
+     */
+    public long getIngresos() {
+        return ingresos.sum();
+    }
+
+    /**
+     * Obtiene el número de vehículos de un tipo aparcados en este momento.
+     *
+     * @param tipo El tipo de vehículo.
+     * @return El número de vehículos aparcados de ese tipo.
+     */
+    public long getOcupacion(TipoVehiculo tipo) {
+        return ocupacionPorTipo[tipo.ordinal()].sum();
+    }
+
+    /**
+     * Obtiene el número total de vehículos aparcados en este momento.
+     *
+     * @return El número de vehículos aparcados.
+     */
+    public long getOcupacionTotal() {
+        long total = 0;
+        for (LongAdder contador : ocupacionPorTipo) {
+            total += contador.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Obtiene los ingresos de la hora que contiene un momento, si es una de las horas recientes.
+     *
+     * @param momento El momento.
+     * @return Los ingresos de esa hora en céntimos, o 0 si no hubo actividad o la hora ya no está en memoria.
+     */
+    public long getIngresosHora(LocalDateTime momento) {
+        Hora hora = horas.get(numeroHora(momento));
+        return hora == null ? 0 : hora.ingresos.sum();
+    }
+
+    /**
+     * Obtiene los ingresos de hoy, sumando las 24 horas del día.
+     * <p>
+     * Si la persistencia se ha iniciado, incluye los ingresos de hoy guardados por ejecuciones anteriores.
+     * </p>
+     *
+     * @return Los ingresos de hoy, en céntimos.
+     */
+    public long getIngresosHoy() {
+        LocalDateTime inicio = LocalDate.now().atStartOfDay();
+        long total = 0;
+        for (int h = 0; h < 24; h++) {
+            total += getIngresosHora(inicio.plusHours(h));
+        }
+        return total;
+    }
+
+    /**
+     * Obtiene el histograma de duración de las estancias.
+     *
+     * @return El número de estancias de menos de 15 minutos, 30 minutos, 1 hora, 2 horas, 4 horas, 8 horas,
+     *         24 horas y de 24 horas o más, en ese orden.
+     */
+    public long[] getHistogramaEstancias() {
+        long[] histograma = new long[histogramaEstancias.length];
+        for (int i = 0; i < histograma.length; i++) {
+            histograma[i] = histogramaEstancias[i].sum();
+        }
+        return histograma;
+    }
+
+    /**
+     * Inicia la persistencia periódica de los contadores por hora en la base de datos.
+     * Si ya estaba iniciada, se detiene la anterior.
+     * <p>
+     * La primera vez que se inicia, se cargan de la base de datos las horas de hoy ya guardadas. Si la carga falla,
+     * la persistencia se inicia igualmente y los indicadores del día solo incluyen lo ocurrido desde el arranque.
+     * </p>
+     *
+     * @param estadisticaDAO El DAO con el que se guardan las estadísticas.
+     * @param periodo El tiempo entre dos persistencias.
+     * @param unidad La unidad del periodo.
+     * @throws IllegalArgumentException Si el periodo no es positivo.
+     */
+    public synchronized void iniciaPersistencia(EstadisticaDAO estadisticaDAO, long periodo, TimeUnit unidad) {
+        if (periodo <= 0) {
+            throw new IllegalArgumentException("El periodo de persistencia de las estadísticas debe ser mayor que 0.");
+        }
+        detienePersistencia();
+        this.estadisticaDAO = estadisticaDAO;
+        if (!horasCargadas) {
+            try {
+                cargaHoras(LocalDate.now().atStartOfDay());
+            } catch (RuntimeException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "estadisticas-parking");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        planificador.scheduleWithFixedDelay(() -> {
+            try {
+                persiste();
+            } catch (RuntimeException e) {
+                // Los incrementos no persistidos se reintentan en la siguiente ejecución
+                System.out.println(e.getMessage());
+            }
+        }, periodo, periodo, unidad);
+    }
+
+    /**
+     * Detiene la persistencia periódica, guardando antes los incrementos pendientes.
+     */
+    public synchronized void detienePersistencia() {
+        if (planificador == null) {
+            return;
+        }
+        planificador.shutdown();
+        planificador = null;
+        try {
+            persiste();
+        } finally {
+            estadisticaDAO = null;
+        }
+    }
+
+    /**
+     * Guarda en la base de datos lo ocurrido en cada hora desde la persistencia anterior, y descarta de memoria
+     * las horas antiguas ya persistidas.
+     *
+     * @throws IllegalStateException Si la persistencia no está iniciada o falla la base de datos.
+     */
+    public synchronized void persiste() {
+        if (estadisticaDAO == null) {
+            throw new IllegalStateException("La persistencia de las estadísticas no está iniciada.");
+        }
+        long horaActual = numeroHora(LocalDateTime.now());
+        for (Hora hora : horas.values()) {
+            // Las sumas solo crecen: la diferencia con lo ya persistido es lo ocurrido desde entonces
+            long nuevasEntradas = hora.entradas.sum();
+            long nuevasSalidas = hora.salidas.sum();
+            long nuevosIngresos = hora.ingresos.sum();
+            long nuevosSegundos = hora.segundosEstancia.sum();
+            if (nuevasEntradas != hora.entradasPersistidas || nuevasSalidas != hora.salidasPersistidas
+                    || nuevosIngresos != hora.ingresosPersistidos || nuevosSegundos != hora.segundosPersistidos) {
+                estadisticaDAO.acumulaHora(AlmacenTickets.aFecha(hora.NUMERO * 3600),
+                        nuevasEntradas - hora.entradasPersistidas, nuevasSalidas - hora.salidasPersistidas,
+                        nuevosIngresos - hora.ingresosPersistidos, nuevosSegundos - hora.segundosPersistidos);
+                hora.entradasPersistidas = nuevasEntradas;
+                hora.salidasPersistidas = nuevasSalidas;
+                hora.ingresosPersistidos = nuevosIngresos;
+                hora.segundosPersistidos = nuevosSegundos;
+            } else if (hora.NUMERO < horaActual - HORAS_EN_MEMORIA) {
+                horas.remove(hora.NUMERO);
+            }
+        }
+    }
+
+    /**
+     * Suma a los contadores en memoria las horas guardadas en la base de datos a partir de un momento.
+     * Los valores cargados se marcan como ya persistidos, para que no se vuelvan a sumar a la tabla.
+     *
+     * @param desde El momento a partir del cual se cargan las horas (incluido).
+     * @throws IllegalStateException Si falla la base de datos.
+     */
+    private void cargaHoras(LocalDateTime desde) {
+        // Solo se intenta una vez: repetir una carga interrumpida sumaría dos veces las horas ya leídas
+        horasCargadas = true;
+        estadisticaDAO.leeHoras(desde, (momento, entradasHora, salidasHora, ingresosHora, segundosHora) -> {
+            Hora hora = hora(momento);
+            hora.entradas.add(entradasHora);
+            hora.salidas.add(salidasHora);
+            hora.ingresos.add(ingresosHora);
+            hora.segundosEstancia.add(segundosHora);
+            hora.entradasPersistidas += entradasHora;
+            hora.salidasPersistidas += salidasHora;
+            hora.ingresosPersistidos += ingresosHora;
+            hora.segundosPersistidos += segundosHora;
+        });
+    }
+
+    /**
+     * Obtiene los contadores de la hora que contiene un momento, creándolos si no existen.
+     *
+     * @param momento El momento.
+     * @return Los contadores de la hora.
+     */
+    private Hora hora(LocalDateTime momento) {
+        return horas.computeIfAbsent(numeroHora(momento), Hora::new);
+    }
+
+    /**
+     * Obtiene el número de hora desde la época de un momento.
+     *
+     * @param momento El momento.
+     * @return El número de hora.
+     */
+    private static long numeroHora(LocalDateTime momento) {
+        return Math.floorDiv(AlmacenTickets.aSegundos(momento), 3600);
+    }
+
+    /**
+     * Obtiene el intervalo del histograma que corresponde a una duración.
+     *
+     * @param minutos La duración en minutos.
+     * @return La posición del intervalo en el histograma.
+     */
+    private static int intervaloHistograma(long minutos) {
+        int intervalo = 0;
+        while (intervalo < LIMITES_HISTOGRAMA.length && minutos >= LIMITES_HISTOGRAMA[intervalo]) {
+            intervalo++;
+        }
+        return intervalo;
+    }
+
+    /**
+     * Crea un array de contadores.
+     *
+     * @param cantidad El número de contadores.
+     * @return Los contadores, a cero.
+     */
+    private static LongAdder[] creaContadores(int cantidad) {
+        LongAdder[] contadores = new LongAdder[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            contadores[i] = new LongAdder();
+        }
+        return contadores;
+    }
+
+    /**
+     * Contadores de una hora, junto con los valores ya persistidos.
+     * Los valores persistidos solo se leen y escriben con el cerrojo de la instancia de {@link EstadisticasParking}.
+     */
+    private static final class Hora {
+
+        /**
+         * Número de hora desde la época.
+         */
+        private final long NUMERO;
+
+        /**
+         * Número de entradas de la hora.
+         */
+        private final LongAdder entradas = new LongAdder();
+
+        /**
+         * Número de salidas de la hora.
+         */
+        private final LongAdder salidas = new LongAdder();
+
+        /**
+         * Ingresos de las salidas de la hora, en céntimos.
+         */
+        private final LongAdder ingresos = new LongAdder();
+
+        /**
+         * Duración de las estancias que terminaron en la hora, en segundos.
+         */
+        private final LongAdder segundosEstancia = new LongAdder();
+
+        /**
+         * Número de entradas ya sumado a {@code estadistica_hora}; la diferencia con {@link #entradas} es lo que
+         * se envía en la siguiente persistencia.
+         */
+        private long entradasPersistidas;
+
+        /**
+         * Número de salidas ya sumado a {@code estadistica_hora}; la diferencia con {@link #salidas} es lo que se
+         * envía en la siguiente persistencia.
+         */
+        private long salidasPersistidas;
+
+        /**
+         * Ingresos ya sumados a {@code estadistica_hora}, en céntimos; la diferencia con {@link #ingresos} es lo
+         * que se envía en la siguiente persistencia.
+         */
+        private long ingresosPersistidos;
+
+        /**
+         * Segundos de estancia ya sumados a {@code estadistica_hora}; la diferencia con {@link #segundosEstancia}
+         * es lo que se envía en la siguiente persistencia.
+         */
+        private long segundosPersistidos;
+
+        /**
+         * Crea los contadores de una hora, a cero.
+         *
+         * @param numero El número de hora desde la época.
+         */
+        private Hora(long numero) {
+            NUMERO = numero;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package GESTION_DE_PARKING;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Codificación binaria común de los diarios locales del parking.
+ * <p>
+ * {@link DiarioEventos} y {@link EscrituraDiferida} guardan en disco textos, fechas y vehículos con los métodos de
+ * esta clase, de modo que ambos diarios usan la misma representación y crean los vehículos leídos de la misma forma.
+ * Los textos se escriben con {@link DataOutput#writeUTF(String)} y las fechas como segundos desde la época más los
+ * nanosegundos; ambos pueden ser {@code null}.
+ * </p>
+ *
+ * @version 1.0
+ * @see DiarioEventos
+ * @see EscrituraDiferida
+ */
+final class FormatoDiario {
+
+    private FormatoDiario() {
+    }
+
+    /**
+     * Escribe un texto que puede ser {@code null}.
+     *
+     * @param salida El flujo de salida.
+     * @param texto El texto, o {@code null}.
+     * @throws IOException Si falla la escritura.
+     */
+    static void escribeTexto(DataOutput salida, String texto) throws IOException {
+        salida.writeBoolean(texto != null);
+        if (texto != null) {
+            salida.writeUTF(texto);
+        }
+    }
+
+    /**
+     * Lee un texto escrito con {@link #escribeTexto(DataOutput, String)}.
+     *
+     * @param entrada El flujo de entrada.
+     * @return El texto, o {@code null}.
+     * @throws IOException Si falla la lectura.
+     */
+    static String leeTexto(DataInput entrada) throws IOException {
+        return entrada.readBoolean() ? entrada.readUTF() : null;
+    }
+
+    /**
+     * Escribe una fecha que puede ser {@code null}, con precisión de nanosegundos.
+     *
+     * @param salida El flujo de salida.
+     * @param fecha La fecha, o {@code null}.
+     * @throws IOException Si falla la escritura.
+     */
+    static void escribeFecha(DataOutput salida, LocalDateTime fecha) throws IOException {
+        salida.writeBoolean(fecha != null);
+        if (fecha != null) {
+            salida.writeLong(AlmacenTickets.aSegundos(fecha));
+            salida.writeInt(fecha.getNano());
+        }
+    }
+
+    /**
+     * Lee una fecha escrita con {@link #escribeFecha(DataOutput, LocalDateTime)}.
+     *
+     * @param entrada El flujo de entrada.
+     * @return La fecha, o {@code null}.
+     * @throws IOException Si falla la lectura.
+     */
+    static LocalDateTime leeFecha(DataInput entrada) throws IOException {
+        return entrada.readBoolean() ? AlmacenTickets.aFecha(entrada.readLong()).withNano(entrada.readInt()) : null;
+    }
+
+    /**
+     * Escribe los datos de un vehículo: matrícula, tipo, precio por minuto y si está activo.
+     *
+     * @param salida El flujo de salida.
+     * @param vehiculo El vehículo.
+     * @throws IOException Si falla la escritura.
+     */
+    static void escribeVehiculo(DataOutput salida, Vehiculo vehiculo) throws IOException {
+        salida.writeUTF(vehiculo.getMATRICULA());
+        salida.writeByte(vehiculo.getTIPO().ordinal());
+        salida.writeLong(vehiculo.getCentimosPorMinuto());
+        salida.writeBoolean(vehiculo.isActivo());
+    }
+
+    /**
+     * Lee un vehículo escrito con {@link #escribeVehiculo(DataOutput, Vehiculo)}.
+     *
+     * @param entrada El flujo de entrada.
+     * @return El vehículo.
+     * @throws IOException Si falla la lectura o el tipo de vehículo no es válido.
+     * @throws IllegalStateException Si la matrícula no pertenece a ningún país registrado.
+     */
+    static Vehiculo leeVehiculo(DataInput entrada) throws IOException {
+        String matricula = entrada.readUTF();
+        int tipo = entrada.readByte();
+        if (tipo < 0 || tipo >= TipoVehiculo.values().length) {
+            throw new IOException("Tipo de vehículo desconocido en el diario: " + tipo);
+        }
+        long centimosPorMinuto = entrada.readLong();
+        return creaVehiculo(matricula, TipoVehiculo.values()[tipo], centimosPorMinuto, entrada.readBoolean());
+    }
+
+    /**
+     * Crea un vehículo del tipo indicado con todos sus datos.
+     *
+     * @param matricula La matrícula del vehículo.
+     * @param tipo El tipo de vehículo.
+     * @param centimosPorMinuto El precio de estacionamiento en céntimos por minuto.
+     * @param activo Si el vehículo está dentro del parking.
+     * @return El vehículo.
+     * @throws IllegalStateException Si la matrícula no pertenece a ningún país registrado.
+     */
+    static Vehiculo creaVehiculo(String matricula, TipoVehiculo tipo, long centimosPorMinuto, boolean activo) {
+        try {
+            return VehiculoDAO.construyeVehiculo(matricula, tipo, centimosPorMinuto, activo);
+        } catch (Exception e) {
+            throw new IllegalStateException("No se puede crear el vehículo con matrícula " + matricula, e);
+        }
+    }
+}
@@ -9,9 +9,9 @@ package GESTION_DE_PARKING;
 public class Furgoneta extends Vehiculo {
 
     /**
-     * Plus del precio extra que se aplica al Precio(€)/Minuto de la Furgoneta.
+     * Plus del precio extra que se aplica al precio por minuto de la Furgoneta, en céntimos.
      */
-    private final double PLUSDIMENSION = 0.08;
+    private final long PLUSDIMENSION = 8;
 
     /**
      * Constructor para crear una Furgoneta con el país de origen especificado.
@@ -39,11 +39,11 @@ public class Furgoneta extends Vehiculo {
      * Constructor para crear una Furgoneta con la matrícula y precio de estacionamiento especificados.
      *
      * @param matricula La matrícula de la furgoneta.
-     * @param precio    El precio de estacionamiento por minuto de la furgoneta.
+     * @param precio    El precio de estacionamiento por minuto de la furgoneta, en céntimos.
      * @throws Exception Si ocurre un error durante la creación de la furgoneta.
      */
     //Este constructor es más para cuando recuperemos el vehículo de la base de datos
-    public Furgoneta(String matricula, double precio, boolean activo) throws Exception {
+    public Furgoneta(String matricula, long precio, boolean activo) throws Exception {
         super(matricula.toUpperCase(), TipoVehiculo.Furgoneta, precio, activo);
     }
 
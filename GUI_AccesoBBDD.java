@@ -5,8 +5,9 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Ventana de acceso para conectar con la base de datos y gestionar el parking.
@@ -20,13 +21,34 @@ public class GUI_AccesoBBDD extends JFrame {
     /**
      * URL de la base de datos a la que se conecta.
      */
-    private final String URL = "jdbc:mysql://localhost:3333/parking";
+    private final String URL = "jdbc:mysql://localhost:3333/parking?useServerPrepStmts=true&rewriteBatchedStatements=true";
 
     /**
      * Número total de plazas en el parking.
      */
     private final Integer PLAZAS_TOTALES = 500;
 
+    /**
+     * Número máximo de conexiones simultáneas que mantiene el pool con la base de datos.
+     */
+    private final Integer CONEXIONES_MAXIMAS = 10;
+
+    /**
+     * Número de tickets recientes que el parking mantiene en memoria.
+     */
+    private final Integer VENTANA_HISTORICO = 10_000;
+
+    /**
+     * Número de fases del arranque que se muestran en la barra de progreso: la conexión y la carga de las plazas,
+     * de los vehículos y de los tickets abiertos.
+     */
+    private final int FASES_ARRANQUE = 4;
+
+    /**
+     * Minutos entre dos persistencias de las estadísticas del parking en la base de datos.
+     */
+    private final Integer MINUTOS_PERSISTENCIA_ESTADISTICAS = 5;
+
     /**
      * Administrador de las ventanas de la aplicación.
      */
@@ -106,75 +128,79 @@ public class GUI_AccesoBBDD extends JFrame {
     /**
      * Maneja el proceso de autenticación del usuario y la conexión a la base de datos.
      * <p>
-     * Muestra una barra de progreso mientras se intenta conectar a la base de datos. Si la conexión es exitosa,
-     * se crea un objeto {@link Parking} y se abre la ventana de gestión del parking. En caso de error, muestra un mensaje de error.
+     * La barra de progreso avanza con las fases reales del arranque: la conexión con la base de datos y la carga,
+     * en paralelo, de las plazas, los vehículos y los tickets abiertos. Si todo termina bien, se abre la ventana de
+     * gestión del parking. En caso de error, muestra un mensaje de error.
      * </p>
      */
     private void handleAccess() {
-        // Mostrar la barra de progreso
+        // Mostrar la barra de progreso y evitar un segundo acceso mientras se carga el parking
+        AccessButton.setEnabled(false);
         progressBar.setVisible(true);
         progressBar.setValue(0);
+        progressBar.setString("Conectando con la base de datos...");
+
+        String user = UserAccess.getText();
+        String password = new String(PasswordAccess.getPassword());
 
         // Crear un {@link SwingWorker} para manejar la conexión y la creación del objeto Parking
-        SwingWorker<Void, Integer> worker = new SwingWorker<Void, Integer>() {
+        SwingWorker<Parking, String> worker = new SwingWorker<Parking, String>() {
+
+            /**
+             * Número de fases del arranque completadas.
+             */
+            private int fasesCompletadas = 0;
+
             @Override
-            protected Void doInBackground() {
-                String user = UserAccess.getText();
-                String password = new String(PasswordAccess.getPassword());
-
-                // Simular progreso de la carga
-                int steps = 100;
-                for (int i = 0; i <= steps; i++) {
-                    try {
-                        Thread.sleep(30);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-
-                    // Publicar el progreso en el hilo de eventos de Swing
-                    publish(i);
-
-                    // Intentar conectar a la base de datos solo cuando el progreso está completo
-                    if (i == steps) {
-                        if (authenticateUser(user, password)) {
-                            try {
-                                System.out.println("Intentando conectar a la base de datos...");
-                                Connection conexion = DriverManager.getConnection(URL, user, password);
-                                System.out.println("Conexión exitosa. Creando objeto Parking...");
-                                parking = new Parking(conexion, PLAZAS_TOTALES);
-                                System.out.println("Objeto Parking creado exitosamente.");
-
-                                // Abre la ventana de gestión del parking
-                                SwingUtilities.invokeLater(() -> {
-                                    GUI_GestionParking gestionParking = new GUI_GestionParking(windowManager, parking);
-                                    windowManager.addWindow("gestionParking", gestionParking);
-                                    windowManager.switchWindow("accesoBBDD", "gestionParking");
-                                });
-                            } catch (SQLException ex) {
-                                System.out.println("Error al conectar a la base de datos: " + ex.getMessage());
-                            }
-                        } else {
-                            // Mostrar el mensaje de error en el hilo de eventos de Swing
-                            SwingUtilities.invokeLater(() -> {
-                                JOptionPane.showMessageDialog(GUI_AccesoBBDD.this, "ERROR: Credenciales incorrectas o no se pudo acceder a la base de datos.", "Error de acceso", JOptionPane.ERROR_MESSAGE);
-                            });
-                        }
-                    }
+            protected Parking doInBackground() {
+                System.out.println("Intentando conectar a la base de datos...");
+                PoolConexiones pool = new PoolConexiones(URL, user, password, CONEXIONES_MAXIMAS);
+                if (!authenticateUser(pool)) {
+                    pool.close();
+                    throw new IllegalStateException("Credenciales incorrectas o no se pudo acceder a la base de datos.");
                 }
-                return null;
+                publish("Conexión establecida");
+
+                // Las plazas, los vehículos y los tickets abiertos se cargan a la vez, y cada carga publica su fase
+                System.out.println("Conexión exitosa. Creando objeto Parking...");
+                Parking nuevo;
+                try {
+                    nuevo = new Parking(pool, PLAZAS_TOTALES, VENTANA_HISTORICO, null, null, null, fase -> publish(fase));
+                } catch (RuntimeException e) {
+                    pool.close();
+                    throw e;
+                }
+                nuevo.iniciaPersistenciaEstadisticas(MINUTOS_PERSISTENCIA_ESTADISTICAS, TimeUnit.MINUTES);
+                System.out.println("Objeto Parking creado exitosamente.");
+                return nuevo;
             }
 
             @Override
-            protected void process(java.util.List<Integer> chunks) {
-                // Actualizar el valor de la barra de progreso
-                int progress = chunks.get(chunks.size() - 1);
-                progressBar.setValue(progress);
+            protected void process(java.util.List<String> chunks) {
+                // Actualizar la barra de progreso con la última fase completada
+                fasesCompletadas += chunks.size();
+                progressBar.setValue(fasesCompletadas * 100 / FASES_ARRANQUE);
+                progressBar.setString(chunks.get(chunks.size() - 1));
             }
 
             @Override
             protected void done() {
-                // Ocultar la barra de progreso si la tarea se completó
+                // Ocultar la barra de progreso al terminar la tarea
                 progressBar.setVisible(false);
+                AccessButton.setEnabled(true);
+                try {
+                    parking = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable causa = e instanceof ExecutionException ? e.getCause() : e;
+                    causa.printStackTrace();
+                    JOptionPane.showMessageDialog(GUI_AccesoBBDD.this, "ERROR: " + causa.getMessage(), "Error de acceso", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+
+                // Abre la ventana de gestión del parking
+                GUI_GestionParking gestionParking = new GUI_GestionParking(windowManager, parking);
+                windowManager.addWindow("gestionParking", gestionParking);
+                windowManager.switchWindow("accesoBBDD", "gestionParking");
             }
         };
 
@@ -182,14 +208,17 @@ public class GUI_AccesoBBDD extends JFrame {
     }
 
     /**
-     * Intenta autenticar al usuario con las credenciales proporcionadas.
+     * Intenta autenticar al usuario con las credenciales del pool de conexiones.
+     * <p>
+     * La conexión abierta para comprobar las credenciales se devuelve al pool, de modo que el {@link Parking}
+     * la reutiliza en lugar de abrir otra.
+     * </p>
      *
-     * @param user El nombre de usuario.
-     * @param password La contraseña del usuario.
+     * @param pool El pool de conexiones creado con las credenciales del usuario.
      * @return {@code true} si la autenticación es exitosa, {@code false} en caso contrario.
      */
-    private boolean authenticateUser(String user, String password) {
-        try (Connection connection = DriverManager.getConnection(URL, user, password)) {
+    private boolean authenticateUser(PoolConexiones pool) {
+        try (Connection connection = pool.getConnection()) {
             // Si la conexión es exitosa, devolver true
             return true;
         } catch (SQLException e) {
@@ -4,9 +4,19 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * {@code GUI_GestionParking} es la clase principal para la gestión del GUI del sistema de gestión de parking.
@@ -47,6 +57,16 @@ public class GUI_GestionParking extends JFrame {
 
     private Parking parking;
 
+    /**
+     * Número de tickets del final de la lista del histórico a partir del cual se carga la página siguiente.
+     */
+    private static final int MARGEN_CARGA_HISTORICO = 20;
+
+    /**
+     * Formato de las fechas de los filtros del histórico de tickets.
+     */
+    private static final DateTimeFormatter FORMATO_FECHA_FILTRO = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
     /**
      * Constructor para la clase {@code GUI_GestionParking}.
      *
@@ -240,31 +260,12 @@ public class GUI_GestionParking extends JFrame {
     /**
      * Muestra todos los vehículos registrados en el sistema en un cuadro de diálogo.
      * <p>
-     * Este método obtiene todos los vehículos a través de {@link Parking#getVehiculoDAO()#getAllVehicles()}, los ordena y
-     * los muestra en un {@code JTextArea} dentro de un {@code JScrollPane}. El cuadro de diálogo se muestra utilizando
-     * {@link JOptionPane#showMessageDialog(java.awt.Component, java.lang.Object, java.lang.String, int)}.
+     * Este método muestra los vehículos de {@link Parking#getVehiculosRegistrados()}, ordenados por tipo, en una
+     * tabla virtual (véase {@link #muestraTablaVehiculos(String, Predicate)}).
      * </p>
      */
     private void mostrarTodosLosVehiculos() {
-        ArrayList<Vehiculo> listaVehiculos = parking.getVehiculoDAO().getAllVehicles();
-        Collections.sort(listaVehiculos);
-        // Convertir la lista de vehículos a un formato de texto legible
-        StringBuilder vehiculosTexto = new StringBuilder("Lista de todos los vehículos registrados:\n");
-        for (Vehiculo vehiculo : listaVehiculos) {
-            vehiculosTexto.append(vehiculo.toString()).append("\n");
-        }
-
-        // Crear un JTextArea para mostrar la lista de vehículos
-        JTextArea textArea = new JTextArea(vehiculosTexto.toString());
-        textArea.setEditable(false);
-        textArea.setCaretPosition(0); // Para asegurarse de que el texto se muestre desde el principio
-
-        // Crear un JScrollPane para permitir el desplazamiento vertical
-        JScrollPane scrollPane = new JScrollPane(textArea);
-        scrollPane.setPreferredSize(new java.awt.Dimension(500, 300)); // Ajusta el tamaño según tus necesidades
-
-        // Mostrar la lista de vehículos en un JOptionPane dentro de un JScrollPane
-        JOptionPane.showMessageDialog(this, scrollPane, "Lista de todos los vehículos", JOptionPane.INFORMATION_MESSAGE);
+        muestraTablaVehiculos("Lista de todos los vehículos", vehiculo -> true);
     }
 
     /**
@@ -293,7 +294,8 @@ public class GUI_GestionParking extends JFrame {
      * Registra el aparcamiento de un vehículo en una plaza específica.
      * <p>
      * Este método obtiene la matrícula del vehículo a través de {@code matriculaAparca.getText()},
-     * y el número de plaza a través de {@code plazaAparca.getText()}. Luego, intenta convertir el número
+     * y el número de plaza a través de {@code plazaAparca.getText()}. Si no se indica ninguna plaza, el vehículo
+     * se aparca en la siguiente plaza libre mediante {@link Parking#aparcarAutomatico(Vehiculo)}. Luego, intenta convertir el número
      * de plaza a un entero. Si la conversión falla, muestra un mensaje de error utilizando
      * {@link JOptionPane#showMessageDialog(java.awt.Component, java.lang.Object)} y termina la ejecución.
      * Si la conversión es exitosa, busca el vehículo correspondiente utilizando {@link Parking#getVehiculoByMatricula(String)},
@@ -307,6 +309,18 @@ public class GUI_GestionParking extends JFrame {
         String matricula = matriculaAparca.getText();
         int numeroDePlaza;
 
+        // Si no se indica plaza, se asigna automáticamente la siguiente plaza libre
+        if (plazaAparca.getText().isBlank()) {
+            try {
+                Vehiculo vehiculo = parking.getVehiculoByMatricula(matricula);
+                Plaza plaza = parking.aparcarAutomatico(vehiculo);
+                JOptionPane.showMessageDialog(this, "El " + vehiculo.getTIPO().toString() + " con matrícula " + vehiculo.getMATRICULA() + " ha aparcado en la plaza " + plaza.getNUMERODEPLAZA());
+            } catch (Exception e) {
+                JOptionPane.showMessageDialog(this, "Error: " + e.getMessage());
+            }
+            return;
+        }
+
         try {
             numeroDePlaza = Integer.parseInt(plazaAparca.getText());
         } catch (NumberFormatException e) {
@@ -326,31 +340,12 @@ public class GUI_GestionParking extends JFrame {
     /**
      * Muestra una lista de todos los vehículos activos en el parking.
      * <p>
-     * Obtiene la lista de vehículos activos mediante {@link Parking#getVehiculosActivos()} y la convierte
-     * en una representación de texto. Esta lista se muestra en un {@code JTextArea} dentro de un {@code JScrollPane}
-     * para permitir el desplazamiento. La información se presenta en un cuadro de diálogo {@link JOptionPane#showMessageDialog(java.awt.Component, java.lang.Object, java.lang.String, int)}.
+     * Filtra los vehículos registrados que están activos y los muestra en una tabla virtual
+     * (véase {@link #muestraTablaVehiculos(String, Predicate)}).
      * </p>
      */
     private void mostrarVehiculosActivos() {
-        ArrayList<Vehiculo> vehiculosActivos = parking.getVehiculosActivos();
-
-        // Convertir la lista de vehículos a un formato de texto legible
-        StringBuilder vehiculosTexto = new StringBuilder("Lista de vehículos activos:\n");
-        for (Vehiculo vehiculo : vehiculosActivos) {
-            vehiculosTexto.append(vehiculo.toString()).append("\n");
-        }
-
-        // Crear un JTextArea para mostrar la lista de vehículos
-        JTextArea textArea = new JTextArea(vehiculosTexto.toString());
-        textArea.setEditable(false);
-        textArea.setCaretPosition(0); // Para asegurarse de que el texto se muestre desde el principio
-
-        // Crear un JScrollPane para permitir el desplazamiento vertical
-        JScrollPane scrollPane = new JScrollPane(textArea);
-        scrollPane.setPreferredSize(new java.awt.Dimension(500, 300)); // Ajusta el tamaño según tus necesidades
-
-        // Mostrar la lista de vehículos en un JOptionPane dentro de un JScrollPane
-        JOptionPane.showMessageDialog(this, scrollPane, "Lista de vehículos activos", JOptionPane.INFORMATION_MESSAGE);
+        muestraTablaVehiculos("Lista de vehículos activos", Vehiculo::isActivo);
     }
 
     /**
@@ -420,11 +415,10 @@ public class GUI_GestionParking extends JFrame {
      * Muestra una lista de vehículos registrados en el parking, filtrados por país.
      * <p>
      * Obtiene el país seleccionado desde un combo box. Si el país seleccionado es inválido, se muestra un mensaje de error.
-     * Si el país es válido, se obtienen todos los vehículos del país seleccionado, se ordenan y se presentan en un cuadro de diálogo.
+     * Si el país es válido, se filtran los vehículos registrados del país seleccionado y se presentan en una tabla virtual.
      * </p>
      *
-     * @see Parking#getVehiculoDAO() Para acceder al DAO de vehículos.
-     * @see VehiculoDAO#getCountryGroup(Paises) Para obtener vehículos filtrados por país.
+     * @see #muestraTablaVehiculos(String, Predicate) Para mostrar la tabla de vehículos.
      * @see Paises Para los valores válidos de países.
      */
     private void mostrarVehiculosPorPais() {
@@ -437,33 +431,17 @@ public class GUI_GestionParking extends JFrame {
             return;
         }
 
-        ArrayList<Vehiculo> listaVehiculos = parking.getVehiculoDAO().getCountryGroup(pais);
-        Collections.sort(listaVehiculos);
-        StringBuilder vehiculosTexto = new StringBuilder("Lista de vehículos del país " + pais + ":\n");
-
-        for (Vehiculo vehiculo : listaVehiculos) {
-            vehiculosTexto.append(vehiculo.toString()).append("\n");
-        }
-
-        JTextArea textArea = new JTextArea(vehiculosTexto.toString());
-        textArea.setEditable(false);
-        textArea.setCaretPosition(0);
-
-        JScrollPane scrollPane = new JScrollPane(textArea);
-        scrollPane.setPreferredSize(new java.awt.Dimension(500, 300));
-
-        JOptionPane.showMessageDialog(this, scrollPane, "Lista de vehículos por país", JOptionPane.INFORMATION_MESSAGE);
+        muestraTablaVehiculos("Lista de vehículos del país " + pais, vehiculo -> vehiculo.getPAIS() == pais);
     }
 
     /**
      * Muestra una lista de vehículos registrados en el parking, filtrados por tipo de vehículo.
      * <p>
      * Obtiene el tipo de vehículo seleccionado desde un combo box. Si el tipo de vehículo seleccionado es inválido, se muestra un mensaje de error.
-     * Si el tipo es válido, se obtienen todos los vehículos del tipo seleccionado, se ordenan y se presentan en un cuadro de diálogo.
+     * Si el tipo es válido, se filtran los vehículos registrados del tipo seleccionado y se presentan en una tabla virtual.
      * </p>
      *
-     * @see Parking#getVehiculoDAO() Para acceder al DAO de vehículos.
-     * @see VehiculoDAO#getTypeGroup(TipoVehiculo) Para obtener vehículos filtrados por tipo.
+     * @see #muestraTablaVehiculos(String, Predicate) Para mostrar la tabla de vehículos.
      * @see TipoVehiculo Para los valores válidos de tipos de vehículos.
      */
     private void mostrarVehiculosPorTipo() {
@@ -476,180 +454,182 @@ public class GUI_GestionParking extends JFrame {
             return;
         }
 
-        ArrayList<Vehiculo> listaVehiculos = parking.getVehiculoDAO().getTypeGroup(tipoVehiculo);
-        Collections.sort(listaVehiculos);
-        StringBuilder vehiculosTexto = new StringBuilder("Lista de vehículos del tipo " + tipoVehiculo + ":\n");
-        for (Vehiculo vehiculo : listaVehiculos) {
-            vehiculosTexto.append(vehiculo.toString()).append("\n");
+        muestraTablaVehiculos("Lista de vehículos del tipo " + tipoVehiculo, vehiculo -> vehiculo.getTIPO() == tipoVehiculo);
+    }
+
+    /**
+     * Muestra un listado de vehículos registrados en una tabla virtual dentro de un cuadro de diálogo.
+     * <p>
+     * La tabla usa un {@link ModeloTablaVehiculos} sobre el índice en memoria de los vehículos del parking, de modo
+     * que solo se generan los valores de las filas visibles. El filtro por matrícula del cuadro de texto y el orden
+     * al pulsar la cabecera de una columna se aplican en el modelo.
+     * </p>
+     *
+     * @param titulo El título del cuadro de diálogo.
+     * @param filtro El filtro que deben cumplir los vehículos del listado.
+     */
+    private void muestraTablaVehiculos(String titulo, Predicate<Vehiculo> filtro) {
+        List<Vehiculo> registrados = parking.getVehiculosRegistrados();
+        ModeloTablaVehiculos modelo;
+        synchronized (registrados) {
+            modelo = new ModeloTablaVehiculos(registrados, parking.getMotorTarifas());
         }
+        modelo.filtra(filtro);
+        modelo.ordena(ModeloTablaVehiculos.COLUMNA_TIPO);
+
+        JTable tabla = new JTable(modelo);
+        tabla.setFillsViewportHeight(true);
+        tabla.getTableHeader().setReorderingAllowed(false);
+        // Al pulsar una cabecera se ordena el modelo por esa columna
+        tabla.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int columna = tabla.columnAtPoint(e.getPoint());
+                if (columna >= 0) {
+                    modelo.ordena(tabla.convertColumnIndexToModel(columna));
+                }
+            }
+        });
 
-        JTextArea textArea = new JTextArea(vehiculosTexto.toString());
-        textArea.setEditable(false);
-        textArea.setCaretPosition(0);
+        // Filtro por matrícula, que se aplica al escribir
+        JTextField filtroMatricula = new JTextField();
+        JLabel total = new JLabel(modelo.getRowCount() + " vehículos");
+        filtroMatricula.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                actualiza();
+            }
 
-        JScrollPane scrollPane = new JScrollPane(textArea);
-        scrollPane.setPreferredSize(new java.awt.Dimension(500, 300));
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                actualiza();
+            }
 
-        JOptionPane.showMessageDialog(this, scrollPane, "Lista de vehículos por tipo", JOptionPane.INFORMATION_MESSAGE);
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                actualiza();
+            }
+
+            private void actualiza() {
+                String texto = filtroMatricula.getText().trim().toUpperCase();
+                modelo.filtra(texto.isEmpty() ? filtro
+                        : filtro.and(vehiculo -> vehiculo.getMATRICULA().toUpperCase().contains(texto)));
+                total.setText(modelo.getRowCount() + " vehículos");
+            }
+        });
+
+        JPanel cabecera = new JPanel(new BorderLayout(5, 0));
+        cabecera.add(new JLabel("Matrícula:"), BorderLayout.WEST);
+        cabecera.add(filtroMatricula, BorderLayout.CENTER);
+        cabecera.add(total, BorderLayout.EAST);
+
+        JScrollPane scrollPane = new JScrollPane(tabla);
+        scrollPane.setPreferredSize(new java.awt.Dimension(600, 400));
+
+        JPanel panel = new JPanel(new BorderLayout(0, 5));
+        panel.add(cabecera, BorderLayout.NORTH);
+        panel.add(scrollPane, BorderLayout.CENTER);
+
+        JOptionPane.showMessageDialog(this, panel, titulo, JOptionPane.INFORMATION_MESSAGE);
     }
 
     /**
-     * Muestra un historial de tickets en una nueva ventana.
+     * Muestra el histórico de tickets en una nueva ventana.
      * <p>
-     * Crea un {@code JFrame} que presenta una lista de tickets. Cada ticket se muestra en un panel con detalles como ID, matrícula, número de plaza, fecha de entrada y fecha de salida.
-     * Los tickets están organizados verticalmente en un {@code JPanel} y se pueden desplazar dentro de un {@code JScrollPane}.
+     * Los tickets se muestran en una {@code JList} de celdas de altura fija, pintadas con un único
+     * {@link RenderizadorTicket}, de modo que abrir la ventana no depende del tamaño del histórico. El modelo
+     * ({@link ModeloHistoricoTickets}) lee los tickets de la base de datos por páginas, del más reciente al más
+     * antiguo, a medida que el usuario se desplaza, y los formatea fuera del hilo de eventos. Los tickets pueden
+     * filtrarse por un intervalo de fechas de entrada y por matrícula.
      * </p>
      *
-     * @see Parking#getHistoricoTickets() Para obtener la lista de tickets históricos.
-     * @see Ticket Para la estructura de los tickets.
-     * @see JScrollPane Para permitir el desplazamiento de la lista de tickets.
+     * @see Parking#getPaginaHistorico(java.time.LocalDateTime, java.time.LocalDateTime, String, int, int) Para leer
+     *      las páginas del histórico.
+     * @see ModeloHistoricoTickets Para el modelo paginado de la lista.
      */
     private void mostrarHistoricoTickets() {
         // Crear un JFrame para mostrar el histórico de tickets
         JFrame ventanaHistorico = new JFrame("Histórico de Tickets");
         ventanaHistorico.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
 
-        // Obtener las dimensiones de la pantalla
-        Toolkit toolkit = Toolkit.getDefaultToolkit();
-        Dimension pantallaSize = toolkit.getScreenSize();
+        JLabel estado = new JLabel(" ");
+        ModeloHistoricoTickets modelo = new ModeloHistoricoTickets(parking, estado::setText);
 
-        // Crear un panel principal con un GridBagLayout para mostrar los tickets uno a uno
-        JPanel panelPrincipal = new JPanel();
-        panelPrincipal.setLayout(new GridBagLayout());
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.insets = new Insets(20, 20, 20, 20); // Añadir un margen entre los tickets
-        gbc.fill = GridBagConstraints.NONE; // No llenar el espacio disponible
-        gbc.anchor = GridBagConstraints.CENTER; // Centrar los tickets
-        gbc.weightx = 1.0; // Distribuir el espacio horizontalmente
-        gbc.weighty = 1.0; // Distribuir el espacio verticalmente
-
-        // Obtener el histórico de tickets desde el parking
-        ArrayList<Ticket> historicoTickets = parking.getHistoricoTickets(); // Suponiendo que el método getHistoricoTickets() devuelve el histórico de tickets
-
-        int numTickets = historicoTickets.size();
-
-        // Crear el formateador de fechas
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yy HH:mm:ss");
-
-        for (int row = 0; row < numTickets; row++) {
-            // Crear un panel para el ticket de la fila actual
-            JPanel panelTicket = new JPanel();
-            panelTicket.setLayout(new BoxLayout(panelTicket, BoxLayout.Y_AXIS)); // Cambiar a BoxLayout vertical para mantener el tamaño del ticket
-            panelTicket.setBorder(BorderFactory.createLineBorder(Color.BLACK, 2));
-            panelTicket.setBackground(Color.WHITE);
-            panelTicket.setPreferredSize(new Dimension(210, 315)); // Tamaño del ticket (ancho x alto)
-
-            Ticket ticket = historicoTickets.get(row);
-
-            // Crear un panel para la información del ticket
-            JPanel panelInfo = new JPanel();
-            panelInfo.setLayout(new BoxLayout(panelInfo, BoxLayout.Y_AXIS));
-            panelInfo.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20)); // Añadir un margen alrededor de la información
-            panelInfo.setBackground(Color.WHITE);
-
-            // Añadir el título del ticket al panelInfo
-            JLabel etiquetaTitulo = new JLabel("TICKET ID: " + ticket.getID());
-            etiquetaTitulo.setFont(new Font("Arial", Font.BOLD, 22)); // Tamaño de fuente para el título
-            etiquetaTitulo.setAlignmentX(Component.CENTER_ALIGNMENT);
-            panelInfo.add(etiquetaTitulo);
-
-            // Línea divisoria entre el título y la información del ticket
-            JSeparator separadorTitulo = new JSeparator();
-            separadorTitulo.setPreferredSize(new Dimension(360, 2)); // Ancho y grosor del separador
-            panelInfo.add(separadorTitulo);
-
-            panelInfo.add(Box.createVerticalStrut(10)); // Espacio vertical debajo del separador de título
-
-            // Añadir la información del ticket al panelInfo
-            JLabel etiquetaMatricula = new JLabel("Matrícula:");
-            etiquetaMatricula.setFont(new Font("Arial", Font.BOLD, 18)); // Tamaño de fuente para la etiqueta
-            etiquetaMatricula.setAlignmentX(Component.CENTER_ALIGNMENT);
-            panelInfo.add(etiquetaMatricula);
-
-            JLabel valorMatricula = new JLabel(ticket.getMATRICULA());
-            valorMatricula.setFont(new Font("Arial", Font.PLAIN, 16)); // Tamaño de fuente para el contenido
-            valorMatricula.setAlignmentX(Component.CENTER_ALIGNMENT);
-            panelInfo.add(valorMatricula);
-
-            JLabel etiquetaNumPlaza = new JLabel("Plaza:");
-            etiquetaNumPlaza.setFont(new Font("Arial", Font.BOLD, 18)); // Tamaño de fuente para la etiqueta
-            etiquetaNumPlaza.setAlignmentX(Component.CENTER_ALIGNMENT);
-            panelInfo.add(etiquetaNumPlaza);
-
-            JLabel valorNumPlaza = new JLabel(String.valueOf(ticket.getNUM_PLAZA()));
-            valorNumPlaza.setFont(new Font("Arial", Font.PLAIN, 16)); // Tamaño de fuente para el contenido
-            valorNumPlaza.setAlignmentX(Component.CENTER_ALIGNMENT);
-            panelInfo.add(valorNumPlaza);
-
-            panelInfo.add(Box.createVerticalStrut(10)); // Espacio vertical antes de la siguiente línea horizontal
-
-            // Línea divisoria entre la información de matrícula/plaza y las fechas
-            JSeparator separadorFechas = new JSeparator();
-            separadorFechas.setPreferredSize(new Dimension(360, 2)); // Ancho y grosor del separador
-            panelInfo.add(separadorFechas);
-
-            panelInfo.add(Box.createVerticalStrut(15)); // Espacio vertical antes de la fecha de entrada
-
-            // Añadir las fechas al panelInfo
-            JLabel etiquetaInicio = new JLabel("Fecha Entrada:");
-            etiquetaInicio.setFont(new Font("Arial", Font.BOLD, 17)); // Tamaño de fuente para la etiqueta
-            etiquetaInicio.setAlignmentX(Component.CENTER_ALIGNMENT);
-            panelInfo.add(etiquetaInicio);
-
-            JLabel valorInicio = new JLabel(ticket.getFECHA_ENTRADA() != null ? ticket.getFECHA_ENTRADA().format(formatter) : "--/--/--   --:--:--");
-            valorInicio.setFont(new Font("Arial", Font.PLAIN, 15)); // Tamaño de fuente reducido para el contenido
-            valorInicio.setAlignmentX(Component.CENTER_ALIGNMENT);
-            panelInfo.add(valorInicio);
-
-            JLabel etiquetaSalida = new JLabel("Fecha Salida:");
-            etiquetaSalida.setFont(new Font("Arial", Font.BOLD, 17)); // Tamaño de fuente para la etiqueta
-            etiquetaSalida.setAlignmentX(Component.CENTER_ALIGNMENT);
-            panelInfo.add(etiquetaSalida);
-
-            JLabel valorSalida = new JLabel(ticket.getFechaSalida() != null ? ticket.getFechaSalida().format(formatter) : "--/--/--   --:--:--");
-            valorSalida.setFont(new Font("Arial", Font.PLAIN, 15)); // Tamaño de fuente reducido para el contenido
-            valorSalida.setAlignmentX(Component.CENTER_ALIGNMENT);
-            panelInfo.add(valorSalida);
-
-            panelInfo.add(Box.createVerticalStrut(15)); // Espacio vertical antes del precio
-
-            // Línea divisoria adicional debajo de las fechas
-            JSeparator separadorPrecio = new JSeparator();
-            separadorPrecio.setPreferredSize(new Dimension(360, 2)); // Ancho y grosor del separador
-            panelInfo.add(separadorPrecio);
-
-            panelInfo.add(Box.createVerticalStrut(5)); // Espacio vertical antes del precio
-
-            // Mostrar el precio total del ticket
-            JLabel etiquetaPrecioTotal = new JLabel("Precio: " + (ticket.getPrecioTotal() > 0 ? String.format("%.2f", ticket.getPrecioTotal()) : "-.--") + " €");
-            etiquetaPrecioTotal.setFont(new Font("Arial", Font.PLAIN, 16)); // Tamaño de fuente para el precio, no en negrita
-            etiquetaPrecioTotal.setAlignmentX(Component.CENTER_ALIGNMENT);
-            panelInfo.add(etiquetaPrecioTotal);
-
-            // Agregar el panelInfo al panelTicket
-            panelTicket.add(panelInfo);
-
-            // Agregar el panel del ticket al panel principal
-            gbc.gridx = 0;
-            gbc.gridy = row;
-            panelPrincipal.add(panelTicket, gbc);
-        }
+        // Lista con celdas de tamaño fijo: solo se pintan los tickets visibles
+        JList<ModeloHistoricoTickets.Fila> lista = new JList<>(modelo);
+        lista.setCellRenderer(new RenderizadorTicket());
+        lista.setFixedCellHeight(RenderizadorTicket.ALTO);
+        lista.setFixedCellWidth(RenderizadorTicket.ANCHO);
+        JScrollPane scrollPane = new JScrollPane(lista);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(20); // Incremento de desplazamiento en píxeles
 
-        // Colocar el panelPrincipal en un JScrollPane
-        JScrollPane scrollPane = new JScrollPane(panelPrincipal);
-        scrollPane.setPreferredSize(pantallaSize); // Ajusta el tamaño del JScrollPane al tamaño de la pantalla
+        // Al acercarse al final de la lista (o si la lista no llena la ventana) se carga la página siguiente
+        Runnable compruebaFinal = () -> {
+            if (lista.getLastVisibleIndex() >= modelo.getSize() - MARGEN_CARGA_HISTORICO) {
+                modelo.cargaPagina();
+            }
+        };
+        scrollPane.getVerticalScrollBar().addAdjustmentListener(e -> compruebaFinal.run());
+        modelo.addListDataListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                SwingUtilities.invokeLater(compruebaFinal);
+            }
 
-        // Configurar el JScrollPane para mejor experiencia de desplazamiento
-        scrollPane.getVerticalScrollBar().setUnitIncrement(20); // Incremento de desplazamiento en píxeles
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+            }
 
-        // Agregar el JScrollPane al JFrame
-        ventanaHistorico.getContentPane().add(scrollPane);
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+            }
+        });
+
+        // Filtros por intervalo de fechas de entrada y matrícula
+        JTextField desde = new JTextField(8);
+        JTextField hasta = new JTextField(8);
+        JTextField matricula = new JTextField(10);
+        JButton buscar = new JButton("Buscar");
+        ActionListener busca = e -> {
+            LocalDate fechaDesde;
+            LocalDate fechaHasta;
+            try {
+                fechaDesde = desde.getText().isBlank() ? null : LocalDate.parse(desde.getText().trim(), FORMATO_FECHA_FILTRO);
+                fechaHasta = hasta.getText().isBlank() ? null : LocalDate.parse(hasta.getText().trim(), FORMATO_FECHA_FILTRO);
+            } catch (DateTimeParseException ex) {
+                JOptionPane.showMessageDialog(ventanaHistorico, "Introduce las fechas con el formato dd/MM/yyyy.");
+                return;
+            }
+            String textoMatricula = matricula.getText().trim().toUpperCase();
+            // La fecha «hasta» incluye el día completo
+            modelo.filtra(fechaDesde == null ? null : fechaDesde.atStartOfDay(),
+                    fechaHasta == null ? null : fechaHasta.plusDays(1).atStartOfDay(),
+                    textoMatricula.isEmpty() ? null : textoMatricula);
+            lista.ensureIndexIsVisible(0);
+        };
+        buscar.addActionListener(busca);
+        matricula.addActionListener(busca);
+
+        JPanel filtros = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filtros.add(new JLabel("Desde (dd/MM/yyyy):"));
+        filtros.add(desde);
+        filtros.add(new JLabel("Hasta:"));
+        filtros.add(hasta);
+        filtros.add(new JLabel("Matrícula:"));
+        filtros.add(matricula);
+        filtros.add(buscar);
+        filtros.add(estado);
+
+        ventanaHistorico.getContentPane().add(filtros, BorderLayout.NORTH);
+        ventanaHistorico.getContentPane().add(scrollPane, BorderLayout.CENTER);
 
         // Maximizar la ventana para que ocupe toda la pantalla
         ventanaHistorico.setExtendedState(JFrame.MAXIMIZED_BOTH);
-
         ventanaHistorico.setLocationRelativeTo(null); // Centrar el JFrame en la pantalla
         ventanaHistorico.setVisible(true);
+
+        // La primera página se carga en segundo plano, con la ventana ya abierta
+        modelo.filtra(null, null, null);
     }
 
     /**
@@ -665,7 +645,11 @@ public class GUI_GestionParking extends JFrame {
      */
     private void mostrarAparcamientosDisponibles() {
         // Crear un JFrame para mostrar las plazas
-        JFrame ventanaPlazas = new JFrame("Aparcamientos Disponibles");
+        // Los indicadores se leen de las estadísticas incrementales, sin recorrer el histórico
+        EstadisticasParking estadisticas = parking.getEstadisticas();
+        JFrame ventanaPlazas = new JFrame("Aparcamientos Disponibles - Ocupadas: " + estadisticas.getOcupacionTotal() +
+                " - Entradas: " + estadisticas.getEntradas() + " - Ingresos hoy: " +
+                Dinero.formatea(estadisticas.getIngresosHoy()) + " €");
         ventanaPlazas.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
 
         // Obtener las dimensiones de la pantalla
@@ -799,4 +783,57 @@ public class GUI_GestionParking extends JFrame {
     }
 
     // Getters y Setters si es necesario
+
+    /**
+     * Renderizador de las celdas del histórico de tickets. Un único componente se reutiliza para pintar todos los
+     * tickets visibles, con los textos ya formateados por {@link ModeloHistoricoTickets}.
+     */
+    private static class RenderizadorTicket extends JPanel implements ListCellRenderer<ModeloHistoricoTickets.Fila> {
+
+        /**
+         * Alto de cada celda, en píxeles.
+         */
+        static final int ALTO = 110;
+
+        /**
+         * Ancho de cada celda, en píxeles.
+         */
+        static final int ANCHO = 420;
+
+        private final JLabel titulo = new JLabel();
+        private final JLabel matriculaPlaza = new JLabel();
+        private final JLabel fechas = new JLabel();
+        private final JLabel precio = new JLabel();
+
+        /**
+         * Crea el componente de la celda.
+         */
+        RenderizadorTicket() {
+            setLayout(new GridLayout(4, 1));
+            setBorder(BorderFactory.createCompoundBorder(
+                    BorderFactory.createMatteBorder(0, 0, 2, 0, Color.BLACK),
+                    BorderFactory.createEmptyBorder(5, 20, 5, 20)));
+            titulo.setFont(new Font("Arial", Font.BOLD, 18));
+            matriculaPlaza.setFont(new Font("Arial", Font.PLAIN, 15));
+            fechas.setFont(new Font("Arial", Font.PLAIN, 14));
+            precio.setFont(new Font("Arial", Font.PLAIN, 15));
+            add(titulo);
+            add(matriculaPlaza);
+            add(fechas);
+            add(precio);
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends ModeloHistoricoTickets.Fila> lista,
+                                                      ModeloHistoricoTickets.Fila fila, int indice,
+                                                      boolean seleccionada, boolean conFoco) {
+            titulo.setText("TICKET ID: " + fila.getID());
+            matriculaPlaza.setText("Matrícula: " + fila.getMatricula() + "    Plaza: " + fila.getPlaza());
+            fechas.setText("Entrada: " + fila.getEntrada() + "    Salida: " + fila.getSalida());
+            precio.setText("Precio: " + fila.getPrecio());
+            setBackground(seleccionada ? lista.getSelectionBackground() : Color.WHITE);
+            return this;
+        }
+    }
+
 }
@@ -1,7 +1,9 @@
 package GESTION_DE_PARKING;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Clase que gestiona la generación y validación de matrículas según el país.
@@ -14,36 +16,73 @@ import java.util.Map;
 public class GestionMatriculas {
 
     /**
-     * Mapa que almacena los patrones de expresiones regulares para validar las matrículas por país.
-     * La clave es el país (de tipo {@link Paises}) y el valor es el patrón de expresión regular
-     * que define el formato de la matrícula para ese país.
+     * Formato de la matrícula de cada país. Cada carácter del formato indica lo que debe aparecer en esa posición:
+     * {@code D} es un dígito, {@code L} es una letra mayúscula de la A a la Z salvo la I y la O,
+     * y el espacio y el guion deben aparecer tal cual.
      */
-    private static final Map<Paises, String> patronesPaisesMatricula = new HashMap<>();
+    private static final Map<Paises, String> formatosPaisesMatricula = new EnumMap<>(Paises.class);
 
     /**
-     * Inicializa el mapa de patrones de matrículas para diferentes países.
+     * Firmas de los formatos registrados, ordenadas de menor a mayor para poder buscarlas por búsqueda binaria.
+     */
+    private static final int[] FIRMAS;
+
+    /**
+     * País correspondiente a cada firma de {@link #FIRMAS}, en la misma posición.
+     */
+    private static final Paises[] PAISES_POR_FIRMA;
+
+    /**
+     * Firma del formato de cada país, indexada por el ordinal del país.
+     */
+    private static final int[] FIRMA_POR_PAIS = new int[Paises.values().length];
+
+    /**
+     * Longitud máxima de una matrícula que puede codificarse en una firma.
+     */
+    private static final int LONGITUD_MAXIMA = 13;
+
+    /**
+     * Inicializa el mapa de formatos de matrículas para diferentes países y las tablas de firmas.
      *
-     * Este bloque estático se ejecuta una sola vez cuando la clase es cargada y se utiliza
-     * para asociar cada país con su respectivo patrón de expresión regular. Los patrones
-     * se utilizan para validar matrículas según el formato específico de cada país.
+     * Este bloque estático se ejecuta una sola vez cuando la clase es cargada. Cada formato se reduce a una firma
+     * numérica que codifica su longitud y la clase de carácter de cada posición; identificar el país de una matrícula
+     * consiste en calcular su firma en una sola pasada y buscarla en una tabla ordenada, sin expresiones regulares.
+     * Si dos países compartieran formato, prevalece el que aparece antes en {@link Paises}.
      */
     static {
-        patronesPaisesMatricula.put(Paises.Alemania, "^[0-9]{2} [0-9]{2} [A-HJ-NP-Z]{3}$"); // KA PA 777
-        patronesPaisesMatricula.put(Paises.Austria, "^[A-HJ-NP-Z]{1} [0-9]{3} [A-HJ-NP-Z]{2}$"); // K 510 BV
-        patronesPaisesMatricula.put(Paises.Belgica, "^[0-9]{1}-[A-HJ-NP-Z]{3}-[0-9]{3}$"); // 1-ABC-003
-        patronesPaisesMatricula.put(Paises.Bulgaria, "^[A-HJ-NP-Z]{2} [0-9]{4} [A-HJ-NP-Z]{2}$"); // CA 7845 XC
-        patronesPaisesMatricula.put(Paises.Republica_Checa, "^[0-9]{1}[A-HJ-NP-Z]{1}[0-9]{1} [0-9]{4}$"); // 4A2 3000
-        patronesPaisesMatricula.put(Paises.Eslovenia, "^[A-HJ-NP-Z]{2} [0-9]{2}-[0-9]{1}[A-HJ-NP-Z]{2}$"); // LJ 13-1JP
-        patronesPaisesMatricula.put(Paises.Espana, "^[0-9]{4} [A-HJ-NP-Z]{3}$"); // 2008 HHR
-        patronesPaisesMatricula.put(Paises.Estonia, "^[0-9]{3} [A-HJ-NP-Z]{3}$"); // 307 RTB
-        patronesPaisesMatricula.put(Paises.Finlandia, "^[A-HJ-NP-Z]{3}-[0-9]{3}$"); // MMG-418
-        patronesPaisesMatricula.put(Paises.Francia, "^[A-HJ-NP-Z]{2}-[0-9]{3}-[A-HJ-NP-Z]{2}$"); // AA-229-AA
-        patronesPaisesMatricula.put(Paises.Italia, "^[A-HJ-NP-Z]{2} [0-9]{3}[A-HJ-NP-Z]{2}$"); // CM 844CA
-        patronesPaisesMatricula.put(Paises.Luxemburgo, "^[A-HJ-NP-Z]{2} [0-9]{3}$"); // HV 105
-        patronesPaisesMatricula.put(Paises.Malta, "^[A-HJ-NP-Z]{3} [0-9]{3}$"); // ACF 110
-        patronesPaisesMatricula.put(Paises.Paises_Bajos, "^[A-HJ-NP-Z]{2}-[A-HJ-NP-Z]{2}-[0-9]{2}$"); // PP-XF-69
-        patronesPaisesMatricula.put(Paises.Portugal, "^[0-9]{2}-[0-9]{2}-[A-HJ-NP-Z]{2}$"); // 45-72-XQ
-        patronesPaisesMatricula.put(Paises.Rumania, "^[A-HJ-NP-Z]{2} [0-9]{2}[A-HJ-NP-Z]{3}$"); // AG 07PAS
+        formatosPaisesMatricula.put(Paises.Alemania, "DD DD LLL"); // KA PA 777
+        formatosPaisesMatricula.put(Paises.Austria, "L DDD LL"); // K 510 BV
+        formatosPaisesMatricula.put(Paises.Belgica, "D-LLL-DDD"); // 1-ABC-003
+        formatosPaisesMatricula.put(Paises.Bulgaria, "LL DDDD LL"); // CA 7845 XC
+        formatosPaisesMatricula.put(Paises.Republica_Checa, "DLD DDDD"); // 4A2 3000
+        formatosPaisesMatricula.put(Paises.Eslovenia, "LL DD-DLL"); // LJ 13-1JP
+        formatosPaisesMatricula.put(Paises.Espana, "DDDD LLL"); // 2008 HHR
+        formatosPaisesMatricula.put(Paises.Estonia, "DDD LLL"); // 307 RTB
+        formatosPaisesMatricula.put(Paises.Finlandia, "LLL-DDD"); // MMG-418
+        formatosPaisesMatricula.put(Paises.Francia, "LL-DDD-LL"); // AA-229-AA
+        formatosPaisesMatricula.put(Paises.Italia, "LL DDDLL"); // CM 844CA
+        formatosPaisesMatricula.put(Paises.Luxemburgo, "LL DDD"); // HV 105
+        formatosPaisesMatricula.put(Paises.Malta, "LLL DDD"); // ACF 110
+        formatosPaisesMatricula.put(Paises.Paises_Bajos, "LL-LL-DD"); // PP-XF-69
+        formatosPaisesMatricula.put(Paises.Portugal, "DD-DD-LL"); // 45-72-XQ
+        formatosPaisesMatricula.put(Paises.Rumania, "LL DDLLL"); // AG 07PAS
+
+        // Se calcula la firma de cada formato; el EnumMap se recorre en el orden de Paises,
+        // por lo que ante un formato repetido se conserva el primer país
+        Map<Integer, Paises> porFirma = new TreeMap<>();
+        for (Map.Entry<Paises, String> entry : formatosPaisesMatricula.entrySet()) {
+            int firma = firmaFormato(entry.getValue());
+            FIRMA_POR_PAIS[entry.getKey().ordinal()] = firma;
+            porFirma.putIfAbsent(firma, entry.getKey());
+        }
+        FIRMAS = new int[porFirma.size()];
+        PAISES_POR_FIRMA = new Paises[porFirma.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Paises> entry : porFirma.entrySet()) {
+            FIRMAS[i] = entry.getKey();
+            PAISES_POR_FIRMA[i++] = entry.getValue();
+        }
     }
 
     /**
@@ -80,8 +119,8 @@ public class GestionMatriculas {
     /**
      * Obtiene el país al que pertenece la matrícula especificada.
      *
-     * Este método recorre un conjunto de patrones de matrículas asociados a diferentes países
-     * y devuelve el país correspondiente a la matrícula proporcionada.
+     * Este método calcula en una sola pasada la firma de la matrícula (su longitud y la clase de cada carácter)
+     * y la busca en la tabla de firmas de los formatos registrados.
      *
      * @param matricula La matrícula cuyo país se desea obtener. No debe ser {@code null}.
      * @return El país correspondiente a la matrícula.
@@ -92,12 +131,85 @@ public class GestionMatriculas {
         if (matricula == null) {
             throw new NullPointerException("La matrícula no puede ser null.");
         }
-        for (Map.Entry<Paises, String> entry : patronesPaisesMatricula.entrySet()) {
-            if (matricula.matches(entry.getValue())) {
-                return entry.getKey();
-            }
+        int firma = firmaMatricula(matricula);
+        int posicion = firma < 0 ? -1 : Arrays.binarySearch(FIRMAS, firma);
+        if (posicion < 0) {
+            throw new IllegalArgumentException("Matrícula " + matricula + " no válida para ningún país registrado.");
+        }
+        return PAISES_POR_FIRMA[posicion];
+    }
+
+    /**
+     * Verifica si una matrícula tiene el formato del país indicado.
+     *
+     * @param matricula La matrícula a validar.
+     * @param pais El país cuyo formato debe cumplir la matrícula.
+     * @return {@code true} si la matrícula es válida para el país, {@code false} en caso contrario
+     *         o si alguno de los parámetros es {@code null}.
+     */
+    public static boolean esValida(String matricula, Paises pais) {
+        if (matricula == null || pais == null) {
+            return false;
+        }
+        int firma = firmaMatricula(matricula);
+        return firma >= 0 && firma == FIRMA_POR_PAIS[pais.ordinal()];
+    }
+
+    /**
+     * Calcula la firma de una matrícula: su longitud en los 4 bits bajos y, a continuación, 2 bits por carácter
+     * con su clase (dígito, letra válida, espacio o guion).
+     *
+     * @param matricula La matrícula.
+     * @return La firma, o {@code -1} si la matrícula es demasiado larga o contiene un carácter no permitido.
+     */
+    private static int firmaMatricula(String matricula) {
+        int longitud = matricula.length();
+        if (longitud == 0 || longitud > LONGITUD_MAXIMA) {
+            return -1;
+        }
+        int firma = longitud;
+        for (int i = 0; i < longitud; i++) {
+            char c = matricula.charAt(i);
+            int clase;
+            if (c >= '0' && c <= '9')
+                clase = 0;
+            else if (c >= 'A' && c <= 'Z' && c != 'I' && c != 'O')
+                clase = 1;
+            else if (c == ' ')
+                clase = 2;
+            else if (c == '-')
+                clase = 3;
+            else
+                return -1;
+            firma |= clase << (4 + 2 * i);
+        }
+        return firma;
+    }
+
+    /**
+     * Calcula la firma de un formato de {@link #formatosPaisesMatricula}, con la misma codificación que
+     * {@link #firmaMatricula(String)}.
+     *
+     * @param formato El formato, formado por {@code D}, {@code L}, espacios y guiones.
+     * @return La firma del formato.
+     * @throws IllegalArgumentException Si el formato es demasiado largo o contiene un carácter no permitido.
+     */
+    private static int firmaFormato(String formato) {
+        if (formato.isEmpty() || formato.length() > LONGITUD_MAXIMA) {
+            throw new IllegalArgumentException("Formato de matrícula no válido: " + formato);
+        }
+        int firma = formato.length();
+        for (int i = 0; i < formato.length(); i++) {
+            int clase = switch (formato.charAt(i)) {
+                case 'D' -> 0;
+                case 'L' -> 1;
+                case ' ' -> 2;
+                case '-' -> 3;
+                default -> throw new IllegalArgumentException("Formato de matrícula no válido: " + formato);
+            };
+            firma |= clase << (4 + 2 * i);
         }
-        throw new IllegalArgumentException("Matrícula " + matricula + " no válida para ningún país registrado.");
+        return firma;
     }
 
 }
@@ -0,0 +1,519 @@
+package GESTION_DE_PARKING;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Histórico de tickets del parking dividido en dos niveles, que se presenta como una lista de solo lectura.
+ * <p>
+ * En memoria (nivel caliente) solo se mantienen los tickets abiertos y una ventana con los tickets más recientes,
+ * de tamaño configurable. El resto del histórico (nivel frío) permanece en la base de datos y se consulta bajo
+ * demanda por páginas a través de {@link TicketDAO}; las últimas páginas leídas se guardan en una pequeña caché.
+ * </p>
+ * <p>
+ * La lista está ordenada por ID de ticket, de más antiguo a más reciente, y su tamaño es el número total de tickets.
+ * Recorrerla entera consulta la base de datos página a página, sin cargar todo el histórico en memoria a la vez.
+ * Las páginas del nivel frío se leen por clave ({@code id > ?}) a partir del último ID de la página anterior, y no
+ * por desplazamiento, de modo que recorrer todo el histórico lee cada fila una sola vez.
+ * </p>
+ * <p>
+ * El histórico solo crece por el final: añadir un ticket no invalida los iteradores, que recorren los tickets que
+ * había al crearlos.
+ * </p>
+ * <p>
+ * La ventana de tickets recientes y el total del histórico pueden cargarse en segundo plano: mientras tanto los
+ * tickets abiertos ya están disponibles y se pueden añadir tickets nuevos, y las consultas del histórico esperan
+ * a que termine la carga.
+ * </p>
+ *
+ * @version 1.0
+ * @see Parking
+ * @see TicketDAO
+ */
+public class HistoricoTickets extends AbstractList<Ticket> {
+
+    /**
+     * Número de tickets que se leen en cada consulta del nivel frío.
+     */
+    private static final int TAMANO_PAGINA = 500;
+
+    /**
+     * Número de páginas del nivel frío que se guardan en caché.
+     */
+    private static final int PAGINAS_EN_CACHE = 4;
+
+    /**
+     * DAO con el que se consultan los tickets del nivel frío.
+     */
+    private final TicketDAO TICKET_DAO;
+
+    /**
+     * Número máximo de tickets recientes que se mantienen en memoria.
+     */
+    private final int VENTANA;
+
+    /**
+     * Tickets más recientes, en un búfer circular ordenado por ID a partir de {@code inicio}.
+     */
+    private final Ticket[] recientes;
+
+    /**
+     * Posición del ticket más antiguo de la ventana dentro de {@code recientes}.
+     */
+    private int inicio;
+
+    /**
+     * Número de tickets en la ventana.
+     */
+    private int enVentana;
+
+    /**
+     * Número total de tickets del histórico.
+     */
+    private int total;
+
+    /**
+     * Tickets abiertos cargados al crear el histórico, incluidos los que son más antiguos que la ventana.
+     */
+    private final List<Ticket> abiertos;
+
+    /**
+     * Páginas del nivel frío leídas recientemente, por número de página.
+     */
+    private final LinkedHashMap<Integer, List<Ticket>> paginas = new LinkedHashMap<>(8, 0.75f, true);
+
+    /**
+     * Último ID de la página anterior a cada página conocida del nivel frío: la página {@code k} son los
+     * {@code TAMANO_PAGINA} tickets siguientes a {@code limitesPaginas[k]}.
+     */
+    private int[] limitesPaginas = new int[16];
+
+    /**
+     * Número de páginas del nivel frío cuyo límite se conoce; el de la primera (0) se conoce siempre.
+     */
+    private int paginasConocidas = 1;
+
+    /**
+     * Última página del nivel frío, incompleta, o {@code null}. Solo es válida mientras el ticket más antiguo de la
+     * ventana sea {@code limiteUltimaPagina}.
+     */
+    private List<Ticket> ultimaPagina;
+
+    /**
+     * Número de la última página del nivel frío.
+     */
+    private int numeroUltimaPagina;
+
+    /**
+     * ID del ticket más antiguo de la ventana cuando se leyó la última página del nivel frío.
+     */
+    private int limiteUltimaPagina;
+
+    /**
+     * Acción que vuelca en la base de datos los tickets pendientes antes de consultar el nivel frío, o {@code null}.
+     */
+    private Runnable volcadoPendiente;
+
+    /**
+     * Mayor ID de ticket de la base de datos al crear el histórico, o 0 si no se conoce.
+     */
+    private final int ULTIMO_ID_INICIAL;
+
+    /**
+     * Carga en segundo plano de la ventana de tickets recientes y del total; completada si no hay carga pendiente.
+     */
+    private final CompletableFuture<Void> carga;
+
+    /**
+     * Constructor que carga el nivel caliente desde la base de datos: los tickets abiertos y los
+     * {@code ventana} tickets más recientes.
+     *
+     * @param ticketDAO El DAO de tickets.
+     * @param ventana El número de tickets recientes que se mantienen en memoria.
+     * @throws IllegalArgumentException Si {@code ventana} no es positiva.
+     */
+    public HistoricoTickets(TicketDAO ticketDAO, int ventana) {
+        if (ventana <= 0) {
+            throw new IllegalArgumentException("La ventana de tickets recientes debe ser mayor que 0.");
+        }
+        TICKET_DAO = ticketDAO;
+        VENTANA = ventana;
+        recientes = new Ticket[ventana];
+
+        total = ticketDAO.cuentaTickets();
+        Map<Integer, Ticket> porId = new HashMap<>();
+        for (Ticket ticket : ticketDAO.getTicketsRecientes(ventana)) {
+            agregaAVentana(ticket);
+            porId.put(ticket.getID(), ticket);
+        }
+        // Los tickets abiertos que están en la ventana deben ser el mismo objeto, para que al cerrarlos se vea en ambos
+        List<Ticket> cargados = new ArrayList<>();
+        for (Ticket ticket : ticketDAO.getTicketsAbiertos()) {
+            cargados.add(porId.getOrDefault(ticket.getID(), ticket));
+        }
+        abiertos = Collections.unmodifiableList(cargados);
+        // Se cuentan también los tickets creados entre la consulta del total y la de la ventana
+        total = Math.max(total, enVentana);
+        ULTIMO_ID_INICIAL = 0;
+        carga = CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Constructor que solo necesita los tickets abiertos: la ventana de tickets recientes y el total del histórico,
+     * hasta {@code ultimoId}, se cargan en segundo plano con {@code ejecutor}. Los tickets creados mientras tanto
+     * se añaden con normalidad y quedan detrás de los cargados.
+     *
+     * @param ticketDAO El DAO de tickets.
+     * @param ventana El número de tickets recientes que se mantienen en memoria.
+     * @param abiertos Los tickets abiertos, ordenados por ID.
+     * @param ultimoId El mayor ID de ticket de la base de datos en este momento.
+     * @param ejecutor El ejecutor de la carga en segundo plano.
+     * @throws IllegalArgumentException Si {@code ventana} no es positiva.
+     * @see #getCarga()
+     */
+    public HistoricoTickets(TicketDAO ticketDAO, int ventana, List<Ticket> abiertos, int ultimoId, Executor ejecutor) {
+        if (ventana <= 0) {
+            throw new IllegalArgumentException("La ventana de tickets recientes debe ser mayor que 0.");
+        }
+        TICKET_DAO = ticketDAO;
+        VENTANA = ventana;
+        recientes = new Ticket[ventana];
+        this.abiertos = Collections.unmodifiableList(new ArrayList<>(abiertos));
+        ULTIMO_ID_INICIAL = ultimoId;
+        carga = CompletableFuture.runAsync(this::cargaVentana, ejecutor);
+    }
+
+    /**
+     * Constructor que no consulta la base de datos, para cuando el estado del parking se recupera de otra fuente
+     * (véase {@link DiarioEventos}). La ventana de tickets recientes empieza vacía y se llena con los tickets
+     * que se creen a partir de ahora.
+     *
+     * @param ticketDAO El DAO de tickets, con el que se consultan los tickets anteriores bajo demanda.
+     * @param ventana El número de tickets recientes que se mantienen en memoria.
+     * @param total El número total de tickets del histórico.
+     * @param abiertos Los tickets abiertos, ordenados por ID.
+     * @throws IllegalArgumentException Si {@code ventana} no es positiva.
+     */
+    public HistoricoTickets(TicketDAO ticketDAO, int ventana, int total, List<Ticket> abiertos) {
+        if (ventana <= 0) {
+            throw new IllegalArgumentException("La ventana de tickets recientes debe ser mayor que 0.");
+        }
+        TICKET_DAO = ticketDAO;
+        VENTANA = ventana;
+        recientes = new Ticket[ventana];
+        this.total = total;
+        this.abiertos = Collections.unmodifiableList(new ArrayList<>(abiertos));
+        ULTIMO_ID_INICIAL = 0;
+        carga = CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Obtiene la carga en segundo plano de la ventana de tickets recientes y del total del histórico.
+     *
+     * @return Un futuro que se completa al terminar la carga, o que ya está completado si no había carga pendiente.
+     */
+    public CompletableFuture<Void> getCarga() {
+        return carga;
+    }
+
+    /**
+     * Obtiene los tickets abiertos cargados al crear el histórico.
+     *
+     * @return Una lista no modificable de los tickets sin fecha de salida.
+     */
+    public List<Ticket> getTicketsAbiertos() {
+        return abiertos;
+    }
+
+    /**
+     * Añade un ticket recién creado al histórico. Si la ventana está llena, el ticket más antiguo
+     * pasa al nivel frío (solo se conserva en la base de datos).
+     *
+     * @param ticket El ticket creado.
+     * @return {@code true}, como indica {@link List#add(Object)}.
+     */
+    @Override
+    public synchronized boolean add(Ticket ticket) {
+        // Solo se añade por el final, por lo que no se incrementa modCount: los iteradores abiertos siguen siendo válidos
+        agregaAVentana(ticket);
+        total++;
+        return true;
+    }
+
+    /**
+     * Indica la acción que vuelca en la base de datos los tickets todavía pendientes, como los de la escritura
+     * diferida ({@link EscrituraDiferida#vacia()}). Se ejecuta antes de cada consulta del nivel frío, para que los
+     * tickets que han salido de la ventana estén en la base de datos.
+     *
+     * @param volcadoPendiente La acción, o {@code null} si los tickets se escriben al crearse.
+     */
+    public synchronized void setVolcadoPendiente(Runnable volcadoPendiente) {
+        this.volcadoPendiente = volcadoPendiente;
+    }
+
+    /**
+     * Indica que un ticket se ha cerrado. Si el ticket ya no está en la ventana, se descartan las páginas
+     * del nivel frío en caché para que vuelvan a leerse con la fecha de salida actualizada.
+     *
+     * @param ticket El ticket cerrado.
+     */
+    public synchronized void ticketCerrado(Ticket ticket) {
+        if (enVentana == 0 || ticket.getID() < recientes[inicio].getID()) {
+            paginas.clear();
+            ultimaPagina = null;
+        }
+    }
+
+    /**
+     * Obtiene el ticket que ocupa una posición del histórico.
+     * <p>
+     * Los tickets de la ventana se devuelven directamente; los anteriores se leen de la base de datos
+     * por páginas.
+     * </p>
+     *
+     * @param indice La posición del ticket (0 es el más antiguo).
+     * @return El ticket.
+     * @throws IndexOutOfBoundsException Si la posición no existe.
+     * @throws IllegalStateException Si ocurre un error al consultar la base de datos.
+     */
+    @Override
+    public Ticket get(int indice) {
+        esperaCarga();
+        while (true) {
+            int numeroPagina;
+            int leida;
+            int despuesDeId;
+            int primeroEnVentana;
+            Runnable volcado;
+            synchronized (this) {
+                if (indice < 0 || indice >= total) {
+                    throw new IndexOutOfBoundsException("No existe el ticket en la posición " + indice + " del histórico.");
+                }
+                int enFrio = total - enVentana;
+                if (indice >= enFrio) {
+                    return recientes[(inicio + indice - enFrio) % VENTANA];
+                }
+                numeroPagina = indice / TAMANO_PAGINA;
+                List<Ticket> pagina = paginas.get(numeroPagina);
+                if (pagina != null) {
+                    return pagina.get(indice % TAMANO_PAGINA);
+                }
+                if (ultimaPagina != null && numeroUltimaPagina == numeroPagina && limiteUltimaPagina == primerIdVentana()
+                        && indice % TAMANO_PAGINA < ultimaPagina.size()) {
+                    return ultimaPagina.get(indice % TAMANO_PAGINA);
+                }
+                // Si no se conoce dónde empieza la página, se lee la última conocida para averiguarlo
+                leida = Math.min(numeroPagina, paginasConocidas - 1);
+                despuesDeId = limitesPaginas[leida];
+                primeroEnVentana = primerIdVentana();
+                volcado = volcadoPendiente;
+            }
+
+            // La consulta a la base de datos se hace sin bloquear el histórico
+            if (volcado != null) {
+                volcado.run();
+            }
+            List<Ticket> pagina = new ArrayList<>(TICKET_DAO.getTicketsDesde(despuesDeId, TAMANO_PAGINA));
+            // Los tickets de la ventana no forman parte del nivel frío
+            pagina.removeIf(ticket -> ticket.getID() >= primeroEnVentana);
+
+            synchronized (this) {
+                if (pagina.size() == TAMANO_PAGINA) {
+                    guardaPagina(leida, pagina);
+                } else if (primeroEnVentana == primerIdVentana()) {
+                    // Es la última página del nivel frío: se corrige el total si la base de datos tiene otro número
+                    // de tickets (por ejemplo, si se han borrado tickets al eliminar un vehículo)
+                    total = leida * TAMANO_PAGINA + pagina.size() + enVentana;
+                    ultimaPagina = pagina;
+                    numeroUltimaPagina = leida;
+                    limiteUltimaPagina = primeroEnVentana;
+                }
+            }
+            if (leida == numeroPagina && indice % TAMANO_PAGINA < pagina.size()) {
+                return pagina.get(indice % TAMANO_PAGINA);
+            }
+            // En otro caso se vuelve a intentar con los límites y el total actualizados
+        }
+    }
+
+    /**
+     * Recorre los tickets que hay en el histórico al crear el iterador. A diferencia del de {@link AbstractList},
+     * no falla si se añaden tickets durante el recorrido.
+     *
+     * @return El iterador.
+     */
+    @Override
+    public Iterator<Ticket> iterator() {
+        int fin = size();
+        return new Iterator<Ticket>() {
+            private int siguiente;
+
+            @Override
+            public boolean hasNext() {
+                // Si el total se ha corregido a la baja, el recorrido termina antes
+                return siguiente < Math.min(fin, size());
+            }
+
+            @Override
+            public Ticket next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(siguiente++);
+            }
+        };
+    }
+
+    /**
+     * Obtiene el número total de tickets del histórico, incluidos los que solo están en la base de datos.
+     *
+     * @return El número de tickets.
+     */
+    @Override
+    public int size() {
+        esperaCarga();
+        synchronized (this) {
+            return total;
+        }
+    }
+
+    /**
+     * Obtiene el ID del ticket más reciente conocido, sin esperar a la carga en segundo plano.
+     *
+     * @return El mayor ID de la ventana o de la base de datos al crear el histórico, o 0 si no hay ninguno.
+     */
+    public synchronized int getUltimoId() {
+        return enVentana == 0 ? ULTIMO_ID_INICIAL
+                : Math.max(ULTIMO_ID_INICIAL, recientes[(inicio + enVentana - 1) % VENTANA].getID());
+    }
+
+    /**
+     * Obtiene una copia de los tickets de la ventana de tickets recientes.
+     *
+     * @return Los tickets recientes, ordenados de más antiguo a más reciente.
+     */
+    public List<Ticket> getRecientes() {
+        esperaCarga();
+        synchronized (this) {
+            return copiaVentana();
+        }
+    }
+
+    /**
+     * Copia los tickets de la ventana, de más antiguo a más reciente.
+     *
+     * @return La copia.
+     */
+    private List<Ticket> copiaVentana() {
+        List<Ticket> copia = new ArrayList<>(enVentana);
+        for (int i = 0; i < enVentana; i++) {
+            copia.add(recientes[(inicio + i) % VENTANA]);
+        }
+        return copia;
+    }
+
+    /**
+     * Carga de la base de datos la ventana de tickets recientes y el total del histórico hasta
+     * {@code ULTIMO_ID_INICIAL}, y coloca delante de ellos los tickets creados durante la carga.
+     */
+    private void cargaVentana() {
+        int totalCargado = TICKET_DAO.cuentaTickets(ULTIMO_ID_INICIAL);
+        List<Ticket> cargados = TICKET_DAO.getTicketsRecientes(VENTANA, ULTIMO_ID_INICIAL);
+        // Los tickets abiertos que están en la ventana deben ser el mismo objeto, para que al cerrarlos se vea en ambos
+        Map<Integer, Ticket> porId = new HashMap<>();
+        for (Ticket ticket : abiertos) {
+            porId.put(ticket.getID(), ticket);
+        }
+        synchronized (this) {
+            List<Ticket> creados = copiaVentana();
+            Arrays.fill(recientes, null);
+            inicio = 0;
+            enVentana = 0;
+            for (Ticket ticket : cargados) {
+                agregaAVentana(porId.getOrDefault(ticket.getID(), ticket));
+            }
+            for (Ticket ticket : creados) {
+                agregaAVentana(ticket);
+            }
+            total = totalCargado + creados.size();
+            paginas.clear();
+            ultimaPagina = null;
+            modCount++;
+        }
+    }
+
+    /**
+     * Espera a que termine la carga en segundo plano, si la hay.
+     *
+     * @throws IllegalStateException Si la carga ha fallado.
+     */
+    private void esperaCarga() {
+        try {
+            carga.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Error al cargar el histórico de tickets", e.getCause());
+        }
+    }
+
+    /**
+     * Guarda en caché una página completa del nivel frío y anota dónde empieza la siguiente. Si el límite no coincide
+     * con el conocido (se han borrado tickets), se descartan los límites y las páginas posteriores.
+     *
+     * @param numeroPagina El número de la página.
+     * @param pagina Los tickets de la página.
+     */
+    private void guardaPagina(int numeroPagina, List<Ticket> pagina) {
+        int ultimoId = pagina.get(pagina.size() - 1).getID();
+        if (numeroPagina + 1 < paginasConocidas && limitesPaginas[numeroPagina + 1] != ultimoId) {
+            paginasConocidas = numeroPagina + 1;
+            paginas.keySet().removeIf(numero -> numero > numeroPagina);
+        }
+        if (numeroPagina + 1 == paginasConocidas) {
+            if (paginasConocidas == limitesPaginas.length) {
+                limitesPaginas = Arrays.copyOf(limitesPaginas, 2 * paginasConocidas);
+            }
+            limitesPaginas[paginasConocidas++] = ultimoId;
+        }
+        paginas.put(numeroPagina, pagina);
+        if (paginas.size() > PAGINAS_EN_CACHE) {
+            paginas.remove(paginas.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * Obtiene el ID del ticket más antiguo de la ventana, que separa el nivel frío del caliente.
+     *
+     * @return El ID, o {@link Integer#MAX_VALUE} si la ventana está vacía.
+     */
+    private int primerIdVentana() {
+        return enVentana == 0 ? Integer.MAX_VALUE : recientes[inicio].getID();
+    }
+
+    /**
+     * Añade un ticket al final de la ventana, desplazando el más antiguo si está llena.
+     *
+     * @param ticket El ticket.
+     */
+    private void agregaAVentana(Ticket ticket) {
+        if (enVentana < VENTANA) {
+            recientes[(inicio + enVentana++) % VENTANA] = ticket;
+        } else {
+            recientes[inicio] = ticket;
+            inicio = (inicio + 1) % VENTANA;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package GESTION_DE_PARKING;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Informe de recaudación y ocupación del parking en un intervalo de días, calculado por {@link AnaliticaParking}.
+ * <p>
+ * Todos los importes están en céntimos (véase {@link Dinero}). Los ingresos, las salidas y la duración de las
+ * estancias se imputan al día de salida; las entradas y la rotación de plazas, al día de entrada.
+ * </p>
+ *
+ * @version 1.0
+ * @see AnaliticaParking
+ */
+public class InformeParking {
+
+    /**
+     * Primer día del intervalo.
+     */
+    private final LocalDate DESDE;
+
+    /**
+     * Último día del intervalo.
+     */
+    private final LocalDate HASTA;
+
+    /**
+     * Ingresos totales del intervalo.
+     */
+    private final long ingresos;
+
+    /**
+     * Ingresos de cada día con actividad.
+     */
+    private final SortedMap<LocalDate, Long> ingresosPorDia = new TreeMap<>();
+
+    /**
+     * Ingresos de cada hora del día, sumando todos los días del intervalo.
+     */
+    private final long[] ingresosPorHora = new long[24];
+
+    /**
+     * Ingresos por tipo de vehículo.
+     */
+    private final Map<TipoVehiculo, Long> ingresosPorTipo = new EnumMap<>(TipoVehiculo.class);
+
+    /**
+     * Ingresos por país del vehículo.
+     */
+    private final Map<Paises, Long> ingresosPorPais = new EnumMap<>(Paises.class);
+
+    /**
+     * Número de entradas del intervalo.
+     */
+    private final long entradas;
+
+    /**
+     * Número de salidas del intervalo.
+     */
+    private final long salidas;
+
+    /**
+     * Suma de la duración de las estancias terminadas en el intervalo, en segundos.
+     */
+    private final long segundosEstancia;
+
+    /**
+     * Número máximo de vehículos aparcados a la vez.
+     */
+    private final int ocupacionMaxima;
+
+    /**
+     * Momento en que se alcanzó por primera vez la ocupación máxima, o {@code null} si no hubo ocupación.
+     */
+    private final LocalDateTime momentoOcupacionMaxima;
+
+    /**
+     * Número de tickets de cada plaza, por número de plaza.
+     */
+    private final SortedMap<Integer, Long> ticketsPorPlaza = new TreeMap<>();
+
+    /**
+     * Constructor que agrega los resúmenes de los días del intervalo.
+     *
+     * @param desde El primer día del intervalo.
+     * @param hasta El último día del intervalo.
+     * @param dias Los resúmenes de los días del intervalo con actividad, en orden.
+     */
+    InformeParking(LocalDate desde, LocalDate hasta, List<AnaliticaParking.ResumenDia> dias) {
+        DESDE = desde;
+        HASTA = hasta;
+
+        long ingresosTotales = 0, totalEntradas = 0, totalSalidas = 0, totalSegundos = 0;
+        long[] porTipo = new long[TipoVehiculo.values().length];
+        long[] porPais = new long[Paises.values().length];
+        long[] porPlaza = new long[0];
+        int maxima = 0;
+        LocalDateTime momentoMaxima = null;
+        for (AnaliticaParking.ResumenDia dia : dias) {
+            ingresosTotales += dia.ingresos;
+            totalEntradas += dia.entradas;
+            totalSalidas += dia.salidas;
+            totalSegundos += dia.segundosEstancia;
+            ingresosPorDia.put(dia.dia, dia.ingresos);
+            for (int i = 0; i < ingresosPorHora.length; i++) {
+                ingresosPorHora[i] += dia.ingresosPorHora[i];
+            }
+            for (int i = 0; i < porTipo.length; i++) {
+                porTipo[i] += dia.ingresosPorTipo[i];
+            }
+            for (int i = 0; i < porPais.length; i++) {
+                porPais[i] += dia.ingresosPorPais[i];
+            }
+            if (dia.ticketsPorPlaza.length > porPlaza.length) {
+                porPlaza = Arrays.copyOf(porPlaza, dia.ticketsPorPlaza.length);
+            }
+            for (int i = 0; i < dia.ticketsPorPlaza.length; i++) {
+                porPlaza[i] += dia.ticketsPorPlaza[i];
+            }
+            if (dia.ocupacionMaxima > maxima) {
+                maxima = dia.ocupacionMaxima;
+                momentoMaxima = dia.dia.atStartOfDay().plusMinutes(dia.minutoOcupacionMaxima);
+            }
+        }
+
+        ingresos = ingresosTotales;
+        entradas = totalEntradas;
+        salidas = totalSalidas;
+        segundosEstancia = totalSegundos;
+        ocupacionMaxima = maxima;
+        momentoOcupacionMaxima = momentoMaxima;
+        for (TipoVehiculo tipo : TipoVehiculo.values()) {
+            ingresosPorTipo.put(tipo, porTipo[tipo.ordinal()]);
+        }
+        for (Paises pais : Paises.values()) {
+            ingresosPorPais.put(pais, porPais[pais.ordinal()]);
+        }
+        for (int plaza = 0; plaza < porPlaza.length; plaza++) {
+            if (porPlaza[plaza] > 0) {
+                ticketsPorPlaza.put(plaza, porPlaza[plaza]);
+            }
+        }
+    }
+
+    /**
+     * Obtiene el primer día del intervalo del informe.
+     *
+     * @return El primer día.
+     */
+    public LocalDate getDESDE() {
+        return DESDE;
+    }
+
+    /**
+     * Obtiene el último día del intervalo del informe.
+     *
+     * @return El último día.
+     */
+    public LocalDate getHASTA() {
+        return HASTA;
+    }
+
+    /**
+     * Obtiene los ingresos totales del intervalo.
+     *
+     * @return Los ingresos, en céntimos.
+     */
+    public long getIngresos() {
+        return ingresos;
+    }
+
+    /**
+     * Obtiene los ingresos de cada día con actividad.
+     *
+     * @return Un mapa no modificable de ingresos en céntimos por día, ordenado por día.
+     */
+    public SortedMap<LocalDate, Long> getIngresosPorDia() {
+        return Collections.unmodifiableSortedMap(ingresosPorDia);
+    }
+
+    /**
+     * Obtiene los ingresos de cada hora del día, sumando todos los días del intervalo.
+     *
+     * @return Un array de 24 posiciones con los ingresos en céntimos de cada hora.
+     */
+    public long[] getIngresosPorHora() {
+        return ingresosPorHora.clone();
+    }
+
+    /**
+     * Obtiene los ingresos por tipo de vehículo. No incluye los tickets de vehículos desconocidos.
+     *
+     * @return Un mapa no modificable de ingresos en céntimos por tipo de vehículo.
+     */
+    public Map<TipoVehiculo, Long> getIngresosPorTipo() {
+        return Collections.unmodifiableMap(ingresosPorTipo);
+    }
+
+    /**
+     * Obtiene los ingresos por país del vehículo. No incluye los tickets de vehículos desconocidos.
+     *
+     * @return Un mapa no modificable de ingresos en céntimos por país.
+     */
+    public Map<Paises, Long> getIngresosPorPais() {
+        return Collections.unmodifiableMap(ingresosPorPais);
+    }
+
+    /**
+     * Obtiene el número de entradas del intervalo.
+     *
+     * @return El número de entradas.
+     */
+    public long getEntradas() {
+        return entradas;
+    }
+
+    /**
+     * Obtiene el número de salidas del intervalo.
+     *
+     * @return El número de salidas.
+     */
+    public long getSalidas() {
+        return salidas;
+    }
+
+    /**
+     * Obtiene la duración media de las estancias terminadas en el intervalo.
+     *
+     * @return La duración media, o {@link Duration#ZERO} si no hubo salidas.
+     */
+    public Duration getEstanciaMedia() {
+        return salidas == 0 ? Duration.ZERO : Duration.ofSeconds(segundosEstancia / salidas);
+    }
+
+    /**
+     * Obtiene el número máximo de vehículos aparcados a la vez en el intervalo.
+     *
+     * @return La ocupación máxima.
+     */
+    public int getOcupacionMaxima() {
+        return ocupacionMaxima;
+    }
+
+    /**
+     * Obtiene el momento en que se alcanzó por primera vez la ocupación máxima, con precisión de minutos.
+     *
+     * @return El momento de la ocupación máxima, o {@code null} si no hubo ningún vehículo aparcado.
+     */
+    public LocalDateTime getMomentoOcupacionMaxima() {
+        return momentoOcupacionMaxima;
+    }
+
+    /**
+     * Obtiene el número de tickets de cada plaza en el intervalo.
+     *
+     * @return Un mapa no modificable de número de tickets por número de plaza, solo con las plazas usadas.
+     */
+    public SortedMap<Integer, Long> getTicketsPorPlaza() {
+        return Collections.unmodifiableSortedMap(ticketsPorPlaza);
+    }
+
+    /**
+     * Obtiene la rotación media de las plazas: el número medio de vehículos por plaza y día.
+     *
+     * @param numeroPlazas El número de plazas del parking.
+     * @return La rotación media, o 0 si el número de plazas no es positivo.
+     */
+    public double getRotacionMedia(int numeroPlazas) {
+        if (numeroPlazas <= 0) {
+            return 0;
+        }
+        long dias = HASTA.toEpochDay() - DESDE.toEpochDay() + 1;
+        return (double) entradas / numeroPlazas / dias;
+    }
+
+    /**
+     * Retorna un resumen del informe.
+     *
+     * @return Una cadena con los principales indicadores del intervalo.
+     */
+    @Override
+    public String toString() {
+        return "Informe del " + DESDE + " al " + HASTA +
+                "\n    Ingresos: " + Dinero.formatea(ingresos) + " €" +
+                "\n    Entradas: " + entradas + ". Salidas: " + salidas +
+                "\n    Estancia media: " + getEstanciaMedia().toMinutes() + " min" +
+                "\n    Ocupación máxima: " + ocupacionMaxima +
+                (momentoOcupacionMaxima == null ? "" : " (" + momentoOcupacionMaxima + ")");
+    }
+}
@@ -0,0 +1,446 @@
+package GESTION_DE_PARKING;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instantánea de la ocupación de las plazas del parking en un fichero proyectado en memoria.
+ * <p>
+ * El fichero tiene un registro de ancho fijo por plaza, con 0 si la plaza está libre o el código de la matrícula
+ * aparcada más uno, y un diccionario de matrículas de ancho fijo al que remiten los códigos. {@link Parking}
+ * actualiza los registros en cada aparcamiento y desaparcamiento escribiendo directamente en la proyección, y el
+ * sistema operativo se encarga de llevar los cambios al disco.
+ * </p>
+ * <p>
+ * La cabecera guarda una suma de comprobación de los registros y del diccionario, que se mantiene de forma
+ * incremental, y una marca de agua con el mayor ID de ticket aparcado. Al arrancar, el parking solo usa la
+ * instantánea si la suma es correcta y coincide con los tickets abiertos de la base de datos; en ese caso crea las
+ * plazas a partir de ella en lugar de leer la tabla de plazas completa.
+ * </p>
+ * <p>
+ * El fichero nunca se trunca mientras está proyectado, ya que algunos sistemas (como Windows) no lo permiten: la
+ * instantánea se reescribe sobre la proyección actual si cabe en ella. Si falla cualquier escritura, la instantánea
+ * se desactiva y se elimina, de modo que el siguiente arranque carga las plazas de la base de datos; los errores de
+ * la instantánea nunca interrumpen una operación del parking.
+ * </p>
+ *
+ * @version 1.0
+ * @see Parking#Parking(javax.sql.DataSource, int, int, EscrituraDiferida, DiarioEventos, InstantaneaPlazas)
+ */
+public class InstantaneaPlazas implements AutoCloseable {
+
+    /**
+     * Identificador del formato del fichero.
+     */
+    private static final int FORMATO = 0x504C5A31;
+
+    /**
+     * Tamaño de la cabecera, en bytes.
+     */
+    private static final int CABECERA = 64;
+
+    private static final int POSICION_NUMERO_PLAZAS = 4;
+    private static final int POSICION_CAPACIDAD = 8;
+    private static final int POSICION_MATRICULAS = 12;
+    private static final int POSICION_OCUPADAS = 16;
+    private static final int POSICION_MARCA_AGUA = 24;
+    private static final int POSICION_SUMA = 32;
+
+    /**
+     * Tamaño de cada entrada del diccionario: un byte de longitud y hasta 15 bytes de matrícula.
+     */
+    private static final int TAMANO_MATRICULA = 16;
+
+    /**
+     * Capacidad mínima del diccionario de matrículas.
+     */
+    private static final int CAPACIDAD_MINIMA = 1024;
+
+    /**
+     * Fichero de la instantánea.
+     */
+    private final Path FICHERO;
+
+    /**
+     * Proyección en memoria del fichero, o {@code null} si no existe o no es válido.
+     */
+    private MappedByteBuffer proyeccion;
+
+    /**
+     * Códigos del diccionario por matrícula.
+     */
+    private final Map<String, Integer> codigos = new HashMap<>();
+
+    /**
+     * Abre la instantánea de un fichero, si existe, y comprueba su suma de comprobación.
+     *
+     * @param fichero El fichero de la instantánea.
+     * @throws IllegalStateException Si el fichero existe pero no se puede leer.
+     */
+    public InstantaneaPlazas(Path fichero) {
+        FICHERO = fichero;
+        if (!Files.exists(fichero)) {
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (canal.size() >= CABECERA) {
+                proyeccion = canal.map(FileChannel.MapMode.READ_WRITE, 0, canal.size());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("No se puede abrir la instantánea de plazas " + fichero, e);
+        }
+        if (proyeccion != null && !compruebaFichero()) {
+            System.out.println("La instantánea de plazas " + fichero + " está dañada: se cargarán las plazas de la base de datos.");
+            proyeccion = null;
+        }
+    }
+
+    /**
+     * Comprueba si la instantánea coincide con los tickets abiertos: las plazas ocupadas deben ser exactamente
+     * las de los tickets abiertos, con las mismas matrículas, y la marca de agua debe coincidir.
+     *
+     * @param ticketsAbiertos Los tickets abiertos.
+     * @param ultimoIdTicket El mayor ID de ticket conocido.
+     * @return {@code true} si la instantánea es válida y coincide.
+     */
+    public synchronized boolean coincide(Collection<Ticket> ticketsAbiertos, long ultimoIdTicket) {
+        if (proyeccion == null || proyeccion.getLong(POSICION_MARCA_AGUA) != ultimoIdTicket
+                || proyeccion.getInt(POSICION_OCUPADAS) != ticketsAbiertos.size()) {
+            return false;
+        }
+        int numeroPlazas = proyeccion.getInt(POSICION_NUMERO_PLAZAS);
+        for (Ticket ticket : ticketsAbiertos) {
+            int numero = ticket.getNUM_PLAZA();
+            if (numero < 1 || numero > numeroPlazas || !ticket.getMATRICULA().equals(getMatricula(numero))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Crea las plazas del parking a partir de la instantánea.
+     *
+     * @return Las plazas, ordenadas por número.
+     * @throws IllegalStateException Si la instantánea no es válida.
+     */
+    public synchronized ArrayList<Plaza> creaPlazas() {
+        if (proyeccion == null) {
+            throw new IllegalStateException("La instantánea de plazas no es válida.");
+        }
+        int numeroPlazas = proyeccion.getInt(POSICION_NUMERO_PLAZAS);
+        ArrayList<Plaza> plazas = new ArrayList<>(numeroPlazas);
+        for (int numero = 1; numero <= numeroPlazas; numero++) {
+            String matricula = getMatricula(numero);
+            plazas.add(new Plaza(numero, matricula == null, matricula));
+        }
+        return plazas;
+    }
+
+    /**
+     * Sustituye el contenido de la instantánea por el estado de unas plazas.
+     * Si no se puede escribir el fichero, la instantánea se desactiva y se elimina.
+     *
+     * @param plazas Las plazas, ordenadas por número a partir de 1.
+     * @param ultimoIdTicket El mayor ID de ticket conocido.
+     */
+    public synchronized void escribe(List<Plaza> plazas, long ultimoIdTicket) {
+        String[] matriculas = new String[plazas.size()];
+        for (int i = 0; i < matriculas.length; i++) {
+            matriculas[i] = plazas.get(i).getMatriculaVehiculo();
+        }
+        try {
+            escribe(matriculas, ultimoIdTicket);
+        } catch (IOException | IllegalArgumentException e) {
+            desactiva(e);
+        }
+    }
+
+    /**
+     * Marca una plaza como ocupada por un vehículo.
+     * Si no se puede actualizar el fichero, la instantánea se desactiva y se elimina.
+     *
+     * @param numeroPlaza El número de la plaza.
+     * @param matricula La matrícula del vehículo aparcado.
+     * @param idTicket El ID del ticket abierto, que actualiza la marca de agua.
+     */
+    public synchronized void ocupa(int numeroPlaza, String matricula, long idTicket) {
+        if (proyeccion == null) {
+            return;
+        }
+        try {
+            asignaOcupacion(numeroPlaza, matricula, idTicket);
+        } catch (IOException | IllegalArgumentException e) {
+            desactiva(e);
+        }
+    }
+
+    /**
+     * Marca una plaza como ocupada por un vehículo en la proyección, compactando el diccionario si está lleno.
+     *
+     * @param numeroPlaza El número de la plaza.
+     * @param matricula La matrícula del vehículo aparcado.
+     * @param idTicket El ID del ticket abierto, que actualiza la marca de agua.
+     * @throws IOException Si no se puede reescribir el fichero al compactarlo.
+     * @throws IllegalArgumentException Si la matrícula no cabe en el diccionario.
+     */
+    private void asignaOcupacion(int numeroPlaza, String matricula, long idTicket) throws IOException {
+        Integer codigo = codigos.get(matricula);
+        if (codigo == null) {
+            int numeroMatriculas = proyeccion.getInt(POSICION_MATRICULAS);
+            if (numeroMatriculas == proyeccion.getInt(POSICION_CAPACIDAD)) {
+                // El diccionario está lleno: se reescribe solo con las matrículas aparcadas
+                compacta();
+                numeroMatriculas = proyeccion.getInt(POSICION_MATRICULAS);
+            }
+            codigo = numeroMatriculas;
+            escribeMatricula(codigo, matricula);
+            proyeccion.putInt(POSICION_MATRICULAS, numeroMatriculas + 1);
+        }
+        if (asignaRegistro(numeroPlaza, codigo + 1) == 0) {
+            proyeccion.putInt(POSICION_OCUPADAS, proyeccion.getInt(POSICION_OCUPADAS) + 1);
+        }
+        proyeccion.putLong(POSICION_MARCA_AGUA, Math.max(proyeccion.getLong(POSICION_MARCA_AGUA), idTicket));
+    }
+
+    /**
+     * Marca una plaza como libre.
+     *
+     * @param numeroPlaza El número de la plaza.
+     */
+    public synchronized void libera(int numeroPlaza) {
+        if (proyeccion == null) {
+            return;
+        }
+        if (asignaRegistro(numeroPlaza, 0) != 0) {
+            proyeccion.putInt(POSICION_OCUPADAS, proyeccion.getInt(POSICION_OCUPADAS) - 1);
+        }
+    }
+
+    /**
+     * Deja de usar la instantánea y elimina el fichero, para que el siguiente arranque cargue las plazas de la base
+     * de datos en lugar de una instantánea incompleta.
+     *
+     * @param e El error de escritura.
+     */
+    private void desactiva(Exception e) {
+        System.out.println("Error al escribir la instantánea de plazas " + FICHERO + ": " + e.getMessage());
+        if (proyeccion != null) {
+            // Si el fichero no se puede eliminar mientras está proyectado, al menos deja de ser válido
+            proyeccion.putInt(0, 0);
+            proyeccion = null;
+        }
+        codigos.clear();
+        try {
+            Files.deleteIfExists(FICHERO);
+        } catch (IOException ex) {
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Lleva al disco los cambios de la instantánea y libera la proyección.
+     */
+    @Override
+    public synchronized void close() {
+        if (proyeccion != null) {
+            proyeccion.force();
+            proyeccion = null;
+        }
+    }
+
+    /**
+     * Obtiene la matrícula aparcada en una plaza, según la instantánea.
+     *
+     * @param numeroPlaza El número de la plaza.
+     * @return La matrícula, o {@code null} si la plaza está libre.
+     */
+    private String getMatricula(int numeroPlaza) {
+        int registro = proyeccion.getInt(CABECERA + (numeroPlaza - 1) * Integer.BYTES);
+        return registro == 0 ? null : leeMatricula(registro - 1);
+    }
+
+    /**
+     * Cambia el registro de una plaza, actualizando la suma de comprobación.
+     *
+     * @param numeroPlaza El número de la plaza.
+     * @param registro El nuevo registro.
+     * @return El registro anterior.
+     */
+    private int asignaRegistro(int numeroPlaza, int registro) {
+        int posicion = CABECERA + (numeroPlaza - 1) * Integer.BYTES;
+        int anterior = proyeccion.getInt(posicion);
+        proyeccion.putInt(posicion, registro);
+        long suma = proyeccion.getLong(POSICION_SUMA) - mezclaRegistro(numeroPlaza, anterior) + mezclaRegistro(numeroPlaza, registro);
+        proyeccion.putLong(POSICION_SUMA, suma);
+        return anterior;
+    }
+
+    /**
+     * Escribe una matrícula en una entrada del diccionario, actualizando la suma de comprobación.
+     *
+     * @param codigo La entrada del diccionario.
+     * @param matricula La matrícula.
+     */
+    private void escribeMatricula(int codigo, String matricula) {
+        byte[] bytes = matricula.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= TAMANO_MATRICULA) {
+            throw new IllegalArgumentException("La matrícula " + matricula + " es demasiado larga para la instantánea.");
+        }
+        int posicion = inicioDiccionario() + codigo * TAMANO_MATRICULA;
+        proyeccion.put(posicion, (byte) bytes.length);
+        proyeccion.put(posicion + 1, bytes);
+        proyeccion.putLong(POSICION_SUMA, proyeccion.getLong(POSICION_SUMA) + mezclaMatricula(codigo, matricula));
+        codigos.put(matricula, codigo);
+    }
+
+    private String leeMatricula(int codigo) {
+        int posicion = inicioDiccionario() + codigo * TAMANO_MATRICULA;
+        byte[] bytes = new byte[proyeccion.get(posicion)];
+        proyeccion.get(posicion + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int inicioDiccionario() {
+        return CABECERA + proyeccion.getInt(POSICION_NUMERO_PLAZAS) * Integer.BYTES;
+    }
+
+    /**
+     * Reescribe el fichero dejando en el diccionario solo las matrículas de las plazas ocupadas.
+     *
+     * @throws IOException Si no se puede reescribir el fichero.
+     */
+    private void compacta() throws IOException {
+        int numeroPlazas = proyeccion.getInt(POSICION_NUMERO_PLAZAS);
+        String[] matriculas = new String[numeroPlazas];
+        for (int numero = 1; numero <= numeroPlazas; numero++) {
+            matriculas[numero - 1] = getMatricula(numero);
+        }
+        escribe(matriculas, proyeccion.getLong(POSICION_MARCA_AGUA));
+    }
+
+    /**
+     * Escribe en el fichero la ocupación indicada y lo proyecta en memoria.
+     * <p>
+     * Si la instantánea cabe en la proyección actual, se reescribe sobre ella; si no, el fichero se amplía y se
+     * proyecta de nuevo. El fichero no se trunca: si es mayor que la instantánea, el resto se ignora.
+     * </p>
+     *
+     * @param matriculas La matrícula aparcada en cada plaza, o {@code null} si está libre.
+     * @param marcaAgua El mayor ID de ticket conocido.
+     * @throws IOException Si no se puede escribir el fichero.
+     * @throws IllegalArgumentException Si alguna matrícula no cabe en el diccionario.
+     */
+    private void escribe(String[] matriculas, long marcaAgua) throws IOException {
+        int capacidad = Math.max(CAPACIDAD_MINIMA, 2 * matriculas.length);
+        long tamano = CABECERA + (long) matriculas.length * Integer.BYTES + (long) capacidad * TAMANO_MATRICULA;
+        if (proyeccion == null || proyeccion.capacity() < tamano) {
+            proyeccion = null;
+            try (FileChannel canal = FileChannel.open(FICHERO, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                proyeccion = canal.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(tamano, canal.size()));
+            }
+        }
+        codigos.clear();
+        // El formato se borra primero y se escribe al final, para que un fichero a medio escribir no se acepte
+        proyeccion.putInt(0, 0);
+        proyeccion.force();
+        for (int numero = 1; numero <= matriculas.length; numero++) {
+            proyeccion.putInt(CABECERA + (numero - 1) * Integer.BYTES, 0);
+        }
+        proyeccion.putInt(POSICION_NUMERO_PLAZAS, matriculas.length);
+        proyeccion.putInt(POSICION_CAPACIDAD, capacidad);
+        proyeccion.putInt(POSICION_MATRICULAS, 0);
+        proyeccion.putInt(POSICION_OCUPADAS, 0);
+        proyeccion.putLong(POSICION_MARCA_AGUA, marcaAgua);
+        // La suma parte de la contribución de todas las plazas libres
+        long suma = 0;
+        for (int numero = 1; numero <= matriculas.length; numero++) {
+            suma += mezclaRegistro(numero, 0);
+        }
+        proyeccion.putLong(POSICION_SUMA, suma);
+        for (int numero = 1; numero <= matriculas.length; numero++) {
+            if (matriculas[numero - 1] != null) {
+                asignaOcupacion(numero, matriculas[numero - 1], marcaAgua);
+            }
+        }
+        proyeccion.force();
+        proyeccion.putInt(0, FORMATO);
+        proyeccion.force();
+    }
+
+    /**
+     * Comprueba el formato y la suma de comprobación del fichero proyectado, y carga el diccionario.
+     *
+     * @return {@code true} si el fichero es válido.
+     */
+    private boolean compruebaFichero() {
+        ByteBuffer lector = proyeccion;
+        if (lector.getInt(0) != FORMATO) {
+            return false;
+        }
+        long numeroPlazas = lector.getInt(POSICION_NUMERO_PLAZAS);
+        long capacidad = lector.getInt(POSICION_CAPACIDAD);
+        int numeroMatriculas = lector.getInt(POSICION_MATRICULAS);
+        if (numeroPlazas < 0 || capacidad < 0 || numeroMatriculas < 0 || numeroMatriculas > capacidad
+                || CABECERA + numeroPlazas * Integer.BYTES + capacidad * TAMANO_MATRICULA > lector.capacity()) {
+            return false;
+        }
+        long suma = 0;
+        int ocupadas = 0;
+        for (int numero = 1; numero <= numeroPlazas; numero++) {
+            int registro = lector.getInt(CABECERA + (numero - 1) * Integer.BYTES);
+            if (registro < 0 || registro > numeroMatriculas) {
+                return false;
+            }
+            if (registro != 0) {
+                ocupadas++;
+            }
+            suma += mezclaRegistro(numero, registro);
+        }
+        for (int codigo = 0; codigo < numeroMatriculas; codigo++) {
+            int longitud = lector.get(inicioDiccionario() + codigo * TAMANO_MATRICULA);
+            if (longitud < 0 || longitud >= TAMANO_MATRICULA) {
+                return false;
+            }
+            String matricula = leeMatricula(codigo);
+            suma += mezclaMatricula(codigo, matricula);
+            codigos.put(matricula, codigo);
+        }
+        return suma == lector.getLong(POSICION_SUMA) && ocupadas == lector.getInt(POSICION_OCUPADAS);
+    }
+
+    /**
+     * Contribución de un registro de plaza a la suma de comprobación.
+     */
+    private static long mezclaRegistro(int numeroPlaza, int registro) {
+        return mezcla(((long) numeroPlaza << 32) | (registro & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Contribución de una entrada del diccionario a la suma de comprobación.
+     */
+    private static long mezclaMatricula(int codigo, String matricula) {
+        return mezcla(((long) ~codigo << 32) ^ (matricula.hashCode() & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Función de mezcla de 64 bits (la de SplitMix64), para que cambios pequeños alteren toda la suma.
+     */
+    private static long mezcla(long valor) {
+        valor = (valor ^ (valor >>> 30)) * 0xBF58476D1CE4E5B9L;
+        valor = (valor ^ (valor >>> 27)) * 0x94D049BB133111EBL;
+        return valor ^ (valor >>> 31);
+    }
+}
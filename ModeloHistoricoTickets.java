@@ -0,0 +1,242 @@
+package GESTION_DE_PARKING;
+
+import javax.swing.AbstractListModel;
+import javax.swing.SwingWorker;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Modelo de lista perezoso para el visor del histórico de tickets.
+ * <p>
+ * Los tickets se leen de la base de datos por páginas, del más reciente al más antiguo, a medida que el usuario se
+ * desplaza por la lista: la vista pide la página siguiente con {@link #cargaPagina()} al acercarse al final. Cada
+ * página se consulta y se formatea en un {@link SwingWorker}, fuera del hilo de eventos, y solo se guardan los textos
+ * ya formateados de los tickets leídos.
+ * </p>
+ * <p>
+ * Todos los métodos públicos deben invocarse desde el hilo de eventos de Swing.
+ * </p>
+ *
+ * @version 1.0
+ * @see Parking#getPaginaHistorico(LocalDateTime, LocalDateTime, String, int, int)
+ * @see GUI_GestionParking
+ */
+public class ModeloHistoricoTickets extends AbstractListModel<ModeloHistoricoTickets.Fila> {
+
+    /**
+     * Número de tickets que se leen en cada página.
+     */
+    private static final int TAMANO_PAGINA = 200;
+
+    /**
+     * Formato de las fechas de los tickets.
+     */
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yy HH:mm:ss");
+
+    /**
+     * Texto que se muestra en lugar de una fecha que no existe.
+     */
+    private static final String SIN_FECHA = "--/--/--   --:--:--";
+
+    /**
+     * Parking del que se lee el histórico.
+     */
+    private final Parking PARKING;
+
+    /**
+     * Receptor de los mensajes de estado de la carga.
+     */
+    private final Consumer<String> AVISO_ESTADO;
+
+    /**
+     * Tickets leídos y formateados, del más reciente al más antiguo.
+     */
+    private final List<Fila> filas = new ArrayList<>();
+
+    /**
+     * Fecha de entrada mínima (incluida), o {@code null}.
+     */
+    private LocalDateTime desde;
+
+    /**
+     * Fecha de entrada máxima (excluida), o {@code null}.
+     */
+    private LocalDateTime hasta;
+
+    /**
+     * Matrícula de los tickets, o {@code null} para todas.
+     */
+    private String matricula;
+
+    /**
+     * Número de la búsqueda actual; las páginas de búsquedas anteriores que lleguen tarde se descartan.
+     */
+    private int busqueda;
+
+    /**
+     * Indica si hay una página en carga.
+     */
+    private boolean cargando;
+
+    /**
+     * Indica si ya se ha leído la última página de la búsqueda actual.
+     */
+    private boolean terminado;
+
+    /**
+     * Constructor del modelo. La lista empieza vacía hasta que se llama a {@link #filtra(LocalDateTime, LocalDateTime, String)}.
+     *
+     * @param parking El parking del que se lee el histórico.
+     * @param avisoEstado Receptor de los mensajes de estado de la carga, que se invoca en el hilo de eventos.
+     */
+    public ModeloHistoricoTickets(Parking parking, Consumer<String> avisoEstado) {
+        PARKING = parking;
+        AVISO_ESTADO = avisoEstado;
+    }
+
+    /**
+     * Empieza una búsqueda nueva en el histórico y carga su primera página.
+     *
+     * @param desde La fecha de entrada mínima (incluida), o {@code null} para no limitarla.
+     * @param hasta La fecha de entrada máxima (excluida), o {@code null} para no limitarla.
+     * @param matricula La matrícula de los tickets, o {@code null} para todas.
+     */
+    public void filtra(LocalDateTime desde, LocalDateTime hasta, String matricula) {
+        this.desde = desde;
+        this.hasta = hasta;
+        this.matricula = matricula;
+        busqueda++;
+        cargando = false;
+        terminado = false;
+        if (!filas.isEmpty()) {
+            int ultima = filas.size() - 1;
+            filas.clear();
+            fireIntervalRemoved(this, 0, ultima);
+        }
+        cargaPagina();
+    }
+
+    /**
+     * Carga en segundo plano la página siguiente de la búsqueda actual, si no se está cargando ya una y quedan
+     * tickets por leer.
+     */
+    public void cargaPagina() {
+        if (cargando || terminado) {
+            return;
+        }
+        cargando = true;
+        AVISO_ESTADO.accept("Cargando tickets...");
+
+        // Se copian los criterios de la búsqueda para consultarlos fuera del hilo de eventos
+        int numeroBusqueda = busqueda;
+        LocalDateTime desdeBusqueda = desde;
+        LocalDateTime hastaBusqueda = hasta;
+        String matriculaBusqueda = matricula;
+        int antesDeId = filas.isEmpty() ? 0 : filas.get(filas.size() - 1).getID();
+
+        new SwingWorker<List<Fila>, Void>() {
+            @Override
+            protected List<Fila> doInBackground() {
+                List<Ticket> pagina = PARKING.getPaginaHistorico(desdeBusqueda, hastaBusqueda, matriculaBusqueda,
+                        antesDeId, TAMANO_PAGINA);
+                List<Fila> formateadas = new ArrayList<>(pagina.size());
+                for (Ticket ticket : pagina) {
+                    formateadas.add(new Fila(ticket));
+                }
+                return formateadas;
+            }
+
+            @Override
+            protected void done() {
+                // Si entretanto ha empezado otra búsqueda, la página se descarta
+                if (numeroBusqueda != busqueda) {
+                    return;
+                }
+                cargando = false;
+                List<Fila> pagina;
+                try {
+                    pagina = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable causa = e instanceof ExecutionException ? e.getCause() : e;
+                    terminado = true;
+                    AVISO_ESTADO.accept("Error al cargar el histórico: " + causa.getMessage());
+                    return;
+                }
+                terminado = pagina.size() < TAMANO_PAGINA;
+                if (!pagina.isEmpty()) {
+                    int primera = filas.size();
+                    filas.addAll(pagina);
+                    fireIntervalAdded(ModeloHistoricoTickets.this, primera, filas.size() - 1);
+                }
+                AVISO_ESTADO.accept(filas.size() + (terminado ? " tickets" : " tickets cargados (desplázate para ver más)"));
+            }
+        }.execute();
+    }
+
+    @Override
+    public int getSize() {
+        return filas.size();
+    }
+
+    @Override
+    public Fila getElementAt(int indice) {
+        return filas.get(indice);
+    }
+
+    /**
+     * Textos ya formateados de un ticket del histórico.
+     *
+     * @version 1.0
+     */
+    public static final class Fila {
+
+        private final int ID;
+        private final String MATRICULA;
+        private final String PLAZA;
+        private final String ENTRADA;
+        private final String SALIDA;
+        private final String PRECIO;
+
+        /**
+         * Formatea los datos de un ticket.
+         *
+         * @param ticket El ticket.
+         */
+        private Fila(Ticket ticket) {
+            ID = ticket.getID();
+            MATRICULA = ticket.getMATRICULA();
+            PLAZA = String.valueOf(ticket.getNUM_PLAZA());
+            ENTRADA = ticket.getFECHA_ENTRADA() != null ? ticket.getFECHA_ENTRADA().format(FORMATO_FECHA) : SIN_FECHA;
+            SALIDA = ticket.getFechaSalida() != null ? ticket.getFechaSalida().format(FORMATO_FECHA) : SIN_FECHA;
+            PRECIO = (ticket.tienePrecio() ? Dinero.formatea(ticket.getPrecioCentimos()) : "-.--") + " €";
+        }
+
+        public int getID() {
+            return ID;
+        }
+
+        public String getMatricula() {
+            return MATRICULA;
+        }
+
+        public String getPlaza() {
+            return PLAZA;
+        }
+
+        public String getEntrada() {
+            return ENTRADA;
+        }
+
+        public String getSalida() {
+            return SALIDA;
+        }
+
+        public String getPrecio() {
+            return PRECIO;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package GESTION_DE_PARKING;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.function.Predicate;
+
+/**
+ * Modelo de tabla virtual para mostrar listados de vehículos en una {@link javax.swing.JTable}.
+ * <p>
+ * El modelo guarda una copia de las referencias a los vehículos y un array con las filas visibles tras aplicar el
+ * filtro y el orden. No crea ningún objeto por fila: la tabla solo pide los valores de las celdas que pinta, y cada
+ * valor se obtiene del vehículo en ese momento, de modo que mostrar cientos de miles de vehículos no bloquea el hilo
+ * de eventos ni ocupa más memoria que los dos arrays.
+ * </p>
+ * <p>
+ * El filtro y el orden se aplican en el propio modelo (no en la vista), sobre el array de filas.
+ * </p>
+ *
+ * @version 1.0
+ * @see GUI_GestionParking
+ */
+public class ModeloTablaVehiculos extends AbstractTableModel {
+
+    /**
+     * Columna de la matrícula.
+     */
+    public static final int COLUMNA_MATRICULA = 0;
+
+    /**
+     * Columna del tipo de vehículo.
+     */
+    public static final int COLUMNA_TIPO = 1;
+
+    /**
+     * Columna del país de la matrícula.
+     */
+    public static final int COLUMNA_PAIS = 2;
+
+    /**
+     * Columna del precio por minuto según la tarifa del tipo y el país del vehículo.
+     */
+    public static final int COLUMNA_PRECIO = 3;
+
+    /**
+     * Columna que indica si el vehículo está activo (dentro del parking).
+     */
+    public static final int COLUMNA_ACTIVO = 4;
+
+    /**
+     * Títulos de las columnas.
+     */
+    private static final String[] COLUMNAS = {"Matrícula", "Tipo", "País", "Precio (€/min)", "Activo"};
+
+    /**
+     * Todos los vehículos del listado, sin filtrar.
+     */
+    private final Vehiculo[] TODOS;
+
+    /**
+     * Motor de tarifas del que se obtiene el precio por minuto de cada vehículo.
+     */
+    private final MotorTarifas MOTOR_TARIFAS;
+
+    /**
+     * Vehículos visibles, filtrados y ordenados.
+     */
+    private Vehiculo[] filas;
+
+    /**
+     * Columna por la que se ordenan las filas, o -1 si no se ordenan.
+     */
+    private int columnaOrden = -1;
+
+    /**
+     * Indica si el orden es ascendente.
+     */
+    private boolean ascendente = true;
+
+    /**
+     * Constructor que crea el modelo con una copia de las referencias a los vehículos.
+     *
+     * @param vehiculos Los vehículos del listado.
+     * @param motorTarifas El motor de tarifas del parking, del que se obtiene el precio por minuto.
+     */
+    public ModeloTablaVehiculos(Collection<Vehiculo> vehiculos, MotorTarifas motorTarifas) {
+        TODOS = vehiculos.toArray(new Vehiculo[0]);
+        MOTOR_TARIFAS = motorTarifas;
+        filas = TODOS;
+    }
+
+    /**
+     * Cambia el filtro de los vehículos visibles, conservando el orden actual.
+     *
+     * @param filtro El filtro que deben cumplir los vehículos visibles.
+     */
+    public void filtra(Predicate<Vehiculo> filtro) {
+        filas = Arrays.stream(TODOS).filter(filtro).toArray(Vehiculo[]::new);
+        if (columnaOrden >= 0) {
+            Arrays.parallelSort(filas, comparador());
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Ordena las filas por una columna. Si ya estaban ordenadas por esa columna, se invierte el orden.
+     *
+     * @param columna La columna por la que se ordena.
+     * @throws IllegalArgumentException Si la columna no existe.
+     */
+    public void ordena(int columna) {
+        if (columna < 0 || columna >= COLUMNAS.length) {
+            throw new IllegalArgumentException("La columna " + columna + " no existe.");
+        }
+        ascendente = columna != columnaOrden || !ascendente;
+        columnaOrden = columna;
+        if (filas == TODOS) {
+            // No se reordena el array de todos los vehículos, que se conserva para los filtros
+            filas = TODOS.clone();
+        }
+        Arrays.parallelSort(filas, comparador());
+        fireTableDataChanged();
+    }
+
+    /**
+     * Obtiene el vehículo que se muestra en una fila.
+     *
+     * @param fila La fila del modelo.
+     * @return El vehículo.
+     */
+    public Vehiculo getVehiculo(int fila) {
+        return filas[fila];
+    }
+
+    @Override
+    public int getRowCount() {
+        return filas.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNAS.length;
+    }
+
+    @Override
+    public String getColumnName(int columna) {
+        String titulo = COLUMNAS[columna];
+        return columna == columnaOrden ? titulo + (ascendente ? " ▲" : " ▼") : titulo;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columna) {
+        return columna == COLUMNA_ACTIVO ? Boolean.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        Vehiculo vehiculo = filas[fila];
+        switch (columna) {
+            case COLUMNA_MATRICULA:
+                return vehiculo.getMATRICULA();
+            case COLUMNA_TIPO:
+                return vehiculo.getTIPO().toString();
+            case COLUMNA_PAIS:
+                return String.valueOf(vehiculo.getPAIS());
+            case COLUMNA_PRECIO:
+                return Dinero.formatea(centimosPorMinuto(vehiculo));
+            case COLUMNA_ACTIVO:
+                return vehiculo.isActivo();
+            default:
+                throw new IllegalArgumentException("La columna " + columna + " no existe.");
+        }
+    }
+
+    /**
+     * Obtiene el precio por minuto de un vehículo según la tarifa de su tipo y su país.
+     *
+     * @param vehiculo El vehículo.
+     * @return El precio por minuto en céntimos.
+     */
+    private long centimosPorMinuto(Vehiculo vehiculo) {
+        return MOTOR_TARIFAS.getCentimosPorMinuto(vehiculo.getTIPO(), vehiculo.getPAIS());
+    }
+
+    /**
+     * Crea el comparador de la columna y el sentido de orden actuales.
+     *
+     * @return El comparador.
+     */
+    private Comparator<Vehiculo> comparador() {
+        Comparator<Vehiculo> comparador;
+        switch (columnaOrden) {
+            case COLUMNA_TIPO:
+                comparador = Comparator.comparing(Vehiculo::getTIPO);
+                break;
+            case COLUMNA_PAIS:
+                comparador = Comparator.comparing(vehiculo -> String.valueOf(vehiculo.getPAIS()));
+                break;
+            case COLUMNA_PRECIO:
+                comparador = Comparator.comparingLong(this::centimosPorMinuto);
+                break;
+            case COLUMNA_ACTIVO:
+                comparador = Comparator.comparing(Vehiculo::isActivo);
+                break;
+            default:
+                comparador = Comparator.comparing(Vehiculo::getMATRICULA);
+        }
+        // A igualdad de valor se ordena por matrícula, para que el orden sea estable entre filtros
+        comparador = comparador.thenComparing(Vehiculo::getMATRICULA);
+        return ascendente ? comparador : comparador.reversed();
+    }
+}
@@ -33,11 +33,11 @@ public class Moto extends Vehiculo {
      * Llama al constructor super() de la clase padre con la matrícula, el Tipo de Vehiculo y el precio de estacionamiento.
      *
      * @param matricula La matrícula de la moto.
-     * @param precio El precio de estacionamiento por minuto de la moto.
+     * @param precio El precio de estacionamiento por minuto de la moto, en céntimos.
      * @throws Exception Si ocurre algún error durante la creación de la Moto.
      */
     //Este constructor es más para cuando recuperemos el vehículo de la base de datos
-    public Moto(String matricula, double precio, boolean activo) throws Exception {
+    public Moto(String matricula, long precio, boolean activo) throws Exception {
         super(matricula.toUpperCase(), TipoVehiculo.Moto, precio, activo);
     }
 
@@ -0,0 +1,321 @@
+package GESTION_DE_PARKING;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Motor de tarifas que calcula el precio de una estancia a partir de un conjunto de {@link ReglaTarifa}.
+ * <p>
+ * Al crearse, el motor compila las reglas en tablas planas indexadas por tipo de vehículo y país, y precalcula el
+ * coste de un día completo y el coste acumulado al inicio de cada tramo. Calcular un precio solo consulta esas
+ * tablas: no crea objetos ni recorre las reglas, por lo que puede usarse en cada salida y para recalcular
+ * históricos completos.
+ * </p>
+ * <p>
+ * El precio de una estancia se calcula así: se descuentan los minutos gratuitos; cada bloque de 24 horas se cobra
+ * según los tramos y se limita al tope diario; la suma de todos los bloques se limita al tope por estancia.
+ * Los minutos se cuentan completos (una estancia de 59 segundos dura 0 minutos).
+ * </p>
+ * <p>
+ * El motor es inmutable y puede compartirse entre hilos.
+ * </p>
+ *
+ * @version 1.0
+ * @see ReglaTarifa
+ * @see Parking#calculaPrecio(Ticket)
+ */
+public class MotorTarifas {
+
+    /**
+     * Minutos de un día.
+     */
+    public static final int MINUTOS_DIA = 24 * 60;
+
+    /**
+     * Número de columnas de país de la tabla: una por país más una para los vehículos sin país.
+     */
+    private static final int COLUMNAS_PAIS = Paises.values().length + 1;
+
+    /**
+     * Reglas con las que se ha creado el motor.
+     */
+    private final List<ReglaTarifa> REGLAS;
+
+    /**
+     * Minutos gratuitos de cada celda de la tabla.
+     */
+    private final int[] minutosGratis;
+
+    /**
+     * Coste de un día completo de cada celda, ya limitado por el tope diario.
+     */
+    private final long[] costeDiaCompleto;
+
+    /**
+     * Tope diario de cada celda.
+     */
+    private final long[] topeDiario;
+
+    /**
+     * Tope por estancia de cada celda.
+     */
+    private final long[] topeEstancia;
+
+    /**
+     * Posición del primer tramo de cada celda en las tablas de tramos (con una posición final adicional).
+     */
+    private final int[] primerTramo;
+
+    /**
+     * Minuto del día en que empieza cada tramo.
+     */
+    private final int[] inicioTramo;
+
+    /**
+     * Precio por minuto de cada tramo, en céntimos.
+     */
+    private final long[] tarifaTramo;
+
+    /**
+     * Coste acumulado del día al inicio de cada tramo, en céntimos.
+     */
+    private final long[] acumuladoTramo;
+
+    /**
+     * Constructor que compila un conjunto de reglas.
+     * <p>
+     * Para cada tipo de vehículo y país se usa la regla de ese tipo y país o, si no existe, la regla del tipo sin país.
+     * </p>
+     *
+     * @param reglas Las reglas de tarifa.
+     * @throws IllegalArgumentException Si hay dos reglas para el mismo tipo y país, o algún tipo de vehículo no tiene
+     *                                  una regla sin país.
+     */
+    public MotorTarifas(Collection<ReglaTarifa> reglas) {
+        REGLAS = List.copyOf(reglas);
+
+        TipoVehiculo[] tipos = TipoVehiculo.values();
+        ReglaTarifa[] porCelda = new ReglaTarifa[tipos.length * COLUMNAS_PAIS];
+        for (ReglaTarifa regla : REGLAS) {
+            int celda = celda(regla.getTIPO(), regla.getPAIS());
+            if (porCelda[celda] != null) {
+                throw new IllegalArgumentException("Hay más de una regla de tarifa para " + regla.getTIPO()
+                        + (regla.getPAIS() == null ? "" : " de " + regla.getPAIS()));
+            }
+            porCelda[celda] = regla;
+        }
+        for (TipoVehiculo tipo : tipos) {
+            ReglaTarifa general = porCelda[celda(tipo, null)];
+            if (general == null) {
+                throw new IllegalArgumentException("No hay ninguna regla de tarifa general para los vehículos de tipo " + tipo);
+            }
+            for (Paises pais : Paises.values()) {
+                if (porCelda[celda(tipo, pais)] == null) {
+                    porCelda[celda(tipo, pais)] = general;
+                }
+            }
+        }
+
+        int celdas = porCelda.length;
+        minutosGratis = new int[celdas];
+        costeDiaCompleto = new long[celdas];
+        topeDiario = new long[celdas];
+        topeEstancia = new long[celdas];
+        primerTramo = new int[celdas + 1];
+        int totalTramos = 0;
+        for (ReglaTarifa regla : porCelda) {
+            totalTramos += regla.getINICIO_TRAMOS().length;
+        }
+        inicioTramo = new int[totalTramos];
+        tarifaTramo = new long[totalTramos];
+        acumuladoTramo = new long[totalTramos];
+
+        int tramo = 0;
+        for (int c = 0; c < celdas; c++) {
+            ReglaTarifa regla = porCelda[c];
+            int[] inicios = regla.getINICIO_TRAMOS();
+            long[] tarifas = regla.getCENTIMOS_POR_MINUTO();
+            primerTramo[c] = tramo;
+            long acumulado = 0;
+            for (int i = 0; i < inicios.length; i++, tramo++) {
+                if (i > 0) {
+                    acumulado += (inicios[i] - inicios[i - 1]) * tarifas[i - 1];
+                }
+                inicioTramo[tramo] = inicios[i];
+                tarifaTramo[tramo] = tarifas[i];
+                acumuladoTramo[tramo] = acumulado;
+            }
+            minutosGratis[c] = regla.getMINUTOS_GRATIS();
+            topeDiario[c] = regla.getTOPE_DIARIO();
+            topeEstancia[c] = regla.getTOPE_ESTANCIA();
+            costeDiaCompleto[c] = Math.min(costeParcial(c, MINUTOS_DIA), topeDiario[c]);
+        }
+        primerTramo[celdas] = tramo;
+    }
+
+    /**
+     * Crea un motor con las tarifas por defecto del parking: el precio por minuto de cada tipo de vehículo
+     * (5 céntimos, más el plus de dimensión de las furgonetas y los autobuses) y un tope por estancia de 25,00 €,
+     * o de 50,50 € para los vehículos con plus de dimensión.
+     *
+     * @return El motor de tarifas por defecto.
+     */
+    public static MotorTarifas porDefecto() {
+        return new MotorTarifas(List.of(
+                new ReglaTarifa(TipoVehiculo.Coche, null, 5, 2500),
+                new ReglaTarifa(TipoVehiculo.Moto, null, 5, 2500),
+                new ReglaTarifa(TipoVehiculo.Furgoneta, null, 13, 5050),
+                new ReglaTarifa(TipoVehiculo.Autobus, null, 20, 5050)));
+    }
+
+    /**
+     * Obtiene las reglas con las que se ha creado el motor.
+     *
+     * @return Una lista no modificable de las reglas.
+     */
+    public List<ReglaTarifa> getReglas() {
+        return Collections.unmodifiableList(REGLAS);
+    }
+
+    /**
+     * Calcula el precio de una estancia entre dos fechas.
+     *
+     * @param tipo El tipo de vehículo.
+     * @param pais El país del vehículo, o {@code null} si no se conoce.
+     * @param entrada La fecha de entrada.
+     * @param salida La fecha de salida.
+     * @return El precio en céntimos.
+     * @throws IllegalArgumentException Si la fecha de salida es anterior a la de entrada.
+     */
+    public long calculaCentimos(TipoVehiculo tipo, Paises pais, LocalDateTime entrada, LocalDateTime salida) {
+        long minutos = entrada.until(salida, ChronoUnit.MINUTES);
+        if (minutos < 0) {
+            throw new IllegalArgumentException("La fecha de salida no puede ser anterior a la fecha de entrada.");
+        }
+        return calculaCentimos(celda(tipo, pais), minutos);
+    }
+
+    /**
+     * Calcula el precio de una estancia de una duración dada.
+     *
+     * @param tipo El tipo de vehículo.
+     * @param pais El país del vehículo, o {@code null} si no se conoce.
+     * @param minutos La duración de la estancia en minutos completos.
+     * @return El precio en céntimos.
+     * @throws IllegalArgumentException Si la duración es negativa.
+     */
+    public long calculaCentimos(TipoVehiculo tipo, Paises pais, long minutos) {
+        if (minutos < 0) {
+            throw new IllegalArgumentException("La duración de la estancia no puede ser negativa.");
+        }
+        return calculaCentimos(celda(tipo, pais), minutos);
+    }
+
+    /**
+     * Obtiene el precio por minuto del primer tramo de la tarifa de un tipo de vehículo y un país.
+     *
+     * @param tipo El tipo de vehículo.
+     * @param pais El país del vehículo, o {@code null} si no se conoce.
+     * @return El precio por minuto en céntimos.
+     */
+    public long getCentimosPorMinuto(TipoVehiculo tipo, Paises pais) {
+        return tarifaTramo[primerTramo[celda(tipo, pais)]];
+    }
+
+    /**
+     * Recalcula el precio de todos los tickets cerrados de un almacén con las tarifas de este motor.
+     * <p>
+     * El tipo y el país de cada matrícula se buscan una sola vez; después el almacén se recorre con un bucle sobre
+     * sus columnas. Los tickets abiertos y los de vehículos que no se encuentran no se modifican.
+     * </p>
+     *
+     * @param almacen El almacén de tickets, que se modifica.
+     * @param buscaVehiculo Función que devuelve el vehículo de una matrícula, o {@code null} si no se conoce.
+     * @return La suma de los precios recalculados, en céntimos.
+     */
+    public long recalcula(AlmacenTickets almacen, Function<String, Vehiculo> buscaVehiculo) {
+        int[] celdaPorMatricula = new int[almacen.getNumeroMatriculas()];
+        for (int codigo = 0; codigo < celdaPorMatricula.length; codigo++) {
+            Vehiculo vehiculo = buscaVehiculo.apply(almacen.getMatricula(codigo));
+            celdaPorMatricula[codigo] = vehiculo == null ? -1 : celda(vehiculo.getTIPO(), vehiculo.getPAIS());
+        }
+
+        long total = 0;
+        for (int i = 0, n = almacen.size(); i < n; i++) {
+            int celda = celdaPorMatricula[almacen.getCodigoMatricula(i)];
+            if (celda < 0 || almacen.isAbierto(i)) {
+                continue;
+            }
+            long minutos = Math.max(0, (almacen.getSalidaSegundos(i) - almacen.getEntradaSegundos(i)) / 60);
+            long precio = calculaCentimos(celda, minutos);
+            almacen.setPrecioCentimos(i, precio);
+            total += precio;
+        }
+        return total;
+    }
+
+    /**
+     * Calcula el precio de una estancia en una celda de la tabla.
+     *
+     * @param celda La celda (tipo de vehículo y país).
+     * @param minutos La duración de la estancia en minutos completos.
+     * @return El precio en céntimos.
+     */
+    private long calculaCentimos(int celda, long minutos) {
+        long cobrables = minutos - minutosGratis[celda];
+        if (cobrables <= 0) {
+            return 0;
+        }
+        long dias = cobrables / MINUTOS_DIA;
+        long tope = topeEstancia[celda];
+        long coste = Math.min(costeParcial(celda, (int) (cobrables % MINUTOS_DIA)), topeDiario[celda]);
+        // Estancias tan largas que el producto se desbordaría ya superan cualquier tope
+        if (dias > 0 && costeDiaCompleto[celda] > 0 && dias > (tope - coste) / costeDiaCompleto[celda]) {
+            return tope;
+        }
+        return Math.min(coste + dias * costeDiaCompleto[celda], tope);
+    }
+
+    /**
+     * Calcula el coste de los primeros minutos de un día según los tramos de una celda, sin aplicar topes.
+     *
+     * @param celda La celda (tipo de vehículo y país).
+     * @param minutos Los minutos, entre 0 y {@link #MINUTOS_DIA}.
+     * @return El coste en céntimos.
+     */
+    private long costeParcial(int celda, int minutos) {
+        // Se busca el último tramo que empieza antes de los minutos indicados
+        int tramo = primerTramo[celda];
+        int fin = primerTramo[celda + 1];
+        while (tramo + 1 < fin && inicioTramo[tramo + 1] <= minutos) {
+            tramo++;
+        }
+        return acumuladoTramo[tramo] + (minutos - inicioTramo[tramo]) * tarifaTramo[tramo];
+    }
+
+    /**
+     * Obtiene la celda de la tabla de un tipo de vehículo y un país.
+     *
+     * @param tipo El tipo de vehículo.
+     * @param pais El país, o {@code null} para la columna de vehículos sin país.
+     * @return La posición de la celda.
+     */
+    private static int celda(TipoVehiculo tipo, Paises pais) {
+        return tipo.ordinal() * COLUMNAS_PAIS + (pais == null ? COLUMNAS_PAIS - 1 : pais.ordinal());
+    }
+
+    /**
+     * Retorna una representación del motor.
+     *
+     * @return Una cadena con las reglas del motor.
+     */
+    @Override
+    public String toString() {
+        return "MotorTarifas" + Arrays.toString(REGLAS.toArray());
+    }
+}
@@ -0,0 +1,223 @@
+package GESTION_DE_PARKING;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Estructura que registra la ocupación de las plazas del parking mediante un mapa de bits.
+ * <p>
+ * Cada plaza se representa con un bit dentro de un array de {@code long}: el bit está a 1 si la plaza está libre
+ * y a 0 si está ocupada. Junto al mapa de bits se mantiene un contador de plazas libres, de forma que
+ * consultar si el parking está completo o cuántas plazas quedan libres es una operación de tiempo constante,
+ * y localizar la siguiente plaza libre solo requiere recorrer palabras de 64 plazas.
+ * </p>
+ * <p>
+ * La estructura es segura para su uso concurrente: las palabras del mapa de bits se modifican mediante
+ * operaciones atómicas de comparación e intercambio (CAS), de forma que dos terminales que intenten ocupar
+ * la misma plaza a la vez nunca pueden tener éxito ambos.
+ * </p>
+ *
+ * @version 1.0
+ * @see Parking
+ * @see Plaza
+ */
+public class OcupacionPlazas {
+
+    /**
+     * Número total de plazas representadas.
+     */
+    private final int NUMERO_DE_PLAZAS;
+
+    /**
+     * Mapa de bits de plazas libres. El bit {@code i} representa la plaza número {@code i + 1}.
+     */
+    private final AtomicLongArray libres;
+
+    /**
+     * Número de plazas libres en este momento.
+     */
+    private final AtomicInteger plazasLibres;
+
+    /**
+     * Palabra del mapa de bits desde la que se empieza a buscar la siguiente plaza libre.
+     */
+    private volatile int cursor;
+
+    /**
+     * Constructor que inicializa la estructura con todas las plazas libres.
+     *
+     * @param numeroDePlazas Número total de plazas del parking.
+     * @throws IllegalArgumentException Si el número de plazas es negativo.
+     */
+    public OcupacionPlazas(int numeroDePlazas) {
+        if (numeroDePlazas < 0) {
+            throw new IllegalArgumentException("El número de plazas no puede ser negativo.");
+        }
+        NUMERO_DE_PLAZAS = numeroDePlazas;
+        libres = new AtomicLongArray((numeroDePlazas + 63) >>> 6);
+
+        // Se marcan todas las plazas como libres, dejando a 0 los bits sobrantes de la última palabra
+        for (int i = 0; i < libres.length(); i++) {
+            libres.set(i, -1L);
+        }
+        int sobrantes = (libres.length() << 6) - numeroDePlazas;
+        if (sobrantes > 0) {
+            libres.set(libres.length() - 1, -1L >>> sobrantes);
+        }
+        plazasLibres = new AtomicInteger(numeroDePlazas);
+    }
+
+    /**
+     * Obtiene el número total de plazas representadas.
+     *
+     * @return El número total de plazas.
+     */
+    public int getNumeroDePlazas() {
+        return NUMERO_DE_PLAZAS;
+    }
+
+    /**
+     * Obtiene el número de plazas libres.
+     *
+     * @return El número de plazas libres.
+     */
+    public int getPlazasLibres() {
+        return plazasLibres.get();
+    }
+
+    /**
+     * Verifica si todas las plazas están ocupadas.
+     *
+     * @return {@code true} si no queda ninguna plaza libre, {@code false} en caso contrario.
+     */
+    public boolean isCompleto() {
+        return plazasLibres.get() == 0;
+    }
+
+    /**
+     * Verifica si una plaza está libre.
+     *
+     * @param numeroDePlaza El número de la plaza (empezando en 1).
+     * @return {@code true} si la plaza está libre, {@code false} si está ocupada.
+     * @throws IllegalArgumentException Si el número de plaza no existe.
+     */
+    public boolean isLibre(int numeroDePlaza) {
+        int indice = indice(numeroDePlaza);
+        return (libres.get(indice >>> 6) & (1L << indice)) != 0;
+    }
+
+    /**
+     * Marca una plaza como ocupada.
+     *
+     * @param numeroDePlaza El número de la plaza (empezando en 1).
+     * @return {@code true} si la plaza estaba libre y se ha ocupado, {@code false} si ya estaba ocupada.
+     * @throws IllegalArgumentException Si el número de plaza no existe.
+     */
+    public boolean ocupar(int numeroDePlaza) {
+        int indice = indice(numeroDePlaza);
+        int palabra = indice >>> 6;
+        long mascara = 1L << indice;
+        long actual;
+        do {
+            actual = libres.get(palabra);
+            if ((actual & mascara) == 0) {
+                return false;
+            }
+        } while (!libres.compareAndSet(palabra, actual, actual & ~mascara));
+        plazasLibres.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Marca una plaza como libre.
+     *
+     * @param numeroDePlaza El número de la plaza (empezando en 1).
+     * @return {@code true} si la plaza estaba ocupada y se ha liberado, {@code false} si ya estaba libre.
+     * @throws IllegalArgumentException Si el número de plaza no existe.
+     */
+    public boolean liberar(int numeroDePlaza) {
+        int indice = indice(numeroDePlaza);
+        int palabra = indice >>> 6;
+        long mascara = 1L << indice;
+        long actual;
+        do {
+            actual = libres.get(palabra);
+            if ((actual & mascara) != 0) {
+                return false;
+            }
+        } while (!libres.compareAndSet(palabra, actual, actual | mascara));
+        plazasLibres.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Obtiene el número de la siguiente plaza libre.
+     * <p>
+     * La búsqueda comienza en la palabra donde se encontró la última plaza libre y recorre el mapa de bits
+     * de forma circular, de modo que las asignaciones sucesivas no vuelven a examinar las palabras ya llenas.
+     * El resultado es orientativo en uso concurrente: otra operación puede ocupar la plaza antes de que
+     * se llame a {@link #ocupar(int)}, que es quien decide de forma atómica.
+     * </p>
+     *
+     * @return El número de la siguiente plaza libre, o {@code -1} si el parking está completo.
+     */
+    public int siguienteLibre() {
+        if (plazasLibres.get() == 0) {
+            return -1;
+        }
+        int inicio = cursor;
+        for (int i = 0; i < libres.length(); i++) {
+            int palabra = (inicio + i) % libres.length();
+            long bits = libres.get(palabra);
+            if (bits != 0) {
+                cursor = palabra;
+                return (palabra << 6) + Long.numberOfTrailingZeros(bits) + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Obtiene el número de la siguiente plaza libre a partir de una plaza dada (incluida).
+     * <p>
+     * Permite recorrer todas las plazas libres en orden sin examinar las plazas ocupadas una a una.
+     * </p>
+     *
+     * @param numeroDePlaza El número de plaza desde el que se empieza a buscar.
+     * @return El número de la siguiente plaza libre, o {@code -1} si no queda ninguna a partir de esa plaza.
+     */
+    public int siguienteLibreDesde(int numeroDePlaza) {
+        if (numeroDePlaza < 1) {
+            numeroDePlaza = 1;
+        }
+        if (numeroDePlaza > NUMERO_DE_PLAZAS) {
+            return -1;
+        }
+        int indice = numeroDePlaza - 1;
+        int palabra = indice >>> 6;
+        long bits = libres.get(palabra) & (-1L << indice);
+        while (true) {
+            if (bits != 0) {
+                return (palabra << 6) + Long.numberOfTrailingZeros(bits) + 1;
+            }
+            if (++palabra == libres.length()) {
+                return -1;
+            }
+            bits = libres.get(palabra);
+        }
+    }
+
+    /**
+     * Convierte un número de plaza en su posición dentro del mapa de bits.
+     *
+     * @param numeroDePlaza El número de la plaza (empezando en 1).
+     * @return La posición del bit correspondiente.
+     * @throws IllegalArgumentException Si el número de plaza no existe.
+     */
+    private int indice(int numeroDePlaza) {
+        if (numeroDePlaza <= 0 || numeroDePlaza > NUMERO_DE_PLAZAS) {
+            throw new IllegalArgumentException("No se encuentra una plaza con el número " + numeroDePlaza);
+        }
+        return numeroDePlaza - 1;
+    }
+}
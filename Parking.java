@@ -1,10 +1,27 @@
 package GESTION_DE_PARKING;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
-import java.time.Duration;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Clase que gestiona las operaciones principales de un parking, incluyendo la gestión de vehículos, plazas y tickets.
@@ -12,6 +29,18 @@ import java.util.List;
  *
  * La clase utiliza DAOs (Data Access Objects) para interactuar con la base de datos, asegurando la persistencia de los datos.
  *
+ * Las operaciones de entrada, salida, aparcamiento y desaparcamiento pueden invocarse a la vez desde varios terminales:
+ * cada plaza y cada matrícula se protegen con un cerrojo de un conjunto repartido (lock striping), de modo que solo
+ * se bloquean entre sí las operaciones que afectan a la misma plaza o al mismo vehículo.
+ *
+ * Cada operación de puerta (aparcar, desaparcar, entrada y salida) escribe en la base de datos dentro de una única
+ * transacción, y los objetos en memoria solo se modifican cuando la transacción se ha confirmado: si falla cualquier
+ * paso, ni la base de datos ni el estado del parking quedan a medio actualizar.
+ *
+ * Opcionalmente el parking puede trabajar en modo de escritura diferida ({@link EscrituraDiferida}): el estado en
+ * memoria es el que manda, cada operación registra sus cambios en un diario local y un hilo escritor los vuelca en
+ * la base de datos por lotes, de modo que las operaciones de puerta no esperan a la base de datos.
+ *
  * @author Javier del Cerro
  * @version 1.0
  * @see Vehiculo
@@ -23,6 +52,11 @@ import java.util.List;
  */
 public class Parking {
 
+    /**
+     * Origen de datos del que se obtienen las conexiones para las transacciones.
+     */
+    private final DataSource ORIGEN_DATOS;
+
     /**
      * DAO para la gestión de vehículos en la base de datos.
      */
@@ -49,54 +83,382 @@ public class Parking {
     private final ArrayList<Plaza> listadoPlazas;
 
     /**
-     * Precio máximo que se puede imponer a la estancia de un vehículo.
+     * Motor con el que se calcula el precio de las estancias. Por defecto aplica el precio por minuto de cada tipo
+     * de vehículo con un tope de 25,00 € por estancia, o de 50,50 € para los vehículos con plus de dimensión.
      */
-    private final Double PRECIO_MAXIMO_ESTANCIA = 25.00;
+    private volatile MotorTarifas motorTarifas = MotorTarifas.porDefecto();
 
     /**
-     * Precio máximo que se puede imponer a la estancia de un vehículo grande (que tiene impuesto un plus de dimensión)
+     * Estadísticas incrementales del parking, actualizadas en cada aparcamiento y cada salida de plaza.
      */
-    private final Double PRECIO_MAXIMO_ESTANCIA_PLUS = 50.50;
+    private final EstadisticasParking estadisticas = new EstadisticasParking();
 
     /**
      * Listado de todos los vehículos registrados en el parking.
      */
-    private ArrayList<Vehiculo> vehiculosRegistrados;
+    private final List<Vehiculo> vehiculosRegistrados;
+
+    /**
+     * Histórico de tickets (entradas y salidas) registrados en el parking. Solo mantiene en memoria los tickets
+     * abiertos y los más recientes; el resto se consulta por páginas en la base de datos.
+     */
+    private final HistoricoTickets historicoTickets;
+
+    /**
+     * Índice de los vehículos registrados por matrícula normalizada (en mayúsculas).
+     * Permite localizar un vehículo en tiempo constante sin recorrer {@code vehiculosRegistrados}.
+     */
+    private final Map<String, Vehiculo> indiceVehiculos = new ConcurrentHashMap<>();
+
+    /**
+     * Índice de las plazas ocupadas por matrícula normalizada (en mayúsculas) del vehículo aparcado.
+     * Se mantiene al aparcar y desaparcar para no recorrer {@code listadoPlazas}.
+     */
+    private final Map<String, Plaza> indicePlazas = new ConcurrentHashMap<>();
+
+    /**
+     * Tickets abiertos (sin fecha de salida) por número de plaza.
+     * Se rellena al aparcar y se vacía al desaparcar, de forma que desaparcar no recorre {@code historicoTickets}.
+     */
+    private final Map<Integer, Ticket> ticketsAbiertosPorPlaza = new ConcurrentHashMap<>();
+
+    /**
+     * Tickets abiertos (sin fecha de salida) por matrícula normalizada (en mayúsculas) del vehículo aparcado.
+     */
+    private final Map<String, Ticket> ticketsAbiertosPorMatricula = new ConcurrentHashMap<>();
+
+    /**
+     * Mapa de bits con la ocupación de las plazas, que permite saber en tiempo constante si el parking
+     * está completo y localizar la siguiente plaza libre sin recorrer {@code listadoPlazas}.
+     */
+    private final OcupacionPlazas ocupacion;
+
+    /**
+     * Número máximo de cerrojos que se reparten entre las plazas. Por debajo de este valor cada plaza tiene su propio cerrojo.
+     */
+    private static final int MAX_BLOQUEOS_PLAZAS = 1 << 14;
+
+    /**
+     * Número de cerrojos que se reparten entre las matrículas de los vehículos.
+     */
+    private static final int BLOQUEOS_VEHICULOS = 1 << 10;
+
+    /**
+     * Número de hilos con los que se cargan a la vez las plazas, los vehículos y los tickets al arrancar.
+     */
+    private static final int HILOS_ARRANQUE = 3;
+
+    /**
+     * Número de vehículos que se insertan en cada lote JDBC en el registro masivo.
+     */
+    private static final int TAMANO_LOTE_REGISTRO = 1000;
+
+    /**
+     * Número de tickets recientes que se mantienen en memoria por defecto.
+     */
+    private static final int VENTANA_HISTORICO_POR_DEFECTO = 10_000;
+
+    /**
+     * Cerrojos repartidos por número de plaza. Impiden que dos terminales modifiquen la misma plaza a la vez.
+     */
+    private final ReentrantLock[] bloqueosPlazas;
+
+    /**
+     * Cerrojos repartidos por matrícula. Impiden que dos terminales modifiquen el mismo vehículo a la vez.
+     * Cuando una operación necesita ambos, siempre se adquiere primero el del vehículo y después el de la plaza.
+     */
+    private final ReentrantLock[] bloqueosVehiculos;
 
     /**
-     * Listado de todos los tickets históricos (entradas y salidas) registrados en el parking.
+     * Cola de escritura diferida, o {@code null} si cada operación escribe en la base de datos en su transacción.
      */
-    private  ArrayList<Ticket> historicoTickets;
+    private final EscrituraDiferida escrituraDiferida;
+
+    /**
+     * Último ID de ticket asignado. En modo de escritura diferida los IDs no los genera la base de datos sino el
+     * parking; en caso contrario es {@code null}.
+     */
+    private final AtomicInteger ultimoIdTicket;
+
+    /**
+     * Diario local de eventos en el que se añade cada cambio de estado, o {@code null} si no se usa.
+     */
+    private final DiarioEventos diarioEventos;
+
+    /**
+     * Instantánea de la ocupación de las plazas proyectada en memoria, o {@code null} si no se usa.
+     */
+    private final InstantaneaPlazas instantaneaPlazas;
+
     /**
      * Constructor de la clase Parking. Inicializa los DAOs necesarios para interactuar con la base de datos,
      * recupera las listas de plazas, vehículos registrados y tickets históricos desde la base de datos,
      * y crea las plazas iniciales si no existen en la base de datos.
      *
-     * @param conexion La conexión a la base de datos.
+     * @param origenDatos El origen de datos (pool de conexiones) de la base de datos.
      * @param numero_plazas El número total de plazas que debe tener el parking.
      */
-    public Parking(Connection conexion, int numero_plazas) {
+    public Parking(DataSource origenDatos, int numero_plazas) {
+        this(origenDatos, numero_plazas, VENTANA_HISTORICO_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor de la clase Parking que indica cuántos tickets recientes se mantienen en memoria.
+     * <p>
+     * Del histórico de tickets solo se cargan los tickets abiertos y los {@code ventanaHistorico} más recientes;
+     * los anteriores se consultan en la base de datos cuando se accede a ellos.
+     * </p>
+     *
+     * @param origenDatos El origen de datos (pool de conexiones) de la base de datos.
+     * @param numero_plazas El número total de plazas que debe tener el parking.
+     * @param ventanaHistorico El número de tickets recientes que se mantienen en memoria.
+     * @throws IllegalArgumentException Si {@code ventanaHistorico} no es positiva.
+     */
+    public Parking(DataSource origenDatos, int numero_plazas, int ventanaHistorico) {
+        this(origenDatos, numero_plazas, ventanaHistorico, null);
+    }
+
+    /**
+     * Constructor de la clase Parking que, opcionalmente, trabaja en modo de escritura diferida.
+     * <p>
+     * Con una cola de escritura diferida, las operaciones de puerta registran sus cambios en la cola en lugar de
+     * escribirlos en la base de datos, y los IDs de los tickets nuevos se asignan a partir del mayor ID existente.
+     * La cola debe crearse sobre el mismo origen de datos antes que el parking, para que los cambios que quedaran
+     * pendientes de una ejecución anterior ya estén en la base de datos al cargarla. Solo debe haber un parking
+     * escribiendo en la base de datos.
+     * </p>
+     *
+     * @param origenDatos El origen de datos (pool de conexiones) de la base de datos.
+     * @param numero_plazas El número total de plazas que debe tener el parking.
+     * @param ventanaHistorico El número de tickets recientes que se mantienen en memoria.
+     * @param escrituraDiferida La cola de escritura diferida, o {@code null} para escribir en cada operación.
+     * @throws IllegalArgumentException Si {@code ventanaHistorico} no es positiva.
+     */
+    public Parking(DataSource origenDatos, int numero_plazas, int ventanaHistorico, EscrituraDiferida escrituraDiferida) {
+        this(origenDatos, numero_plazas, ventanaHistorico, escrituraDiferida, null);
+    }
+
+    /**
+     * Constructor de la clase Parking que, opcionalmente, trabaja en modo de escritura diferida y con un diario
+     * local de eventos.
+     * <p>
+     * Si el diario contiene un estado recuperado, las plazas, los vehículos registrados y los tickets abiertos se
+     * reconstruyen a partir de él en lugar de leer las tablas completas de la base de datos; junto con la escritura
+     * diferida, el parking puede arrancar y funcionar sin conexión con la base de datos. Si la base de datos está
+     * accesible, antes se comprueba que su último ID de ticket y sus tickets abiertos coinciden con los del diario.
+     * Si el diario está vacío o no coincide, el estado se carga de la base de datos y se guarda en el diario como
+     * punto de partida.
+     * </p>
+     *
+     * @param origenDatos El origen de datos (pool de conexiones) de la base de datos.
+     * @param numero_plazas El número total de plazas que debe tener el parking.
+     * @param ventanaHistorico El número de tickets recientes que se mantienen en memoria.
+     * @param escrituraDiferida La cola de escritura diferida, o {@code null} para escribir en cada operación.
+     * @param diarioEventos El diario local de eventos, o {@code null} para no usarlo.
+     * @throws IllegalArgumentException Si {@code ventanaHistorico} no es positiva.
+     */
+    public Parking(DataSource origenDatos, int numero_plazas, int ventanaHistorico, EscrituraDiferida escrituraDiferida,
+                   DiarioEventos diarioEventos) {
+        this(origenDatos, numero_plazas, ventanaHistorico, escrituraDiferida, diarioEventos, null);
+    }
+
+    /**
+     * Constructor de la clase Parking que, además, mantiene una instantánea de la ocupación de las plazas
+     * proyectada en memoria.
+     * <p>
+     * Si la instantánea es válida y coincide con los tickets abiertos, las plazas se crean a partir de ella en lugar
+     * de leer la tabla de plazas completa. En caso contrario se cargan de la base de datos y la instantánea se
+     * vuelve a escribir. A partir de ahí, cada aparcamiento y desaparcamiento la actualiza.
+     * </p>
+     *
+     * @param origenDatos El origen de datos (pool de conexiones) de la base de datos.
+     * @param numero_plazas El número total de plazas que debe tener el parking.
+     * @param ventanaHistorico El número de tickets recientes que se mantienen en memoria.
+     * @param escrituraDiferida La cola de escritura diferida, o {@code null} para escribir en cada operación.
+     * @param diarioEventos El diario local de eventos, o {@code null} para no usarlo.
+     * @param instantaneaPlazas La instantánea de la ocupación de las plazas, o {@code null} para no usarla.
+     * @throws IllegalArgumentException Si {@code ventanaHistorico} no es positiva.
+     */
+    public Parking(DataSource origenDatos, int numero_plazas, int ventanaHistorico, EscrituraDiferida escrituraDiferida,
+                   DiarioEventos diarioEventos, InstantaneaPlazas instantaneaPlazas) {
+        this(origenDatos, numero_plazas, ventanaHistorico, escrituraDiferida, diarioEventos, instantaneaPlazas, null);
+    }
+
+    /**
+     * Constructor de la clase Parking que informa de las fases de la carga inicial.
+     * <p>
+     * Cuando el estado se carga de la base de datos, las plazas, los vehículos y los tickets abiertos se leen a la
+     * vez en hilos de arranque, cada carga con su propia conexión del pool, y al terminar cada una se invoca
+     * {@code avisoFase} con su descripción desde el hilo que la ha completado.
+     * </p>
+     * <p>
+     * El constructor termina en cuanto están listos los datos que necesitan las operaciones de puerta; la ventana de
+     * tickets recientes y el total del histórico se siguen cargando en segundo plano (véase
+     * {@link #getCargaHistorico()}), de modo que el arranque depende de la ocupación actual y no del tamaño del
+     * histórico.
+     * </p>
+     *
+     * @param origenDatos El origen de datos (pool de conexiones) de la base de datos.
+     * @param numero_plazas El número total de plazas que debe tener el parking.
+     * @param ventanaHistorico El número de tickets recientes que se mantienen en memoria.
+     * @param escrituraDiferida La cola de escritura diferida, o {@code null} para escribir en cada operación.
+     * @param diarioEventos El diario local de eventos, o {@code null} para no usarlo.
+     * @param instantaneaPlazas La instantánea de la ocupación de las plazas, o {@code null} para no usarla.
+     * @param avisoFase Receptor de las fases completadas de la carga, o {@code null} para no informar.
+     * @throws IllegalArgumentException Si {@code ventanaHistorico} no es positiva o falla la carga de la base de datos.
+     */
+    public Parking(DataSource origenDatos, int numero_plazas, int ventanaHistorico, EscrituraDiferida escrituraDiferida,
+                   DiarioEventos diarioEventos, InstantaneaPlazas instantaneaPlazas, Consumer<String> avisoFase) {
         // Se crean los DAOs para interactuar con la base de datos
-        vehiculoDAO = new VehiculoDAO(conexion);
-        plazaDAO = new PlazaDAO(conexion);
-        ticketDAO = new TicketDAO(conexion);
+        ORIGEN_DATOS = origenDatos;
+        vehiculoDAO = new VehiculoDAO(origenDatos);
+        plazaDAO = new PlazaDAO(origenDatos);
+        ticketDAO = new TicketDAO(origenDatos);
         NUMERO_DE_PLAZAS = numero_plazas;
 
-        // Se obtienen todas las plazas, vehículos registrados y tickets históricos desde la base de datos
-        listadoPlazas = plazaDAO.getAllPlaces();
-        vehiculosRegistrados = vehiculoDAO.getAllVehicles();
-        historicoTickets = ticketDAO.getAllTickets();
+        DiarioEventos.Estado recuperado = diarioEventos == null ? null : diarioEventos.getEstado();
+        if (recuperado != null && !coincideConBaseDatos(recuperado, escrituraDiferida)) {
+            System.out.println("El diario local no coincide con la base de datos: se carga el estado de la base de datos.");
+            recuperado = null;
+        }
+        boolean instantaneaValida = false;
+        if (recuperado != null) {
+            // Se reconstruyen las plazas, los vehículos y los tickets abiertos a partir del diario local
+            listadoPlazas = new ArrayList<>(recuperado.getNumeroPlazas());
+            for (int i = 1; i <= recuperado.getNumeroPlazas(); i++) {
+                listadoPlazas.add(new Plaza(i));
+            }
+            for (Ticket ticket : recuperado.getTicketsAbiertos()) {
+                Plaza plaza = listadoPlazas.get(ticket.getNUM_PLAZA() - 1);
+                plaza.setDisponible(false);
+                plaza.setMatriculaVehiculo(ticket.getMATRICULA());
+            }
+            vehiculosRegistrados = Collections.synchronizedList(recuperado.getVehiculos());
+            historicoTickets = new HistoricoTickets(ticketDAO, ventanaHistorico, recuperado.getTotalTickets(),
+                    recuperado.getTicketsAbiertos());
+        } else {
+            // Se obtienen a la vez las plazas, los vehículos registrados y los tickets abiertos desde la base de datos;
+            // las plazas se crean a partir de la instantánea si coincide con los tickets abiertos, y los tickets
+            // recientes se siguen cargando en segundo plano en los mismos hilos
+            ExecutorService arranque = Executors.newFixedThreadPool(HILOS_ARRANQUE, tarea -> {
+                Thread hilo = new Thread(tarea, "arranque-parking");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            try {
+                CompletableFuture<ArrayList<Vehiculo>> vehiculos = avisa(
+                        CompletableFuture.supplyAsync(vehiculoDAO::getAllVehicles, arranque), avisoFase, "Vehículos cargados");
+                CompletableFuture<HistoricoTickets> historico = avisa(
+                        CompletableFuture.supplyAsync(() -> {
+                            int ultimoId = ticketDAO.getUltimoId();
+                            return new HistoricoTickets(ticketDAO, ventanaHistorico, ticketDAO.getTicketsAbiertos(),
+                                    ultimoId, arranque);
+                        }, arranque),
+                        avisoFase, "Tickets abiertos cargados");
+                CompletableFuture<Boolean> coincidencia = instantaneaPlazas == null
+                        ? CompletableFuture.completedFuture(false)
+                        : historico.thenApply(cargado -> instantaneaPlazas.coincide(cargado.getTicketsAbiertos(),
+                                cargado.getUltimoId()));
+                CompletableFuture<ArrayList<Plaza>> plazas = avisa(instantaneaPlazas == null
+                        ? CompletableFuture.supplyAsync(plazaDAO::getAllPlaces, arranque)
+                        : coincidencia.thenApplyAsync(coincide -> coincide ? instantaneaPlazas.creaPlazas()
+                                : plazaDAO.getAllPlaces(), arranque),
+                        avisoFase, "Plazas cargadas");
 
-        // Si no hay plazas en la base de datos, se crean las plazas iniciales
+                vehiculosRegistrados = Collections.synchronizedList(espera(vehiculos));
+                historicoTickets = espera(historico);
+                listadoPlazas = espera(plazas);
+                // La instantánea se ha comprobado una sola vez, al decidir de dónde se cargan las plazas
+                instantaneaValida = espera(coincidencia);
+            } finally {
+                arranque.shutdown();
+            }
+        }
+
+        // Se construyen los índices por matrícula a partir de los datos recuperados
+        for (Vehiculo vehiculo : vehiculosRegistrados) {
+            indiceVehiculos.put(normalizaMatricula(vehiculo.getMATRICULA()), vehiculo);
+        }
+        for (Plaza plaza : listadoPlazas) {
+            if (plaza.getMatriculaVehiculo() != null)
+                indicePlazas.put(normalizaMatricula(plaza.getMatriculaVehiculo()), plaza);
+        }
+        for (Ticket ticket : historicoTickets.getTicketsAbiertos()) {
+            registraTicketAbierto(ticket);
+            estadisticas.registraOcupacion(tipoVehiculo(ticket.getMATRICULA()));
+        }
+
+        // Si no hay plazas en la base de datos, se crean las plazas iniciales con un único lote
         if (listadoPlazas.isEmpty()) {
             for (int i = 1; i <= NUMERO_DE_PLAZAS; i++) {
-                Plaza nueva = new Plaza(i);
-                listadoPlazas.add(nueva); // Se añade la plaza a la lista de plazas del Parking
-                plazaDAO.creaPlaza(nueva); // Se crea la plaza en la base de datos
+                listadoPlazas.add(new Plaza(i)); // Se añade la plaza a la lista de plazas del Parking
             }
+            plazaDAO.creaPlazas(listadoPlazas); // Se crean las plazas en la base de datos
         } else {
             System.out.println("Ya se definió el tamaño del parking con respecto a la cantidad de plazas disponibles.");
         }
+
+        // Se construye el mapa de ocupación a partir del estado de las plazas
+        ocupacion = new OcupacionPlazas(listadoPlazas.size());
+        for (Plaza plaza : listadoPlazas) {
+            if (!plaza.isDisponible())
+                ocupacion.ocupar(plaza.getNUMERODEPLAZA());
+        }
+
+        bloqueosPlazas = creaBloqueos(Math.min(listadoPlazas.size(), MAX_BLOQUEOS_PLAZAS));
+        bloqueosVehiculos = creaBloqueos(BLOQUEOS_VEHICULOS);
+
+        this.escrituraDiferida = escrituraDiferida;
+        if (escrituraDiferida == null) {
+            ultimoIdTicket = null;
+        } else {
+            ultimoIdTicket = new AtomicInteger(recuperado != null ? recuperado.getUltimoIdTicket() : historicoTickets.getUltimoId());
+            // Los tickets que salen de la ventana del histórico pueden no estar todavía en la base de datos
+            historicoTickets.setVolcadoPendiente(escrituraDiferida::vacia);
+        }
+
+        // Si la instantánea no se ha podido usar, se escribe con el estado actual de las plazas
+        this.instantaneaPlazas = instantaneaPlazas;
+        if (instantaneaPlazas != null && !instantaneaValida) {
+            instantaneaPlazas.escribe(listadoPlazas,
+                    recuperado != null ? recuperado.getUltimoIdTicket() : historicoTickets.getUltimoId());
+        }
+
+        // Si el estado se ha cargado de la base de datos, se guarda en el diario como punto de partida; el total de
+        // tickets obliga a esperar a la carga del histórico, pero solo en el primer arranque con el diario
+        this.diarioEventos = diarioEventos;
+        if (diarioEventos != null && recuperado == null) {
+            diarioEventos.inicializa(listadoPlazas.size(), vehiculosRegistrados, historicoTickets.getTicketsAbiertos(),
+                    historicoTickets.getUltimoId(), historicoTickets.size());
+        }
+    }
+
+    /**
+     * Arranca un parking en un hilo aparte.
+     * <p>
+     * El futuro se completa en cuanto el parking está listo para las operaciones de puerta: con las plazas, los
+     * vehículos y los tickets abiertos cargados. El histórico de tickets puede seguir cargándose después
+     * (véase {@link #getCargaHistorico()}).
+     * </p>
+     *
+     * @param origenDatos El origen de datos (pool de conexiones) de la base de datos.
+     * @param numero_plazas El número total de plazas que debe tener el parking.
+     * @param ventanaHistorico El número de tickets recientes que se mantienen en memoria.
+     * @param escrituraDiferida La cola de escritura diferida, o {@code null} para escribir en cada operación.
+     * @param diarioEventos El diario local de eventos, o {@code null} para no usarlo.
+     * @param instantaneaPlazas La instantánea de la ocupación de las plazas, o {@code null} para no usarla.
+     * @param avisoFase Receptor de las fases completadas de la carga, o {@code null} para no informar.
+     * @return Un futuro con el parking listo, o completado con la excepción del constructor si el arranque falla.
+     */
+    public static CompletableFuture<Parking> arranca(DataSource origenDatos, int numero_plazas, int ventanaHistorico,
+                                                     EscrituraDiferida escrituraDiferida, DiarioEventos diarioEventos,
+                                                     InstantaneaPlazas instantaneaPlazas, Consumer<String> avisoFase) {
+        return CompletableFuture.supplyAsync(() -> new Parking(origenDatos, numero_plazas, ventanaHistorico,
+                escrituraDiferida, diarioEventos, instantaneaPlazas, avisoFase), tarea -> {
+            Thread hilo = new Thread(tarea, "arranque-parking");
+            hilo.setDaemon(true);
+            hilo.start();
+        });
     }
 
     /**
@@ -138,9 +500,11 @@ public class Parking {
     /**
      * Obtiene una lista de todos los vehículos registrados en el parking.
      *
-     * @return Una {@link ArrayList} de {@link Vehiculo} con todos los vehículos registrados.
+     * La lista está sincronizada: para recorrerla mientras otros terminales operan hay que sincronizarse sobre ella.
+     *
+     * @return Una {@link List} de {@link Vehiculo} con todos los vehículos registrados.
      */
-    public ArrayList<Vehiculo> getVehiculosRegistrados() {
+    public List<Vehiculo> getVehiculosRegistrados() {
         return vehiculosRegistrados;
     }
 
@@ -156,10 +520,26 @@ public class Parking {
     /**
      * Obtiene el historial de tickets del parking, incluyendo entradas y salidas.
      *
-     * @return Una {@link ArrayList} de {@link Ticket} con todos los tickets históricos del parking.
+     * La lista es una vista de solo lectura ordenada por ID: los tickets recientes se devuelven desde memoria
+     * y los antiguos se leen de la base de datos por páginas a medida que se accede a ellos.
+     *
+     * @return Una {@link List} de {@link Ticket} con todos los tickets históricos del parking.
      */
-    public ArrayList<Ticket> getHistoricoTickets() {
-        return historicoTickets;
+    public List<Ticket> getHistoricoTickets() {
+        return Collections.unmodifiableList(historicoTickets);
+    }
+
+    /**
+     * Obtiene la carga en segundo plano del histórico de tickets.
+     * <p>
+     * Mientras no se complete, las consultas de {@link #getHistoricoTickets()} esperan a que termine; las
+     * operaciones de puerta no dependen de ella.
+     * </p>
+     *
+     * @return Un futuro que se completa cuando la ventana de tickets recientes y el total del histórico están cargados.
+     */
+    public CompletableFuture<Void> getCargaHistorico() {
+        return historicoTickets.getCarga();
     }
 
     /**
@@ -168,9 +548,21 @@ public class Parking {
      * @return Una {@link List} de {@link Plaza} con las plazas disponibles en el parking.
      */
     public List<Plaza> getAvaiblePlaces() {
-        return listadoPlazas.stream()
-                .filter(Plaza::isDisponible) // Filtra las plazas disponibles
-                .toList();
+        List<Plaza> disponibles = new ArrayList<>(ocupacion.getPlazasLibres());
+        // Se recorren únicamente las plazas marcadas como libres en el mapa de ocupación
+        for (int n = ocupacion.siguienteLibreDesde(1); n != -1; n = ocupacion.siguienteLibreDesde(n + 1)) {
+            disponibles.add(obtenerPlaza(n));
+        }
+        return disponibles;
+    }
+
+    /**
+     * Obtiene el número de plazas disponibles en el parking.
+     *
+     * @return El número de plazas libres.
+     */
+    public int getNumeroPlazasDisponibles() {
+        return ocupacion.getPlazasLibres();
     }
 
     /**
@@ -227,24 +619,174 @@ public class Parking {
     public void entradaParking(Vehiculo vehiculo) {
         //Si está completo no permitirá ninguna entrada
         if (!isComplete()) {
-            //Si el vehiculo ESTÁ REGISTRADO
-            if (isRegistrated(vehiculo)) {
-                //Si el vehículo NO está dentro del parking ...
-                if (!vehiculo.isActivo()) {
-                    vehiculo.setActivo(true);
-                    vehiculoDAO.actualizaVehiculo(vehiculo);
-                } else
-                    throw new IllegalArgumentException("El " + vehiculo.getTIPO().toString() + " con matrícula " + vehiculo.getMATRICULA() + " ya se encuentra en el parking.");
-            //Si no se encuentra registrado, lo registra en la lista de vehículos registrados y en la base de datos
-            } else {
-                vehiculosRegistrados.add(vehiculo);
-                vehiculoDAO.creaVehiculo(vehiculo);
+            ReentrantLock bloqueoVehiculo = bloqueoVehiculo(vehiculo.getMATRICULA());
+            bloqueoVehiculo.lock();
+            try {
+                //Si el vehiculo ESTÁ REGISTRADO
+                if (isRegistrated(vehiculo)) {
+                    //Si el vehículo NO está dentro del parking ...
+                    if (!vehiculo.isActivo()) {
+                        vehiculo.setActivo(true);
+                        try {
+                            persiste(conexion -> {
+                                vehiculoDAO.actualizaVehiculo(conexion, vehiculo);
+                                return null;
+                            }, vehiculo);
+                        } catch (RuntimeException e) {
+                            vehiculo.setActivo(false);
+                            throw e;
+                        }
+                        if (diarioEventos != null)
+                            diarioEventos.registraEntrada(vehiculo.getMATRICULA());
+                    } else
+                        throw new IllegalArgumentException("El " + vehiculo.getTIPO().toString() + " con matrícula " + vehiculo.getMATRICULA() + " ya se encuentra en el parking.");
+                //Si no se encuentra registrado, lo registra en la lista de vehículos registrados y en la base de datos
+                } else {
+                    if (escrituraDiferida != null)
+                        escrituraDiferida.registra(vehiculo);
+                    else
+                        vehiculoDAO.creaVehiculo(vehiculo);
+                    vehiculosRegistrados.add(vehiculo);
+                    indiceVehiculos.put(normalizaMatricula(vehiculo.getMATRICULA()), vehiculo);
+                    if (diarioEventos != null)
+                        diarioEventos.registraVehiculo(vehiculo);
+                }
+            } finally {
+                bloqueoVehiculo.unlock();
             }
 
         } else
             throw new IllegalArgumentException("PARKING COMPLETO");
     }
 
+    /**
+     * Registra de una vez un conjunto de vehículos nuevos en el parking.
+     * <p>
+     * Equivale a llamar a {@link #entradaParking(Vehiculo)} con cada vehículo no registrado, pero está pensado para
+     * flotas de miles de vehículos: las matrículas se validan en paralelo con {@link GestionMatriculas} y los
+     * vehículos válidos se insertan en la base de datos mediante lotes JDBC de {@value #TAMANO_LOTE_REGISTRO} vehículos.
+     * Los vehículos nulos, con matrícula no válida, repetidos dentro del lote o ya registrados no detienen el proceso:
+     * se informan en el resultado junto con su posición en el lote.
+     * </p>
+     * <p>
+     * Con escritura diferida, los vehículos válidos se registran en la cola de escritura en bloques que no superan
+     * su capacidad, en lugar de insertarse directamente en la base de datos.
+     * </p>
+     *
+     * @param vehiculos Los vehículos que se desean registrar.
+     * @return El resultado del registro, con los vehículos registrados y los rechazados.
+     * @throws IllegalArgumentException Si el parking está completo.
+     */
+    public ResultadoRegistroLote entradaParkingBatch(Collection<Vehiculo> vehiculos) {
+        return entradaParkingBatch(vehiculos, TAMANO_LOTE_REGISTRO);
+    }
+
+    /**
+     * Registra de una vez un conjunto de vehículos nuevos en el parking, con un tamaño de lote JDBC concreto.
+     *
+     * @param vehiculos Los vehículos que se desean registrar.
+     * @param tamanoLote El número de vehículos que se insertan en cada lote.
+     * @return El resultado del registro, con los vehículos registrados y los rechazados.
+     * @throws IllegalArgumentException Si el parking está completo o {@code tamanoLote} no es positivo.
+     * @see #entradaParkingBatch(Collection)
+     */
+    public ResultadoRegistroLote entradaParkingBatch(Collection<Vehiculo> vehiculos, int tamanoLote) {
+        if (isComplete())
+            throw new IllegalArgumentException("PARKING COMPLETO");
+
+        List<Vehiculo> lote = new ArrayList<>(vehiculos);
+        ResultadoRegistroLote resultado = new ResultadoRegistroLote();
+
+        // Se validan las matrículas en paralelo: cada posición recibe el motivo del rechazo o null si es válida
+        String[] motivos = new String[lote.size()];
+        IntStream.range(0, lote.size()).parallel().forEach(i -> motivos[i] = validaRegistro(lote.get(i)));
+
+        // Se descartan las matrículas repetidas dentro del propio lote, conservando la primera aparición
+        List<Vehiculo> validos = new ArrayList<>(lote.size());
+        List<Integer> posiciones = new ArrayList<>(lote.size());
+        Set<String> vistas = new HashSet<>();
+        for (int i = 0; i < lote.size(); i++) {
+            Vehiculo vehiculo = lote.get(i);
+            if (motivos[i] == null && !vistas.add(normalizaMatricula(vehiculo.getMATRICULA())))
+                motivos[i] = "La matrícula " + vehiculo.getMATRICULA() + " está repetida en el lote.";
+            if (motivos[i] == null) {
+                validos.add(vehiculo);
+                posiciones.add(i);
+            }
+        }
+
+        // Se insertan los vehículos válidos por lotes y se registran en memoria los que la base de datos ha aceptado
+        Map<Vehiculo, String> fallosBBDD = escrituraDiferida != null
+                ? registraDiferidos(validos, tamanoLote)
+                : vehiculoDAO.creaVehiculos(validos, tamanoLote);
+        for (int i = 0; i < validos.size(); i++) {
+            Vehiculo vehiculo = validos.get(i);
+            String fallo = fallosBBDD.get(vehiculo);
+            if (fallo != null) {
+                motivos[posiciones.get(i)] = fallo;
+            } else if (indiceVehiculos.putIfAbsent(normalizaMatricula(vehiculo.getMATRICULA()), vehiculo) == null) {
+                vehiculosRegistrados.add(vehiculo);
+                if (diarioEventos != null)
+                    diarioEventos.registraVehiculo(vehiculo);
+            }
+        }
+
+        for (int i = 0; i < lote.size(); i++) {
+            if (motivos[i] == null)
+                resultado.agregaRegistrado(lote.get(i));
+            else
+                resultado.agregaFallo(i, lote.get(i), motivos[i]);
+        }
+        return resultado;
+    }
+
+    /**
+     * Registra en la cola de escritura diferida los vehículos válidos del registro masivo, en bloques que no superan
+     * el tamaño de lote ni la capacidad de la cola.
+     * <p>
+     * Si la cola rechaza un bloque (porque está llena o cerrada), ese bloque y los siguientes se informan como fallos
+     * con el motivo del rechazo, y los bloques anteriores quedan registrados.
+     * </p>
+     *
+     * @param vehiculos Los vehículos válidos.
+     * @param tamanoLote El número máximo de vehículos de cada bloque.
+     * @return Los vehículos que no se han podido registrar, con el motivo.
+     * @throws IllegalArgumentException Si {@code tamanoLote} no es positivo.
+     */
+    private Map<Vehiculo, String> registraDiferidos(List<Vehiculo> vehiculos, int tamanoLote) {
+        if (tamanoLote <= 0)
+            throw new IllegalArgumentException("El tamaño del lote debe ser mayor que 0.");
+        int tamanoBloque = Math.min(tamanoLote, escrituraDiferida.getCapacidad());
+        Map<Vehiculo, String> fallos = new HashMap<>();
+        for (int inicio = 0; inicio < vehiculos.size(); inicio += tamanoBloque) {
+            List<Vehiculo> bloque = vehiculos.subList(inicio, Math.min(inicio + tamanoBloque, vehiculos.size()));
+            try {
+                escrituraDiferida.registra(bloque.toArray());
+            } catch (IllegalStateException e) {
+                for (Vehiculo vehiculo : vehiculos.subList(inicio, vehiculos.size()))
+                    fallos.put(vehiculo, e.getMessage());
+                break;
+            }
+        }
+        return fallos;
+    }
+
+    /**
+     * Comprueba si un vehículo puede registrarse en el registro masivo.
+     *
+     * @param vehiculo El vehículo a comprobar.
+     * @return El motivo por el que no puede registrarse, o {@code null} si puede registrarse.
+     */
+    private String validaRegistro(Vehiculo vehiculo) {
+        if (vehiculo == null)
+            return "El vehículo no puede ser nulo.";
+        if (!GestionMatriculas.esValida(vehiculo.getMATRICULA(), vehiculo.getPAIS()))
+            return "Matrícula " + vehiculo.getMATRICULA() + " no válida para " + vehiculo.getPAIS() + ".";
+        if (isRegistrated(vehiculo))
+            return "El vehículo con matrícula " + vehiculo.getMATRICULA() + " ya se encuentra registrado en la base de datos.";
+        return null;
+    }
+
     /**
      * Registra la salida de un vehículo del parking.
      * <p>
@@ -257,22 +799,40 @@ public class Parking {
      * @throws IllegalArgumentException Si el vehículo no está registrado o no se encuentra dentro del parking.
      */
     public void salidaParking(Vehiculo vehiculo) {
-        // Para salir del parking, tiene que estar REGISTRADO y ACTIVO
-        if (isRegistrated(vehiculo)) {
-
-            if (vehiculo.isActivo()) {
-                Plaza plaza = getPlazaByVehiculo(vehiculo);
-                //Si se encuentra aparcado, desaparca y sale
-                if (plaza != null)
-                    desaparcar(plaza);
+        ReentrantLock bloqueoVehiculo = bloqueoVehiculo(vehiculo.getMATRICULA());
+        bloqueoVehiculo.lock();
+        try {
+            // Para salir del parking, tiene que estar REGISTRADO y ACTIVO
+            if (isRegistrated(vehiculo)) {
 
-                vehiculo.setActivo(false);
-                vehiculoDAO.actualizaVehiculo(vehiculo);
+                if (vehiculo.isActivo()) {
+                    //Si se encuentra aparcado, desaparca y sale en la misma transacción; si otro terminal ha
+                    //liberado la plaza antes de bloquearla, se vuelve a buscar la plaza del vehículo
+                    Plaza plaza = getPlazaByVehiculo(vehiculo);
+                    while (plaza != null && !desaparcar(plaza, vehiculo))
+                        plaza = getPlazaByVehiculo(vehiculo);
+                    if (plaza == null) {
+                        vehiculo.setActivo(false);
+                        try {
+                            persiste(conexion -> {
+                                vehiculoDAO.actualizaVehiculo(conexion, vehiculo);
+                                return null;
+                            }, vehiculo);
+                        } catch (RuntimeException e) {
+                            vehiculo.setActivo(true);
+                            throw e;
+                        }
+                        if (diarioEventos != null)
+                            diarioEventos.registraSalida(vehiculo.getMATRICULA());
+                    }
 
+                } else
+                    throw new IllegalArgumentException("El vehículo con matrícula " + vehiculo.getMATRICULA() + " no se encuentra dentro en el parking.");
             } else
-                throw new IllegalArgumentException("El vehículo con matrícula " + vehiculo.getMATRICULA() + " no se encuentra dentro en el parking.");
-        } else
-            throw new IllegalArgumentException("El vehículo con matrícula " + vehiculo.getMATRICULA() + " no se encuentra registrado en la base de datos.");
+                throw new IllegalArgumentException("El vehículo con matrícula " + vehiculo.getMATRICULA() + " no se encuentra registrado en la base de datos.");
+        } finally {
+            bloqueoVehiculo.unlock();
+        }
     }
 
     /**
@@ -280,6 +840,8 @@ public class Parking {
      * <p>
      * Verifica que el número de plaza sea válido y que el vehículo esté registrado en el parking.
      * Si la plaza está disponible, se actualizan los datos de la plaza y se crea un ticket sin fecha de salida.
+     * Ambas escrituras se realizan en una única transacción y el ID del ticket se obtiene de la propia inserción;
+     * la plaza y el histórico en memoria solo se modifican si la transacción se confirma.
      * </p>
      *
      * @param numeroDePlaza Número de la plaza en la que se desea aparcar el vehículo.
@@ -294,34 +856,98 @@ public class Parking {
                     "\nEl parking actual consta de " + NUMERO_DE_PLAZAS + " plazas.");
         }
         // Si el vehículo es nulo, o la lista que registra los vehículos no la contiene
-        if (vehiculo == null || !vehiculosRegistrados.contains(vehiculo)) {
-            throw new IllegalArgumentException("El vehículo proporcionado con matrícula " + vehiculo.getMATRICULA() + " no ha entrado en el parking.");
+        if (vehiculo == null || !isRegistrated(vehiculo)) {
+            throw new IllegalArgumentException("El vehículo proporcionado con matrícula " + (vehiculo == null ? null : vehiculo.getMATRICULA()) + " no ha entrado en el parking.");
         }
 
         // Se obtiene el objeto plaza a través de su número
         Plaza plaza = obtenerPlaza(numeroDePlaza);
 
-        // Si la plaza está disponible, se actualizan los datos de la plaza y se genera un ticket sin fecha de salida
-        if (plaza.isDisponible() && !estaAparcado(vehiculo) && vehiculo.isActivo()) {
-            plaza.setDisponible(false);
-            plaza.setMatriculaVehiculo(vehiculo.getMATRICULA());
+        // Se bloquean el vehículo y la plaza, siempre en este orden
+        ReentrantLock bloqueoVehiculo = bloqueoVehiculo(vehiculo.getMATRICULA());
+        ReentrantLock bloqueoPlaza = bloqueoPlaza(numeroDePlaza);
+        bloqueoVehiculo.lock();
+        bloqueoPlaza.lock();
+        try {
+            // Si la plaza está disponible, se actualizan los datos de la plaza y se genera un ticket sin fecha de salida
+            if (plaza.isDisponible() && !estaAparcado(vehiculo) && vehiculo.isActivo()) {
+                if (!ocupacion.ocupar(plaza.getNUMERODEPLAZA()))
+                    throw new IllegalStateException("La plaza " + plaza.getNUMERODEPLAZA() + " ya está ocupada.");
 
-            // Se actualiza la plaza en la base de datos
-            plazaDAO.actualizaPlaza(plaza);
+                // Se preparan el nuevo estado de la plaza y el nuevo Ticket sin fecha de salida
+                Plaza ocupada = new Plaza(plaza.getNUMERODEPLAZA(), false, vehiculo.getMATRICULA());
+                Ticket nuevo = new Ticket(vehiculo.getMATRICULA(), plaza.getNUMERODEPLAZA(), LocalDateTime.now(), null);
 
-            // Se crea un nuevo Ticket sin fecha de salida
-            Ticket nuevo = new Ticket(vehiculo.getMATRICULA(), plaza.getNUMERODEPLAZA(), LocalDateTime.now(), null);
-            ticketDAO.creaTicket(nuevo);
-            //Se recumera el último Ticket generado con la matrícula proporcionada, en este punto, se recupera con un ID != 0
-            historicoTickets.add(ticketDAO.getTicketByMatricula(vehiculo.getMATRICULA()));
+                // Se actualiza la plaza y se crea el Ticket en la misma transacción, obteniendo su ID de la inserción;
+                // en modo de escritura diferida el ID lo asigna el parking y los cambios se registran en la cola
+                Ticket creado;
+                try {
+                    if (escrituraDiferida != null) {
+                        creado = new Ticket(ultimoIdTicket.incrementAndGet(), nuevo.getMATRICULA(), nuevo.getNUM_PLAZA(),
+                                nuevo.getFECHA_ENTRADA(), null, Ticket.SIN_PRECIO);
+                        escrituraDiferida.registra(ocupada, creado);
+                    } else {
+                        creado = enTransaccion(conexion -> {
+                            plazaDAO.actualizaPlaza(conexion, ocupada);
+                            return ticketDAO.creaTicket(conexion, nuevo);
+                        });
+                    }
+                } catch (RuntimeException e) {
+                    ocupacion.liberar(plaza.getNUMERODEPLAZA());
+                    throw e;
+                }
 
-        } else {
-            if (!plaza.isDisponible())
-                throw new IllegalStateException("La plaza " + plaza.getNUMERODEPLAZA() + " ya está ocupada por el vehículo con matrícula " + plaza.getMatriculaVehiculo());
-            else if(estaAparcado(vehiculo))
-                throw new IllegalStateException("El vehículo con matrícula " + vehiculo.getMATRICULA() + " ya se encuentra aparcado en la plaza " + getPlazaByVehiculo(vehiculo).getNUMERODEPLAZA());
-            else
-                throw new IllegalStateException("El vehículo con matrícula " + vehiculo.getMATRICULA() + " no se encuentra dentro del parking");
+                plaza.setDisponible(false);
+                plaza.setMatriculaVehiculo(vehiculo.getMATRICULA());
+                indicePlazas.put(normalizaMatricula(vehiculo.getMATRICULA()), plaza);
+                historicoTickets.add(creado);
+                registraTicketAbierto(creado);
+                if (diarioEventos != null)
+                    diarioEventos.registraAparcamiento(creado);
+                if (instantaneaPlazas != null)
+                    instantaneaPlazas.ocupa(plaza.getNUMERODEPLAZA(), vehiculo.getMATRICULA(), creado.getID());
+                estadisticas.registraEntrada(vehiculo.getTIPO(), creado.getFECHA_ENTRADA());
+
+            } else {
+                if (!plaza.isDisponible())
+                    throw new IllegalStateException("La plaza " + plaza.getNUMERODEPLAZA() + " ya está ocupada por el vehículo con matrícula " + plaza.getMatriculaVehiculo());
+                else if(estaAparcado(vehiculo))
+                    throw new IllegalStateException("El vehículo con matrícula " + vehiculo.getMATRICULA() + " ya se encuentra aparcado en la plaza " + getPlazaByVehiculo(vehiculo).getNUMERODEPLAZA());
+                else
+                    throw new IllegalStateException("El vehículo con matrícula " + vehiculo.getMATRICULA() + " no se encuentra dentro del parking");
+            }
+        } finally {
+            bloqueoPlaza.unlock();
+            bloqueoVehiculo.unlock();
+        }
+    }
+
+    /**
+     * Aparca un vehículo en la siguiente plaza libre del parking.
+     * <p>
+     * La plaza se elige a partir del mapa de ocupación, sin que el usuario tenga que indicarla.
+     * Si otro terminal ocupa la plaza elegida antes de aparcar, se vuelve a buscar otra plaza libre.
+     * </p>
+     *
+     * @param vehiculo El vehículo que se desea aparcar.
+     * @return La plaza en la que se ha aparcado el vehículo.
+     * @throws IllegalArgumentException Si el vehículo no está registrado en el parking.
+     * @throws IllegalStateException Si no queda ninguna plaza libre o el vehículo ya está aparcado.
+     */
+    public Plaza aparcarAutomatico(Vehiculo vehiculo) {
+        while (true) {
+            int numeroDePlaza = ocupacion.siguienteLibre();
+            if (numeroDePlaza == -1)
+                throw new IllegalStateException("PARKING COMPLETO");
+
+            try {
+                aparcar(numeroDePlaza, vehiculo);
+                return obtenerPlaza(numeroDePlaza);
+            } catch (IllegalStateException e) {
+                // Si la plaza sigue libre, el error se debe al vehículo y no a otro terminal
+                if (ocupacion.isLibre(numeroDePlaza))
+                    throw e;
+            }
         }
     }
 
@@ -329,74 +955,367 @@ public class Parking {
      * Desaparca un vehículo de una plaza específica del parking.
      * <p>
      * Libera una plaza ocupada, actualiza el estado de la plaza y registra la fecha de salida del vehículo en el ticket correspondiente.
+     * La plaza y el ticket se actualizan en una única transacción; si falla, la plaza y el ticket en memoria no se modifican.
      * </p>
      *
      * @param plaza La plaza de la que se desea desaparcar el vehículo.
      * @throws IllegalStateException Si la plaza no tiene un vehículo aparcado.
      */
     public void desaparcar(Plaza plaza) {
-        // Si la plaza tiene asignado un vehículo, procede a desaparcarlo
-        if (plaza.getMatriculaVehiculo() != null) {
-            plaza.setDisponible(true);
+        desaparcar(plaza, null);
+    }
+
+    /**
+     * Desaparca un vehículo de una plaza y, opcionalmente, registra su salida del parking en la misma transacción.
+     * <p>
+     * Si se indica el vehículo saliente, se comprueba con la plaza ya bloqueada que sigue aparcado en ella: otro
+     * terminal puede haberla liberado (y haber aparcado otro vehículo) desde que se buscó la plaza.
+     * </p>
+     *
+     * @param plaza La plaza de la que se desea desaparcar el vehículo.
+     * @param saliente El vehículo que sale del parking, o {@code null} si solo se desaparca.
+     * @return {@code true} si se ha desaparcado, o {@code false} si el vehículo saliente ya no está en la plaza.
+     * @throws IllegalStateException Si la plaza no tiene un vehículo aparcado o no se encuentra su ticket.
+     */
+    private boolean desaparcar(Plaza plaza, Vehiculo saliente) {
+        ReentrantLock bloqueoPlaza = bloqueoPlaza(plaza.getNUMERODEPLAZA());
+        bloqueoPlaza.lock();
+        try {
+            String matricula = plaza.getMatriculaVehiculo();
+            // Si el vehículo saliente ya no ocupa la plaza, no se modifica nada
+            if (saliente != null && (matricula == null
+                    || !normalizaMatricula(matricula).equals(normalizaMatricula(saliente.getMATRICULA()))))
+                return false;
+            // Si la plaza no tiene asignado un vehículo, no hay nada que desaparcar
+            if (matricula == null)
+                throw new IllegalStateException("La plaza " + plaza.getNUMERODEPLAZA() + " no tiene un vehículo aparcado.");
 
-            // Se recupera el ticket asociado a la plaza
-            int id_ticket = ticketDAO.getTicketByMatricula(plaza.getMatriculaVehiculo()).getID();
-            Ticket ticket = null;
+            // Se recupera el ticket abierto del vehículo, que debe ser también el ticket abierto de esta plaza
+            Ticket ticket = ticketsAbiertosPorMatricula.get(normalizaMatricula(matricula));
+            if (ticket == null || ticketsAbiertosPorPlaza.get(plaza.getNUMERODEPLAZA()) != ticket)
+                throw new IllegalStateException("No se encuentra el Ticket abierto del vehículo con matrícula " + matricula);
 
-            //Bucle para encontrar el ticket del histórico de tickets
-            for(Ticket t : historicoTickets){
-                if (t.getID() == id_ticket) {
-                    ticket = t;
-                    break;
-                }
+            LocalDateTime fechaSalida = LocalDateTime.now();
+            if (!ticket.validaFecha(fechaSalida))
+                throw new RuntimeException("La fecha de salida no puede ser anterior a la fecha de entrada.");
+
+            // Se preparan el nuevo estado de la plaza y el ticket cerrado, con su precio total
+            Plaza libre = new Plaza(plaza.getNUMERODEPLAZA());
+            Ticket cerrado = new Ticket(ticket.getID(), ticket.getMATRICULA(), ticket.getNUM_PLAZA(),
+                    ticket.getFECHA_ENTRADA(), fechaSalida, Ticket.SIN_PRECIO);
+            cerrado.setPrecioCentimos(calculaPrecio(cerrado));
+
+            if (saliente != null)
+                saliente.setActivo(false);
+            try {
+                Transaccion<Void> transaccion = conexion -> {
+                    plazaDAO.actualizaPlaza(conexion, libre);
+                    ticketDAO.actualizaTicket(conexion, cerrado);
+                    if (saliente != null)
+                        vehiculoDAO.actualizaVehiculo(conexion, saliente);
+                    return null;
+                };
+                if (saliente != null)
+                    persiste(transaccion, libre, cerrado, saliente);
+                else
+                    persiste(transaccion, libre, cerrado);
+            } catch (RuntimeException e) {
+                if (saliente != null)
+                    saliente.setActivo(true);
+                throw e;
             }
 
+            // Confirmada la transacción, se aplican los cambios en memoria
+            ticket.setFechaSalida(fechaSalida);
+            ticket.setPrecioCentimos(cerrado.getPrecioCentimos());
+            ticketsAbiertosPorPlaza.remove(plaza.getNUMERODEPLAZA());
+            ticketsAbiertosPorMatricula.remove(normalizaMatricula(ticket.getMATRICULA()));
+            historicoTickets.ticketCerrado(ticket);
+            if (diarioEventos != null) {
+                diarioEventos.registraDesaparcamiento(ticket);
+                if (saliente != null)
+                    diarioEventos.registraSalida(saliente.getMATRICULA());
+            }
+            estadisticas.registraSalida(tipoVehiculo(matricula), ticket.getFECHA_ENTRADA(), fechaSalida,
+                    cerrado.getPrecioCentimos());
+            indicePlazas.remove(normalizaMatricula(matricula));
             plaza.setMatriculaVehiculo(null);
+            plaza.setDisponible(true);
+            if (instantaneaPlazas != null)
+                instantaneaPlazas.libera(plaza.getNUMERODEPLAZA());
 
-            // Se actualiza la plaza en la base de datos
-            plazaDAO.actualizaPlaza(plaza);
+            // La plaza solo se anuncia como libre cuando ya está actualizada
+            ocupacion.liberar(plaza.getNUMERODEPLAZA());
+            return true;
+        } finally {
+            bloqueoPlaza.unlock();
+        }
+    }
 
-            //Se actualiza la fecha de salida en el ticket correspondiente
-            ticket.setFechaSalida(LocalDateTime.now());
-            //Se actualiza el precio total del ticket calculando la diferencia entrada-sallida
-            ticket.setPrecioTotal(calculaPrecio(ticket));
+    /**
+     * Obtiene el ticket abierto (sin fecha de salida) de un vehículo aparcado.
+     *
+     * @param vehiculo El vehículo.
+     * @return El ticket abierto del vehículo, o {@code null} si no está aparcado.
+     */
+    public Ticket getTicketAbierto(Vehiculo vehiculo) {
+        return ticketsAbiertosPorMatricula.get(normalizaMatricula(vehiculo.getMATRICULA()));
+    }
 
-            // Se actualiza el ticket en la base de datos para registrar la fecha de salida
-            ticketDAO.actualizaTicket(ticket);
+    /**
+     * Añade un ticket sin fecha de salida a los índices de tickets abiertos por plaza y por matrícula.
+     *
+     * @param ticket El ticket abierto.
+     */
+    private void registraTicketAbierto(Ticket ticket) {
+        ticketsAbiertosPorPlaza.put(ticket.getNUM_PLAZA(), ticket);
+        ticketsAbiertosPorMatricula.put(normalizaMatricula(ticket.getMATRICULA()), ticket);
+    }
 
-        } else
-            throw new IllegalStateException("La plaza " + plaza.getNUMERODEPLAZA() + " no tiene un vehículo aparcado.");
+    /**
+     * Avisa de una fase de la carga inicial cuando la carga termine correctamente.
+     *
+     * @param carga La carga.
+     * @param avisoFase Receptor de las fases completadas, o {@code null} para no avisar.
+     * @param fase La descripción de la fase.
+     * @param <T> El tipo del resultado de la carga.
+     * @return La misma carga.
+     */
+    private static <T> CompletableFuture<T> avisa(CompletableFuture<T> carga, Consumer<String> avisoFase, String fase) {
+        if (avisoFase != null) {
+            carga.thenRun(() -> avisoFase.accept(fase));
+        }
+        return carga;
+    }
+
+    /**
+     * Comprueba si el estado recuperado del diario local coincide con la base de datos: el último ID de ticket y los
+     * tickets abiertos (ID, matrícula y plaza) deben ser los mismos.
+     * <p>
+     * Con escritura diferida, antes de comparar se vuelcan los cambios pendientes, que la base de datos todavía no
+     * refleja. Si no se puede acceder a la base de datos, se confía en el diario.
+     * </p>
+     *
+     * @param recuperado El estado recuperado del diario.
+     * @param escrituraDiferida La cola de escritura diferida, o {@code null} si no se usa.
+     * @return {@code true} si el diario coincide con la base de datos o no se puede acceder a ella.
+     */
+    private boolean coincideConBaseDatos(DiarioEventos.Estado recuperado, EscrituraDiferida escrituraDiferida) {
+        int ultimoId;
+        ArrayList<Ticket> abiertos;
+        try {
+            if (escrituraDiferida != null)
+                escrituraDiferida.vacia();
+            ultimoId = ticketDAO.getUltimoId();
+            abiertos = ticketDAO.getTicketsAbiertos();
+        } catch (IllegalStateException e) {
+            System.out.println("No se puede comprobar el diario local con la base de datos: " + e.getMessage());
+            return true;
+        }
+        if (ultimoId != recuperado.getUltimoIdTicket() || abiertos.size() != recuperado.getTicketsAbiertos().size())
+            return false;
+        Map<Integer, Ticket> porId = new HashMap<>();
+        for (Ticket ticket : abiertos)
+            porId.put(ticket.getID(), ticket);
+        for (Ticket ticket : recuperado.getTicketsAbiertos()) {
+            Ticket enBaseDatos = porId.get(ticket.getID());
+            if (enBaseDatos == null || enBaseDatos.getNUM_PLAZA() != ticket.getNUM_PLAZA()
+                    || !enBaseDatos.getMATRICULA().equals(ticket.getMATRICULA()))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Espera el resultado de una carga del arranque, relanzando la excepción original si ha fallado.
+     *
+     * @param carga La carga.
+     * @param <T> El tipo del resultado de la carga.
+     * @return El resultado de la carga.
+     * @throws IllegalArgumentException Si la carga ha fallado con una excepción comprobada.
+     */
+    private static <T> T espera(CompletableFuture<T> carga) {
+        try {
+            return carga.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalArgumentException(e.getCause());
+        }
+    }
+
+    /**
+     * Obtiene el tipo de un vehículo registrado.
+     *
+     * @param matricula La matrícula del vehículo.
+     * @return El tipo del vehículo, o {@code null} si no está registrado.
+     */
+    private TipoVehiculo tipoVehiculo(String matricula) {
+        Vehiculo vehiculo = indiceVehiculos.get(normalizaMatricula(matricula));
+        return vehiculo == null ? null : vehiculo.getTIPO();
+    }
+
+    /**
+     * Persiste los cambios de una operación de puerta. En modo de escritura diferida se registran en la cola;
+     * en caso contrario se ejecuta la transacción.
+     *
+     * @param transaccion La transacción que escribe los cambios en la base de datos.
+     * @param cambios El nuevo estado de las plazas, vehículos y tickets que modifica la transacción.
+     * @throws IllegalStateException Si falla la base de datos o la cola de escritura.
+     */
+    private void persiste(Transaccion<?> transaccion, Object... cambios) {
+        if (escrituraDiferida != null)
+            escrituraDiferida.registra(cambios);
+        else
+            enTransaccion(transaccion);
+    }
+
+    /**
+     * Ejecuta una unidad de trabajo en una transacción sobre una única conexión del origen de datos.
+     * <p>
+     * Si la unidad de trabajo termina sin errores se confirma la transacción; en caso contrario se deshace
+     * y se relanza el error.
+     * </p>
+     *
+     * @param transaccion La unidad de trabajo que se ejecuta sobre la conexión.
+     * @param <T> El tipo del resultado de la unidad de trabajo.
+     * @return El resultado de la unidad de trabajo.
+     * @throws IllegalStateException Si ocurre un error con la base de datos; la transacción se deshace.
+     */
+    private <T> T enTransaccion(Transaccion<T> transaccion) {
+        try (Connection conexion = ORIGEN_DATOS.getConnection()) {
+            conexion.setAutoCommit(false);
+            try {
+                T resultado = transaccion.ejecuta(conexion);
+                conexion.commit();
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    conexion.rollback();
+                } catch (SQLException ex) {
+                    e.addSuppressed(ex);
+                }
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error en la transacción con la base de datos: " + e.getMessage(), e);
+        }
     }
 
     /**
      * Calcula el precio del estacionamiento basado en la duración de la estancia
-     * y las características del vehículo.
+     * y las características del vehículo, según las reglas del {@link MotorTarifas} del parking.
      *
      * @param ticket El ticket que contiene la información de la entrada y salida del vehículo.
-     * @return El precio calculado del estacionamiento.
+     * @return El precio calculado del estacionamiento, en céntimos.
      *
      * @throws NullPointerException Si el ticket o las fechas de entrada/salida son nulos.
      * @throws IllegalArgumentException Si la fecha de entrada es posterior a la fecha de salida.
+     * @throws RuntimeException Si el vehículo del ticket no está registrado.
      */
-    public Double calculaPrecio(Ticket ticket) {
+    public long calculaPrecio(Ticket ticket) {
+        //Se obtiene el vehículo para saber qué reglas de tarifa se le aplican
+        Vehiculo vehiculo = getVehiculoByMatricula(ticket.getMATRICULA());
 
-        //Se obtienen las fechas de entrada y salida para calcular su diferencia
-        LocalDateTime date1 = ticket.getFECHA_ENTRADA(), date2 = ticket.getFechaSalida();
+        return motorTarifas.calculaCentimos(vehiculo.getTIPO(), vehiculo.getPAIS(),
+                ticket.getFECHA_ENTRADA(), ticket.getFechaSalida());
+    }
 
-        Duration duration = Duration.between(date1, date2);
-        //Se transforma la diferencia entre fechas a minutos
-        double minutosTranscurridos = duration.toMinutes();
+    /**
+     * Recalcula con las tarifas actuales el precio de todos los tickets cerrados de un almacén de tickets.
+     * Los tickets de vehículos que no están registrados en el parking no se modifican.
+     *
+     * @param almacen El almacén de tickets, que se modifica.
+     * @return La suma de los precios recalculados, en céntimos.
+     * @see TicketDAO#cargaAlmacenTickets()
+     */
+    public long recalculaPrecios(AlmacenTickets almacen) {
+        return motorTarifas.recalcula(almacen, matricula -> indiceVehiculos.get(normalizaMatricula(matricula)));
+    }
 
-        //Se obtiene el vehículo para saber si tiene un plus de dimensión o no
-        Vehiculo vehiculo = getVehiculoByMatricula(ticket.getMATRICULA());
+    /**
+     * Crea un motor de estadísticas sobre el histórico completo de tickets.
+     * <p>
+     * El histórico se lee de la base de datos por páginas y se guarda en un {@link AlmacenTickets} compacto,
+     * independiente del estado del parking: los tickets posteriores no se incluyen.
+     * </p>
+     *
+     * @return El motor de estadísticas.
+     * @throws IllegalStateException Si ocurre un error al consultar la base de datos.
+     */
+    public AnaliticaParking creaAnalitica() {
+        // Los cambios todavía pendientes de la escritura diferida se vuelcan antes de leer el histórico
+        if (escrituraDiferida != null)
+            escrituraDiferida.vacia();
+        return new AnaliticaParking(ticketDAO.cargaAlmacenTickets(),
+                matricula -> indiceVehiculos.get(normalizaMatricula(matricula)));
+    }
+
+    /**
+     * Obtiene una página del histórico de tickets de la base de datos, del más reciente al más antiguo.
+     * <p>
+     * Antes de leer la primera página se vuelcan los cambios pendientes de la escritura diferida, para que la
+     * consulta incluya los últimos tickets.
+     * </p>
+     *
+     * @param desde La fecha de entrada mínima (incluida), o {@code null} para no limitarla.
+     * @param hasta La fecha de entrada máxima (excluida), o {@code null} para no limitarla.
+     * @param matricula La matrícula de los tickets, o {@code null} para todas.
+     * @param antesDeId El ID del último ticket de la página anterior, o 0 para la primera página.
+     * @param limite El número máximo de tickets de la página.
+     * @return Los tickets de la página, ordenados por ID de mayor a menor.
+     * @throws IllegalStateException Si ocurre un error al consultar la base de datos.
+     * @see TicketDAO#getPaginaHistorico(LocalDateTime, LocalDateTime, String, int, int)
+     */
+    public List<Ticket> getPaginaHistorico(LocalDateTime desde, LocalDateTime hasta, String matricula, int antesDeId,
+                                           int limite) {
+        if (escrituraDiferida != null && antesDeId <= 0)
+            escrituraDiferida.vacia();
+        return ticketDAO.getPaginaHistorico(desde, hasta, matricula, antesDeId, limite);
+    }
 
-        //Se multiplican los minutos totales por el precio/minuto de cada vehículo
-        double precioTotal = minutosTranscurridos*vehiculo.getPrecioPorMinuto();
+    /**
+     * Obtiene las estadísticas incrementales del parking, cuyos indicadores se leen en tiempo constante.
+     *
+     * @return Las estadísticas del parking.
+     */
+    public EstadisticasParking getEstadisticas() {
+        return estadisticas;
+    }
 
-        if (vehiculo.tienePlusDimension())
-            return Math.min(precioTotal, PRECIO_MAXIMO_ESTANCIA_PLUS);
-        else
-            return Math.min(precioTotal, PRECIO_MAXIMO_ESTANCIA);
+    /**
+     * Inicia la persistencia periódica de las estadísticas por hora en la tabla {@code estadistica_hora}.
+     *
+     * @param periodo El tiempo entre dos persistencias.
+     * @param unidad La unidad del periodo.
+     * @throws IllegalArgumentException Si el periodo no es positivo.
+     */
+    public void iniciaPersistenciaEstadisticas(long periodo, TimeUnit unidad) {
+        estadisticas.iniciaPersistencia(new EstadisticaDAO(ORIGEN_DATOS), periodo, unidad);
+    }
+
+    /**
+     * Obtiene el motor de tarifas del parking.
+     *
+     * @return El motor de tarifas.
+     */
+    public MotorTarifas getMotorTarifas() {
+        return motorTarifas;
+    }
+
+    /**
+     * Establece el motor de tarifas del parking. Se aplica a las salidas posteriores; los tickets ya cerrados
+     * conservan su precio.
+     *
+     * @param motorTarifas El nuevo motor de tarifas.
+     * @throws IllegalArgumentException Si el motor es {@code null}.
+     */
+    public void setMotorTarifas(MotorTarifas motorTarifas) {
+        if (motorTarifas == null) {
+            throw new IllegalArgumentException("El motor de tarifas no puede ser nulo.");
+        }
+        this.motorTarifas = motorTarifas;
     }
 
     /**
@@ -411,7 +1330,7 @@ public class Parking {
      */
     public ArrayList<Vehiculo> getVehiculosActivos() {
         // Se recuperan todos los vehículos activos
-        List<Vehiculo> vehiculosActivos = vehiculosRegistrados.stream()
+        List<Vehiculo> vehiculosActivos = indiceVehiculos.values().stream()
                 .filter(Vehiculo::isActivo)
                 .toList();
 
@@ -428,15 +1347,14 @@ public class Parking {
      *         aparcados en el parking.
      */
     public ArrayList<Vehiculo> getVehiculosAparcados() {
-        // Se recuperan todas las plazas que tienen un vehículo aparcado
-        List<Plaza> plazasAparcadas = listadoPlazas.stream()
-                .filter(p -> !p.isDisponible())
-                .toList();
-
         ArrayList<Vehiculo> result = new ArrayList<>();
 
-        for (Plaza p : plazasAparcadas) {
-            result.add(getVehiculoByMatricula(p.getMatriculaVehiculo()));
+        // Se recuperan todas las plazas que tienen un vehículo aparcado, leyendo la matrícula una sola vez
+        // por si otro terminal desaparca el vehículo mientras se recorre el listado
+        for (Plaza p : listadoPlazas) {
+            String matricula = p.getMatriculaVehiculo();
+            if (matricula != null)
+                result.add(getVehiculoByMatricula(matricula));
         }
         return result;
     }
@@ -452,16 +1370,16 @@ public class Parking {
      * @throws RuntimeException Si no se encuentra ningún vehículo con la matrícula especificada.
      */
     public Vehiculo getVehiculoByMatricula(String matricula) {
-        return vehiculosRegistrados.stream()
-                .filter(v -> v.getMATRICULA().equalsIgnoreCase(matricula))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("No se ha encontrado ningún vehículo con matrícula " + matricula));
+        Vehiculo vehiculo = matricula == null ? null : indiceVehiculos.get(normalizaMatricula(matricula));
+        if (vehiculo == null)
+            throw new RuntimeException("No se ha encontrado ningún vehículo con matrícula " + matricula);
+        return vehiculo;
     }
 
     /**
      * Obtiene la plaza de aparcamiento asociada a un vehículo dado.
      * <p>
-     * Recorre la lista de plazas de aparcamiento y busca la plaza que tiene un vehículo con la matrícula especificada.
+     * Consulta el índice de plazas ocupadas por la matrícula del vehículo.
      * Si no se encuentra ninguna plaza asociada al vehículo, devuelve {@code null}.
      * </p>
      *
@@ -469,10 +1387,7 @@ public class Parking {
      * @return La plaza de aparcamiento asociada al vehículo dado, o {@code null} si no se encuentra ninguna plaza.
      */
     public Plaza getPlazaByVehiculo(Vehiculo vehiculo) {
-        return listadoPlazas.stream()
-                .filter(p -> p.getMatriculaVehiculo() != null && p.getMatriculaVehiculo().equalsIgnoreCase(vehiculo.getMATRICULA()))
-                .findFirst()
-                .orElse(null);
+        return indicePlazas.get(normalizaMatricula(vehiculo.getMATRICULA()));
     }
 
     /**
@@ -512,28 +1427,79 @@ public class Parking {
     /**
      * Verifica si todos los espacios de estacionamiento (Plazas) en la lista están ocupados.
      *
-     * Este método itera y verifica si alguna de las plazas está disponible.
+     * Este método consulta el contador de plazas libres del mapa de ocupación.
      *
      * @return {@code true} si todos los espacios de estacionamiento están ocupados,
      * {@code false} en caso contrario.
      */
     public boolean isComplete() {
-        return listadoPlazas.stream()
-                .noneMatch(Plaza::isDisponible);
+        return ocupacion.isCompleto();
     }
 
     /**
      * Verifica si un {@link Vehiculo} está registrado en el sistema.
      *
-     * <p>Este método busca en la lista de vehículos registrados para determinar
+     * <p>Este método consulta el índice de vehículos registrados para determinar
      * si un vehículo con la misma matrícula ya está registrado en la base de datos.
 
      * @param vehiculo el vehículo a verificar
      * @return {@code true} si el vehículo está registrado, {@code false} en caso contrario
      */
     public boolean isRegistrated(Vehiculo vehiculo){
-        return vehiculosRegistrados.stream()
-                .anyMatch(v -> v.getMATRICULA().equalsIgnoreCase(vehiculo.getMATRICULA()));
+        return indiceVehiculos.containsKey(normalizaMatricula(vehiculo.getMATRICULA()));
+    }
+
+    /**
+     * Obtiene el cerrojo que protege una plaza.
+     *
+     * @param numeroDePlaza El número de la plaza.
+     * @return El cerrojo asociado a la plaza.
+     */
+    private ReentrantLock bloqueoPlaza(int numeroDePlaza) {
+        return bloqueosPlazas[(numeroDePlaza - 1) & (bloqueosPlazas.length - 1)];
+    }
+
+    /**
+     * Obtiene el cerrojo que protege un vehículo a partir de su matrícula.
+     *
+     * @param matricula La matrícula del vehículo.
+     * @return El cerrojo asociado a la matrícula.
+     */
+    private ReentrantLock bloqueoVehiculo(String matricula) {
+        int hash = normalizaMatricula(matricula).hashCode();
+        return bloqueosVehiculos[(hash ^ (hash >>> 16)) & (bloqueosVehiculos.length - 1)];
+    }
+
+    /**
+     * Crea un conjunto de cerrojos cuyo tamaño es la potencia de dos inmediatamente superior a la cantidad indicada.
+     *
+     * @param cantidad Número mínimo de cerrojos.
+     * @return El array de cerrojos creado.
+     */
+    private static ReentrantLock[] creaBloqueos(int cantidad) {
+        int tamano = 1;
+        while (tamano < cantidad)
+            tamano <<= 1;
+
+        ReentrantLock[] bloqueos = new ReentrantLock[tamano];
+        for (int i = 0; i < tamano; i++) {
+            bloqueos[i] = new ReentrantLock();
+        }
+        return bloqueos;
+    }
+
+    /**
+     * Normaliza una matrícula para utilizarla como clave de los índices del parking.
+     * <p>
+     * Las búsquedas por matrícula no distinguen mayúsculas de minúsculas, por lo que todas las claves
+     * se almacenan en mayúsculas.
+     * </p>
+     *
+     * @param matricula La matrícula a normalizar.
+     * @return La matrícula en mayúsculas.
+     */
+    private static String normalizaMatricula(String matricula) {
+        return matricula.toUpperCase();
     }
 
     /**
@@ -547,7 +1513,7 @@ public class Parking {
     public void showParkingStatus() {
         System.out.println("Estado actual del parking:");
         System.out.println("Número total de plazas: " + NUMERO_DE_PLAZAS);
-        System.out.println("Plazas disponibles: " + getAvaiblePlaces().size());
+        System.out.println("Plazas disponibles: " + getNumeroPlazasDisponibles());
         System.out.println("Vehículos registrados: " + vehiculosRegistrados.size());
         System.out.println("Historial de tickets: " + historicoTickets.size());
         System.out.println("\nPlazas:");
@@ -555,8 +1521,10 @@ public class Parking {
             System.out.println(plaza.toString());
         }
         System.out.println("\nVehículos:");
-        for (Vehiculo vehiculo : vehiculosRegistrados) {
-            System.out.println(vehiculo.toString());
+        synchronized (vehiculosRegistrados) {
+            for (Vehiculo vehiculo : vehiculosRegistrados) {
+                System.out.println(vehiculo.toString());
+            }
         }
         System.out.println("\nHistorial de tickets:");
         for (Ticket ticket : historicoTickets) {
@@ -564,4 +1532,21 @@ public class Parking {
         }
     }
 
+    /**
+     * Unidad de trabajo que se ejecuta dentro de una transacción de {@link #enTransaccion(Transaccion)}.
+     *
+     * @param <T> El tipo del resultado.
+     */
+    @FunctionalInterface
+    private interface Transaccion<T> {
+
+        /**
+         * Ejecuta las sentencias de la unidad de trabajo sobre la conexión indicada.
+         *
+         * @param conexion La conexión con la transacción abierta.
+         * @return El resultado de la unidad de trabajo.
+         * @throws SQLException Si ocurre un error al ejecutar alguna sentencia.
+         */
+        T ejecuta(Connection conexion) throws SQLException;
+    }
 }
@@ -19,13 +19,13 @@ public class Plaza {
     /**
      * Indica si la plaza está disponible para ser utilizada.
      */
-    private boolean disponible;
+    private volatile boolean disponible;
 
     /**
      * Matrícula del vehículo asignado a la plaza.
      * Puede ser {@code null} si la plaza está disponible.
      */
-    private String matriculaVehiculo;
+    private volatile String matriculaVehiculo;
 
     /**
      * Constructor que inicializa una plaza con todos los atributos.
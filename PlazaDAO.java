@@ -1,32 +1,35 @@
 package GESTION_DE_PARKING;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 
 /**
  * Esta clase gestiona la interacción con la base de datos para la entidad Plaza.
  * Permite crear, eliminar, actualizar y obtener información de las plazas en la base de datos.
+ * Cada operación toma prestada una conexión del origen de datos y la devuelve al terminar.
  *
  * @version 1.0
  */
 public class PlazaDAO {
 
     /**
-     * Conexión a la base de datos.
+     * Origen de datos del que se obtienen las conexiones a la base de datos.
      */
-    private final Connection CONEXION;
+    private final DataSource ORIGEN_DATOS;
 
     /**
-     * Constructor que inicializa la conexión a la base de datos.
+     * Constructor que inicializa el origen de datos de la base de datos.
      *
-     * @param conexion La conexión a la base de datos.
-     * @throws NullPointerException Si {@code conexion} es {@code null}.
+     * @param origenDatos El origen de datos (normalmente un {@link PoolConexiones}).
+     * @throws NullPointerException Si {@code origenDatos} es {@code null}.
      */
-    public PlazaDAO(Connection conexion){
-        if (conexion == null) {
-            throw new NullPointerException("La conexión no puede ser nula.");
+    public PlazaDAO(DataSource origenDatos){
+        if (origenDatos == null) {
+            throw new NullPointerException("El origen de datos no puede ser nulo.");
         }
-        CONEXION = conexion;
+        ORIGEN_DATOS = origenDatos;
     }
 
     /**
@@ -43,8 +46,8 @@ public class PlazaDAO {
         }
 
         String sentencia = "INSERT INTO plaza (numero, disponible) VALUES (?, ?)";
-        try {
-            PreparedStatement miPrep = CONEXION.prepareStatement(sentencia);
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miPrep = conexion.prepareStatement(sentencia)) {
             miPrep.setInt(1, plaza.getNUMERODEPLAZA());
             miPrep.setBoolean(2, plaza.isDisponible());
 
@@ -55,6 +58,39 @@ public class PlazaDAO {
         }
     }
 
+    /**
+     * Crea un conjunto de plazas en la base de datos con un único lote JDBC, en una sola transacción.
+     * <p>
+     * Con el parámetro {@code rewriteBatchedStatements=true} de la URL, el driver de MySQL envía el lote como una
+     * sola sentencia, en lugar de una ida y vuelta por plaza.
+     * </p>
+     *
+     * @param plazas Las plazas a crear.
+     * @throws IllegalArgumentException Si ocurre un error al ejecutar el lote; no se crea ninguna plaza.
+     */
+    public void creaPlazas(Collection<Plaza> plazas) {
+        String sentencia = "INSERT INTO plaza (numero, disponible) VALUES (?, ?)";
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miPrep = conexion.prepareStatement(sentencia)) {
+            conexion.setAutoCommit(false);
+            try {
+                for (Plaza plaza : plazas) {
+                    miPrep.setInt(1, plaza.getNUMERODEPLAZA());
+                    miPrep.setBoolean(2, plaza.isDisponible());
+                    miPrep.addBatch();
+                }
+                miPrep.executeBatch();
+                conexion.commit();
+            } catch (SQLException ex) {
+                conexion.rollback();
+                throw ex;
+            }
+
+        } catch (SQLException ex) {
+            throw new IllegalArgumentException(ex.getMessage());
+        }
+    }
+
     /**
      * Elimina una plaza de la base de datos.
      *
@@ -70,17 +106,19 @@ public class PlazaDAO {
         }
 
         String sentencia = "DELETE FROM plaza WHERE numero = ?";
+        int eliminadas;
 
-        if (validaPlaza(plaza.getNUMERODEPLAZA())) {
-            try {
-                PreparedStatement miPrep = CONEXION.prepareStatement(sentencia);
-                miPrep.setInt(1, plaza.getNUMERODEPLAZA());
-                miPrep.executeUpdate();
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miPrep = conexion.prepareStatement(sentencia)) {
+            miPrep.setInt(1, plaza.getNUMERODEPLAZA());
+            eliminadas = miPrep.executeUpdate();
 
-            } catch (SQLException ex) {
-                throw new IllegalArgumentException(ex.getMessage());
-            }
-        } else {
+        } catch (SQLException ex) {
+            throw new IllegalArgumentException(ex.getMessage());
+        }
+
+        // Si no se ha eliminado ninguna fila, la plaza no estaba registrada
+        if (eliminadas == 0) {
             throw new IllegalArgumentException("El número de plaza " + plaza.getNUMERODEPLAZA() + " no está registrado en la base de datos.");
         }
     }
@@ -98,18 +136,58 @@ public class PlazaDAO {
             throw new NullPointerException("La plaza no puede ser nula.");
         }
 
+        try (Connection conexion = ORIGEN_DATOS.getConnection()) {
+            actualizaPlaza(conexion, plaza);
+        } catch (SQLException ex) {
+            throw new IllegalArgumentException(ex.getMessage());
+        }
+    }
+
+    /**
+     * Actualiza los datos de una plaza utilizando una conexión proporcionada por el llamador.
+     * <p>
+     * Permite incluir la actualización en una transacción junto con otras operaciones:
+     * la conexión no se cierra ni se confirma.
+     * </p>
+     *
+     * @param conexion La conexión (normalmente con una transacción abierta) sobre la que se ejecuta la sentencia.
+     * @param plaza La plaza con los nuevos datos a actualizar.
+     * @throws SQLException Si ocurre un error al ejecutar la sentencia SQL.
+     */
+    public void actualizaPlaza(Connection conexion, Plaza plaza) throws SQLException {
         String sentencia = "UPDATE plaza SET disponible = ?, matriculaVehiculo = ? WHERE numero = ?";
 
-        try {
-            PreparedStatement miPrep = CONEXION.prepareStatement(sentencia);
+        try (PreparedStatement miPrep = conexion.prepareStatement(sentencia)) {
             miPrep.setBoolean(1, plaza.isDisponible());
             miPrep.setString(2, plaza.getMatriculaVehiculo());
             miPrep.setInt(3, plaza.getNUMERODEPLAZA());
 
             miPrep.executeUpdate();
+        }
+    }
 
-        } catch (SQLException ex) {
-            throw new IllegalArgumentException(ex.getMessage());
+    /**
+     * Actualiza los datos de un conjunto de plazas en un único lote JDBC utilizando una conexión proporcionada
+     * por el llamador. La conexión no se cierra ni se confirma.
+     *
+     * @param conexion La conexión (normalmente con una transacción abierta) sobre la que se ejecuta el lote.
+     * @param plazas Las plazas con los nuevos datos a actualizar.
+     * @throws SQLException Si ocurre un error al ejecutar el lote.
+     */
+    public void actualizaPlazas(Connection conexion, Collection<Plaza> plazas) throws SQLException {
+        if (plazas.isEmpty()) {
+            return;
+        }
+        String sentencia = "UPDATE plaza SET disponible = ?, matriculaVehiculo = ? WHERE numero = ?";
+
+        try (PreparedStatement miPrep = conexion.prepareStatement(sentencia)) {
+            for (Plaza plaza : plazas) {
+                miPrep.setBoolean(1, plaza.isDisponible());
+                miPrep.setString(2, plaza.getMatriculaVehiculo());
+                miPrep.setInt(3, plaza.getNUMERODEPLAZA());
+                miPrep.addBatch();
+            }
+            miPrep.executeBatch();
         }
     }
 
@@ -124,15 +202,15 @@ public class PlazaDAO {
         ArrayList<Plaza> lista = new ArrayList<>();
         String sentencia = "SELECT * FROM plaza";
 
-        try {
-            Statement miSt = CONEXION.createStatement();
-            ResultSet miRes = miSt.executeQuery(sentencia);
-
-            while (miRes.next()){
-                lista.add(new Plaza(
-                        miRes.getInt(1),
-                        miRes.getBoolean(2),
-                        miRes.getString(3)));
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miSt = conexion.prepareStatement(sentencia)) {
+            try (ResultSet miRes = miSt.executeQuery()) {
+                while (miRes.next()){
+                    lista.add(new Plaza(
+                            miRes.getInt(1),
+                            miRes.getBoolean(2),
+                            miRes.getString(3)));
+                }
             }
 
         } catch (SQLException ex) {
@@ -158,14 +236,14 @@ public class PlazaDAO {
         String sentencia = "SELECT numero FROM plaza WHERE numero = ?";
         boolean valido = false;
 
-        try {
-            PreparedStatement miSt = CONEXION.prepareStatement(sentencia);
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miSt = conexion.prepareStatement(sentencia)) {
             miSt.setInt(1, numPlaza);
 
-            ResultSet miRes = miSt.executeQuery();
-
-            if (miRes.next()) {
-                valido = true;
+            try (ResultSet miRes = miSt.executeQuery()) {
+                if (miRes.next()) {
+                    valido = true;
+                }
             }
 
         } catch (SQLException ex) {
@@ -0,0 +1,634 @@
+package GESTION_DE_PARKING;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Pool de conexiones JDBC de tamaño limitado.
+ * <p>
+ * Mantiene un conjunto de conexiones físicas abiertas contra la base de datos y las presta a los DAOs
+ * para cada operación. La conexión que se obtiene con {@link #getConnection()} es un envoltorio: al cerrarla
+ * no se cierra la conexión física, sino que se devuelve al pool para que otro hilo pueda reutilizarla.
+ * </p>
+ * <p>
+ * Antes de prestar una conexión que lleva un tiempo sin usarse se comprueba que sigue siendo válida, de modo que una
+ * conexión caída con el servidor se descarta y se sustituye por otra nueva. Un hilo en segundo plano cierra
+ * las conexiones que permanecen inactivas más tiempo del configurado. El pool registra además el número de préstamos
+ * y el tiempo que los hilos han tenido que esperar para obtener una conexión.
+ * </p>
+ * <p>
+ * Cada conexión física mantiene una {@link CacheSentencias}: las sentencias preparadas con
+ * {@code prepareStatement(String)} o {@code prepareStatement(String, int)} se reutilizan entre préstamos
+ * en lugar de prepararse de nuevo en cada operación.
+ * </p>
+ * <p>
+ * Al implementar {@link DataSource}, funciona con cualquier driver JDBC a partir de su URL, incluidas
+ * bases de datos embebidas en memoria.
+ * </p>
+ *
+ * @version 1.0
+ * @see VehiculoDAO
+ * @see PlazaDAO
+ * @see TicketDAO
+ */
+public class PoolConexiones implements DataSource, AutoCloseable {
+
+    /**
+     * Tiempo por defecto (en milisegundos) que una conexión puede permanecer inactiva antes de cerrarse.
+     */
+    public static final long INACTIVIDAD_MAXIMA_POR_DEFECTO = 5 * 60 * 1000;
+
+    /**
+     * Tiempo por defecto (en milisegundos) que un hilo espera a que quede una conexión libre.
+     */
+    public static final long ESPERA_MAXIMA_POR_DEFECTO = 30 * 1000;
+
+    /**
+     * Tiempo (en milisegundos) durante el que una conexión recién devuelta se presta sin volver a validarla.
+     */
+    private static final long VENTANA_SIN_VALIDACION = 500;
+
+    /**
+     * Tiempo máximo (en segundos) que se espera a la respuesta del servidor al validar una conexión.
+     */
+    private static final int TIEMPO_VALIDACION = 2;
+
+    /**
+     * Número máximo de sentencias preparadas que se guardan en la caché de cada conexión física.
+     */
+    private static final int SENTENCIAS_POR_CONEXION = 64;
+
+    /**
+     * URL JDBC de la base de datos.
+     */
+    private final String URL;
+
+    /**
+     * Usuario con el que se abren las conexiones.
+     */
+    private final String USUARIO;
+
+    /**
+     * Contraseña con la que se abren las conexiones.
+     */
+    private final String CONTRASENA;
+
+    /**
+     * Número máximo de conexiones físicas abiertas a la vez.
+     */
+    private final int TAMANO_MAXIMO;
+
+    /**
+     * Tiempo (en milisegundos) que una conexión puede permanecer inactiva antes de cerrarse.
+     */
+    private final long INACTIVIDAD_MAXIMA;
+
+    /**
+     * Tiempo (en milisegundos) que un hilo espera a que quede una conexión libre.
+     */
+    private final long ESPERA_MAXIMA;
+
+    /**
+     * Permisos de préstamo. Limitan el número de conexiones prestadas al tamaño máximo del pool.
+     */
+    private final Semaphore permisos;
+
+    /**
+     * Conexiones físicas libres. La más reciente se presta primero para aprovechar las conexiones ya activas
+     * y dejar que las más antiguas caduquen por inactividad.
+     */
+    private final LinkedBlockingDeque<ConexionFisica> libres = new LinkedBlockingDeque<>();
+
+    /**
+     * Hilo que cierra periódicamente las conexiones inactivas.
+     */
+    private final ScheduledExecutorService desalojo;
+
+    /**
+     * Número de conexiones físicas abiertas en este momento.
+     */
+    private final AtomicInteger abiertas = new AtomicInteger();
+
+    /**
+     * Número total de préstamos realizados.
+     */
+    private final LongAdder prestamos = new LongAdder();
+
+    /**
+     * Suma de los tiempos de espera (en nanosegundos) de todos los préstamos.
+     */
+    private final LongAdder esperaTotal = new LongAdder();
+
+    /**
+     * Mayor tiempo de espera (en nanosegundos) registrado en un préstamo.
+     */
+    private final AtomicLong esperaMaxima = new AtomicLong();
+
+    /**
+     * Número de sentencias preparadas reutilizadas desde la caché.
+     */
+    private final LongAdder aciertosSentencias = new LongAdder();
+
+    /**
+     * Número de sentencias que han tenido que prepararse porque no estaban en la caché.
+     */
+    private final LongAdder fallosSentencias = new LongAdder();
+
+    /**
+     * Indica si el pool se ha cerrado.
+     */
+    private volatile boolean cerrado;
+
+    /**
+     * Flujo de registro requerido por {@link DataSource}.
+     */
+    private PrintWriter registro;
+
+    /**
+     * Constructor que crea un pool con los tiempos de inactividad y espera por defecto.
+     *
+     * @param url La URL JDBC de la base de datos.
+     * @param usuario El usuario de la base de datos.
+     * @param contrasena La contraseña del usuario.
+     * @param tamanoMaximo El número máximo de conexiones abiertas a la vez.
+     * @throws IllegalArgumentException Si el tamaño máximo no es positivo.
+     */
+    public PoolConexiones(String url, String usuario, String contrasena, int tamanoMaximo) {
+        this(url, usuario, contrasena, tamanoMaximo, INACTIVIDAD_MAXIMA_POR_DEFECTO, ESPERA_MAXIMA_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor que crea un pool con todos los parámetros especificados.
+     *
+     * @param url La URL JDBC de la base de datos.
+     * @param usuario El usuario de la base de datos.
+     * @param contrasena La contraseña del usuario.
+     * @param tamanoMaximo El número máximo de conexiones abiertas a la vez.
+     * @param inactividadMaxima Tiempo (en milisegundos) que una conexión libre puede permanecer inactiva antes de cerrarse.
+     * @param esperaMaxima Tiempo (en milisegundos) que un hilo espera a que quede una conexión libre.
+     * @throws IllegalArgumentException Si el tamaño máximo o alguno de los tiempos no son positivos.
+     * @throws NullPointerException Si {@code url} es {@code null}.
+     */
+    public PoolConexiones(String url, String usuario, String contrasena, int tamanoMaximo, long inactividadMaxima, long esperaMaxima) {
+        if (url == null) {
+            throw new NullPointerException("La URL de la base de datos no puede ser nula.");
+        }
+        if (tamanoMaximo <= 0 || inactividadMaxima <= 0 || esperaMaxima <= 0) {
+            throw new IllegalArgumentException("El tamaño del pool y sus tiempos de espera deben ser positivos.");
+        }
+        URL = url;
+        USUARIO = usuario;
+        CONTRASENA = contrasena;
+        TAMANO_MAXIMO = tamanoMaximo;
+        INACTIVIDAD_MAXIMA = inactividadMaxima;
+        ESPERA_MAXIMA = esperaMaxima;
+        permisos = new Semaphore(tamanoMaximo, true);
+
+        desalojo = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "pool-conexiones-desalojo");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long periodo = Math.max(1000, inactividadMaxima / 2);
+        desalojo.scheduleWithFixedDelay(this::desalojaInactivas, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una conexión del pool.
+     * <p>
+     * Si no hay ninguna conexión libre y el pool no ha alcanzado su tamaño máximo, se abre una nueva.
+     * Si el pool está lleno, el hilo espera a que se devuelva alguna conexión. La conexión debe cerrarse
+     * (preferiblemente con un bloque try-with-resources) para devolverla al pool.
+     * </p>
+     *
+     * @return Una conexión lista para usarse.
+     * @throws SQLException Si el pool está cerrado, si se agota el tiempo de espera o si no se puede abrir la conexión.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool de conexiones está cerrado.");
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            if (!permisos.tryAcquire(ESPERA_MAXIMA, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Tiempo de espera agotado: no hay conexiones libres en el pool (" + TAMANO_MAXIMO + " en uso).");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido mientras se esperaba una conexión del pool.", e);
+        }
+        registraEspera(System.nanoTime() - inicio);
+
+        try {
+            return envuelve(obtenConexionFisica());
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Operación no soportada: todas las conexiones del pool usan las credenciales con las que se creó.
+     *
+     * @param usuario El usuario.
+     * @param contrasena La contraseña.
+     * @return Nunca devuelve un valor.
+     * @throws SQLException Siempre.
+     */
+    @Override
+    public Connection getConnection(String usuario, String contrasena) throws SQLException {
+        throw new SQLFeatureNotSupportedException("El pool solo presta conexiones con las credenciales con las que se creó.");
+    }
+
+    /**
+     * Obtiene una conexión física libre y válida, o abre una nueva si no queda ninguna.
+     *
+     * @return Una conexión física.
+     * @throws SQLException Si no se puede abrir una nueva conexión.
+     */
+    private ConexionFisica obtenConexionFisica() throws SQLException {
+        ConexionFisica libre;
+        while ((libre = libres.pollFirst()) != null) {
+            if (System.currentTimeMillis() - libre.devueltaEn < VENTANA_SIN_VALIDACION || esValida(libre.conexion)) {
+                return libre;
+            }
+            // La conexión se ha caído: se descarta y se prueba con la siguiente
+            cierraFisica(libre);
+        }
+
+        Connection conexion = DriverManager.getConnection(URL, USUARIO, CONTRASENA);
+        abiertas.incrementAndGet();
+        return new ConexionFisica(conexion, new CacheSentencias(conexion, SENTENCIAS_POR_CONEXION, aciertosSentencias, fallosSentencias));
+    }
+
+    /**
+     * Devuelve al pool una conexión física prestada.
+     * <p>
+     * Si la conexión se dejó con una transacción abierta, se deshace y se restablece el modo autocommit
+     * para que el siguiente hilo la reciba en un estado limpio.
+     * </p>
+     *
+     * @param fisica La conexión física que se devuelve.
+     */
+    private void devuelve(ConexionFisica fisica) {
+        try {
+            if (cerrado || fisica.conexion.isClosed()) {
+                cierraFisica(fisica);
+                return;
+            }
+            if (!fisica.conexion.getAutoCommit()) {
+                fisica.conexion.rollback();
+                fisica.conexion.setAutoCommit(true);
+            }
+            fisica.devueltaEn = System.currentTimeMillis();
+            libres.offerFirst(fisica);
+        } catch (SQLException e) {
+            cierraFisica(fisica);
+        } finally {
+            permisos.release();
+        }
+    }
+
+    /**
+     * Comprueba si una conexión física sigue abierta y responde.
+     *
+     * @param fisica La conexión a comprobar.
+     * @return {@code true} si la conexión es válida, {@code false} en caso contrario.
+     */
+    private boolean esValida(Connection fisica) {
+        try {
+            return fisica.isValid(TIEMPO_VALIDACION);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Cierra las conexiones libres que llevan inactivas más tiempo del permitido.
+     */
+    private void desalojaInactivas() {
+        long limite = System.currentTimeMillis() - INACTIVIDAD_MAXIMA;
+        // Las conexiones más antiguas están al final de la cola
+        Iterator<ConexionFisica> it = libres.descendingIterator();
+        while (it.hasNext()) {
+            ConexionFisica libre = it.next();
+            if (libre.devueltaEn < limite && libres.removeLastOccurrence(libre)) {
+                cierraFisica(libre);
+            }
+        }
+    }
+
+    /**
+     * Cierra una conexión física y las sentencias de su caché, ignorando los errores.
+     *
+     * @param fisica La conexión a cerrar.
+     */
+    private void cierraFisica(ConexionFisica fisica) {
+        abiertas.decrementAndGet();
+        fisica.sentencias.cierra();
+        try {
+            fisica.conexion.close();
+        } catch (SQLException e) {
+            System.out.println("Error al cerrar una conexión del pool: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registra el tiempo que ha esperado un préstamo.
+     *
+     * @param nanos El tiempo de espera en nanosegundos.
+     */
+    private void registraEspera(long nanos) {
+        prestamos.increment();
+        esperaTotal.add(nanos);
+        esperaMaxima.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Crea el envoltorio que se entrega a los DAOs. Al cerrarlo, la conexión física se devuelve al pool.
+     *
+     * @param fisica La conexión física.
+     * @return La conexión envuelta.
+     */
+    private Connection envuelve(ConexionFisica fisica) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConexionPrestada(fisica));
+    }
+
+    /**
+     * Cierra el pool y todas sus conexiones libres. Las conexiones prestadas se cierran al devolverse.
+     */
+    @Override
+    public void close() {
+        cerrado = true;
+        desalojo.shutdownNow();
+        ConexionFisica libre;
+        while ((libre = libres.pollFirst()) != null) {
+            cierraFisica(libre);
+        }
+    }
+
+    /**
+     * Obtiene el número máximo de conexiones del pool.
+     *
+     * @return El tamaño máximo del pool.
+     */
+    public int getTamanoMaximo() {
+        return TAMANO_MAXIMO;
+    }
+
+    /**
+     * Obtiene el número de conexiones físicas abiertas (prestadas o libres).
+     *
+     * @return El número de conexiones abiertas.
+     */
+    public int getConexionesAbiertas() {
+        return abiertas.get();
+    }
+
+    /**
+     * Obtiene el número de conexiones físicas libres.
+     *
+     * @return El número de conexiones libres.
+     */
+    public int getConexionesLibres() {
+        return libres.size();
+    }
+
+    /**
+     * Obtiene el número de hilos que están esperando una conexión.
+     *
+     * @return El número aproximado de hilos en espera.
+     */
+    public int getHilosEsperando() {
+        return permisos.getQueueLength();
+    }
+
+    /**
+     * Obtiene el número total de préstamos realizados.
+     *
+     * @return El número de préstamos.
+     */
+    public long getPrestamos() {
+        return prestamos.sum();
+    }
+
+    /**
+     * Obtiene el número de sentencias preparadas que se han reutilizado desde la caché.
+     *
+     * @return El número de aciertos de la caché de sentencias.
+     */
+    public long getAciertosCacheSentencias() {
+        return aciertosSentencias.sum();
+    }
+
+    /**
+     * Obtiene el número de sentencias que se han tenido que preparar porque no estaban en la caché.
+     *
+     * @return El número de fallos de la caché de sentencias.
+     */
+    public long getFallosCacheSentencias() {
+        return fallosSentencias.sum();
+    }
+
+    /**
+     * Obtiene el tiempo medio de espera para obtener una conexión.
+     *
+     * @return El tiempo medio de espera en nanosegundos, o 0 si aún no se ha prestado ninguna conexión.
+     */
+    public long getEsperaMediaNanos() {
+        long total = prestamos.sum();
+        return total == 0 ? 0 : esperaTotal.sum() / total;
+    }
+
+    /**
+     * Obtiene el mayor tiempo de espera registrado para obtener una conexión.
+     *
+     * @return El tiempo máximo de espera en nanosegundos.
+     */
+    public long getEsperaMaximaNanos() {
+        return esperaMaxima.get();
+    }
+
+    /**
+     * Obtiene el flujo de registro del origen de datos.
+     *
+     * @return El flujo de registro, o {@code null} si no se ha establecido.
+     */
+    @Override
+    public PrintWriter getLogWriter() {
+        return registro;
+    }
+
+    /**
+     * Establece el flujo de registro del origen de datos.
+     *
+     * @param out El flujo de registro.
+     */
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        registro = out;
+    }
+
+    /**
+     * Establece el tiempo máximo de espera al abrir una conexión física.
+     *
+     * @param seconds El tiempo máximo en segundos.
+     */
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    /**
+     * Obtiene el tiempo máximo de espera al abrir una conexión física.
+     *
+     * @return El tiempo máximo en segundos.
+     */
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    /**
+     * Operación no soportada: el pool no utiliza {@code java.util.logging}.
+     *
+     * @return Nunca devuelve un valor.
+     * @throws SQLFeatureNotSupportedException Siempre.
+     */
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException("El pool no utiliza java.util.logging.");
+    }
+
+    /**
+     * Devuelve este pool si implementa la interfaz solicitada.
+     *
+     * @param iface La interfaz solicitada.
+     * @return Este pool convertido a la interfaz solicitada.
+     * @throws SQLException Si el pool no implementa la interfaz.
+     */
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("El pool no envuelve ningún objeto de tipo " + iface.getName());
+    }
+
+    /**
+     * Indica si este pool implementa la interfaz solicitada.
+     *
+     * @param iface La interfaz solicitada.
+     * @return {@code true} si el pool implementa la interfaz.
+     */
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * Conexión física del pool junto con su caché de sentencias y el instante en que se devolvió por última vez.
+     */
+    private static final class ConexionFisica {
+
+        /**
+         * Conexión física.
+         */
+        private final Connection conexion;
+
+        /**
+         * Caché de sentencias preparadas sobre esta conexión.
+         */
+        private final CacheSentencias sentencias;
+
+        /**
+         * Instante (en milisegundos) en que se devolvió la conexión.
+         */
+        private long devueltaEn;
+
+        private ConexionFisica(Connection conexion, CacheSentencias sentencias) {
+            this.conexion = conexion;
+            this.sentencias = sentencias;
+        }
+    }
+
+    /**
+     * Manejador del envoltorio de una conexión prestada. Delega todas las llamadas en la conexión física,
+     * salvo {@code close()}, que la devuelve al pool, y la preparación de sentencias, que pasa por la caché.
+     */
+    private final class ConexionPrestada implements InvocationHandler {
+
+        /**
+         * Conexión física prestada. Pasa a {@code null} cuando se devuelve al pool.
+         */
+        private ConexionFisica fisica;
+
+        private ConexionPrestada(ConexionFisica fisica) {
+            this.fisica = fisica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "close" -> {
+                    if (fisica != null) {
+                        ConexionFisica devuelta = fisica;
+                        fisica = null;
+                        devuelve(devuelta);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return fisica == null || fisica.conexion.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Conexión del pool " + (fisica == null ? "(devuelta)" : fisica.conexion.toString());
+                }
+            }
+            if (fisica == null) {
+                throw new SQLException("La conexión ya se ha devuelto al pool.");
+            }
+            // Las sentencias preparadas sin opciones de cursor se obtienen de la caché de la conexión
+            if (metodo.getName().equals("prepareStatement") && args.length <= 2
+                    && (args.length == 1 || metodo.getParameterTypes()[1] == int.class)) {
+                int clavesGeneradas = args.length == 1 ? Statement.NO_GENERATED_KEYS : (Integer) args[1];
+                return fisica.sentencias.prepara((String) args[0], clavesGeneradas, (Connection) proxy);
+            }
+            try {
+                return metodo.invoke(fisica.conexion, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package GESTION_DE_PARKING;
+
+import java.util.Arrays;
+
+/**
+ * Regla de tarifa que se aplica a un tipo de vehículo y, opcionalmente, a un país concreto.
+ * <p>
+ * Una regla define:
+ * </p>
+ * <ul>
+ *     <li>Unos minutos iniciales gratuitos, que se descuentan de toda estancia.</li>
+ *     <li>Tramos por duración dentro de cada día de estancia: cada tramo empieza en un minuto del día (el primero
+ *     en el minuto 0) y tiene su propio precio por minuto, en céntimos.</li>
+ *     <li>Un tope diario, que limita lo que se cobra por cada bloque de 24 horas de estancia.</li>
+ *     <li>Un tope por estancia, que limita el precio total.</li>
+ * </ul>
+ * <p>
+ * Las reglas con país tienen prioridad sobre las reglas sin país del mismo tipo de vehículo.
+ * Las reglas son inmutables; {@link MotorTarifas} las compila en tablas planas para calcular los precios.
+ * </p>
+ *
+ * @version 1.0
+ * @see MotorTarifas
+ */
+public class ReglaTarifa {
+
+    /**
+     * Valor de los topes que indica que no hay límite.
+     */
+    public static final long SIN_TOPE = Long.MAX_VALUE;
+
+    /**
+     * Tipo de vehículo al que se aplica la regla.
+     */
+    private final TipoVehiculo TIPO;
+
+    /**
+     * País al que se aplica la regla, o {@code null} si se aplica a todos.
+     */
+    private final Paises PAIS;
+
+    /**
+     * Minutos gratuitos al principio de cada estancia.
+     */
+    private final int MINUTOS_GRATIS;
+
+    /**
+     * Minuto del día en que empieza cada tramo, en orden creciente y empezando en 0.
+     */
+    private final int[] INICIO_TRAMOS;
+
+    /**
+     * Precio por minuto de cada tramo, en céntimos.
+     */
+    private final long[] CENTIMOS_POR_MINUTO;
+
+    /**
+     * Máximo que se cobra por cada día de estancia, en céntimos.
+     */
+    private final long TOPE_DIARIO;
+
+    /**
+     * Máximo que se cobra por una estancia, en céntimos.
+     */
+    private final long TOPE_ESTANCIA;
+
+    /**
+     * Constructor de una regla de tarifa con un único precio por minuto.
+     *
+     * @param tipo El tipo de vehículo al que se aplica la regla.
+     * @param pais El país al que se aplica la regla, o {@code null} para todos los países.
+     * @param centimosPorMinuto El precio por minuto, en céntimos.
+     * @param topeEstancia El máximo que se cobra por una estancia, en céntimos, o {@link #SIN_TOPE}.
+     * @throws IllegalArgumentException Si algún valor no es válido.
+     */
+    public ReglaTarifa(TipoVehiculo tipo, Paises pais, long centimosPorMinuto, long topeEstancia) {
+        this(tipo, pais, 0, new int[]{0}, new long[]{centimosPorMinuto}, SIN_TOPE, topeEstancia);
+    }
+
+    /**
+     * Constructor de una regla de tarifa completa.
+     *
+     * @param tipo El tipo de vehículo al que se aplica la regla.
+     * @param pais El país al que se aplica la regla, o {@code null} para todos los países.
+     * @param minutosGratis Los minutos gratuitos al principio de cada estancia.
+     * @param inicioTramos El minuto del día en que empieza cada tramo, en orden creciente y empezando en 0.
+     * @param centimosPorMinuto El precio por minuto de cada tramo, en céntimos.
+     * @param topeDiario El máximo que se cobra por cada día de estancia, en céntimos, o {@link #SIN_TOPE}.
+     * @param topeEstancia El máximo que se cobra por una estancia, en céntimos, o {@link #SIN_TOPE}.
+     * @throws IllegalArgumentException Si algún valor no es válido.
+     */
+    public ReglaTarifa(TipoVehiculo tipo, Paises pais, int minutosGratis, int[] inicioTramos,
+                       long[] centimosPorMinuto, long topeDiario, long topeEstancia) {
+        if (tipo == null) {
+            throw new IllegalArgumentException("La regla de tarifa debe indicar un tipo de vehículo.");
+        }
+        if (minutosGratis < 0 || topeDiario < 0 || topeEstancia < 0) {
+            throw new IllegalArgumentException("Los minutos gratuitos y los topes de la tarifa no pueden ser negativos.");
+        }
+        if (inicioTramos.length == 0 || inicioTramos.length != centimosPorMinuto.length || inicioTramos[0] != 0) {
+            throw new IllegalArgumentException("Los tramos de la tarifa deben empezar en el minuto 0 y tener un precio cada uno.");
+        }
+        for (int i = 0; i < inicioTramos.length; i++) {
+            if (centimosPorMinuto[i] < 0) {
+                throw new IllegalArgumentException("El precio por minuto de un tramo no puede ser negativo.");
+            }
+            if (i > 0 && (inicioTramos[i] <= inicioTramos[i - 1] || inicioTramos[i] >= MotorTarifas.MINUTOS_DIA)) {
+                throw new IllegalArgumentException("Los tramos de la tarifa deben estar en orden creciente y dentro del día.");
+            }
+        }
+        TIPO = tipo;
+        PAIS = pais;
+        MINUTOS_GRATIS = minutosGratis;
+        INICIO_TRAMOS = inicioTramos.clone();
+        CENTIMOS_POR_MINUTO = centimosPorMinuto.clone();
+        TOPE_DIARIO = topeDiario;
+        TOPE_ESTANCIA = topeEstancia;
+    }
+
+    /**
+     * Obtiene el tipo de vehículo al que se aplica la regla.
+     *
+     * @return El tipo de vehículo.
+     */
+    public TipoVehiculo getTIPO() {
+        return TIPO;
+    }
+
+    /**
+     * Obtiene el país al que se aplica la regla.
+     *
+     * @return El país, o {@code null} si la regla se aplica a todos los países.
+     */
+    public Paises getPAIS() {
+        return PAIS;
+    }
+
+    /**
+     * Obtiene los minutos gratuitos al principio de cada estancia.
+     *
+     * @return Los minutos gratuitos.
+     */
+    public int getMINUTOS_GRATIS() {
+        return MINUTOS_GRATIS;
+    }
+
+    /**
+     * Obtiene el minuto del día en que empieza cada tramo.
+     *
+     * @return Una copia de los inicios de los tramos.
+     */
+    public int[] getINICIO_TRAMOS() {
+        return INICIO_TRAMOS.clone();
+    }
+
+    /**
+     * Obtiene el precio por minuto de cada tramo.
+     *
+     * @return Una copia de los precios por minuto, en céntimos.
+     */
+    public long[] getCENTIMOS_POR_MINUTO() {
+        return CENTIMOS_POR_MINUTO.clone();
+    }
+
+    /**
+     * Obtiene el máximo que se cobra por cada día de estancia.
+     *
+     * @return El tope diario en céntimos, o {@link #SIN_TOPE}.
+     */
+    public long getTOPE_DIARIO() {
+        return TOPE_DIARIO;
+    }
+
+    /**
+     * Obtiene el máximo que se cobra por una estancia.
+     *
+     * @return El tope por estancia en céntimos, o {@link #SIN_TOPE}.
+     */
+    public long getTOPE_ESTANCIA() {
+        return TOPE_ESTANCIA;
+    }
+
+    /**
+     * Retorna una representación de la regla.
+     *
+     * @return Una cadena con el ámbito y los valores de la regla.
+     */
+    @Override
+    public String toString() {
+        return TIPO + (PAIS == null ? "" : " (" + PAIS + ")") +
+                ": gratis " + MINUTOS_GRATIS + " min, tramos " + Arrays.toString(INICIO_TRAMOS) +
+                " a " + Arrays.toString(CENTIMOS_POR_MINUTO) + " cent/min, tope diario " +
+                (TOPE_DIARIO == SIN_TOPE ? "-" : TOPE_DIARIO) + ", tope estancia " +
+                (TOPE_ESTANCIA == SIN_TOPE ? "-" : TOPE_ESTANCIA);
+    }
+}
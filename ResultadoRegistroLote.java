@@ -0,0 +1,151 @@
+package GESTION_DE_PARKING;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de registrar un lote de vehículos con {@link Parking#entradaParkingBatch(java.util.Collection)}.
+ * <p>
+ * Contiene los vehículos que se han registrado correctamente y, para cada vehículo rechazado, su posición
+ * dentro del lote y el motivo del rechazo. El registro de un lote no se detiene por los vehículos inválidos:
+ * cada uno se informa por separado.
+ * </p>
+ *
+ * @version 1.0
+ * @see Parking
+ * @see VehiculoDAO
+ */
+public class ResultadoRegistroLote {
+
+    /**
+     * Vehículos registrados correctamente, en el orden del lote.
+     */
+    private final List<Vehiculo> registrados = new ArrayList<>();
+
+    /**
+     * Vehículos rechazados, en el orden del lote.
+     */
+    private final List<Fallo> fallos = new ArrayList<>();
+
+    /**
+     * Añade un vehículo registrado correctamente.
+     *
+     * @param vehiculo El vehículo registrado.
+     */
+    void agregaRegistrado(Vehiculo vehiculo) {
+        registrados.add(vehiculo);
+    }
+
+    /**
+     * Añade un vehículo rechazado.
+     *
+     * @param posicion La posición del vehículo dentro del lote (empezando en 0).
+     * @param vehiculo El vehículo rechazado. Puede ser {@code null}.
+     * @param motivo El motivo del rechazo.
+     */
+    void agregaFallo(int posicion, Vehiculo vehiculo, String motivo) {
+        fallos.add(new Fallo(posicion, vehiculo, motivo));
+    }
+
+    /**
+     * Obtiene los vehículos registrados correctamente.
+     *
+     * @return Una lista no modificable de los vehículos registrados.
+     */
+    public List<Vehiculo> getRegistrados() {
+        return Collections.unmodifiableList(registrados);
+    }
+
+    /**
+     * Obtiene los vehículos rechazados junto con el motivo.
+     *
+     * @return Una lista no modificable de los fallos, ordenada por posición en el lote.
+     */
+    public List<Fallo> getFallos() {
+        return Collections.unmodifiableList(fallos);
+    }
+
+    /**
+     * Verifica si todos los vehículos del lote se han registrado.
+     *
+     * @return {@code true} si no hay ningún fallo, {@code false} en caso contrario.
+     */
+    public boolean isCompleto() {
+        return fallos.isEmpty();
+    }
+
+    /**
+     * Retorna un resumen del resultado del registro.
+     *
+     * @return Una cadena con el número de vehículos registrados y rechazados.
+     */
+    @Override
+    public String toString() {
+        return "Vehículos registrados: " + registrados.size() + ". Vehículos rechazados: " + fallos.size();
+    }
+
+    /**
+     * Vehículo del lote que no se ha podido registrar.
+     */
+    public static final class Fallo {
+
+        /**
+         * Posición del vehículo dentro del lote.
+         */
+        private final int POSICION;
+
+        /**
+         * Vehículo rechazado.
+         */
+        private final Vehiculo VEHICULO;
+
+        /**
+         * Motivo del rechazo.
+         */
+        private final String MOTIVO;
+
+        private Fallo(int posicion, Vehiculo vehiculo, String motivo) {
+            POSICION = posicion;
+            VEHICULO = vehiculo;
+            MOTIVO = motivo;
+        }
+
+        /**
+         * Obtiene la posición del vehículo dentro del lote.
+         *
+         * @return La posición (empezando en 0).
+         */
+        public int getPOSICION() {
+            return POSICION;
+        }
+
+        /**
+         * Obtiene el vehículo rechazado.
+         *
+         * @return El vehículo, o {@code null} si el lote contenía un elemento nulo.
+         */
+        public Vehiculo getVEHICULO() {
+            return VEHICULO;
+        }
+
+        /**
+         * Obtiene el motivo del rechazo.
+         *
+         * @return El motivo.
+         */
+        public String getMOTIVO() {
+            return MOTIVO;
+        }
+
+        /**
+         * Retorna una representación del fallo.
+         *
+         * @return Una cadena con la posición, la matrícula y el motivo.
+         */
+        @Override
+        public String toString() {
+            return "[" + POSICION + "] " + (VEHICULO == null ? null : VEHICULO.getMATRICULA()) + ": " + MOTIVO;
+        }
+    }
+}
@@ -12,6 +12,11 @@ import java.util.Objects;
  */
 public class Ticket {
 
+    /**
+     * Valor del precio de un ticket que todavía no tiene precio (el vehículo sigue aparcado).
+     */
+    public static final long SIN_PRECIO = Long.MIN_VALUE;
+
     /**
      * El identificador único del ticket.
      */
@@ -35,12 +40,13 @@ public class Ticket {
     /**
      * La fecha y hora de salida del vehículo.
      */
-    private LocalDateTime fechaSalida;
+    private volatile LocalDateTime fechaSalida;
 
     /**
-     * El precio total del estacionamiento. Comenzará en 1.0 por coste de entrada.
+     * El precio total del estacionamiento en céntimos, o {@link #SIN_PRECIO} mientras el ticket está abierto.
      */
-    private Double precioTotal;
+    private volatile long precioTotal;
+
     /**
      * Constructor para un Ticket con todos los atributos especificados.
      *
@@ -49,9 +55,10 @@ public class Ticket {
      * @param NUM_PLAZA    El número de la plaza de estacionamiento asignada.
      * @param FECHA_ENTRADA La fecha y hora de entrada del vehículo al parking.
      * @param fechaSalida  La fecha y hora de salida prevista del vehículo del parking.
-     * @param precioTotal El precio total a abonar por la diferencia entre entrada-salida.
+     * @param precioTotal El precio total a abonar por la diferencia entre entrada-salida, en céntimos,
+     *                    o {@link #SIN_PRECIO}.
      */
-    public Ticket(Integer ID, String MATRICULA, Integer NUM_PLAZA, LocalDateTime FECHA_ENTRADA, LocalDateTime fechaSalida, Double precioTotal) {
+    public Ticket(Integer ID, String MATRICULA, Integer NUM_PLAZA, LocalDateTime FECHA_ENTRADA, LocalDateTime fechaSalida, long precioTotal) {
         this.ID = ID;
         this.MATRICULA = MATRICULA;
         this.NUM_PLAZA = NUM_PLAZA;
@@ -74,6 +81,7 @@ public class Ticket {
         this.NUM_PLAZA = NUM_PLAZA;
         this.FECHA_ENTRADA = FECHA_ENTRADA;
         this.fechaSalida = fechaSalida;
+        precioTotal = SIN_PRECIO;
     }
 
     /**
@@ -124,12 +132,21 @@ public class Ticket {
     /**
      * Obtiene el precio total del ticket.
      *
-     * @return El precio total.
+     * @return El precio total en céntimos, o {@link #SIN_PRECIO} si el ticket todavía no tiene precio.
      */
-    public Double getPrecioTotal() {
+    public long getPrecioCentimos() {
         return precioTotal;
     }
 
+    /**
+     * Verifica si el ticket tiene precio, es decir, si ya se ha calculado al cerrarlo.
+     *
+     * @return {@code true} si el ticket tiene precio, {@code false} en caso contrario.
+     */
+    public boolean tienePrecio() {
+        return getPrecioCentimos() != SIN_PRECIO;
+    }
+
     /**
      * Establece la fecha y hora de salida del vehículo del parking.
      *
@@ -141,7 +158,7 @@ public class Ticket {
         if (fechaSalida == null) {
             throw new NullPointerException("La fecha de salida no puede ser nula.");
         }
-        if (fechaSalida.isAfter(this.FECHA_ENTRADA)) {
+        if (fechaSalida.isAfter(getFECHA_ENTRADA())) {
             this.fechaSalida = fechaSalida;
         } else {
             throw new RuntimeException("La fecha de salida no puede ser anterior a la fecha de entrada.");
@@ -151,9 +168,9 @@ public class Ticket {
     /**
      * Establece el precio total del ticket.
      *
-     * @param precioTotal El precio total a establecer.
+     * @param precioTotal El precio total a establecer, en céntimos.
      */
-    public void setPrecioTotal(Double precioTotal) {
+    public void setPrecioCentimos(long precioTotal) {
         this.precioTotal = precioTotal;
     }
 
@@ -168,7 +185,7 @@ public class Ticket {
         if (fechaSalida == null) {
             throw new NullPointerException("La fecha de salida no puede ser nula.");
         }
-        return fechaSalida.isAfter(FECHA_ENTRADA);
+        return fechaSalida.isAfter(getFECHA_ENTRADA());
     }
 
 /**
@@ -180,9 +197,8 @@ public class Ticket {
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Ticket ticket = (Ticket) o;
-        return Objects.equals(ID, ticket.ID);
+        if (!(o instanceof Ticket ticket)) return false;
+        return Objects.equals(getID(), ticket.getID());
     }
 
     /**
@@ -192,7 +208,7 @@ public class Ticket {
      */
     @Override
     public int hashCode() {
-        return Objects.hashCode(ID);
+        return Objects.hashCode(getID());
     }
 
     /**
@@ -205,11 +221,11 @@ public class Ticket {
         return "\n ===========================" +
                 "\n|           TICKET          |" +
                 "\n =========================== " +
-                "\n    Id: " + ID +
-                "\n    Matrícula: " + MATRICULA +
-                "\n    Nº plaza: " + NUM_PLAZA +
-                "\n    Inicio: " + FECHA_ENTRADA +
-                "\n    Salida: " + fechaSalida +
+                "\n    Id: " + getID() +
+                "\n    Matrícula: " + getMATRICULA() +
+                "\n    Nº plaza: " + getNUM_PLAZA() +
+                "\n    Inicio: " + getFECHA_ENTRADA() +
+                "\n    Salida: " + getFechaSalida() +
                 "\n ===========================";
     }
 }
@@ -1,26 +1,40 @@
 package GESTION_DE_PARKING;
 
+import javax.sql.DataSource;
+import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Esta clase proporciona métodos para acceder y manipular datos de tickets en una base de datos.
- * Utiliza una conexión JDBC para interactuar con la base de datos subyacente.
+ * Cada operación toma prestada una conexión JDBC del origen de datos y la devuelve al terminar.
  *
  * @version 1.0
  */
 public class TicketDAO {
 
-    private final Connection CONEXION;
+    /**
+     * Origen de datos del que se obtienen las conexiones a la base de datos.
+     */
+    private final DataSource ORIGEN_DATOS;
+
+    /**
+     * Número de tickets que se leen en cada página de los recorridos con {@link CursorPaginado}.
+     */
+    private static final int TAMANO_PAGINA_CURSOR = 1000;
 
     /**
-     * Constructor de la clase TicketDAO que inicializa la conexión a la base de datos.
+     * Constructor de la clase TicketDAO que inicializa el origen de datos de la base de datos.
      *
-     * @param conexion La conexión JDBC a la base de datos.
+     * @param origenDatos El origen de datos JDBC (normalmente un {@link PoolConexiones}).
      */
-    public TicketDAO(Connection conexion) {
-        CONEXION = conexion;
+    public TicketDAO(DataSource origenDatos) {
+        ORIGEN_DATOS = origenDatos;
     }
 
     /**
@@ -33,20 +47,46 @@ public class TicketDAO {
      * </p>
      *
      * @param ticket El objeto {@link Ticket} a crear en la base de datos.
+     * @return El ticket creado, con el ID generado por la base de datos.
      * @throws IllegalStateException Si ocurre un error al ejecutar la consulta SQL.
      */
-    public void creaTicket(Ticket ticket) {
+    public Ticket creaTicket(Ticket ticket) {
+        try (Connection conexion = ORIGEN_DATOS.getConnection()) {
+            return creaTicket(conexion, ticket);
+        } catch (SQLException ex) {
+            throw new IllegalStateException(ex.getMessage());
+        }
+    }
+
+    /**
+     * Crea un nuevo ticket utilizando una conexión proporcionada por el llamador.
+     * <p>
+     * El ID asignado por la base de datos se obtiene de las claves generadas por el propio {@code INSERT},
+     * sin volver a consultar la tabla. La conexión no se cierra ni se confirma, de forma que la inserción
+     * puede formar parte de una transacción.
+     * </p>
+     *
+     * @param conexion La conexión (normalmente con una transacción abierta) sobre la que se ejecuta la sentencia.
+     * @param ticket El objeto {@link Ticket} a crear en la base de datos.
+     * @return Un nuevo {@link Ticket} con los mismos datos y el ID generado por la base de datos.
+     * @throws SQLException Si ocurre un error al ejecutar la sentencia SQL o no se genera ningún ID.
+     */
+    public Ticket creaTicket(Connection conexion, Ticket ticket) throws SQLException {
         String sentencia = "INSERT INTO ticket (matricula, numeroPlaza, fechaEntrada) VALUES (?, ?, ?)";
-        try {
-            PreparedStatement miPrep = CONEXION.prepareStatement(sentencia);
+        try (PreparedStatement miPrep = conexion.prepareStatement(sentencia, Statement.RETURN_GENERATED_KEYS)) {
             miPrep.setString(1, ticket.getMATRICULA());
             miPrep.setInt(2, ticket.getNUM_PLAZA());
             miPrep.setTimestamp(3, Timestamp.valueOf(ticket.getFECHA_ENTRADA()));
 
             miPrep.executeUpdate();
 
-        } catch (SQLException ex) {
-            throw new IllegalStateException(ex.getMessage());
+            try (ResultSet claves = miPrep.getGeneratedKeys()) {
+                if (!claves.next()) {
+                    throw new SQLException("No se ha generado el ID del Ticket del vehículo con matrícula " + ticket.getMATRICULA());
+                }
+                return new Ticket(claves.getInt(1), ticket.getMATRICULA(), ticket.getNUM_PLAZA(),
+                        ticket.getFECHA_ENTRADA(), ticket.getFechaSalida(), ticket.getPrecioCentimos());
+            }
         }
     }
 
@@ -64,18 +104,17 @@ public class TicketDAO {
     public void eliminaTicket(Ticket ticket) {
         String sentencia = "DELETE FROM ticket WHERE id = ?";
 
-        if (validaTicket(ticket.getID())) {
-            try {
-                PreparedStatement miPrep = CONEXION.prepareStatement(sentencia);
-                miPrep.setInt(1, ticket.getID());
-
-                miPrep.executeUpdate();
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miPrep = conexion.prepareStatement(sentencia)) {
+            miPrep.setInt(1, ticket.getID());
 
-            } catch (SQLException ex) {
-                System.out.println(ex.getMessage());
+            // Si no se ha eliminado ninguna fila, el ticket no estaba registrado
+            if (miPrep.executeUpdate() == 0) {
+                throw new RuntimeException("Ha habido un error. El Ticket: " + ticket + " no se encuentra registrado en la base de datos.");
             }
-        } else {
-            throw new RuntimeException("Ha habido un error. El Ticket: " + ticket + " no se encuentra registrado en la base de datos.");
+
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
         }
     }
 
@@ -87,18 +126,77 @@ public class TicketDAO {
      * @throws RuntimeException Si ocurre un error durante la actualización del ticket en la base de datos.
      */
     public void actualizaTicket(Ticket ticket) {
+        try (Connection conexion = ORIGEN_DATOS.getConnection()) {
+            actualizaTicket(conexion, ticket);
+        } catch (SQLException ex) {
+            throw new RuntimeException("Error en la actualización del Ticket en la base de datos", ex);
+        }
+    }
+
+    /**
+     * Actualiza la fecha de salida y el precio total de un ticket utilizando una conexión proporcionada por el llamador.
+     * La conexión no se cierra ni se confirma, de forma que la actualización puede formar parte de una transacción.
+     *
+     * @param conexion La conexión (normalmente con una transacción abierta) sobre la que se ejecuta la sentencia.
+     * @param ticket El ticket que contiene la información actualizada.
+     * @throws SQLException Si ocurre un error al ejecutar la sentencia SQL.
+     */
+    public void actualizaTicket(Connection conexion, Ticket ticket) throws SQLException {
         String sentencia = "UPDATE ticket SET fechaSalida = ?, precioTotal = ? WHERE id = ?";
 
-        try {
-            PreparedStatement miPrep = CONEXION.prepareStatement(sentencia);
+        try (PreparedStatement miPrep = conexion.prepareStatement(sentencia)) {
             miPrep.setTimestamp(1, Timestamp.valueOf(ticket.getFechaSalida()));
-            miPrep.setDouble(2, ticket.getPrecioTotal());
+            if (ticket.tienePrecio()) {
+                miPrep.setBigDecimal(2, Dinero.aEuros(ticket.getPrecioCentimos()));
+            } else {
+                miPrep.setNull(2, Types.DECIMAL);
+            }
             miPrep.setInt(3, ticket.getID());
 
             miPrep.executeUpdate();
+        }
+    }
 
-        } catch (SQLException ex) {
-            throw new RuntimeException("Error en la actualización del Ticket en la base de datos", ex);
+    /**
+     * Inserta o actualiza un conjunto de tickets con su ID en un único lote JDBC utilizando una conexión
+     * proporcionada por el llamador.
+     * <p>
+     * A diferencia de {@link #creaTicket(Connection, Ticket)}, el ID no lo genera la base de datos sino que se
+     * toma del propio ticket. Los tickets que ya existen se actualizan con su fecha de salida y su precio total,
+     * de forma que repetir el lote no cambia el resultado. La conexión no se cierra ni se confirma.
+     * </p>
+     *
+     * @param conexion La conexión (normalmente con una transacción abierta) sobre la que se ejecuta el lote.
+     * @param tickets Los tickets a guardar.
+     * @throws SQLException Si ocurre un error al ejecutar el lote.
+     */
+    public void guardaTickets(Connection conexion, Collection<Ticket> tickets) throws SQLException {
+        if (tickets.isEmpty()) {
+            return;
+        }
+        String sentencia = "INSERT INTO ticket (id, matricula, numeroPlaza, fechaEntrada, fechaSalida, precioTotal) " +
+                "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                "fechaSalida = VALUES(fechaSalida), precioTotal = VALUES(precioTotal)";
+
+        try (PreparedStatement miPrep = conexion.prepareStatement(sentencia)) {
+            for (Ticket ticket : tickets) {
+                miPrep.setInt(1, ticket.getID());
+                miPrep.setString(2, ticket.getMATRICULA());
+                miPrep.setInt(3, ticket.getNUM_PLAZA());
+                miPrep.setTimestamp(4, Timestamp.valueOf(ticket.getFECHA_ENTRADA()));
+                if (ticket.getFechaSalida() != null) {
+                    miPrep.setTimestamp(5, Timestamp.valueOf(ticket.getFechaSalida()));
+                } else {
+                    miPrep.setNull(5, Types.TIMESTAMP);
+                }
+                if (ticket.tienePrecio()) {
+                    miPrep.setBigDecimal(6, Dinero.aEuros(ticket.getPrecioCentimos()));
+                } else {
+                    miPrep.setNull(6, Types.DECIMAL);
+                }
+                miPrep.addBatch();
+            }
+            miPrep.executeBatch();
         }
     }
 
@@ -116,22 +214,12 @@ public class TicketDAO {
         ArrayList<Ticket> tickets = new ArrayList<>();
         String sentencia = "SELECT * FROM ticket";
 
-        try {
-            PreparedStatement miPrep = CONEXION.prepareStatement(sentencia);
-            ResultSet miRes = miPrep.executeQuery();
-
-            while (miRes.next()) {
-                Timestamp fechaSalidaTimestamp = miRes.getTimestamp("fechaSalida");
-                LocalDateTime fechaSalida = fechaSalidaTimestamp == null ? null : fechaSalidaTimestamp.toLocalDateTime();
-                Ticket ticket = new Ticket(
-                        miRes.getInt("id"),
-                        miRes.getString("matricula"),
-                        miRes.getInt("numeroPlaza"),
-                        miRes.getTimestamp("fechaEntrada").toLocalDateTime(),
-                        fechaSalida,
-                        miRes.getDouble("precioTotal")
-                );
-                tickets.add(ticket);
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miPrep = conexion.prepareStatement(sentencia)) {
+            try (ResultSet miRes = miPrep.executeQuery()) {
+                while (miRes.next()) {
+                    tickets.add(leeTicket(miRes));
+                }
             }
 
         } catch (SQLException ex) {
@@ -140,6 +228,243 @@ public class TicketDAO {
         return tickets;
     }
 
+    /**
+     * Recorre todos los tickets almacenados en la base de datos, ordenados por ID.
+     * <p>
+     * A diferencia de {@link #getAllTickets()}, los tickets se leen por páginas a medida que se consume el
+     * {@link Stream} (paginación por clave sobre el ID), de forma que la memoria usada no depende del tamaño
+     * de la tabla.
+     * </p>
+     *
+     * @return Un stream secuencial de los tickets.
+     * @throws IllegalStateException Si ocurre un error al consultar la base de datos durante el recorrido.
+     */
+    public Stream<Ticket> streamTickets() {
+        return CursorPaginado.stream(ultimo -> getTicketsDesde(ultimo == null ? 0 : ultimo.getID(),
+                TAMANO_PAGINA_CURSOR), TAMANO_PAGINA_CURSOR);
+    }
+
+    /**
+     * Carga todos los tickets de la base de datos en un {@link AlmacenTickets} compacto.
+     * <p>
+     * Los tickets se leen por páginas con {@link #streamTickets()}, de forma que nunca hay más de una página
+     * de objetos {@link Ticket} en memoria a la vez.
+     * </p>
+     *
+     * @return El almacén con todos los tickets, ordenados por ID.
+     * @throws IllegalStateException Si ocurre un error al consultar la base de datos.
+     */
+    public AlmacenTickets cargaAlmacenTickets() {
+        AlmacenTickets almacen = new AlmacenTickets();
+        try (Stream<Ticket> tickets = streamTickets()) {
+            tickets.forEachOrdered(almacen::add);
+        }
+        return almacen;
+    }
+
+    /**
+     * Recorre los tickets cuya fecha de entrada está en un intervalo, ordenados por fecha de entrada e ID.
+     * <p>
+     * La paginación se hace por clave sobre el par (fechaEntrada, id), que aprovecha el índice
+     * {@code idx_ticket_fecha_entrada} de la tabla.
+     * </p>
+     *
+     * @param desde La fecha de entrada mínima (incluida).
+     * @param hasta La fecha de entrada máxima (excluida).
+     * @return Un stream secuencial de los tickets del intervalo.
+     * @throws IllegalArgumentException Si alguna de las fechas es {@code null} o {@code hasta} es anterior a {@code desde}.
+     * @throws IllegalStateException Si ocurre un error al consultar la base de datos durante el recorrido.
+     */
+    public Stream<Ticket> streamTicketsEntreFechas(LocalDateTime desde, LocalDateTime hasta) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("El intervalo de fechas no es válido: " + desde + " - " + hasta);
+        }
+        Timestamp fin = Timestamp.valueOf(hasta);
+        return CursorPaginado.stream(ultimo -> {
+            // La primera página empieza en «desde»: (fecha > desde) o (fecha = desde y id > 0)
+            Timestamp fecha = Timestamp.valueOf(ultimo == null ? desde : ultimo.getFECHA_ENTRADA());
+            int id = ultimo == null ? 0 : ultimo.getID();
+            return consultaTickets("SELECT * FROM ticket WHERE fechaEntrada < ? AND "
+                            + "(fechaEntrada > ? OR (fechaEntrada = ? AND id > ?)) ORDER BY fechaEntrada, id LIMIT ?",
+                    fin, fecha, fecha, id, TAMANO_PAGINA_CURSOR);
+        }, TAMANO_PAGINA_CURSOR);
+    }
+
+    /**
+     * Recorre los tickets de una plaza, ordenados por ID.
+     *
+     * @param numeroPlaza El número de la plaza.
+     * @return Un stream secuencial de los tickets de la plaza.
+     * @throws IllegalStateException Si ocurre un error al consultar la base de datos durante el recorrido.
+     */
+    public Stream<Ticket> streamTicketsPorPlaza(int numeroPlaza) {
+        return CursorPaginado.stream(ultimo -> consultaTickets(
+                "SELECT * FROM ticket WHERE numeroPlaza = ? AND id > ? ORDER BY id LIMIT ?",
+                numeroPlaza, ultimo == null ? 0 : ultimo.getID(), TAMANO_PAGINA_CURSOR), TAMANO_PAGINA_CURSOR);
+    }
+
+    /**
+     * Recorre los tickets de un vehículo, ordenados por ID.
+     *
+     * @param matricula La matrícula del vehículo.
+     * @return Un stream secuencial de los tickets del vehículo.
+     * @throws IllegalStateException Si ocurre un error al consultar la base de datos durante el recorrido.
+     */
+    public Stream<Ticket> streamTicketsPorMatricula(String matricula) {
+        return CursorPaginado.stream(ultimo -> consultaTickets(
+                "SELECT * FROM ticket WHERE matricula = ? AND id > ? ORDER BY id LIMIT ?",
+                matricula, ultimo == null ? 0 : ultimo.getID(), TAMANO_PAGINA_CURSOR), TAMANO_PAGINA_CURSOR);
+    }
+
+    /**
+     * Obtiene una página del histórico de tickets, del más reciente al más antiguo, filtrada por fecha de entrada y
+     * matrícula.
+     * <p>
+     * La paginación se hace por clave sobre el ID: cada página empieza después del último ticket de la anterior,
+     * de forma que el coste de leerla no depende de cuántas se hayan leído antes.
+     * </p>
+     *
+     * @param desde La fecha de entrada mínima (incluida), o {@code null} para no limitarla.
+     * @param hasta La fecha de entrada máxima (excluida), o {@code null} para no limitarla.
+     * @param matricula La matrícula de los tickets, o {@code null} para todas.
+     * @param antesDeId El ID del último ticket de la página anterior, o 0 para la primera página.
+     * @param limite El número máximo de tickets de la página.
+     * @return Los tickets de la página, ordenados por ID de mayor a menor.
+     * @throws IllegalStateException Si ocurre un error al consultar la base de datos.
+     */
+    public ArrayList<Ticket> getPaginaHistorico(LocalDateTime desde, LocalDateTime hasta, String matricula,
+                                                int antesDeId, int limite) {
+        StringBuilder sentencia = new StringBuilder("SELECT * FROM ticket WHERE id < ?");
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(antesDeId <= 0 ? Integer.MAX_VALUE : antesDeId);
+        if (desde != null) {
+            sentencia.append(" AND fechaEntrada >= ?");
+            parametros.add(Timestamp.valueOf(desde));
+        }
+        if (hasta != null) {
+            sentencia.append(" AND fechaEntrada < ?");
+            parametros.add(Timestamp.valueOf(hasta));
+        }
+        if (matricula != null) {
+            sentencia.append(" AND matricula = ?");
+            parametros.add(matricula);
+        }
+        sentencia.append(" ORDER BY id DESC LIMIT ?");
+        parametros.add(limite);
+        return consultaTickets(sentencia.toString(), parametros.toArray());
+    }
+
+    /**
+     * Obtiene una página de tickets ordenados por ID, a partir de un ID dado.
+     * <p>
+     * Es la consulta de la paginación por clave: para recorrer el histórico se pide cada página a partir del último
+     * ID de la anterior, y el coste de leerla no depende de cuántas se hayan leído antes.
+     * </p>
+     *
+     * @param despuesDeId El ID a partir del cual (sin incluirlo) empieza la página, o 0 para la primera.
+     * @param limite El número máximo de tickets de la página.
+     * @return Los tickets de la página, ordenados por ID de menor a mayor.
+     * @throws IllegalStateException Si ocurre un error al consultar la base de datos.
+     */
+    public ArrayList<Ticket> getTicketsDesde(int despuesDeId, int limite) {
+        return consultaTickets("SELECT * FROM ticket WHERE id > ? ORDER BY id LIMIT ?", despuesDeId, limite);
+    }
+
+    /**
+     * Obtiene los tickets más recientes.
+     *
+     * @param limite El número máximo de tickets.
+     * @return Los últimos {@code limite} tickets, ordenados por ID de menor a mayor.
+     * @throws IllegalStateException Si ocurre un error al consultar la base de datos.
+     */
+    public ArrayList<Ticket> getTicketsRecientes(int limite) {
+        ArrayList<Ticket> tickets = consultaTickets("SELECT * FROM ticket ORDER BY id DESC LIMIT ?", limite);
+        Collections.reverse(tickets);
+        return tickets;
+    }
+
+    /**
+     * Obtiene los tickets más recientes con un ID menor o igual que uno dado.
+     *
+     * @param limite El número máximo de tickets.
+     * @param hastaId El mayor ID que se incluye.
+     * @return Los últimos {@code limite} tickets hasta {@code hastaId}, ordenados por ID de menor a mayor.
+     * @throws IllegalStateException Si ocurre un error al consultar la base de datos.
+     */
+    public ArrayList<Ticket> getTicketsRecientes(int limite, int hastaId) {
+        ArrayList<Ticket> tickets = consultaTickets("SELECT * FROM ticket WHERE id <= ? ORDER BY id DESC LIMIT ?",
+                hastaId, limite);
+        Collections.reverse(tickets);
+        return tickets;
+    }
+
+    /**
+     * Obtiene los tickets abiertos, es decir, los de los vehículos que siguen aparcados (sin fecha de salida).
+     *
+     * @return Los tickets abiertos, ordenados por ID de menor a mayor.
+     * @throws IllegalStateException Si ocurre un error al consultar la base de datos.
+     */
+    public ArrayList<Ticket> getTicketsAbiertos() {
+        return consultaTickets("SELECT * FROM ticket WHERE fechaSalida IS NULL ORDER BY id");
+    }
+
+    /**
+     * Obtiene el número total de tickets almacenados en la base de datos.
+     *
+     * @return El número de tickets.
+     * @throws IllegalStateException Si ocurre un error al consultar la base de datos.
+     */
+    public int cuentaTickets() {
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miPrep = conexion.prepareStatement("SELECT COUNT(*) FROM ticket");
+             ResultSet miRes = miPrep.executeQuery()) {
+            miRes.next();
+            return miRes.getInt(1);
+
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Error al contar los tickets de la base de datos", ex);
+        }
+    }
+
+    /**
+     * Obtiene el número de tickets almacenados en la base de datos con un ID menor o igual que uno dado.
+     *
+     * @param hastaId El mayor ID que se cuenta.
+     * @return El número de tickets.
+     * @throws IllegalStateException Si ocurre un error al consultar la base de datos.
+     */
+    public int cuentaTickets(int hastaId) {
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miPrep = conexion.prepareStatement("SELECT COUNT(*) FROM ticket WHERE id <= ?")) {
+            miPrep.setInt(1, hastaId);
+            try (ResultSet miRes = miPrep.executeQuery()) {
+                miRes.next();
+                return miRes.getInt(1);
+            }
+
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Error al contar los tickets de la base de datos", ex);
+        }
+    }
+
+    /**
+     * Obtiene el mayor ID de ticket almacenado en la base de datos.
+     *
+     * @return El mayor ID, o 0 si no hay tickets.
+     * @throws IllegalStateException Si ocurre un error al consultar la base de datos.
+     */
+    public int getUltimoId() {
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miPrep = conexion.prepareStatement("SELECT COALESCE(MAX(id), 0) FROM ticket");
+             ResultSet miRes = miPrep.executeQuery()) {
+            miRes.next();
+            return miRes.getInt(1);
+
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Error al consultar el último ID de los tickets de la base de datos", ex);
+        }
+    }
+
     /**
      * Recupera un ticket de la base de datos basado en la matrícula del vehículo.
      * <p>
@@ -161,23 +486,14 @@ public class TicketDAO {
         String sentencia = "SELECT * FROM ticket WHERE matricula = ? ORDER BY fechaEntrada DESC";
         Ticket ticket = null;
 
-        try {
-            PreparedStatement miPrep = CONEXION.prepareStatement(sentencia);
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miPrep = conexion.prepareStatement(sentencia)) {
             miPrep.setString(1, matricula);
 
-            ResultSet miRes = miPrep.executeQuery();
-
-            if (miRes.next()) {
-                Timestamp fechaSalidaTimestamp = miRes.getTimestamp("fechaSalida");
-                LocalDateTime fechaSalida = fechaSalidaTimestamp == null ? null : fechaSalidaTimestamp.toLocalDateTime();
-                ticket = new Ticket(
-                        miRes.getInt("id"),
-                        miRes.getString("matricula"),
-                        miRes.getInt("numeroPlaza"),
-                        miRes.getTimestamp("fechaEntrada").toLocalDateTime(),
-                        fechaSalida,
-                        miRes.getDouble("precioTotal")
-                );
+            try (ResultSet miRes = miPrep.executeQuery()) {
+                if (miRes.next()) {
+                    ticket = leeTicket(miRes);
+                }
             }
 
         } catch (SQLException ex) {
@@ -187,32 +503,56 @@ public class TicketDAO {
     }
 
     /**
-     * Valida si un ticket con el ID proporcionado está registrado en la base de datos.
+     * Ejecuta una consulta de tickets y devuelve todas las filas.
      * <p>
-     * Este método consulta la base de datos para verificar si existe un ticket con el ID especificado.
+     * Se indica al controlador un tamaño de lectura acotado, para que pueda traer las filas del servidor
+     * por bloques en lugar de todas a la vez.
      * </p>
      *
-     * @param idTicket El ID del ticket a validar.
-     * @return {@code true} si el ticket está registrado en la base de datos, {@code false} en caso contrario.
-     * @throws IllegalStateException Si ocurre un error al ejecutar la consulta SQL.
+     * @param sentencia La consulta SQL.
+     * @param parametros Los valores de los parámetros ({@link Integer}, {@link String} o {@link Timestamp}), en orden.
+     * @return Los tickets devueltos por la consulta.
+     * @throws IllegalStateException Si ocurre un error al consultar la base de datos.
      */
-    private boolean validaTicket(Integer idTicket) {
-        String sentencia = "SELECT * FROM ticket WHERE id = ?";
-        boolean valido = false;
-
-        try {
-            PreparedStatement miPrep = CONEXION.prepareStatement(sentencia);
-            miPrep.setInt(1, idTicket);
-
-            ResultSet miRes = miPrep.executeQuery();
+    private ArrayList<Ticket> consultaTickets(String sentencia, Object... parametros) {
+        ArrayList<Ticket> tickets = new ArrayList<>();
 
-            if (miRes.next()) {
-                valido = true;
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miPrep = conexion.prepareStatement(sentencia)) {
+            for (int i = 0; i < parametros.length; i++) {
+                miPrep.setObject(i + 1, parametros[i]);
+            }
+            miPrep.setFetchSize(TAMANO_PAGINA_CURSOR);
+            try (ResultSet miRes = miPrep.executeQuery()) {
+                while (miRes.next()) {
+                    tickets.add(leeTicket(miRes));
+                }
             }
 
         } catch (SQLException ex) {
-            throw new IllegalStateException(ex.getMessage());
+            throw new IllegalStateException("Error al recuperar los tickets de la base de datos", ex);
         }
-        return valido;
+        return tickets;
+    }
+
+    /**
+     * Construye un {@link Ticket} a partir de la fila actual de un {@link ResultSet}.
+     *
+     * @param miRes El resultado de la consulta, situado en la fila a leer.
+     * @return El ticket de la fila.
+     * @throws SQLException Si no se pueden leer las columnas.
+     */
+    private static Ticket leeTicket(ResultSet miRes) throws SQLException {
+        Timestamp fechaSalidaTimestamp = miRes.getTimestamp("fechaSalida");
+        LocalDateTime fechaSalida = fechaSalidaTimestamp == null ? null : fechaSalidaTimestamp.toLocalDateTime();
+        BigDecimal precioTotal = miRes.getBigDecimal("precioTotal");
+        return new Ticket(
+                miRes.getInt("id"),
+                miRes.getString("matricula"),
+                miRes.getInt("numeroPlaza"),
+                miRes.getTimestamp("fechaEntrada").toLocalDateTime(),
+                fechaSalida,
+                precioTotal == null ? Ticket.SIN_PRECIO : Dinero.aCentimos(precioTotal)
+        );
     }
 }
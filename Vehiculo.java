@@ -29,12 +29,12 @@ public abstract class Vehiculo implements Comparable<Vehiculo> {
     /**
      * Indica si el vehículo está actualmente activo (se encuentra dentro del parking).
      */
-    private boolean activo;
+    private volatile boolean activo;
 
     /**
-     * Precio (€)/Minuto que se cobra al Vehículo durante su estacionamiento.
+     * Precio por minuto que se cobra al Vehículo durante su estacionamiento, en céntimos de euro.
      */
-    private double precioPorMinuto = 0.05;
+    private long centimosPorMinuto = 5;
 
     /**
      * Constructor para vehículos con tipo y país especificados.
@@ -68,15 +68,15 @@ public abstract class Vehiculo implements Comparable<Vehiculo> {
      *
      * @param matricula Matrícula del vehículo.
      * @param tipo Tipo de vehículo.
-     * @param precio Precio por minuto de estacionamiento del vehículo.
+     * @param precio Precio por minuto de estacionamiento del vehículo, en céntimos.
      * @param activo Indica si el vehículo está actualmente activo.
      * @throws Exception Si la matrícula no pertenece a ningún país registrado.
      */
-    public Vehiculo(String matricula, TipoVehiculo tipo, double precio, boolean activo) throws Exception {
+    public Vehiculo(String matricula, TipoVehiculo tipo, long precio, boolean activo) throws Exception {
         MATRICULA = matricula;
         TIPO = tipo;
         PAIS = GestionMatriculas.getPais(MATRICULA);
-        precioPorMinuto = precio;
+        centimosPorMinuto = precio;
         this.activo = activo;
     }
 
@@ -110,10 +110,10 @@ public abstract class Vehiculo implements Comparable<Vehiculo> {
     /**
      * Obtiene el precio por minuto de estacionamiento del vehículo.
      *
-     * @return Precio por minuto de estacionamiento del vehículo.
+     * @return Precio por minuto de estacionamiento del vehículo, en céntimos.
      */
-    public double getPrecioPorMinuto() {
-        return precioPorMinuto;
+    public long getCentimosPorMinuto() {
+        return centimosPorMinuto;
     }
 
     /**
@@ -140,10 +140,10 @@ public abstract class Vehiculo implements Comparable<Vehiculo> {
      * Este método incrementa el precio por minuto en la cantidad especificada por el parámetro {@code plus}.
      * </p>
      *
-     * @param plusDimension Monto adicional a añadir al precio por minuto.
+     * @param plusDimension Monto adicional a añadir al precio por minuto, en céntimos.
      */
-    protected void plusDimension(double plusDimension) {
-        precioPorMinuto += plusDimension;
+    protected void plusDimension(long plusDimension) {
+        centimosPorMinuto += plusDimension;
     }
 
     /**
@@ -201,7 +201,7 @@ public abstract class Vehiculo implements Comparable<Vehiculo> {
      */
     @Override
     public String toString() {
-        return TIPO + " con matrícula " + MATRICULA + ". Pais: "+ PAIS + ". Precio: " + precioPorMinuto + "€/min. Activo: " + activo;
+        return TIPO + " con matrícula " + MATRICULA + ". Pais: "+ PAIS + ". Precio: " + Dinero.formatea(centimosPorMinuto) + "€/min. Activo: " + activo;
     }
 
 }
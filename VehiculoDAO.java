@@ -1,28 +1,40 @@
 package GESTION_DE_PARKING;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Clase que gestiona la interacción con la base de datos para la entidad Vehiculo.
  * Permite realizar operaciones CRUD (Crear, Leer, Actualizar, Eliminar) sobre los vehículos en la base de datos.
+ * Cada operación toma prestada una conexión del origen de datos y la devuelve al terminar.
  *
  * @version 1.0
  */
 public class VehiculoDAO {
 
     /**
-     * Conexión a la base de datos.
+     * Origen de datos del que se obtienen las conexiones a la base de datos.
      */
-    public final Connection CONEXION;
+    private final DataSource ORIGEN_DATOS;
+
+    /**
+     * Número de vehículos que se leen en cada página de los recorridos con {@link CursorPaginado}.
+     */
+    private static final int TAMANO_PAGINA_CURSOR = 1000;
 
     /**
      * Constructor de la clase VehiculoDAO.
      *
-     * @param conexion Conexión a la base de datos.
+     * @param origenDatos Origen de datos de la base de datos (normalmente un {@link PoolConexiones}).
      */
-    public VehiculoDAO(Connection conexion){
-        CONEXION = conexion;
+    public VehiculoDAO(DataSource origenDatos){
+        ORIGEN_DATOS = origenDatos;
     }
 
     /**
@@ -31,33 +43,126 @@ public class VehiculoDAO {
      *
      * @param vehiculo El objeto {@link Vehiculo} que se desea registrar.
      * @throws IllegalStateException Si el vehículo ya está registrado en la base de datos.
-     * El método verifica la matrícula del vehículo mediante {@code encuentraMatricula}. Si no está registrada,
-     * prepara y ejecuta una sentencia SQL para insertar los datos del vehículo. Captura y muestra los errores SQL.
+     * El método inserta directamente el vehículo: si la matrícula ya existe, la base de datos rechaza la inserción
+     * por clave duplicada y se lanza la excepción, sin consultar antes la tabla. Captura y muestra el resto de errores SQL.
      */
     public void creaVehiculo(Vehiculo vehiculo){
 
-        //Si no encuentra la matrícula es que ya se encuentra registrado en la base de datos
-        if (!encuentraMatricula(vehiculo.getMATRICULA())) {
+        String sentencia = "INSERT INTO vehiculo (matricula, tipo, pais, precioEstacionamiento, activo) " +
+                "VALUES (?, ?, ?, ?, ?)";
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miPrep = conexion.prepareStatement(sentencia)) {
+            asignaParametros(miPrep, vehiculo);
 
-            String sentencia = "INSERT INTO vehiculo (matricula, tipo, pais, precioEstacionamiento, activo) " +
-                    "VALUES (?, ?, ?, ?, ?)";
-            try {
-                PreparedStatement miPrep = CONEXION.prepareStatement(sentencia);
-                miPrep.setString(1, vehiculo.getMATRICULA());
-                miPrep.setString(2, vehiculo.getTIPO().toString());
-                miPrep.setString(3, vehiculo.getPAIS().toString());
-                miPrep.setDouble(4, vehiculo.getPrecioPorMinuto());
-                miPrep.setBoolean(5, vehiculo.isActivo());
+            miPrep.executeUpdate();
 
-                miPrep.executeUpdate();
+        } catch (SQLException ex) {
+            //Si la matrícula es una clave duplicada es que ya se encuentra registrado en la base de datos
+            if (esClaveDuplicada(ex))
+                throw new IllegalStateException("El vehículo con matrícula " + vehiculo.getMATRICULA() + " ya se encuentra registrado en la base de datos.");
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Inserta un conjunto de vehículos en la base de datos mediante lotes JDBC.
+     * <p>
+     * Los vehículos se envían en bloques de {@code tamanoLote} sentencias con {@code executeBatch()}
+     * y cada bloque se confirma en su propia transacción, de forma que un error solo afecta a su bloque.
+     * Si un bloque falla (por ejemplo, porque alguna matrícula ya está registrada), se deshace y sus vehículos
+     * se insertan uno a uno para identificar cuáles fallan; el resto del bloque se registra igualmente.
+     * </p>
+     *
+     * @param vehiculos Los vehículos a registrar. Sus matrículas deben ser distintas entre sí.
+     * @param tamanoLote El número de vehículos que se envían en cada lote.
+     * @return Los vehículos que no se han podido registrar, con el motivo del error, en el orden recibido.
+     * @throws IllegalArgumentException Si {@code tamanoLote} no es positivo.
+     * @throws IllegalStateException Si no se puede obtener una conexión con la base de datos.
+     */
+    public Map<Vehiculo, String> creaVehiculos(Collection<Vehiculo> vehiculos, int tamanoLote) {
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño del lote debe ser mayor que 0.");
+        }
 
+        Map<Vehiculo, String> fallos = new LinkedHashMap<>();
+        String sentencia = "INSERT INTO vehiculo (matricula, tipo, pais, precioEstacionamiento, activo) " +
+                "VALUES (?, ?, ?, ?, ?)";
+
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miPrep = conexion.prepareStatement(sentencia)) {
+            conexion.setAutoCommit(false);
+
+            List<Vehiculo> lote = new ArrayList<>(Math.min(tamanoLote, vehiculos.size()));
+            for (Vehiculo vehiculo : vehiculos) {
+                lote.add(vehiculo);
+                if (lote.size() == tamanoLote) {
+                    insertaLote(conexion, miPrep, lote, fallos);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) {
+                insertaLote(conexion, miPrep, lote, fallos);
+            }
+
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Error al registrar el lote de vehículos en la base de datos: " + ex.getMessage(), ex);
+        }
+        return fallos;
+    }
+
+    /**
+     * Inserta un bloque de vehículos con una única ejecución por lotes y lo confirma.
+     * Si el lote falla, se deshace y se insertan los vehículos de uno en uno.
+     *
+     * @param conexion La conexión, con la confirmación automática desactivada.
+     * @param miPrep La sentencia de inserción preparada sobre la conexión.
+     * @param lote Los vehículos del bloque.
+     * @param fallos Mapa en el que se añaden los vehículos que no se han podido registrar.
+     * @throws SQLException Si falla la confirmación o la reversión de la transacción.
+     */
+    private void insertaLote(Connection conexion, PreparedStatement miPrep, List<Vehiculo> lote,
+                             Map<Vehiculo, String> fallos) throws SQLException {
+        try {
+            for (Vehiculo vehiculo : lote) {
+                asignaParametros(miPrep, vehiculo);
+                miPrep.addBatch();
+            }
+            miPrep.executeBatch();
+            conexion.commit();
+            return;
+        } catch (SQLException ex) {
+            miPrep.clearBatch();
+            conexion.rollback();
+        }
+
+        // El lote ha fallado: se reintenta cada vehículo por separado para aislar los que fallan
+        for (Vehiculo vehiculo : lote) {
+            try {
+                asignaParametros(miPrep, vehiculo);
+                miPrep.executeUpdate();
+                conexion.commit();
             } catch (SQLException ex) {
-                System.out.println(ex.getMessage());
+                conexion.rollback();
+                fallos.put(vehiculo, esClaveDuplicada(ex)
+                        ? "El vehículo con matrícula " + vehiculo.getMATRICULA() + " ya se encuentra registrado en la base de datos."
+                        : ex.getMessage());
             }
         }
-        //Se encuentra registrado en la base de datos
-        else
-            throw new IllegalStateException("El vehículo con matrícula " + vehiculo.getMATRICULA() + " ya se encuentra registrado en la base de datos.");
+    }
+
+    /**
+     * Asigna los datos de un vehículo a los parámetros de la sentencia de inserción.
+     *
+     * @param miPrep La sentencia de inserción.
+     * @param vehiculo El vehículo a insertar.
+     * @throws SQLException Si no se pueden asignar los parámetros.
+     */
+    private static void asignaParametros(PreparedStatement miPrep, Vehiculo vehiculo) throws SQLException {
+        miPrep.setString(1, vehiculo.getMATRICULA());
+        miPrep.setString(2, vehiculo.getTIPO().toString());
+        miPrep.setString(3, vehiculo.getPAIS().toString());
+        miPrep.setBigDecimal(4, Dinero.aEuros(vehiculo.getCentimosPorMinuto()));
+        miPrep.setBoolean(5, vehiculo.isActivo());
     }
 
 //    /**
@@ -93,30 +198,72 @@ public class VehiculoDAO {
      *
      * Este método modifica el registro de un vehículo existente, estableciendo un nuevo precio
      * de estacionamiento para el vehículo identificado por su matrícula. Si la matrícula no se
-     * encuentra en la base de datos, se lanzará una excepción.
+     * encuentra en la base de datos (la actualización no afecta a ninguna fila), se lanzará una excepción.
      *
      * @param vehiculo El objeto Vehiculo que contiene la matrícula y el nuevo precio de estacionamiento.
      * @throws RuntimeException Si el vehículo con la matrícula especificada no está registrado en la base de datos.
      */
     public void actualizaVehiculo(Vehiculo vehiculo){
 
-        String sentencia = "UPDATE vehiculo SET precioEstacionamiento = ?, activo = ? WHERE matricula = ?";
+        try (Connection conexion = ORIGEN_DATOS.getConnection()) {
+            actualizaVehiculo(conexion, vehiculo);
+        } catch (SQLException ex){
+            System.out.println(ex.getMessage());
+        }
+    }
 
-        if (encuentraMatricula(vehiculo.getMATRICULA())){
+    /**
+     * Actualiza el precio de estacionamiento y el estado de un vehículo utilizando una conexión proporcionada
+     * por el llamador. La conexión no se cierra ni se confirma, de forma que la actualización puede formar parte
+     * de una transacción.
+     *
+     * @param conexion La conexión (normalmente con una transacción abierta) sobre la que se ejecuta la sentencia.
+     * @param vehiculo El objeto Vehiculo que contiene la matrícula y los datos a actualizar.
+     * @throws SQLException Si ocurre un error al ejecutar la sentencia SQL.
+     * @throws RuntimeException Si el vehículo con la matrícula especificada no está registrado en la base de datos.
+     */
+    public void actualizaVehiculo(Connection conexion, Vehiculo vehiculo) throws SQLException {
 
-            try {
-                PreparedStatement miPrep = CONEXION.prepareStatement(sentencia);
-                miPrep.setDouble(1, vehiculo.getPrecioPorMinuto());
-                miPrep.setBoolean(2, vehiculo.isActivo());
-                miPrep.setString(3, vehiculo.getMATRICULA());
+        String sentencia = "UPDATE vehiculo SET precioEstacionamiento = ?, activo = ? WHERE matricula = ?";
 
-                miPrep.executeUpdate();
+        try (PreparedStatement miPrep = conexion.prepareStatement(sentencia)) {
+            miPrep.setBigDecimal(1, Dinero.aEuros(vehiculo.getCentimosPorMinuto()));
+            miPrep.setBoolean(2, vehiculo.isActivo());
+            miPrep.setString(3, vehiculo.getMATRICULA());
+
+            // Si no se ha actualizado ninguna fila, la matrícula no está registrada
+            if (miPrep.executeUpdate() == 0)
+                throw new RuntimeException("Ha habido un error. El vehículo que se quiere actualizar no se encuentra en registrado en la base de datos");
+        }
+    }
 
-            } catch (SQLException ex){
-                System.out.println(ex.getMessage());
+    /**
+     * Inserta o actualiza un conjunto de vehículos en un único lote JDBC utilizando una conexión proporcionada
+     * por el llamador.
+     * <p>
+     * Los vehículos que no existen se insertan y los que ya existen se actualizan con su precio de estacionamiento
+     * y su estado, de forma que repetir el lote no cambia el resultado. La conexión no se cierra ni se confirma.
+     * </p>
+     *
+     * @param conexion La conexión (normalmente con una transacción abierta) sobre la que se ejecuta el lote.
+     * @param vehiculos Los vehículos a guardar.
+     * @throws SQLException Si ocurre un error al ejecutar el lote.
+     */
+    public void guardaVehiculos(Connection conexion, Collection<Vehiculo> vehiculos) throws SQLException {
+        if (vehiculos.isEmpty()) {
+            return;
+        }
+        String sentencia = "INSERT INTO vehiculo (matricula, tipo, pais, precioEstacionamiento, activo) " +
+                "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                "precioEstacionamiento = VALUES(precioEstacionamiento), activo = VALUES(activo)";
+
+        try (PreparedStatement miPrep = conexion.prepareStatement(sentencia)) {
+            for (Vehiculo vehiculo : vehiculos) {
+                asignaParametros(miPrep, vehiculo);
+                miPrep.addBatch();
             }
-        } else
-            throw new RuntimeException("Ha habido un error. El vehículo que se quiere actualizar no se encuentra en registrado en la base de datos");
+            miPrep.executeBatch();
+        }
     }
 
     /**
@@ -134,16 +281,11 @@ public class VehiculoDAO {
         ArrayList<Vehiculo> lista = new ArrayList<>();
         String sentencia = "SELECT * FROM vehiculo";
 
-        try{
-            Statement miSt = CONEXION.createStatement();
-            ResultSet miRes = miSt.executeQuery(sentencia);
-
-            while (miRes.next()){
-                switch (TipoVehiculo.valueOf(miRes.getString(2))) {
-                    case Autobus -> lista.add(new Autobus(miRes.getString(1), miRes.getDouble(4), miRes.getBoolean(5)));
-                    case Coche -> lista.add(new Coche(miRes.getString(1), miRes.getDouble(4), miRes.getBoolean(5)));
-                    case Furgoneta -> lista.add(new Furgoneta(miRes.getString(1), miRes.getDouble(4), miRes.getBoolean(5)));
-                    case Moto -> lista.add(new Moto(miRes.getString(1), miRes.getDouble(4), miRes.getBoolean(5)));
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miSt = conexion.prepareStatement(sentencia)) {
+            try (ResultSet miRes = miSt.executeQuery()) {
+                while (miRes.next()){
+                    lista.add(leeVehiculo(miRes));
                 }
             }
 
@@ -153,6 +295,82 @@ public class VehiculoDAO {
         return lista;
     }
 
+    /**
+     * Recorre todos los vehículos registrados en la base de datos, ordenados por matrícula.
+     * <p>
+     * A diferencia de {@link #getAllVehicles()}, los vehículos se leen por páginas a medida que se consume el
+     * {@link Stream} (paginación por clave sobre la matrícula), de forma que la memoria usada no depende del
+     * tamaño de la tabla.
+     * </p>
+     *
+     * @return Un stream secuencial de los vehículos.
+     * @throws RuntimeException Si ocurre un error al consultar la base de datos durante el recorrido.
+     */
+    public Stream<Vehiculo> streamVehiculos() {
+        return CursorPaginado.stream(ultimo -> getVehiculosTras(ultimo == null ? "" : ultimo.getMATRICULA(),
+                TAMANO_PAGINA_CURSOR), TAMANO_PAGINA_CURSOR);
+    }
+
+    /**
+     * Obtiene una página de vehículos cuya matrícula es posterior a la indicada, ordenados por matrícula.
+     *
+     * @param matricula La última matrícula de la página anterior ({@code ""} para la primera página).
+     * @param limite El número máximo de vehículos de la página.
+     * @return Los vehículos de la página.
+     * @throws RuntimeException Si ocurre un error al consultar la base de datos.
+     */
+    private List<Vehiculo> getVehiculosTras(String matricula, int limite) {
+        List<Vehiculo> lista = new ArrayList<>(limite);
+        String sentencia = "SELECT * FROM vehiculo WHERE matricula > ? ORDER BY matricula LIMIT ?";
+
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miSt = conexion.prepareStatement(sentencia)) {
+            miSt.setString(1, matricula);
+            miSt.setInt(2, limite);
+            miSt.setFetchSize(limite);
+            try (ResultSet miRes = miSt.executeQuery()) {
+                while (miRes.next()) {
+                    lista.add(leeVehiculo(miRes));
+                }
+            }
+
+        } catch (Exception e) {
+            throw new RuntimeException("Error al recuperar los vehículos de la base de datos", e);
+        }
+        return lista;
+    }
+
+    /**
+     * Construye un {@link Vehiculo} del tipo adecuado a partir de la fila actual de un {@link ResultSet}.
+     *
+     * @param miRes El resultado de la consulta, situado en la fila a leer.
+     * @return El vehículo de la fila.
+     * @throws Exception Si no se pueden leer las columnas o la matrícula no pertenece a ningún país registrado.
+     */
+    private static Vehiculo leeVehiculo(ResultSet miRes) throws Exception {
+        return construyeVehiculo(miRes.getString(1), TipoVehiculo.valueOf(miRes.getString(2)),
+                Dinero.aCentimos(miRes.getBigDecimal(4)), miRes.getBoolean(5));
+    }
+
+    /**
+     * Construye un {@link Vehiculo} del tipo indicado con todos sus datos.
+     *
+     * @param matricula La matrícula del vehículo.
+     * @param tipo El tipo de vehículo.
+     * @param centimosPorMinuto El precio de estacionamiento en céntimos por minuto.
+     * @param activo Si el vehículo está dentro del parking.
+     * @return El vehículo.
+     * @throws Exception Si la matrícula no pertenece a ningún país registrado.
+     */
+    static Vehiculo construyeVehiculo(String matricula, TipoVehiculo tipo, long centimosPorMinuto, boolean activo) throws Exception {
+        return switch (tipo) {
+            case Autobus -> new Autobus(matricula, centimosPorMinuto, activo);
+            case Coche -> new Coche(matricula, centimosPorMinuto, activo);
+            case Furgoneta -> new Furgoneta(matricula, centimosPorMinuto, activo);
+            case Moto -> new Moto(matricula, centimosPorMinuto, activo);
+        };
+    }
+
     /**
      * Verifica si una matrícula existe en la base de datos.
      *
@@ -167,14 +385,14 @@ public class VehiculoDAO {
     public boolean encuentraMatricula(String matricula){
         String sentencia = "SELECT * FROM vehiculo WHERE matricula = ?";
         boolean valido = false;
-        try {
-            PreparedStatement miPrem = CONEXION.prepareStatement(sentencia);
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miPrem = conexion.prepareStatement(sentencia)) {
             miPrem.setString(1, matricula);
 
-            ResultSet miRes = miPrem.executeQuery();
-
-            if(miRes.next())
-                valido = true;
+            try (ResultSet miRes = miPrem.executeQuery()) {
+                if(miRes.next())
+                    valido = true;
+            }
 
         } catch (SQLException ex){
             throw new IllegalStateException("No se ha encontrado la matricula " + matricula + " en la base de datos");
@@ -197,16 +415,12 @@ public class VehiculoDAO {
         ArrayList<Vehiculo> lista = new ArrayList<>();
         String sentencia = "SELECT * FROM vehiculo WHERE pais = ?";
 
-        try (PreparedStatement miSt = CONEXION.prepareStatement(sentencia)){
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miSt = conexion.prepareStatement(sentencia)) {
             miSt.setString(1, String.valueOf(pais));
-            ResultSet miRes = miSt.executeQuery();
-
-            while(miRes.next()){
-                switch (TipoVehiculo.valueOf(miRes.getString("tipo"))) {
-                    case Autobus -> lista.add(new Autobus(miRes.getString(1), miRes.getDouble(4), miRes.getBoolean(5)));
-                    case Coche -> lista.add(new Coche(miRes.getString(1), miRes.getDouble(4), miRes.getBoolean(5)));
-                    case Furgoneta -> lista.add(new Furgoneta(miRes.getString(1), miRes.getDouble(4), miRes.getBoolean(5)));
-                    case Moto -> lista.add(new Moto(miRes.getString(1), miRes.getDouble(4), miRes.getBoolean(5)));
+            try (ResultSet miRes = miSt.executeQuery()) {
+                while(miRes.next()){
+                    lista.add(leeVehiculo(miRes));
                 }
             }
 
@@ -231,17 +445,12 @@ public class VehiculoDAO {
         ArrayList<Vehiculo> lista = new ArrayList<>();
         String sentencia = "SELECT * FROM vehiculo WHERE tipo = ?";
 
-        try {
-            PreparedStatement miSt = CONEXION.prepareStatement(sentencia);
+        try (Connection conexion = ORIGEN_DATOS.getConnection();
+             PreparedStatement miSt = conexion.prepareStatement(sentencia)) {
             miSt.setString(1, tipoVehiculo.toString());
-            ResultSet miRes = miSt.executeQuery();
-
-            while (miRes.next()) {
-                switch (tipoVehiculo) {
-                    case Autobus -> lista.add(new Autobus(miRes.getString(1), miRes.getDouble(4), miRes.getBoolean(5)));
-                    case Coche -> lista.add(new Coche(miRes.getString(1), miRes.getDouble(4), miRes.getBoolean(5)));
-                    case Furgoneta -> lista.add(new Furgoneta(miRes.getString(1), miRes.getDouble(4), miRes.getBoolean(5)));
-                    case Moto -> lista.add(new Moto(miRes.getString(1), miRes.getDouble(4), miRes.getBoolean(5)));
+            try (ResultSet miRes = miSt.executeQuery()) {
+                while (miRes.next()) {
+                    lista.add(leeVehiculo(miRes));
                 }
             }
         } catch (Exception e) {
@@ -250,4 +459,15 @@ public class VehiculoDAO {
         return lista;
     }
 
+    /**
+     * Indica si un error SQL se debe a una violación de clave primaria o única.
+     *
+     * @param ex El error SQL.
+     * @return {@code true} si el error es una violación de restricción de integridad (SQLSTATE de clase 23).
+     */
+    private static boolean esClaveDuplicada(SQLException ex) {
+        return ex instanceof SQLIntegrityConstraintViolationException
+                || (ex.getSQLState() != null && ex.getSQLState().startsWith("23"));
+    }
+
 }
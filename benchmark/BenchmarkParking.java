@@ -0,0 +1,340 @@
+package GESTION_DE_PARKING;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Banco de pruebas de rendimiento de las operaciones más frecuentes del parking.
+ * <p>
+ * Mide la latencia (media, p50, p99 y máxima), el rendimiento y la memoria reservada por operación de
+ * {@link GestionMatriculas#nueva(Paises)}, {@link GestionMatriculas#getPais(String)} y, si se indica una base de datos,
+ * de {@link Parking#entradaParking(Vehiculo)}, {@link Parking#aparcar(Integer, Vehiculo)},
+ * {@link Parking#desaparcar(Plaza)}, {@link Parking#salidaParking(Vehiculo)}, {@link Parking#calculaPrecio(Ticket)},
+ * {@link MotorTarifas#calculaCentimos(TipoVehiculo, Paises, long)},
+ * {@link Parking#getVehiculoByMatricula(String)} y de los métodos de los DAOs.
+ * </p>
+ * <p>
+ * Cada prueba se ejecuta primero varias rondas de calentamiento (para que el compilador JIT optimice el código)
+ * y después las rondas de medida, de las que se toman los tiempos de cada operación. Los parámetros se indican
+ * como propiedades del sistema:
+ * </p>
+ * <ul>
+ *     <li>{@code bench.flota}: número de vehículos de la flota (10000 por defecto).</li>
+ *     <li>{@code bench.plazas}: número de plazas del parking (500 por defecto).</li>
+ *     <li>{@code bench.calentamiento}: rondas de calentamiento (3 por defecto).</li>
+ *     <li>{@code bench.rondas}: rondas de medida (5 por defecto).</li>
+ *     <li>{@code bench.url}, {@code bench.usuario}, {@code bench.contrasena}: base de datos JDBC. Debe estar vacía
+ *     y su driver en el classpath; por ejemplo, una base de datos H2 en memoria en modo MySQL
+ *     ({@code jdbc:h2:mem:parking;MODE=MySQL;DB_CLOSE_DELAY=-1}). Sin URL solo se miden las pruebas sin base de datos.</li>
+ * </ul>
+ *
+ * @version 1.0
+ * @see Parking
+ */
+public class BenchmarkParking {
+
+    /**
+     * Número de vehículos de la flota.
+     */
+    private static final int FLOTA = Integer.getInteger("bench.flota", 10_000);
+
+    /**
+     * Número de plazas del parking.
+     */
+    private static final int PLAZAS = Integer.getInteger("bench.plazas", 500);
+
+    /**
+     * Número de rondas de calentamiento de cada prueba.
+     */
+    private static final int CALENTAMIENTO = Integer.getInteger("bench.calentamiento", 3);
+
+    /**
+     * Número de rondas de medida de cada prueba.
+     */
+    private static final int RONDAS = Integer.getInteger("bench.rondas", 5);
+
+    /**
+     * Letras con las que se generan las matrículas de la flota.
+     */
+    private static final String LETRAS = "BCDFGHJKLMNPRSTVWXYZ";
+
+    /**
+     * Sentencias que crean las tablas del parking en la base de datos de pruebas (las del README, sin
+     * tipos exclusivos de MySQL para que puedan ejecutarse también en una base de datos embebida).
+     */
+    private static final String[] TABLAS = {
+            "CREATE TABLE vehiculo (matricula VARCHAR(15) NOT NULL, tipo VARCHAR(20) NOT NULL, pais VARCHAR(20) NOT NULL, " +
+                    "precioEstacionamiento DECIMAL(4,2) NOT NULL, activo BOOLEAN NOT NULL, PRIMARY KEY (matricula))",
+            "CREATE TABLE plaza (numero SMALLINT NOT NULL, disponible BOOLEAN NOT NULL, matriculaVehiculo VARCHAR(15), " +
+                    "PRIMARY KEY (numero), FOREIGN KEY (matriculaVehiculo) REFERENCES vehiculo(matricula) ON UPDATE CASCADE)",
+            "CREATE TABLE ticket (id INT AUTO_INCREMENT PRIMARY KEY, matricula VARCHAR(15) NOT NULL, " +
+                    "numeroPlaza SMALLINT NOT NULL, fechaEntrada TIMESTAMP DEFAULT CURRENT_TIMESTAMP, fechaSalida TIMESTAMP, " +
+                    "precioTotal DECIMAL(10,2), FOREIGN KEY (matricula) REFERENCES vehiculo(matricula) ON DELETE CASCADE, " +
+                    "FOREIGN KEY (numeroPlaza) REFERENCES plaza(numero) ON DELETE CASCADE)"
+    };
+
+    /**
+     * Método principal que ejecuta todas las pruebas y muestra los resultados por consola.
+     *
+     * @param args Argumentos de línea de comandos (no se utilizan; los parámetros se leen de las propiedades del sistema).
+     * @throws SQLException Si no se pueden crear las tablas en la base de datos de pruebas.
+     */
+    public static void main(String[] args) throws SQLException {
+        System.out.println("Flota: " + FLOTA + " vehículos. Plazas: " + PLAZAS +
+                ". Calentamiento: " + CALENTAMIENTO + " rondas. Medida: " + RONDAS + " rondas.");
+        System.out.printf("%-36s %12s %10s %10s %10s %10s %10s%n",
+                "Prueba", "ops/s", "media(us)", "p50(us)", "p99(us)", "max(us)", "bytes/op");
+
+        Paises[] paises = Paises.values();
+        String[] matriculas = new String[FLOTA];
+        for (int i = 0; i < FLOTA; i++) {
+            matriculas[i] = matricula(i);
+        }
+
+        mide("GestionMatriculas.nueva", FLOTA, i -> GestionMatriculas.nueva(paises[i % paises.length]));
+        mide("GestionMatriculas.getPais", FLOTA, i -> GestionMatriculas.getPais(matriculas[i]));
+
+        String url = System.getProperty("bench.url");
+        if (url == null) {
+            System.out.println("\nSin bench.url no se ejecutan las pruebas con base de datos.");
+            return;
+        }
+
+        try (PoolConexiones pool = new PoolConexiones(url, System.getProperty("bench.usuario", ""),
+                System.getProperty("bench.contrasena", ""), 4)) {
+            try (Connection conexion = pool.getConnection(); Statement st = conexion.createStatement()) {
+                for (String tabla : TABLAS) {
+                    st.execute(tabla);
+                }
+            }
+            mideParking(pool, matriculas);
+        }
+    }
+
+    /**
+     * Ejecuta las pruebas que necesitan un parking con base de datos.
+     * <p>
+     * La flota se procesa en bloques del tamaño del parking: en cada bloque todos los vehículos entran, aparcan,
+     * desaparcan y salen, de forma que cada ronda repite el mismo ciclo de puerta sobre todos los vehículos.
+     * </p>
+     *
+     * @param pool El pool de conexiones con la base de datos de pruebas.
+     * @param matriculas Las matrículas de la flota.
+     */
+    private static void mideParking(PoolConexiones pool, String[] matriculas) {
+        Parking parking = new Parking(pool, PLAZAS);
+        Vehiculo[] flota = new Vehiculo[FLOTA];
+        for (int i = 0; i < FLOTA; i++) {
+            flota[i] = new Coche(matriculas[i]);
+        }
+        int bloque = Math.min(PLAZAS, FLOTA);
+
+        Medicion entrada = new Medicion("Parking.entradaParking");
+        Medicion aparcar = new Medicion("Parking.aparcar");
+        Medicion desaparcar = new Medicion("Parking.desaparcar");
+        Medicion salida = new Medicion("Parking.salidaParking");
+        for (int ronda = 0; ronda < CALENTAMIENTO + RONDAS; ronda++) {
+            boolean medir = ronda >= CALENTAMIENTO;
+            for (int inicio = 0; inicio < FLOTA; inicio += bloque) {
+                int fin = Math.min(inicio + bloque, FLOTA);
+                for (int i = inicio; i < fin; i++) {
+                    Vehiculo vehiculo = flota[i];
+                    entrada.ejecuta(medir, () -> parking.entradaParking(vehiculo));
+                }
+                for (int i = inicio; i < fin; i++) {
+                    Vehiculo vehiculo = flota[i];
+                    int plaza = i - inicio + 1;
+                    aparcar.ejecuta(medir, () -> parking.aparcar(plaza, vehiculo));
+                }
+                for (int i = inicio; i < fin; i++) {
+                    Plaza plaza = parking.obtenerPlaza(i - inicio + 1);
+                    desaparcar.ejecuta(medir, () -> parking.desaparcar(plaza));
+                }
+                for (int i = inicio; i < fin; i++) {
+                    Vehiculo vehiculo = flota[i];
+                    salida.ejecuta(medir, () -> parking.salidaParking(vehiculo));
+                }
+            }
+        }
+        entrada.imprime();
+        aparcar.imprime();
+        desaparcar.imprime();
+        salida.imprime();
+
+        LocalDateTime ahora = LocalDateTime.now();
+        Ticket[] tickets = new Ticket[FLOTA];
+        for (int i = 0; i < FLOTA; i++) {
+            tickets[i] = new Ticket(i, matriculas[i], 1, ahora.minusMinutes(i % 600), ahora, Ticket.SIN_PRECIO);
+        }
+        mide("Parking.calculaPrecio", FLOTA, i -> parking.calculaPrecio(tickets[i]));
+        MotorTarifas tarifas = parking.getMotorTarifas();
+        mide("MotorTarifas.calculaCentimos", FLOTA, i -> tarifas.calculaCentimos(TipoVehiculo.Coche, Paises.Espana, i % 3000));
+        mide("Parking.getVehiculoByMatricula", FLOTA, i -> parking.getVehiculoByMatricula(matriculas[i]));
+
+        // Las consultas completas de los DAOs se repiten pocas veces, ya que cada una recorre toda la tabla
+        int consultas = Math.max(1, 100_000 / FLOTA);
+        Plaza libre = new Plaza(1);
+        mide("PlazaDAO.actualizaPlaza", FLOTA, i -> parking.getPlazaDAO().actualizaPlaza(libre));
+        mide("TicketDAO.getTicketByMatricula", FLOTA, i -> parking.getTicketDAO().getTicketByMatricula(matriculas[i]));
+        mide("VehiculoDAO.actualizaVehiculo", FLOTA, i -> parking.getVehiculoDAO().actualizaVehiculo(flota[i]));
+        mide("PlazaDAO.getAllPlaces", consultas, i -> parking.getPlazaDAO().getAllPlaces());
+        mide("VehiculoDAO.getAllVehicles", consultas, i -> parking.getVehiculoDAO().getAllVehicles());
+        mide("TicketDAO.getAllTickets", consultas, i -> parking.getTicketDAO().getAllTickets());
+
+        System.out.println("\nCaché de sentencias: " + pool.getAciertosCacheSentencias() + " aciertos, " +
+                pool.getFallosCacheSentencias() + " fallos.");
+    }
+
+    /**
+     * Mide una operación que se invoca {@code operaciones} veces por ronda, con el índice de cada invocación.
+     *
+     * @param nombre El nombre de la prueba.
+     * @param operaciones El número de invocaciones por ronda.
+     * @param operacion La operación a medir.
+     */
+    private static void mide(String nombre, int operaciones, IntConsumer operacion) {
+        Medicion medicion = new Medicion(nombre);
+        for (int ronda = 0; ronda < CALENTAMIENTO + RONDAS; ronda++) {
+            boolean medir = ronda >= CALENTAMIENTO;
+            for (int i = 0; i < operaciones; i++) {
+                int indice = i;
+                medicion.ejecuta(medir, () -> operacion.accept(indice));
+            }
+        }
+        medicion.imprime();
+    }
+
+    /**
+     * Genera la matrícula española número {@code i} de la flota, distinta para cada índice.
+     *
+     * @param i El índice del vehículo.
+     * @return Una matrícula con el formato {@code DDDD LLL}.
+     */
+    private static String matricula(int i) {
+        int letras = i / 10_000;
+        return String.format("%04d %c%c%c", i % 10_000,
+                LETRAS.charAt(letras / (LETRAS.length() * LETRAS.length()) % LETRAS.length()),
+                LETRAS.charAt(letras / LETRAS.length() % LETRAS.length()),
+                LETRAS.charAt(letras % LETRAS.length()));
+    }
+
+    /**
+     * Tiempos y memoria reservada por las operaciones de una prueba.
+     */
+    private static final class Medicion {
+
+        /**
+         * Bean de la JVM que informa de la memoria reservada por cada hilo, o {@code null} si no lo permite.
+         */
+        private static final com.sun.management.ThreadMXBean HILOS = hilos();
+
+        /**
+         * Nombre de la prueba.
+         */
+        private final String NOMBRE;
+
+        /**
+         * Duración de cada operación medida, en nanosegundos.
+         */
+        private long[] tiempos = new long[1024];
+
+        /**
+         * Número de operaciones medidas.
+         */
+        private int operaciones;
+
+        /**
+         * Número de operaciones que han lanzado una excepción.
+         */
+        private int errores;
+
+        /**
+         * Memoria total reservada durante las operaciones medidas, en bytes.
+         */
+        private long bytes;
+
+        private Medicion(String nombre) {
+            NOMBRE = nombre;
+        }
+
+        /**
+         * Ejecuta una operación y, si se está midiendo, registra su duración y la memoria que reserva.
+         *
+         * @param medir {@code true} en las rondas de medida, {@code false} en las de calentamiento.
+         * @param operacion La operación.
+         */
+        private void ejecuta(boolean medir, Runnable operacion) {
+            long hilo = Thread.currentThread().getId();
+            long memoriaInicial = medir && HILOS != null ? HILOS.getThreadAllocatedBytes(hilo) : 0;
+            long inicio = System.nanoTime();
+            try {
+                operacion.run();
+            } catch (RuntimeException e) {
+                if (medir)
+                    errores++;
+            }
+            long duracion = System.nanoTime() - inicio;
+            if (!medir)
+                return;
+            if (HILOS != null)
+                bytes += HILOS.getThreadAllocatedBytes(hilo) - memoriaInicial;
+            if (operaciones == tiempos.length)
+                tiempos = Arrays.copyOf(tiempos, operaciones * 2);
+            tiempos[operaciones++] = duracion;
+        }
+
+        /**
+         * Muestra por consola el resumen de la prueba.
+         */
+        private void imprime() {
+            if (operaciones == 0) {
+                System.out.printf("%-36s %12s%n", NOMBRE, "sin datos");
+                return;
+            }
+            long[] ordenados = Arrays.copyOf(tiempos, operaciones);
+            Arrays.sort(ordenados);
+            long total = 0;
+            for (long t : ordenados) {
+                total += t;
+            }
+            double media = (double) total / operaciones;
+            System.out.printf("%-36s %12.0f %10.2f %10.2f %10.2f %10.2f %10s%s%n",
+                    NOMBRE, 1e9 / media, media / 1e3,
+                    percentil(ordenados, 0.50) / 1e3, percentil(ordenados, 0.99) / 1e3,
+                    ordenados[operaciones - 1] / 1e3,
+                    HILOS == null ? "-" : String.valueOf(bytes / operaciones),
+                    errores == 0 ? "" : "  (" + errores + " errores)");
+        }
+
+        /**
+         * Obtiene un percentil de una serie de tiempos ordenada.
+         *
+         * @param ordenados Los tiempos ordenados de menor a mayor.
+         * @param percentil El percentil, entre 0 y 1.
+         * @return El tiempo correspondiente al percentil.
+         */
+        private static long percentil(long[] ordenados, double percentil) {
+            int posicion = (int) Math.ceil(percentil * ordenados.length) - 1;
+            return ordenados[Math.max(0, Math.min(posicion, ordenados.length - 1))];
+        }
+
+        /**
+         * Obtiene el bean de hilos de la JVM si permite medir la memoria reservada por hilo.
+         *
+         * @return El bean, o {@code null} si la JVM no lo admite.
+         */
+        private static com.sun.management.ThreadMXBean hilos() {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                    && bean.isThreadAllocatedMemorySupported()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+                return bean;
+            }
+            return null;
+        }
+    }
+}